@@ -19,6 +19,7 @@ package org.apache.commons.imaging.bytesource;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.Objects;
 
@@ -100,6 +101,20 @@ public class ByteSource {
         return new InputStreamByteSource(is, name);
     }
 
+    /**
+     * Creates a ByteSource that memory-maps a file. Reads are served from the mapping, without opening the file or making a system call per read, and
+     * {@link #getByteBuffer(long, int)} returns slices of the mapping without copying. The file is mapped once, up front, and should not be modified while
+     * the byte source is in use.
+     *
+     * @param file the path.
+     * @return the ByteSource.
+     * @throws IOException if the file cannot be opened or mapped.
+     * @since 1.0.0-alpha7
+     */
+    public static ByteSource mapped(final Path file) throws IOException {
+        return new MappedByteSource(file, Objects.toString(file.getFileName(), null), MappedByteSource.MAX_CHUNK_SIZE);
+    }
+
     /**
      * Creates a ByteSource from a path.
      *
@@ -136,6 +151,20 @@ public class ByteSource {
         return origin.getByteArray(position, length);
     }
 
+    /**
+     * Gets a buffer holding the bytes from the specified position. Byte sources that map their data return a read-only view of it without copying; others
+     * wrap a copy.
+     *
+     * @param position the position.
+     * @param length the length.
+     * @return the buffer, positioned at zero, with big-endian byte order.
+     * @throws IOException if an I/O error occurs.
+     * @since 1.0.0-alpha7
+     */
+    public ByteBuffer getByteBuffer(final long position, final int length) throws IOException {
+        return ByteBuffer.wrap(getByteArray(position, length));
+    }
+
     /**
      * Gets the file name.
      *
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.bytesource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.Allocator;
+import org.apache.commons.io.build.AbstractOrigin.PathOrigin;
+
+/**
+ * A byte source backed by a memory-mapped file. Reads are served from the mapping without system calls, and {@link #getByteBuffer(long, int)} returns
+ * slices of the mapping itself. Files larger than a single mapping can address are mapped as a sequence of chunks.
+ */
+final class MappedByteSource extends ByteSource {
+
+    private final class MappedInputStream extends InputStream {
+
+        private long position;
+
+        private long mark;
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, size - position);
+        }
+
+        @Override
+        public synchronized void mark(final int readLimit) {
+            mark = position;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public int read() {
+            if (position >= size) {
+                return -1;
+            }
+            final int b = 0xff & chunks[(int) (position / chunkSize)].get((int) (position % chunkSize));
+            position++;
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] array, final int off, final int len) {
+            Objects.requireNonNull(array, "array");
+            if (off < 0 || len < 0 || off + len > array.length || off + len < 0) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= size) {
+                return -1;
+            }
+            final int count = (int) Math.min(len, size - position);
+            copy(position, array, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public synchronized void reset() {
+            position = mark;
+        }
+
+        @Override
+        public long skip(final long n) {
+            if (n <= 0) {
+                return 0;
+            }
+            final long skipped = Math.min(n, size - position);
+            position += skipped;
+            return skipped;
+        }
+    }
+
+    // the largest power of two a single ByteBuffer can address
+    static final int MAX_CHUNK_SIZE = 1 << 30;
+
+    private final ByteBuffer[] chunks;
+
+    private final int chunkSize;
+
+    private final long size;
+
+    MappedByteSource(final Path path, final String fileName, final int chunkSize) throws IOException {
+        super(new PathOrigin(path), fileName);
+        this.chunkSize = chunkSize;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size();
+            chunks = new ByteBuffer[(int) ((size + chunkSize - 1) / chunkSize)];
+            for (int i = 0; i < chunks.length; i++) {
+                final long chunkPosition = (long) i * chunkSize;
+                // the mapping stays valid once the channel is closed
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, chunkPosition, Math.min(chunkSize, size - chunkPosition));
+            }
+        }
+    }
+
+    private void checkRange(final long position, final int length) throws ImagingException {
+        // We include a separate check for long overflow.
+        if (position < 0 || length < 0 || position + length < 0 || position + length > size) {
+            throw new ImagingException("Could not read block (block start: " + position + ", block length: " + length + ", data length: " + size + ").");
+        }
+    }
+
+    private void copy(final long position, final byte[] array, final int offset, final int length) {
+        int done = 0;
+        while (done < length) {
+            final long from = position + done;
+            final int chunkOffset = (int) (from % chunkSize);
+            final ByteBuffer chunk = chunks[(int) (from / chunkSize)];
+            final int count = Math.min(length - done, chunk.limit() - chunkOffset);
+            slice(chunk, chunkOffset, count).get(array, offset + done, count);
+            done += count;
+        }
+    }
+
+    @Override
+    public byte[] getByteArray(final long position, final int length) throws IOException {
+        checkRange(position, length);
+        final byte[] bytes = Allocator.byteArray(length);
+        copy(position, bytes, 0, length);
+        return bytes;
+    }
+
+    /**
+     * Gets a read-only slice of the mapping, without copying. A range that straddles two chunks of a very large file is copied instead.
+     */
+    @Override
+    public ByteBuffer getByteBuffer(final long position, final int length) throws IOException {
+        checkRange(position, length);
+        if (length == 0) {
+            return ByteBuffer.allocate(0).asReadOnlyBuffer();
+        }
+        final int chunkOffset = (int) (position % chunkSize);
+        final ByteBuffer chunk = chunks[(int) (position / chunkSize)];
+        if (chunkOffset + length <= chunk.limit()) {
+            return slice(chunk, chunkOffset, length).asReadOnlyBuffer();
+        }
+        return ByteBuffer.wrap(getByteArray(position, length)).asReadOnlyBuffer();
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new MappedInputStream();
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    private static ByteBuffer slice(final ByteBuffer chunk, final int offset, final int length) {
+        final ByteBuffer duplicate = chunk.duplicate();
+        duplicate.position(offset);
+        duplicate.limit(offset + length);
+        return duplicate.slice();
+    }
+}
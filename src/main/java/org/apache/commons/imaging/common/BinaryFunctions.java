@@ -396,7 +396,7 @@ public final class BinaryFunctions {
         try {
             return in == null ? ArrayUtils.EMPTY_BYTE_ARRAY : IOUtils.toByteArray(in, Allocator.check(length));
         } catch (final IOException e) {
-            throw new IOException(exception + ", name: " + name + ", length: " + length);
+            throw new IOException(exception + ", name: " + name + ", length: " + length, e);
         }
     }
 
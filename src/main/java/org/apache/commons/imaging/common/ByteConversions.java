@@ -172,6 +172,22 @@ public final class ByteConversions {
         return result;
     }
 
+    /**
+     * Encodes an array of eight-byte (long) integers into an array of bytes based on the specified byte order.
+     *
+     * @param values    the long array.
+     * @param byteOrder the byte order to be used for encoding.
+     * @return an array of 8 bytes per value.
+     * @since 1.0.0-alpha7
+     */
+    public static byte[] toBytes(final long[] values, final ByteOrder byteOrder) {
+        final byte[] result = Allocator.byteArray(values.length * 8L);
+        for (int i = 0; i < values.length; i++) {
+            toBytes(values[i], byteOrder, result, i * 8);
+        }
+        return result;
+    }
+
     /**
      * Encodes an eight-byte (long) into an array of bytes based on the specified byte order.
      *
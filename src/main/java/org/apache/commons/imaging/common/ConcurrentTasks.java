@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.apache.commons.imaging.ImagingException;
+
+/**
+ * Runs tasks on an executor and gives their results to consumers in the order the tasks were added. At most a few tasks for each thread of the executor are
+ * pending at a time, which keeps the threads busy while bounding the memory the results take. Without an executor, each task runs on the calling thread as
+ * it is added.
+ * <p>
+ * A failure of a task is thrown where its result is waited for: I/O errors, runtime exceptions and errors as they are, and other exceptions wrapped in an
+ * {@link ImagingException}. Tasks still pending when the instance is closed are cancelled.
+ * </p>
+ * <p>
+ * This class is used by the readers and writers of this library and is not meant for applications.
+ * </p>
+ *
+ * @since 1.0.0-alpha7
+ */
+public final class ConcurrentTasks implements AutoCloseable {
+
+    /**
+     * Takes the result of a task.
+     *
+     * @param <T> the type of the result.
+     */
+    @FunctionalInterface
+    public interface ResultConsumer<T> {
+
+        /**
+         * Takes the result of a task.
+         *
+         * @param result the result.
+         * @throws ImagingException if the result is invalid.
+         * @throws IOException      if an I/O error occurs.
+         */
+        void accept(T result) throws ImagingException, IOException;
+    }
+
+    /**
+     * Processes a range of indices.
+     */
+    @FunctionalInterface
+    public interface RangeTask {
+
+        /**
+         * Processes a range of indices.
+         *
+         * @param start the first index.
+         * @param end   the index after the last.
+         * @throws ImagingException if the data is invalid.
+         * @throws IOException      if an I/O error occurs.
+         */
+        void run(int start, int end) throws ImagingException, IOException;
+    }
+
+    private static final class Pending<T> {
+        private final FutureTask<T> task;
+        private final ResultConsumer<? super T> consumer;
+
+        Pending(final FutureTask<T> task, final ResultConsumer<? super T> consumer) {
+            this.task = task;
+            this.consumer = consumer;
+        }
+    }
+
+    // a few tasks for each thread keep the threads busy when the tasks take unequal times
+    private static final int TASKS_PER_THREAD = 4;
+
+    /**
+     * Processes the indices from 0 to {@code count}, split into a few ranges for each thread of the executor, and waits for all of them.
+     *
+     * @param executor  the executor, or null to process all the indices on the calling thread.
+     * @param count     the number of indices.
+     * @param task      processes a range of indices, possibly concurrently with other ranges.
+     * @param operation what the task does, such as "reading TIFF image data", for the messages of exceptions.
+     * @throws ImagingException if the data is invalid or the calling thread is interrupted.
+     * @throws IOException      if an I/O error occurs.
+     */
+    public static void forEachRange(final Executor executor, final int count, final RangeTask task, final String operation)
+            throws ImagingException, IOException {
+        final int taskCount = executor == null ? 1 : Math.min(count, getTaskCount(executor));
+        if (taskCount < 2) {
+            task.run(0, count);
+            return;
+        }
+        try (ConcurrentTasks tasks = new ConcurrentTasks(executor, operation)) {
+            for (int t = 0; t < taskCount; t++) {
+                final int start = (int) ((long) count * t / taskCount);
+                final int end = (int) ((long) count * (t + 1) / taskCount);
+                tasks.add(() -> {
+                    task.run(start, end);
+                    return null;
+                }, result -> {
+                    // the ranges have no results
+                });
+            }
+            tasks.finish();
+        }
+    }
+
+    /**
+     * Gets the number of threads of an executor: the parallelism of a fork-join pool, the core size of a thread pool, and the number of processors for a
+     * pool without core threads or any other executor.
+     *
+     * @param executor the executor.
+     * @return the number of threads, at least one.
+     */
+    public static int getParallelism(final Executor executor) {
+        if (executor instanceof ForkJoinPool) {
+            return ((ForkJoinPool) executor).getParallelism();
+        }
+        if (executor instanceof ThreadPoolExecutor && ((ThreadPoolExecutor) executor).getCorePoolSize() > 0) {
+            return ((ThreadPoolExecutor) executor).getCorePoolSize();
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Gets the number of tasks worth running at once on an executor, a few for each of its threads.
+     *
+     * @param executor the executor.
+     * @return the number of tasks.
+     */
+    public static int getTaskCount(final Executor executor) {
+        return TASKS_PER_THREAD * getParallelism(executor);
+    }
+
+    private final Executor executor;
+    private final String operation;
+    private final int maxPending;
+    private final Queue<Pending<?>> pending = new ArrayDeque<>();
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param executor  the executor, or null to run each task on the calling thread as it is added.
+     * @param operation what the tasks do, such as "writing PNG image data", for the messages of exceptions.
+     */
+    public ConcurrentTasks(final Executor executor, final String operation) {
+        this.executor = executor;
+        this.operation = operation;
+        this.maxPending = executor == null ? 0 : getTaskCount(executor);
+    }
+
+    /**
+     * Adds a task. If as many tasks as are worth running at once are pending, the oldest is waited for first and its result given to its consumer.
+     *
+     * @param <T>      the type of the result.
+     * @param task     the task.
+     * @param consumer takes the result of the task, on the calling thread, once the results of the tasks added before it have been taken.
+     * @throws ImagingException if a task or consumer fails or the calling thread is interrupted.
+     * @throws IOException      if an I/O error occurs in a task or consumer.
+     */
+    public <T> void add(final Callable<T> task, final ResultConsumer<? super T> consumer) throws ImagingException, IOException {
+        final FutureTask<T> futureTask = new FutureTask<>(task);
+        if (executor == null) {
+            futureTask.run();
+            consumer.accept(getResult(futureTask));
+            return;
+        }
+        if (pending.size() >= maxPending) {
+            takeOldest();
+        }
+        pending.add(new Pending<>(futureTask, consumer));
+        executor.execute(futureTask);
+    }
+
+    /**
+     * Cancels the tasks that are still pending.
+     */
+    @Override
+    public void close() {
+        for (final Pending<?> p : pending) {
+            p.task.cancel(false);
+        }
+        pending.clear();
+    }
+
+    /**
+     * Waits for the pending tasks, giving their results to their consumers in order.
+     *
+     * @throws ImagingException if a task or consumer fails or the calling thread is interrupted.
+     * @throws IOException      if an I/O error occurs in a task or consumer.
+     */
+    public void finish() throws ImagingException, IOException {
+        while (!pending.isEmpty()) {
+            takeOldest();
+        }
+    }
+
+    private <T> T getResult(final FutureTask<T> task) throws ImagingException, IOException {
+        try {
+            return task.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImagingException("Interrupted while " + operation, e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ImagingException("Error " + operation, cause);
+        }
+    }
+
+    private <T> void take(final Pending<T> p) throws ImagingException, IOException {
+        p.consumer.accept(getResult(p.task));
+    }
+
+    private void takeOldest() throws ImagingException, IOException {
+        take(pending.remove());
+    }
+}
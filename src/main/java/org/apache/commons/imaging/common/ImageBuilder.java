@@ -264,4 +264,22 @@ public final class ImageBuilder {
         }
         data[index] = argb;
     }
+
+    /**
+     * Sets the RGB or ARGB values for a run of pixels within a row of the image builder pixel field.
+     *
+     * @param x      the X coordinate of the first pixel to be set.
+     * @param y      the Y coordinate of the row.
+     * @param argb   the RGB or ARGB values to be stored.
+     * @param offset the index in {@code argb} of the value of the first pixel.
+     * @param count  the number of pixels.
+     * @throws IllegalArgumentException if the pixels are not all within a row of the image builder.
+     * @since 1.0.0-alpha7
+     */
+    public void setRgb(final int x, final int y, final int[] argb, final int offset, final int count) {
+        if (x < 0 || y < 0 || y >= height || count < 0 || count > width - x) {
+            throw new IllegalArgumentException("setRGB: Illegal pixel run.");
+        }
+        System.arraycopy(argb, offset, data, y * width + x, count);
+    }
 }
@@ -0,0 +1,352 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.gif;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.AbstractBinaryOutputStream;
+import org.apache.commons.imaging.common.Allocator;
+import org.apache.commons.imaging.common.ConcurrentTasks;
+import org.apache.commons.imaging.mylzw.MyLzwCompressor;
+import org.apache.commons.imaging.palette.Palette;
+import org.apache.commons.imaging.palette.PaletteFactory;
+
+/**
+ * Writes a sequence of images as a GIF animation.
+ * <p>
+ * Every frame after the first only covers the smallest rectangle in which it differs from the frame before it, and pixels inside that rectangle which did
+ * not change are written with the transparent index, which leaves them as they are and compresses well. Frames are disposed of with
+ * {@link DisposalMethod#DO_NOT_DISPOSE}, unless the next frame turns opaque pixels transparent, in which case the frame is widened to cover those pixels and
+ * restored to the (transparent) background.
+ * </p>
+ * <p>
+ * The rectangle and disposal method of each frame are worked out on the calling thread, one frame ahead of the frame being written. The color indices of
+ * each frame are then mapped and compressed by a task on the executor of the parameters, if one is set.
+ * </p>
+ */
+final class GifAnimationWriter {
+
+    /**
+     * A rectangle of the logical screen, empty while {@code right <= left}.
+     */
+    private static final class Bounds {
+
+        private int left = Integer.MAX_VALUE;
+        private int top = Integer.MAX_VALUE;
+        private int right = Integer.MIN_VALUE;
+        private int bottom = Integer.MIN_VALUE;
+
+        Bounds() {
+        }
+
+        Bounds(final int left, final int top, final int right, final int bottom) {
+            this.left = left;
+            this.top = top;
+            this.right = right;
+            this.bottom = bottom;
+        }
+
+        void add(final Bounds bounds) {
+            if (!bounds.isEmpty()) {
+                left = Math.min(left, bounds.left);
+                top = Math.min(top, bounds.top);
+                right = Math.max(right, bounds.right);
+                bottom = Math.max(bottom, bounds.bottom);
+            }
+        }
+
+        void add(final int x, final int y) {
+            left = Math.min(left, x);
+            top = Math.min(top, y);
+            right = Math.max(right, x + 1);
+            bottom = Math.max(bottom, y + 1);
+        }
+
+        boolean contains(final int x, final int y) {
+            return x >= left && x < right && y >= top && y < bottom;
+        }
+
+        int getHeight() {
+            return bottom - top;
+        }
+
+        int getWidth() {
+            return right - left;
+        }
+
+        boolean isEmpty() {
+            return right <= left;
+        }
+    }
+
+    /**
+     * Maps the pixels of a frame to color indices and compresses them into the complete frame, from its graphic control extension to its last sub-block.
+     */
+    private static final class FrameEncoder implements Callable<byte[]> {
+
+        private final BufferedImage image;
+        private final BufferedImage previousImage;
+        private final Bounds cleared;
+        private final Bounds bounds;
+        private final DisposalMethod disposalMethod;
+        private final int delay;
+        private final Palette globalPalette;
+
+        FrameEncoder(final BufferedImage image, final BufferedImage previousImage, final Bounds cleared, final Bounds bounds,
+                final DisposalMethod disposalMethod, final int delay, final Palette globalPalette) {
+            this.image = image;
+            this.previousImage = previousImage;
+            this.cleared = cleared;
+            this.bounds = bounds;
+            this.disposalMethod = disposalMethod;
+            this.delay = delay;
+            this.globalPalette = globalPalette;
+        }
+
+        @Override
+        public byte[] call() throws ImagingException, IOException {
+            final int width = bounds.getWidth();
+            final int height = bounds.getHeight();
+            final int[] argbs = image.getRGB(bounds.left, bounds.top, width, height, null, 0, width);
+            final int[] previousArgbs = previousImage == null ? null : previousImage.getRGB(bounds.left, bounds.top, width, height, null, 0, width);
+            final Palette palette = globalPalette != null ? globalPalette : createPalette(image.getSubimage(bounds.left, bounds.top, width, height));
+            final int transparentIndex = palette.length();
+            final int colorTableScaleLessOne = getColorTableScaleLessOne(palette.length() + 1);
+
+            final byte[] imageData = Allocator.byteArray(width * height);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    final int i = y * width + x;
+                    final int argb = argbs[i];
+                    final int index;
+                    if (!isOpaque(argb)) {
+                        index = transparentIndex;
+                    } else if (previousArgbs != null && previousArgbs[i] == argb && !cleared.contains(bounds.left + x, bounds.top + y)) {
+                        // unchanged, leave the previous frame showing
+                        index = transparentIndex;
+                    } else {
+                        index = palette.getPaletteIndex(0xffffff & argb);
+                        if (index < 0) {
+                            throw new ImagingException("Gif: color missing from the palette: " + Integer.toHexString(argb));
+                        }
+                    }
+                    imageData[i] = (byte) index;
+                }
+            }
+
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try (AbstractBinaryOutputStream bos = AbstractBinaryOutputStream.littleEndian(baos)) {
+                bos.write(GifImageParser.EXTENSION_CODE);
+                bos.write(GRAPHIC_CONTROL_EXTENSION_LABEL);
+                bos.write(4); // block size
+                bos.write(disposalMethod.ordinal() << 2 | 1); // disposal method, transparency flag
+                bos.write2Bytes(delay);
+                bos.write(transparentIndex);
+                bos.write(0); // terminator
+
+                bos.write(GifImageParser.IMAGE_SEPARATOR);
+                bos.write2Bytes(bounds.left);
+                bos.write2Bytes(bounds.top);
+                bos.write2Bytes(width);
+                bos.write2Bytes(height);
+                if (globalPalette == null) {
+                    bos.write(GifImageParser.LOCAL_COLOR_TABLE_FLAG_MASK | colorTableScaleLessOne);
+                    writeColorTable(bos, palette, colorTableScaleLessOne);
+                } else {
+                    bos.write(0);
+                }
+
+                final int lzwMinimumCodeSize = Math.max(2, colorTableScaleLessOne + 1);
+                bos.write(lzwMinimumCodeSize);
+                final byte[] compressed = new MyLzwCompressor(lzwMinimumCodeSize, ByteOrder.LITTLE_ENDIAN, false).compress(imageData);
+                GifImageParser.writeAsSubBlocks(compressed, bos);
+            }
+            return baos.toByteArray();
+        }
+    }
+
+    private static final int GRAPHIC_CONTROL_EXTENSION_LABEL = 0xf9;
+    private static final int APPLICATION_EXTENSION_LABEL = 0xff;
+    private static final byte[] NETSCAPE_APPLICATION_ID_AND_AUTH_CODE = "NETSCAPE2.0".getBytes(StandardCharsets.US_ASCII);
+    private static final int GLOBAL_COLOR_TABLE_FLAG_MASK = 1 << 7;
+    // one index is always kept for transparent and unchanged pixels
+    private static final int MAX_COLORS = 255;
+
+    private static Palette createPalette(final BufferedImage image) {
+        final PaletteFactory paletteFactory = new PaletteFactory();
+        final Palette palette = paletteFactory.makeExactRgbPaletteSimple(image, MAX_COLORS);
+        return palette != null ? palette : paletteFactory.makeQuantizedRgbPalette(image, MAX_COLORS);
+    }
+
+    private static int getColorTableScaleLessOne(final int paletteSize) {
+        return paletteSize > 128 ? 7 : paletteSize > 64 ? 6 : paletteSize > 32 ? 5 : paletteSize > 16 ? 4 : paletteSize > 8 ? 3 : paletteSize > 4 ? 2
+                : paletteSize > 2 ? 1 : 0;
+    }
+
+    private static boolean isOpaque(final int argb) {
+        return argb >>> 24 == 0xff;
+    }
+
+    private static void writeColorTable(final OutputStream os, final Palette palette, final int colorTableScaleLessOne) throws IOException {
+        final int colorTableSize = 1 << colorTableScaleLessOne + 1;
+        for (int i = 0; i < colorTableSize; i++) {
+            final int rgb = i < palette.length() ? palette.getEntry(i) : 0;
+            os.write(0xff & rgb >> 16);
+            os.write(0xff & rgb >> 8);
+            os.write(0xff & rgb);
+        }
+    }
+
+    private final GifImageParser parser;
+    private final GifImagingParameters params;
+
+    GifAnimationWriter(final GifImageParser parser, final GifImagingParameters params) {
+        this.parser = parser;
+        this.params = params;
+    }
+
+    /**
+     * Gets the pixels of the whole frame.
+     */
+    private int[] getArgbs(final BufferedImage image) {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        Allocator.check((long) width * height, Integer.BYTES);
+        return image.getRGB(0, 0, width, height, null, 0, width);
+    }
+
+    /**
+     * Builds one palette for all frames, exact if they share at most {@link #MAX_COLORS} opaque colors, otherwise quantized from all of them.
+     */
+    private Palette createGlobalPalette(final List<BufferedImage> images) {
+        // the palette is made before any frame is encoded, so counting colors on the executor cannot wait on the frames
+        final PaletteFactory paletteFactory = new PaletteFactory(params.getExecutor());
+        final Palette palette = paletteFactory.makeExactOpaqueRgbPalette(images, MAX_COLORS);
+        return palette != null ? palette : paletteFactory.makeQuantizedRgbPalette(images, MAX_COLORS);
+    }
+
+    /**
+     * Gets the area a frame has to cover: every opaque pixel that differs from the screen left by the previous frame.
+     */
+    private Bounds getChangedBounds(final int[] argbs, final int[] previousArgbs, final Bounds cleared, final int width) {
+        final Bounds changed = new Bounds();
+        for (int i = 0; i < argbs.length; i++) {
+            final int argb = argbs[i];
+            if (isOpaque(argb)) {
+                final int x = i % width;
+                final int y = i / width;
+                if (argb != previousArgbs[i] || cleared.contains(x, y)) {
+                    changed.add(x, y);
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Gets the area of opaque pixels that turn transparent in the next frame, which the current frame must clear when it is disposed of.
+     */
+    private Bounds getClearedBounds(final int[] argbs, final int[] nextArgbs, final int width) {
+        final Bounds cleared = new Bounds();
+        for (int i = 0; i < argbs.length; i++) {
+            if (isOpaque(argbs[i]) && !isOpaque(nextArgbs[i])) {
+                cleared.add(i % width, i / width);
+            }
+        }
+        return cleared;
+    }
+
+    void writeImages(final List<BufferedImage> images, final int[] delays, final OutputStream os) throws ImagingException, IOException {
+        final int width = images.get(0).getWidth();
+        final int height = images.get(0).getHeight();
+        for (final BufferedImage image : images) {
+            if (image.getWidth() != width || image.getHeight() != height) {
+                throw new ImagingException(String.format("Gif: frame size %dx%d differs from the first frame %dx%d", image.getWidth(), image.getHeight(),
+                        width, height));
+            }
+        }
+        final Palette globalPalette = params.isGlobalColorTable() ? createGlobalPalette(images) : null;
+
+        // a few frames per thread are encoded ahead of the one being written, which bounds the memory they take
+        try (AbstractBinaryOutputStream bos = AbstractBinaryOutputStream.littleEndian(os);
+                ConcurrentTasks tasks = new ConcurrentTasks(params.getExecutor(), "writing GIF frame")) {
+            bos.write(new byte[] { 0x47, 0x49, 0x46, 0x38, 0x39, 0x61 }); // GIF89a
+
+            // Logical Screen Descriptor.
+            bos.write2Bytes(width);
+            bos.write2Bytes(height);
+            final int colorTableScaleLessOne = globalPalette == null ? 0 : getColorTableScaleLessOne(globalPalette.length() + 1);
+            bos.write((globalPalette == null ? 0 : GLOBAL_COLOR_TABLE_FLAG_MASK) | colorTableScaleLessOne << 4 | colorTableScaleLessOne);
+            bos.write(0); // background color index
+            bos.write(0); // pixel aspect ratio
+            if (globalPalette != null) {
+                writeColorTable(bos, globalPalette, colorTableScaleLessOne);
+            }
+
+            // Netscape looping extension
+            bos.write(GifImageParser.EXTENSION_CODE);
+            bos.write(APPLICATION_EXTENSION_LABEL);
+            bos.write(NETSCAPE_APPLICATION_ID_AND_AUTH_CODE.length);
+            bos.write(NETSCAPE_APPLICATION_ID_AND_AUTH_CODE);
+            bos.write(3); // sub-block size
+            bos.write(1); // sub-block id
+            bos.write2Bytes(params.getLoopCount());
+            bos.write(0); // terminator
+
+            final String xmpXml = params.getXmpXml();
+            if (xmpXml != null) {
+                parser.writeXmpXml(bos, xmpXml);
+            }
+
+            BufferedImage previousImage = null;
+            int[] previousArgbs = null;
+            int[] argbs = getArgbs(images.get(0));
+            Bounds cleared = new Bounds();
+            for (int i = 0; i < images.size(); i++) {
+                final int[] nextArgbs = i + 1 < images.size() ? getArgbs(images.get(i + 1)) : null;
+                final Bounds bounds = previousArgbs == null ? new Bounds(0, 0, width, height) : getChangedBounds(argbs, previousArgbs, cleared, width);
+                final Bounds nextCleared = nextArgbs == null ? new Bounds() : getClearedBounds(argbs, nextArgbs, width);
+                bounds.add(nextCleared);
+                if (bounds.isEmpty()) {
+                    // an unchanged frame still needs a pixel to hold its delay
+                    bounds.add(0, 0);
+                }
+                final DisposalMethod disposalMethod = nextCleared.isEmpty() ? DisposalMethod.DO_NOT_DISPOSE : DisposalMethod.RESTORE_TO_BACKGROUND;
+
+                final BufferedImage image = images.get(i);
+                tasks.add(new FrameEncoder(image, previousImage, cleared, bounds, disposalMethod, delays[i], globalPalette), bos::write);
+
+                // the disposed frame leaves the whole of its rectangle transparent
+                cleared = disposalMethod == DisposalMethod.RESTORE_TO_BACKGROUND ? bounds : new Bounds();
+                previousImage = image;
+                previousArgbs = argbs;
+                argbs = nextArgbs;
+            }
+            tasks.finish();
+
+            bos.write(GifImageParser.TERMINATOR_BYTE);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.gif;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * A frame of a GIF animation, composited onto the logical screen.
+ *
+ * @see GifFrameIterator
+ * @since 1.0.0-alpha7
+ */
+public final class GifFrame {
+
+    private final int index;
+    private final BufferedImage image;
+    private final int delay;
+    private final DisposalMethod disposalMethod;
+
+    GifFrame(final int index, final BufferedImage image, final int delay, final DisposalMethod disposalMethod) {
+        this.index = index;
+        this.image = image;
+        this.delay = delay;
+        this.disposalMethod = disposalMethod;
+    }
+
+    /**
+     * Gets the frame delay, in hundredths of a second, as stored in the file.
+     *
+     * @return the delay, 0 if the frame has no graphic control extension.
+     */
+    public int getDelay() {
+        return delay;
+    }
+
+    /**
+     * Gets the disposal method of this frame, applied before the next frame is drawn.
+     *
+     * @return the disposal method.
+     */
+    public DisposalMethod getDisposalMethod() {
+        return disposalMethod;
+    }
+
+    /**
+     * Gets the composited logical screen.
+     * <p>
+     * The image is shared by all frames of a {@link GifFrameIterator} and is overwritten when the next frame is read, copy it to keep it.
+     * </p>
+     *
+     * @return the logical screen, as an ARGB image.
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Gets the zero-based index of this frame in the animation.
+     *
+     * @return the index.
+     */
+    public int getIndex() {
+        return index;
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.gif;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.ImagingRuntimeException;
+import org.apache.commons.imaging.common.Allocator;
+
+/**
+ * Reads the frames of a GIF animation one at a time, each composited onto the logical screen.
+ * <p>
+ * A frame is read and decoded only when it is requested, and is drawn over the logical screen left by the previous frame after that frame's
+ * {@link DisposalMethod} has been applied. The logical screen starts out fully transparent, and {@link DisposalMethod#RESTORE_TO_BACKGROUND} clears the
+ * disposed frame to transparent, as web browsers do. All frames share a single image, see {@link GifFrame#getImage()}.
+ * </p>
+ * <p>
+ * Errors while reading a frame are thrown from {@link #hasNext()} and {@link #next()} as an {@link ImagingRuntimeException} caused by the original
+ * {@link IOException}.
+ * </p>
+ *
+ * @see GifImageParser#getFrameIterator(org.apache.commons.imaging.bytesource.ByteSource)
+ * @since 1.0.0-alpha7
+ */
+public final class GifFrameIterator implements Iterator<GifFrame>, Closeable {
+
+    private static final int[] INTERLACE_START = { 0, 4, 2, 1 };
+    private static final int[] INTERLACE_STEP = { 8, 8, 4, 2 };
+
+    private final GifImageParser parser;
+    private final InputStream is;
+    private final GifHeaderInfo ghi;
+    private final int[] globalColorTable;
+    private final int width;
+    private final int height;
+    private final BufferedImage image;
+    private final int[] canvas;
+
+    // the area of the canvas under the last frame before it was drawn, only kept for RESTORE_TO_PREVIOUS
+    private int[] previous;
+    private GraphicControlExtension gce;
+    // the disposal method and clipped area of the last frame, applied before the next frame is drawn
+    private DisposalMethod disposalMethod = DisposalMethod.UNSPECIFIED;
+    private int disposalLeft;
+    private int disposalTop;
+    private int disposalRight;
+    private int disposalBottom;
+    private int index;
+    // 1 once the image separator of the next frame is read, -1 once the trailer is read, 0 if not read yet
+    private int state;
+
+    GifFrameIterator(final GifImageParser parser, final InputStream is) throws ImagingException, IOException {
+        this.parser = parser;
+        this.is = is;
+        ghi = parser.readHeader(is, null);
+        globalColorTable = ghi.globalColorTableFlag ? parser.getColorTable(parser.readColorTable(is, ghi.sizeOfGlobalColorTable)) : null;
+        width = ghi.logicalScreenWidth;
+        height = ghi.logicalScreenHeight;
+        if (width < 1 || height < 1) {
+            throw new ImagingException(String.format("GIF: Invalid logical screen size %dx%d", width, height));
+        }
+        Allocator.check((long) width * height, Integer.BYTES);
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        canvas = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    @Override
+    public void close() throws IOException {
+        is.close();
+    }
+
+    private void dispose() {
+        switch (disposalMethod) {
+        case RESTORE_TO_BACKGROUND:
+            for (int y = disposalTop; y < disposalBottom; y++) {
+                Arrays.fill(canvas, y * width + disposalLeft, y * width + disposalRight, 0);
+            }
+            break;
+        case RESTORE_TO_PREVIOUS:
+            final int length = disposalRight - disposalLeft;
+            for (int y = disposalTop; y < disposalBottom; y++) {
+                System.arraycopy(previous, (y - disposalTop) * length, canvas, y * width + disposalLeft, length);
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    private void draw(final ImageDescriptor id, final int[] colorTable, final int transparentIndex) throws ImagingException {
+        final byte[] imageData = id.imageData;
+        if (imageData.length < id.imageWidth * id.imageHeight) {
+            throw new ImagingException(String.format("Invalid GIF image data length [%d], smaller than the image size [%dx%d]", imageData.length,
+                    id.imageWidth, id.imageHeight));
+        }
+        final int passes = id.interlaceFlag ? INTERLACE_START.length : 1;
+        int row = 0;
+        for (int pass = 0; pass < passes; pass++) {
+            final int step = id.interlaceFlag ? INTERLACE_STEP[pass] : 1;
+            for (int y = id.interlaceFlag ? INTERLACE_START[pass] : 0; y < id.imageHeight; y += step, row++) {
+                final int screenY = id.imageTopPosition + y;
+                if (screenY >= height) {
+                    continue;
+                }
+                int offset = row * id.imageWidth;
+                int position = screenY * width + id.imageLeftPosition;
+                final int end = screenY * width + Math.min(id.imageLeftPosition + id.imageWidth, width);
+                for (; position < end; offset++, position++) {
+                    final int colorIndex = 0xff & imageData[offset];
+                    if (colorIndex == transparentIndex) {
+                        continue;
+                    }
+                    if (colorIndex >= colorTable.length) {
+                        throw new ImagingException(
+                                String.format("Invalid GIF color table index [%d], greater than the color table length [%d]", colorIndex, colorTable.length));
+                    }
+                    canvas[position] = colorTable[colorIndex];
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (state == 0) {
+            try {
+                state = readToImageSeparator() ? 1 : -1;
+            } catch (final IOException e) {
+                throw new ImagingRuntimeException("GIF: Couldn't read frame " + index, e);
+            }
+        }
+        return state > 0;
+    }
+
+    @Override
+    public GifFrame next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        state = 0;
+        try {
+            return readFrame();
+        } catch (final IOException e) {
+            throw new ImagingRuntimeException("GIF: Couldn't read frame " + index, e);
+        }
+    }
+
+    private GifFrame readFrame() throws ImagingException, IOException {
+        final ImageDescriptor id = parser.readImageDescriptor(ghi, GifImageParser.IMAGE_SEPARATOR, is, false, null);
+        final GraphicControlExtension frameGce = gce;
+        gce = null;
+
+        final int[] colorTable;
+        if (id.localColorTable != null) {
+            colorTable = parser.getColorTable(id.localColorTable);
+        } else if (globalColorTable != null) {
+            colorTable = globalColorTable;
+        } else {
+            throw new ImagingException("Gif: No Color Table");
+        }
+        final DisposalMethod frameDisposalMethod = frameGce == null ? DisposalMethod.UNSPECIFIED
+                : GifImageParser.createDisposalMethodFromIntValue(frameGce.dispose);
+        final int transparentIndex = frameGce != null && frameGce.transparency ? frameGce.transparentColorIndex : -1;
+
+        dispose();
+        disposalMethod = frameDisposalMethod;
+        disposalLeft = Math.min(id.imageLeftPosition, width);
+        disposalTop = Math.min(id.imageTopPosition, height);
+        disposalRight = Math.min(id.imageLeftPosition + id.imageWidth, width);
+        disposalBottom = Math.min(id.imageTopPosition + id.imageHeight, height);
+        if (disposalMethod == DisposalMethod.RESTORE_TO_PREVIOUS) {
+            savePrevious();
+        }
+        draw(id, colorTable, transparentIndex);
+
+        return new GifFrame(index++, image, frameGce == null ? 0 : frameGce.delay, frameDisposalMethod);
+    }
+
+    private boolean readToImageSeparator() throws ImagingException, IOException {
+        while (true) {
+            final int code = is.read();
+
+            switch (code) {
+            case -1:
+                throw new ImagingException("GIF: unexpected end of data");
+
+            case GifImageParser.IMAGE_SEPARATOR:
+                return true;
+
+            case GifImageParser.EXTENSION_CODE:
+                final GifBlock block = parser.readExtension(is, null);
+                if (block instanceof GraphicControlExtension) {
+                    gce = (GraphicControlExtension) block;
+                }
+                break;
+
+            case GifImageParser.TERMINATOR_BYTE:
+                return false;
+
+            case 0x00: // bad byte, but keep going and see what happens
+                break;
+
+            default:
+                throw new ImagingException("GIF: unknown code: " + code);
+            }
+        }
+    }
+
+    private void savePrevious() {
+        final int length = disposalRight - disposalLeft;
+        final int size = length * (disposalBottom - disposalTop);
+        if (previous == null || previous.length < size) {
+            previous = Allocator.intArray(size);
+        }
+        for (int y = disposalTop; y < disposalBottom; y++) {
+            System.arraycopy(canvas, y * width + disposalLeft, previous, (y - disposalTop) * length, length);
+        }
+    }
+}
@@ -18,7 +18,6 @@ package org.apache.commons.imaging.formats.gif;
 
 import java.awt.Dimension;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -59,16 +58,16 @@ public class GifImageParser extends AbstractImageParser<GifImagingParameters> im
     private static final String DEFAULT_EXTENSION = ImageFormats.GIF.getDefaultExtension();
     private static final String[] ACCEPTED_EXTENSIONS = ImageFormats.GIF.getExtensions();
     private static final byte[] GIF_HEADER_SIGNATURE = { 71, 73, 70 };
-    private static final int EXTENSION_CODE = 0x21;
-    private static final int IMAGE_SEPARATOR = 0x2C;
+    static final int EXTENSION_CODE = 0x21;
+    static final int IMAGE_SEPARATOR = 0x2C;
     private static final int GRAPHIC_CONTROL_EXTENSION = EXTENSION_CODE << 8 | 0xf9;
     private static final int COMMENT_EXTENSION = 0xfe;
     private static final int PLAIN_TEXT_EXTENSION = 0x01;
     private static final int XMP_EXTENSION = 0xff;
-    private static final int TERMINATOR_BYTE = 0x3b;
+    static final int TERMINATOR_BYTE = 0x3b;
     private static final int APPLICATION_EXTENSION_LABEL = 0xff;
     private static final int XMP_COMPLETE_CODE = EXTENSION_CODE << 8 | XMP_EXTENSION;
-    private static final int LOCAL_COLOR_TABLE_FLAG_MASK = 1 << 7;
+    static final int LOCAL_COLOR_TABLE_FLAG_MASK = 1 << 7;
     private static final int INTERLACE_FLAG_MASK = 1 << 6;
     private static final int SORT_FLAG_MASK = 1 << 5;
     private static final byte[] XMP_APPLICATION_ID_AND_AUTH_CODE = { 0x58, // X
@@ -334,7 +333,7 @@ public class GifImageParser extends AbstractImageParser<GifImagingParameters> im
         return imageBuilder.getBufferedImage();
     }
 
-    private int[] getColorTable(final byte[] bytes) throws ImagingException {
+    int[] getColorTable(final byte[] bytes) throws ImagingException {
         if (bytes.length % 3 != 0) {
             throw new ImagingException("Bad Color Table Length: " + bytes.length);
         }
@@ -389,6 +388,30 @@ public class GifImageParser extends AbstractImageParser<GifImagingParameters> im
         return result;
     }
 
+    /**
+     * Gets an iterator over the frames of a GIF animation, each composited onto the logical screen according to the disposal methods of the frames
+     * before it.
+     * <p>
+     * Unlike {@link #getAllBufferedImages(ByteSource)}, which decodes every frame on its own before returning, frames are read and decoded only as the
+     * iterator advances, and all of them are drawn into a single image. The iterator holds the input stream of the byte source open until it is closed.
+     * </p>
+     *
+     * @param byteSource the GIF image.
+     * @return the frame iterator, to be closed by the caller.
+     * @throws ImagingException if the header of the image is invalid.
+     * @throws IOException      if an I/O error occurs.
+     * @since 1.0.0-alpha7
+     */
+    public GifFrameIterator getFrameIterator(final ByteSource byteSource) throws ImagingException, IOException {
+        final InputStream is = byteSource.getInputStream();
+        try {
+            return new GifFrameIterator(this, is);
+        } catch (final IOException | RuntimeException e) {
+            is.close();
+            throw e;
+        }
+    }
+
     @Override
     public byte[] getIccProfileBytes(final ByteSource byteSource, final GifImagingParameters params) throws ImagingException, IOException {
         return null;
@@ -566,51 +589,11 @@ public class GifImageParser extends AbstractImageParser<GifImagingParameters> im
 
                 break;
 
-            case EXTENSION_CODE: {
-                final int extensionCode = is.read();
-                final int completeCode = (0xff & code) << 8 | 0xff & extensionCode;
-
-                switch (extensionCode) {
-                case 0xf9:
-                    final GraphicControlExtension gce = readGraphicControlExtension(completeCode, is);
-                    result.add(gce);
-                    break;
-
-                case COMMENT_EXTENSION:
-                case PLAIN_TEXT_EXTENSION: {
-                    final GenericGifBlock block = readGenericGifBlock(is, completeCode);
+            case EXTENSION_CODE:
+                final GifBlock block = readExtension(is, formatCompliance);
+                if (block != null) {
                     result.add(block);
-                    break;
                 }
-
-                case APPLICATION_EXTENSION_LABEL: {
-                    // 255 (hex 0xFF) Application
-                    // Extension Label
-                    final byte[] label = readSubBlock(is);
-
-                    if (formatCompliance != null) {
-                        formatCompliance.addComment("Unknown Application Extension (" + new String(label, StandardCharsets.US_ASCII) + ")", completeCode);
-                    }
-
-                    if (label.length > 0) {
-                        final GenericGifBlock block = readGenericGifBlock(is, completeCode, label);
-                        result.add(block);
-                    }
-                    break;
-                }
-
-                default: {
-
-                    if (formatCompliance != null) {
-                        formatCompliance.addComment("Unknown block", completeCode);
-                    }
-
-                    final GenericGifBlock block = readGenericGifBlock(is, completeCode);
-                    result.add(block);
-                    break;
-                }
-                }
-            }
                 break;
 
             case TERMINATOR_BYTE:
@@ -625,12 +608,53 @@ public class GifImageParser extends AbstractImageParser<GifImagingParameters> im
         }
     }
 
-    private byte[] readColorTable(final InputStream is, final int tableSize) throws IOException {
+    byte[] readColorTable(final InputStream is, final int tableSize) throws IOException {
         final int actualSize = convertColorTableSize(tableSize);
 
         return BinaryFunctions.readBytes("block", is, actualSize, "GIF: corrupt Color Table");
     }
 
+    /**
+     * Reads an extension block, the extension introducer having already been read.
+     *
+     * @return the block, or null for an application extension without a label.
+     */
+    GifBlock readExtension(final InputStream is, final FormatCompliance formatCompliance) throws IOException {
+        final int extensionCode = is.read();
+        final int completeCode = (0xff & EXTENSION_CODE) << 8 | 0xff & extensionCode;
+
+        switch (extensionCode) {
+        case 0xf9:
+            return readGraphicControlExtension(completeCode, is);
+
+        case COMMENT_EXTENSION:
+        case PLAIN_TEXT_EXTENSION:
+            return readGenericGifBlock(is, completeCode);
+
+        case APPLICATION_EXTENSION_LABEL: {
+            // 255 (hex 0xFF) Application
+            // Extension Label
+            final byte[] label = readSubBlock(is);
+
+            if (formatCompliance != null) {
+                formatCompliance.addComment("Unknown Application Extension (" + new String(label, StandardCharsets.US_ASCII) + ")", completeCode);
+            }
+
+            if (label.length > 0) {
+                return readGenericGifBlock(is, completeCode, label);
+            }
+            return null;
+        }
+
+        default:
+            if (formatCompliance != null) {
+                formatCompliance.addComment("Unknown block", completeCode);
+            }
+
+            return readGenericGifBlock(is, completeCode);
+        }
+    }
+
     private GifImageContents readFile(final ByteSource byteSource, final boolean stopBeforeImageData) throws ImagingException, IOException {
         return readFile(byteSource, stopBeforeImageData, FormatCompliance.getDefault());
     }
@@ -687,7 +711,7 @@ public class GifImageParser extends AbstractImageParser<GifImagingParameters> im
         return new GraphicControlExtension(code, packed, dispose, transparency, delay, transparentColorIndex);
     }
 
-    private GifHeaderInfo readHeader(final InputStream is, final FormatCompliance formatCompliance) throws ImagingException, IOException {
+    GifHeaderInfo readHeader(final InputStream is, final FormatCompliance formatCompliance) throws ImagingException, IOException {
         final byte identifier1 = BinaryFunctions.readByte("identifier1", is, "Not a Valid GIF File");
         final byte identifier2 = BinaryFunctions.readByte("identifier2", is, "Not a Valid GIF File");
         final byte identifier3 = BinaryFunctions.readByte("identifier3", is, "Not a Valid GIF File");
@@ -749,7 +773,7 @@ public class GifImageParser extends AbstractImageParser<GifImagingParameters> im
                 backgroundColorIndex, pixelAspectRatio, globalColorTableFlag, colorResolution, sortFlag, sizeofGlobalColorTable);
     }
 
-    private ImageDescriptor readImageDescriptor(final GifHeaderInfo ghi, final int blockCode, final InputStream is, final boolean stopBeforeImageData,
+    ImageDescriptor readImageDescriptor(final GifHeaderInfo ghi, final int blockCode, final InputStream is, final boolean stopBeforeImageData,
             final FormatCompliance formatCompliance) throws ImagingException, IOException {
         final int imageLeftPosition = BinaryFunctions.read2Bytes("Image Left Position", is, "Not a Valid GIF File", getByteOrder());
         final int imageTopPosition = BinaryFunctions.read2Bytes("Image Top Position", is, "Not a Valid GIF File", getByteOrder());
@@ -797,11 +821,10 @@ public class GifImageParser extends AbstractImageParser<GifImagingParameters> im
 
             final GenericGifBlock block = readGenericGifBlock(is, -1);
             final byte[] bytes = block.appendSubBlocks();
-            final InputStream bais = new ByteArrayInputStream(bytes);
 
             final int size = imageWidth * imageHeight;
             final MyLzwDecompressor myLzwDecompressor = new MyLzwDecompressor(lzwMinimumCodeSize, ByteOrder.LITTLE_ENDIAN, false);
-            imageData = myLzwDecompressor.decompress(bais, size);
+            imageData = myLzwDecompressor.decompress(bytes, size);
         } else {
             final int LZWMinimumCodeSize = is.read();
             if (LOGGER.isLoggable(Level.FINEST)) {
@@ -831,7 +854,7 @@ public class GifImageParser extends AbstractImageParser<GifImagingParameters> im
         return result;
     }
 
-    private void writeAsSubBlocks(final byte[] bytes, final OutputStream os) throws IOException {
+    static void writeAsSubBlocks(final byte[] bytes, final OutputStream os) throws IOException {
         int index = 0;
 
         while (index < bytes.length) {
@@ -843,6 +866,40 @@ public class GifImageParser extends AbstractImageParser<GifImagingParameters> im
         os.write(0); // last block
     }
 
+    /**
+     * Writes images as the frames of a GIF animation.
+     * <p>
+     * Each frame after the first only holds the smallest rectangle in which it differs from the one before it, with the transparent index for the pixels
+     * in that rectangle that did not change. All frames share a global color table unless {@link GifImagingParameters#setGlobalColorTable(boolean)} is
+     * turned off, and are encoded concurrently if {@link GifImagingParameters#setExecutor(java.util.concurrent.Executor)} is set. Pixels that are not fully
+     * opaque are written as transparent.
+     * </p>
+     *
+     * @param images the frames, all of the same size.
+     * @param delays the delay after each frame, in hundredths of a second.
+     * @param os     the output stream, closed when the animation is written.
+     * @param params the parameters, may be null.
+     * @throws ImagingException if the frames differ in size.
+     * @throws IOException      if an I/O error occurs.
+     * @throws IllegalArgumentException if there are no images, or not one delay from 0 to 65535 for each image.
+     * @since 1.0.0-alpha7
+     */
+    public void writeAnimation(final List<BufferedImage> images, final int[] delays, final OutputStream os, final GifImagingParameters params)
+            throws ImagingException, IOException {
+        if (images.isEmpty()) {
+            throw new IllegalArgumentException("No images to write");
+        }
+        if (delays.length != images.size()) {
+            throw new IllegalArgumentException(String.format("%d delays for %d images", delays.length, images.size()));
+        }
+        for (final int delay : delays) {
+            if (delay < 0 || delay > 0xffff) {
+                throw new IllegalArgumentException("Invalid delay: " + delay);
+            }
+        }
+        new GifAnimationWriter(this, params == null ? new GifImagingParameters() : params).writeImages(images, delays, os);
+    }
+
     @Override
     public void writeImage(final BufferedImage src, final OutputStream os, GifImagingParameters params) throws ImagingException, IOException {
         if (params == null) {
@@ -933,22 +990,7 @@ public class GifImageParser extends AbstractImageParser<GifImagingParameters> im
             }
 
             if (null != xmpXml) {
-                bos.write(EXTENSION_CODE);
-                bos.write(APPLICATION_EXTENSION_LABEL);
-
-                bos.write(XMP_APPLICATION_ID_AND_AUTH_CODE.length); // 0x0B
-                bos.write(XMP_APPLICATION_ID_AND_AUTH_CODE);
-
-                final byte[] xmpXmlBytes = xmpXml.getBytes(StandardCharsets.UTF_8);
-                bos.write(xmpXmlBytes);
-
-                // write "magic trailer"
-                for (int magic = 0; magic <= 0xff; magic++) {
-                    bos.write(0xff - magic);
-                }
-
-                bos.write((byte) 0); // terminator
-
+                writeXmpXml(bos, xmpXml);
             }
 
             { // Image Descriptor.
@@ -1052,4 +1094,22 @@ public class GifImageParser extends AbstractImageParser<GifImagingParameters> im
         }
         os.close();
     }
+
+    void writeXmpXml(final OutputStream os, final String xmpXml) throws IOException {
+        os.write(EXTENSION_CODE);
+        os.write(APPLICATION_EXTENSION_LABEL);
+
+        os.write(XMP_APPLICATION_ID_AND_AUTH_CODE.length); // 0x0B
+        os.write(XMP_APPLICATION_ID_AND_AUTH_CODE);
+
+        final byte[] xmpXmlBytes = xmpXml.getBytes(StandardCharsets.UTF_8);
+        os.write(xmpXmlBytes);
+
+        // write "magic trailer"
+        for (int magic = 0; magic <= 0xff; magic++) {
+            os.write(0xff - magic);
+        }
+
+        os.write((byte) 0); // terminator
+    }
 }
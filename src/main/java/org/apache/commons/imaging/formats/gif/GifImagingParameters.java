@@ -17,6 +17,8 @@
 
 package org.apache.commons.imaging.formats.gif;
 
+import java.util.concurrent.Executor;
+
 import org.apache.commons.imaging.common.XmpImagingParameters;
 
 /**
@@ -38,12 +40,47 @@ public class GifImagingParameters extends XmpImagingParameters<GifImagingParamet
 
     private boolean stopReadingBeforeImageData;
 
+    /**
+     * Only used when writing animations.
+     */
+    private boolean globalColorTable = true;
+
+    /**
+     * Only used when writing animations.
+     */
+    private int loopCount;
+
+    /**
+     * Only used when writing animations.
+     */
+    private Executor executor;
+
     /**
      * Constructs a new instance.
      */
     public GifImagingParameters() {
     }
 
+    /**
+     * Gets the executor used to encode the frames of an animation concurrently.
+     *
+     * @return the executor, or null if frames are encoded on the calling thread.
+     * @since 1.0.0-alpha7
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Gets the number of times an animation is played after the first time.
+     *
+     * @return the loop count, 0 to loop forever.
+     * @since 1.0.0-alpha7
+     */
+    public int getLoopCount() {
+        return loopCount;
+    }
+
     /**
      * Gets whether to stop reading before image data.
      *
@@ -53,6 +90,58 @@ public class GifImagingParameters extends XmpImagingParameters<GifImagingParamet
         return stopReadingBeforeImageData;
     }
 
+    /**
+     * Tests whether the frames of an animation share a global color table. Defaults to true.
+     *
+     * @return true if the frames share a global color table, false if each frame has a local color table.
+     * @since 1.0.0-alpha7
+     */
+    public boolean isGlobalColorTable() {
+        return globalColorTable;
+    }
+
+    /**
+     * Sets the executor used to encode the frames of an animation concurrently. The output is the same as when the frames are encoded on the calling thread.
+     *
+     * @param executor the executor, or null to encode frames on the calling thread.
+     * @return this instance.
+     * @since 1.0.0-alpha7
+     */
+    public GifImagingParameters setExecutor(final Executor executor) {
+        this.executor = executor;
+        return asThis();
+    }
+
+    /**
+     * Sets whether the frames of an animation share a global color table. A shared table is written once instead of with every frame, but when the frames
+     * hold more than 255 colors together it is quantized from all of them, whereas local color tables only need to be quantized for the frames that hold
+     * more than 255 colors.
+     *
+     * @param globalColorTable true to share a global color table, false to give each frame a local color table.
+     * @return this instance.
+     * @since 1.0.0-alpha7
+     */
+    public GifImagingParameters setGlobalColorTable(final boolean globalColorTable) {
+        this.globalColorTable = globalColorTable;
+        return asThis();
+    }
+
+    /**
+     * Sets the number of times an animation is played after the first time, written in the Netscape application extension.
+     *
+     * @param loopCount the loop count from 0 to 65535, 0 to loop forever.
+     * @return this instance.
+     * @throws IllegalArgumentException if the loop count is out of range.
+     * @since 1.0.0-alpha7
+     */
+    public GifImagingParameters setLoopCount(final int loopCount) {
+        if (loopCount < 0 || loopCount > 0xffff) {
+            throw new IllegalArgumentException("Invalid loop count: " + loopCount);
+        }
+        this.loopCount = loopCount;
+        return asThis();
+    }
+
     /**
      * Sets whether to stop reading before image data.
      *
@@ -221,7 +221,7 @@ public class JpegImageParser extends AbstractImageParser<JpegImagingParameters>
 
     @Override
     public final BufferedImage getBufferedImage(final ByteSource byteSource, final JpegImagingParameters params) throws ImagingException, IOException {
-        final JpegDecoder jpegDecoder = new JpegDecoder();
+        final JpegDecoder jpegDecoder = new JpegDecoder(params);
         return jpegDecoder.decode(byteSource);
     }
 
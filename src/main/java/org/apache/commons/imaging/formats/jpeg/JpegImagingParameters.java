@@ -15,6 +15,8 @@
 
 package org.apache.commons.imaging.formats.jpeg;
 
+import java.util.concurrent.Executor;
+
 import org.apache.commons.imaging.common.XmpImagingParameters;
 
 /**
@@ -24,9 +26,99 @@ import org.apache.commons.imaging.common.XmpImagingParameters;
  */
 public class JpegImagingParameters extends XmpImagingParameters<JpegImagingParameters> {
 
+    /**
+     * Executor used to decode restart intervals concurrently, or null to decode on the calling thread.
+     */
+    private Executor executor;
+
+    /**
+     * Number of scans of a progressive JPEG to decode, zero or less to decode all of them.
+     */
+    private int progressiveScanLimit;
+
+    /**
+     * Denominator of the scale at which images are decoded: 1, 2, 4 or 8.
+     */
+    private int scaleDenominator = 1;
+
     /**
      * Constructs a new instance.
      */
     public JpegImagingParameters() {
     }
+
+    /**
+     * Gets the executor used to decode restart intervals concurrently.
+     *
+     * @return the executor, or null if decoding happens on the calling thread.
+     * @since 1.0.0-alpha7
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Gets the number of scans of a progressive JPEG to decode.
+     *
+     * @return the scan limit, zero or less if all scans are decoded.
+     * @since 1.0.0-alpha7
+     */
+    public int getProgressiveScanLimit() {
+        return progressiveScanLimit;
+    }
+
+    /**
+     * Gets the denominator of the scale at which images are decoded.
+     *
+     * @return 1, 2, 4 or 8.
+     * @since 1.0.0-alpha7
+     */
+    public int getScaleDenominator() {
+        return scaleDenominator;
+    }
+
+    /**
+     * Sets the executor used to decode the restart intervals of a JPEG concurrently. Only JPEGs that define a restart interval (a DRI segment) can be split
+     * across threads; others are always decoded on the calling thread.
+     *
+     * @param executor the executor, or null to decode on the calling thread.
+     * @return this instance.
+     * @since 1.0.0-alpha7
+     */
+    public JpegImagingParameters setExecutor(final Executor executor) {
+        this.executor = executor;
+        return asThis();
+    }
+
+    /**
+     * Sets the number of scans of a progressive JPEG to decode. Decoding stops after the given number of scans and the image is built from the coefficients
+     * received so far, which gives a low-fidelity preview at a fraction of the cost. A limit of 1 usually decodes the DC scan only. Sequential JPEGs are not
+     * affected.
+     *
+     * @param progressiveScanLimit the number of scans to decode, zero or less to decode all of them.
+     * @return this instance.
+     * @since 1.0.0-alpha7
+     */
+    public JpegImagingParameters setProgressiveScanLimit(final int progressiveScanLimit) {
+        this.progressiveScanLimit = progressiveScanLimit;
+        return asThis();
+    }
+
+    /**
+     * Sets the denominator of the scale at which images are decoded. With a denominator of 2, 4 or 8 the decoder runs a reduced inverse DCT that yields 4x4,
+     * 2x2 or 1x1 pixels per 8x8 block, so the image comes out at 1/2, 1/4 or 1/8 of its size, rounded up, for a fraction of the cost of decoding it at full
+     * size and scaling it down.
+     *
+     * @param scaleDenominator 1, 2, 4 or 8.
+     * @return this instance.
+     * @throws IllegalArgumentException if the denominator is not 1, 2, 4 or 8.
+     * @since 1.0.0-alpha7
+     */
+    public JpegImagingParameters setScaleDenominator(final int scaleDenominator) {
+        if (scaleDenominator != 1 && scaleDenominator != 2 && scaleDenominator != 4 && scaleDenominator != 8) {
+            throw new IllegalArgumentException("Invalid scale denominator " + scaleDenominator + ", must be 1, 2, 4 or 8");
+        }
+        this.scaleDenominator = scaleDenominator;
+        return asThis();
+    }
 }
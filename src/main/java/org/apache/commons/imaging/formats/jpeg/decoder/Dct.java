@@ -65,6 +65,18 @@ final class Dct {
     private static final float Q = C2 - C6;
     private static final float R = C2 + C6;
 
+    // C(u) / 2 * cos((2x + 1) * u * PI / 8) at [4 * x + u], the 8-point basis evaluated at the centres of pixel pairs
+    private static final float[] IDCT_4 = new float[16];
+
+    static {
+        for (int x = 0; x < 4; x++) {
+            for (int u = 0; u < 4; u++) {
+                final double c = u == 0 ? 1.0 / Math.sqrt(2.0) : 1.0;
+                IDCT_4[4 * x + u] = (float) (c / 2.0 * Math.cos((2 * x + 1) * u * Math.PI / 8.0));
+            }
+        }
+    }
+
     /**
      * Fast forward Dct using AA&N. Taken from the book "JPEG still image data compression standard", by Pennebaker and Mitchell, chapter 4, figure "4-8".
      *
@@ -355,6 +367,50 @@ final class Dct {
         }
     }
 
+    /**
+     * Reduced inverse Dct yielding a 2x2 block from the 2x2 lowest-frequency coefficients of an 8x8 block, unscaled. Each output sample is the 8x8 inverse Dct
+     * evaluated at the centre of a 4x4 quadrant.
+     *
+     * @param matrix the 2x2 coefficients in row-major order, replaced by the samples.
+     */
+    public static void inverseDct2x2(final float[] matrix) {
+        final float a0 = matrix[0] + matrix[1];
+        final float a1 = matrix[0] - matrix[1];
+        final float a2 = matrix[2] + matrix[3];
+        final float a3 = matrix[2] - matrix[3];
+        matrix[0] = (a0 + a2) * 0.125f;
+        matrix[1] = (a1 + a3) * 0.125f;
+        matrix[2] = (a0 - a2) * 0.125f;
+        matrix[3] = (a1 - a3) * 0.125f;
+    }
+
+    /**
+     * Reduced inverse Dct yielding a 4x4 block from the 4x4 lowest-frequency coefficients of an 8x8 block, unscaled. Each output sample is the 8x8 inverse Dct
+     * evaluated at the centre of a 2x2 quadrant.
+     *
+     * @param matrix the 4x4 coefficients in row-major order, replaced by the samples.
+     */
+    public static void inverseDct4x4(final float[] matrix) {
+        for (int i = 0; i < 16; i += 4) {
+            final float c0 = matrix[i];
+            final float c1 = matrix[i + 1];
+            final float c2 = matrix[i + 2];
+            final float c3 = matrix[i + 3];
+            for (int x = 0; x < 4; x++) {
+                matrix[i + x] = c0 * IDCT_4[4 * x] + c1 * IDCT_4[4 * x + 1] + c2 * IDCT_4[4 * x + 2] + c3 * IDCT_4[4 * x + 3];
+            }
+        }
+        for (int i = 0; i < 4; i++) {
+            final float c0 = matrix[i];
+            final float c1 = matrix[4 + i];
+            final float c2 = matrix[8 + i];
+            final float c3 = matrix[12 + i];
+            for (int y = 0; y < 4; y++) {
+                matrix[4 * y + i] = c0 * IDCT_4[4 * y] + c1 * IDCT_4[4 * y + 1] + c2 * IDCT_4[4 * y + 2] + c3 * IDCT_4[4 * y + 3];
+            }
+        }
+    }
+
     public static void scaleDequantizationMatrix(final float[] matrix) {
         for (int y = 0; y < 8; y++) {
             for (int x = 0; x < 8; x++) {
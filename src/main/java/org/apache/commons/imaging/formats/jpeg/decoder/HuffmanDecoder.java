@@ -0,0 +1,114 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *  under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg.decoder;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.formats.jpeg.segments.DhtSegment;
+
+/**
+ * Table-driven Huffman decoder derived from a {@link DhtSegment.HuffmanTable}.
+ * <p>
+ * Codes of up to {@link #LOOKAHEAD_BITS} bits are resolved with a single table lookup, longer codes fall back to the "DECODE" procedure of T.81. For AC
+ * tables a second table also resolves the magnitude bits of short run/size symbols, so that a whole coefficient is consumed in one step.
+ * </p>
+ */
+final class HuffmanDecoder {
+
+    static final int LOOKAHEAD_BITS = 9;
+
+    private static final int LOOKAHEAD_SIZE = 1 << LOOKAHEAD_BITS;
+
+    private final DhtSegment.HuffmanTable huffmanTable;
+
+    // (code length << 8 | symbol) for each lookahead, 0 if the code is longer
+    private final int[] lookup = new int[LOOKAHEAD_SIZE];
+
+    // (coefficient << 8 | run << 4 | total length) for each lookahead, 0 if not resolvable
+    private final int[] fastAc;
+
+    HuffmanDecoder(final DhtSegment.HuffmanTable huffmanTable) {
+        this.huffmanTable = huffmanTable;
+        for (int length = 1; length <= LOOKAHEAD_BITS; length++) {
+            final int maxCode = huffmanTable.getMaxCode(length);
+            if (maxCode < 0) {
+                continue;
+            }
+            final int shift = LOOKAHEAD_BITS - length;
+            for (int code = huffmanTable.getMinCode(length); code <= maxCode; code++) {
+                final int symbol = huffmanTable.getHuffVal(huffmanTable.getValPtr(length) + code - huffmanTable.getMinCode(length));
+                final int from = code << shift;
+                final int to = code + 1 << shift;
+                for (int look = from; look < to && look < LOOKAHEAD_SIZE; look++) {
+                    lookup[look] = length << 8 | symbol;
+                }
+            }
+        }
+
+        if (huffmanTable.tableClass == 1) {
+            fastAc = new int[LOOKAHEAD_SIZE];
+            for (int look = 0; look < LOOKAHEAD_SIZE; look++) {
+                final int entry = lookup[look];
+                if (entry == 0) {
+                    continue;
+                }
+                final int length = entry >> 8;
+                final int ssss = entry & 0xf;
+                final int run = entry >> 4 & 0xf;
+                if (ssss == 0 || length + ssss > LOOKAHEAD_BITS) {
+                    continue;
+                }
+                final int v = look >> LOOKAHEAD_BITS - length - ssss & (1 << ssss) - 1;
+                final int coefficient = v < 1 << ssss - 1 ? v + (-1 << ssss) + 1 : v;
+                fastAc[look] = coefficient << 8 | run << 4 | length + ssss;
+            }
+        } else {
+            fastAc = null;
+        }
+    }
+
+    /**
+     * Decodes the next Huffman-coded symbol ("DECODE", section F.2.2.3, figure F.16, page 109 of T.81).
+     *
+     * @param is the entropy-coded data.
+     * @return the symbol.
+     * @throws ImagingException if the data does not hold a valid code.
+     */
+    int decode(final JpegInputStream is) throws ImagingException {
+        final int entry = lookup[is.peekBits(LOOKAHEAD_BITS)];
+        if (entry != 0) {
+            is.skipBits(entry >> 8);
+            return entry & 0xff;
+        }
+        for (int length = LOOKAHEAD_BITS + 1; length <= 16; length++) {
+            final int code = is.peekBits(length);
+            if (code <= huffmanTable.getMaxCode(length)) {
+                is.skipBits(length);
+                return huffmanTable.getHuffVal(huffmanTable.getValPtr(length) + code - huffmanTable.getMinCode(length));
+            }
+        }
+        throw new ImagingException("Invalid Huffman code in entropy data");
+    }
+
+    /**
+     * Looks up an AC coefficient whose run/size code and magnitude bits both fit in the lookahead. The caller consumes the reported number of bits.
+     *
+     * @param lookahead the next {@link #LOOKAHEAD_BITS} bits.
+     * @return {@code coefficient << 8 | run << 4 | bit count}, or 0 if {@link #decode(JpegInputStream)} must be used instead.
+     */
+    int fastAc(final int lookahead) {
+        return fastAc[lookahead];
+    }
+}
@@ -15,16 +15,13 @@
 
 package org.apache.commons.imaging.formats.jpeg.decoder;
 
-import static org.apache.commons.imaging.common.BinaryFunctions.read2Bytes;
-import static org.apache.commons.imaging.common.BinaryFunctions.readBytes;
-
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
 import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
 import java.awt.image.DirectColorModel;
 import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -36,7 +33,10 @@ import org.apache.commons.imaging.bytesource.ByteSource;
 import org.apache.commons.imaging.color.ColorConversions;
 import org.apache.commons.imaging.common.Allocator;
 import org.apache.commons.imaging.common.BinaryFileParser;
+import org.apache.commons.imaging.common.ByteConversions;
+import org.apache.commons.imaging.common.ConcurrentTasks;
 import org.apache.commons.imaging.formats.jpeg.JpegConstants;
+import org.apache.commons.imaging.formats.jpeg.JpegImagingParameters;
 import org.apache.commons.imaging.formats.jpeg.JpegUtils;
 import org.apache.commons.imaging.formats.jpeg.segments.DhtSegment;
 import org.apache.commons.imaging.formats.jpeg.segments.DhtSegment.HuffmanTable;
@@ -64,86 +64,349 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
     }
 
     /**
-     * Returns the positions of where each interval in the provided array starts. The number of start positions is also the count of intervals while the number
+     * Returns the positions of where each interval in the provided range starts. The number of start positions is also the count of intervals while the number
      * of restart markers found is equal to the number of start positions minus one (because restart markers are between intervals).
      *
      * @param scanPayload array to examine
+     * @param from the position of the first byte of the scan
+     * @param to the position after the last byte of the scan
      * @return the start positions
      */
-    static List<Integer> getIntervalStartPositions(final int[] scanPayload) {
+    static List<Integer> getIntervalStartPositions(final byte[] scanPayload, final int from, final int to) {
         final List<Integer> intervalStarts = new ArrayList<>();
-        intervalStarts.add(0);
-        boolean foundFF = false;
-        boolean foundD0toD7 = false;
-        int pos = 0;
-        while (pos < scanPayload.length) {
-            if (foundFF) {
+        intervalStarts.add(from);
+        for (int pos = from; pos + 1 < to; pos++) {
+            if ((0xff & scanPayload[pos]) == 0xff) {
+                final int next = 0xff & scanPayload[pos + 1];
                 // found 0xFF D0 .. 0xFF D7 => RST marker
-                if (scanPayload[pos] >= (0xff & JpegConstants.RST0_MARKER) && scanPayload[pos] <= (0xff & JpegConstants.RST7_MARKER)) {
-                    foundD0toD7 = true;
-                } else { // found 0xFF followed by something else => no RST marker
-                    foundFF = false;
+                if (next >= (0xff & JpegConstants.RST0_MARKER) && next <= (0xff & JpegConstants.RST7_MARKER)) {
+                    intervalStarts.add(pos + 2);
+                    pos++;
                 }
             }
-
-            if (scanPayload[pos] == 0xFF) {
-                foundFF = true;
-            }
-
-            // true if one of the RST markers was found
-            if (foundFF && foundD0toD7) {
-                // we need to add the position after the current position because
-                // we had already read 0xFF and are now at 0xDn
-                intervalStarts.add(pos + 1);
-                foundFF = foundD0toD7 = false;
-            }
-            pos++;
         }
         return intervalStarts;
     }
 
     /**
-     * Returns an array of JpegInputStream where each field contains the JpegInputStream for one interval.
+     * Returns an array of JpegInputStream where each field reads one interval of the provided range in place.
      *
      * @param scanPayload array to read intervals from
+     * @param from the position of the first byte of the scan
+     * @param to the position after the last byte of the scan
      * @return JpegInputStreams for all intervals, at least one stream is always provided
      */
-    static JpegInputStream[] splitByRstMarkers(final int[] scanPayload) {
-        final List<Integer> intervalStarts = getIntervalStartPositions(scanPayload);
+    static JpegInputStream[] splitByRstMarkers(final byte[] scanPayload, final int from, final int to) {
+        final List<Integer> intervalStarts = getIntervalStartPositions(scanPayload, from, to);
         // get number of intervals in payload to init an array of appropriate length
         final int intervalCount = intervalStarts.size();
         final JpegInputStream[] streams = Allocator.array(intervalCount, JpegInputStream[]::new, JpegInputStream.SHALLOW_SIZE);
         for (int i = 0; i < intervalCount; i++) {
-            final int from = intervalStarts.get(i);
-            final int to;
+            final int intervalFrom = intervalStarts.get(i);
+            final int intervalTo;
             if (i < intervalCount - 1) {
                 // because each restart marker needs two bytes the end of
                 // this interval is two bytes before the next interval starts
-                to = intervalStarts.get(i + 1) - 2;
-            } else { // the last interval ends with the array
-                to = scanPayload.length;
+                intervalTo = intervalStarts.get(i + 1) - 2;
+            } else { // the last interval ends with the scan
+                intervalTo = to;
             }
-            final int[] interval = Arrays.copyOfRange(scanPayload, from, to);
-            streams[i] = new JpegInputStream(interval);
+            streams[i] = new JpegInputStream(scanPayload, intervalFrom, intervalTo);
         }
         return streams;
     }
 
+    /**
+     * Scratch memory and DC predictions for decoding a run of MCUs on one thread.
+     */
+    private final class McuDecoder {
+
+        private final int[] zz = new int[64];
+
+        private final int[] blockInt = new int[64];
+
+        private final float[] block = new float[64];
+
+        private final int[] preds;
+
+        private final Block[] mcu;
+
+        // for each component, the sample under each pixel column of the MCU, and the start of the sample row under each pixel row
+        private final int[][] columns;
+
+        private final int[][] rowStarts;
+
+        private final int[] rowOffsets;
+
+        McuDecoder() {
+            preds = Allocator.intArray(sofnSegment.numberOfComponents);
+            mcu = allocateMcuMemory();
+            columns = new int[mcu.length][];
+            rowStarts = new int[mcu.length][];
+            rowOffsets = Allocator.intArray(mcu.length);
+            for (int i = 0; i < mcu.length; i++) {
+                final Block block = mcu[i];
+                columns[i] = Allocator.intArray(hSize);
+                Arrays.setAll(columns[i], x -> x * block.width / hSize);
+                rowStarts[i] = Allocator.intArray(vSize);
+                Arrays.setAll(rowStarts[i], y -> y * block.height / vSize * block.width);
+            }
+        }
+
+        /**
+         * Decodes the MCUs {@code [firstMcu, endMcu)} from one restart interval.
+         */
+        void decodeInterval(final JpegInputStream is, final int firstMcu, final int endMcu, final int xMCUs, final int[] pixels) throws ImagingException {
+            // DC predictions restart at zero in every interval, see section F.2.1.3.1 of T.81
+            Arrays.fill(preds, 0);
+            for (int m = firstMcu; m < endMcu; m++) {
+                decodeMcu(is, m % xMCUs * hSize, m / xMCUs * vSize, pixels);
+            }
+        }
+
+        void decodeMcu(final JpegInputStream is, final int x1, final int y1, final int[] pixels) throws ImagingException {
+            readMcu(is);
+            writeMcu(x1, y1, pixels);
+        }
+
+        private void readMcu(final JpegInputStream is) throws ImagingException {
+            for (int i = 0; i < sosSegment.numberOfComponents; i++) {
+                final SosSegment.Component scanComponent = sosSegment.getComponents(i);
+                final SofnSegment.Component frameComponent = mcuComponents[i];
+                final HuffmanDecoder dcDecoder = huffmanDCDecoders[scanComponent.dcCodingTableSelector];
+                final HuffmanDecoder acDecoder = huffmanACDecoders[scanComponent.acCodingTableSelector];
+                if (dcDecoder == null || acDecoder == null) {
+                    throw new ImagingException("Missing Huffman table for component " + scanComponent.scanComponentSelector);
+                }
+                final int hBlocks = getHorizontalBlocks(frameComponent);
+                final int vBlocks = getVerticalBlocks(frameComponent);
+                for (int y = 0; y < vBlocks; y++) {
+                    for (int x = 0; x < hBlocks; x++) {
+                        Arrays.fill(zz, 0);
+                        // page 104 of T.81
+                        final int t = dcDecoder.decode(is);
+                        final int diff = is.receiveExtend(t);
+                        zz[0] = preds[i] + diff;
+                        preds[i] = zz[0];
+
+                        // "Decode_AC_coefficients", figure F.13, page 106 of T.81
+                        int k = 1;
+                        while (true) {
+                            // short codes together with their magnitude bits resolve in one lookup
+                            final int fast = acDecoder.fastAc(is.peekBits(HuffmanDecoder.LOOKAHEAD_BITS));
+                            if (fast != 0) {
+                                is.skipBits(fast & 0xf);
+                                k += fast >> 4 & 0xf;
+                                zz[k] = fast >> 8;
+                                if (k == 63) {
+                                    break;
+                                }
+                                k++;
+                                continue;
+                            }
+                            final int rs = acDecoder.decode(is);
+                            final int ssss = rs & 0xf;
+                            final int rrrr = rs >> 4;
+                            final int r = rrrr;
+
+                            if (ssss == 0) {
+                                if (r != 15) {
+                                    break;
+                                }
+                                k += 16;
+                            } else {
+                                k += r;
+
+                                // "Decode_ZZ(k)", figure F.14, page 107 of T.81
+                                zz[k] = is.receiveExtend(ssss);
+
+                                if (k == 63) {
+                                    break;
+                                }
+                                k++;
+                            }
+                        }
+
+                        transformBlock(frameComponent, mcu[i], x, y, hBlocks);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Dequantizes the coefficients in {@code zz}, applies the inverse DCT and stores the level-shifted samples as block (x, y) of a component's MCU. When
+         * decoding at a reduced scale only the lowest frequencies are transformed, down to the DC coefficient alone at 1/8 scale.
+         */
+        private void transformBlock(final SofnSegment.Component frameComponent, final Block fullBlock, final int x, final int y, final int hBlocks) {
+            final int shift = 1 << sofnSegment.precision - 1;
+            final int max = (1 << sofnSegment.precision) - 1;
+
+            if (blockSize == 1) {
+                final float sample = zz[0] * quantizationMatrices[frameComponent.quantTabDestSelector][0] * 0.125f + shift;
+                fullBlock.samples[y * hBlocks + x] = sample < 0 ? 0 : sample > max ? max : fastRound(sample);
+                return;
+            }
+            ZigZag.zigZagToBlock(zz, blockInt);
+            if (blockSize == 8) {
+                final float[] scaledQuantizationTable = scaledQuantizationTables[frameComponent.quantTabDestSelector];
+                for (int j = 0; j < 64; j++) {
+                    block[j] = blockInt[j] * scaledQuantizationTable[j];
+                }
+                Dct.inverseDct8x8(block);
+            } else {
+                final float[] quantizationMatrix = quantizationMatrices[frameComponent.quantTabDestSelector];
+                for (int v = 0; v < blockSize; v++) {
+                    for (int u = 0; u < blockSize; u++) {
+                        block[v * blockSize + u] = blockInt[8 * v + u] * quantizationMatrix[8 * v + u];
+                    }
+                }
+                if (blockSize == 4) {
+                    Dct.inverseDct4x4(block);
+                } else {
+                    Dct.inverseDct2x2(block);
+                }
+            }
+
+            int dstRowOffset = blockSize * (y * blockSize * hBlocks + x);
+            int srcNext = 0;
+            for (int yy = 0; yy < blockSize; yy++) {
+                for (int xx = 0; xx < blockSize; xx++) {
+                    float sample = block[srcNext++];
+                    sample += shift;
+                    final int result;
+                    if (sample < 0) {
+                        result = 0;
+                    } else if (sample > max) {
+                        result = max;
+                    } else {
+                        result = fastRound(sample);
+                    }
+                    fullBlock.samples[dstRowOffset + xx] = result;
+                }
+                dstRowOffset += blockSize * hBlocks;
+            }
+        }
+
+        /**
+         * Transforms the accumulated coefficients of one MCU of a progressive JPEG and writes its pixels.
+         */
+        void transformMcu(final ProgressiveDecoder progressiveDecoder, final int mcuX, final int mcuY, final int[] pixels) throws ImagingException {
+            for (int i = 0; i < mcuComponents.length; i++) {
+                final SofnSegment.Component frameComponent = mcuComponents[i];
+                final short[] coefficients = progressiveDecoder.getCoefficients(i);
+                final int blocksPerLine = progressiveDecoder.getBlocksPerLine(i);
+                final int hBlocks = getHorizontalBlocks(frameComponent);
+                final int vBlocks = getVerticalBlocks(frameComponent);
+                for (int y = 0; y < vBlocks; y++) {
+                    for (int x = 0; x < hBlocks; x++) {
+                        final int offset = 64 * ((mcuY * vBlocks + y) * blocksPerLine + mcuX * hBlocks + x);
+                        for (int j = 0; j < 64; j++) {
+                            zz[j] = coefficients[offset + j];
+                        }
+                        transformBlock(frameComponent, mcu[i], x, y, hBlocks);
+                    }
+                }
+            }
+            writeMcu(mcuX * hSize, mcuY * vSize, pixels);
+        }
+
+        /**
+         * Upsamples and color converts the MCU a row at a time, straight into the pixels of the raster. Components sampled at full resolution or at half
+         * horizontal resolution, as in 4:4:4, 4:2:2 and 4:2:0 YCbCr, take dedicated row loops; other sampling factors look up each pixel's samples.
+         */
+        private void writeMcu(final int x1, final int y1, final int[] pixels) throws ImagingException {
+            final int x2Limit = Math.min(hSize, outputWidth - x1);
+            final int y2Limit = Math.min(vSize, outputHeight - y1);
+            int dstRowOffset = y1 * outputWidth + x1;
+            for (int y2 = 0; y2 < y2Limit; y2++) {
+                for (int i = 0; i < mcu.length; i++) {
+                    rowOffsets[i] = rowStarts[i][y2];
+                }
+                writeRow(pixels, dstRowOffset, x2Limit);
+                dstRowOffset += outputWidth;
+            }
+        }
+
+        private void writeRow(final int[] pixels, final int dstRowOffset, final int x2Limit) throws ImagingException {
+            if (mcu.length == 1) {
+                final int[] samples = mcu[0].samples;
+                final int[] column = columns[0];
+                final int srcRowOffset = rowOffsets[0];
+                for (int x2 = 0; x2 < x2Limit; x2++) {
+                    final int y = samples[srcRowOffset + column[x2]];
+                    pixels[dstRowOffset + x2] = y << 16 | y << 8 | y;
+                }
+            } else if (mcu.length == 3 && !useTiffRgb && mcu[0].width == hSize && mcu[1].width == mcu[2].width && rowOffsets[1] == rowOffsets[2]
+                    && (mcu[1].width == hSize || 2 * mcu[1].width == hSize)) {
+                if (mcu[1].width == hSize) {
+                    YCbCrConverter.convertRow(mcu[0].samples, rowOffsets[0], mcu[1].samples, mcu[2].samples, rowOffsets[1], pixels, dstRowOffset, x2Limit);
+                } else {
+                    YCbCrConverter.convertRowH2(mcu[0].samples, rowOffsets[0], mcu[1].samples, mcu[2].samples, rowOffsets[1], pixels, dstRowOffset, x2Limit);
+                }
+            } else if (mcu.length == 3) {
+                for (int x2 = 0; x2 < x2Limit; x2++) {
+                    final int s0 = mcu[0].samples[rowOffsets[0] + columns[0][x2]];
+                    final int s1 = mcu[1].samples[rowOffsets[1] + columns[1][x2]];
+                    final int s2 = mcu[2].samples[rowOffsets[2] + columns[2][x2]];
+                    // TIFF files with JPEG compression may store RGB rather than YCbCr
+                    pixels[dstRowOffset + x2] = useTiffRgb ? s0 << 16 | s1 << 8 | s2 : YCbCrConverter.convertYCbCrToRgb(s0, s1, s2);
+                }
+            } else if (mcu.length == 4) {
+                for (int x2 = 0; x2 < x2Limit; x2++) {
+                    final int s0 = mcu[0].samples[rowOffsets[0] + columns[0][x2]];
+                    final int s1 = mcu[1].samples[rowOffsets[1] + columns[1][x2]];
+                    final int s2 = mcu[2].samples[rowOffsets[2] + columns[2][x2]];
+                    final int s3 = mcu[3].samples[rowOffsets[3] + columns[3][x2]];
+                    // Although conventional JPEGs don't include an alpha channel
+                    // TIFF images that use JPEG encoding may do so. For example,
+                    // we have seen this variation in some false-color satellite images
+                    // from the U.S. National Weather Service. Ordinary JPEG files
+                    // may include an APP14 marker of type Unknowm indicating that
+                    // 3 components should be interpreted as the RGB colorspace
+                    // and the 4-component variation is interpreted as CYMK. But TIFF files
+                    // use their own tags to specify colorspace and do not include the APP14 marker.
+                    pixels[dstRowOffset + x2] = useTiffRgb ? s3 << 24 | s0 << 16 | s1 << 8 | s2 : ColorConversions.convertCmykToRgb(s0, s1, s2, s3);
+                }
+            } else {
+                throw new ImagingException("Unsupported JPEG with " + mcu.length + " components");
+            }
+        }
+    }
+
     private final DqtSegment.QuantizationTable[] quantizationTables = new DqtSegment.QuantizationTable[4];
     private final DhtSegment.HuffmanTable[] huffmanDCTables = new DhtSegment.HuffmanTable[4];
     private final DhtSegment.HuffmanTable[] huffmanACTables = new DhtSegment.HuffmanTable[4];
+    private final HuffmanDecoder[] huffmanDCDecoders = new HuffmanDecoder[4];
+    private final HuffmanDecoder[] huffmanACDecoders = new HuffmanDecoder[4];
     private SofnSegment sofnSegment;
     private SosSegment sosSegment;
     private final float[][] scaledQuantizationTables = new float[4][];
+    private final float[][] quantizationMatrices = new float[4][];
     private BufferedImage image;
     private ImagingException imageReadException;
     private IOException ioException;
 
-    private final int[] zz = new int[64];
+    // number of MCUs per restart interval as defined by the DRI segment, 0 if there are no restart intervals
+    private int restartInterval;
+
+    // the frame components making up an MCU, in MCU order
+    private SofnSegment.Component[] mcuComponents;
+
+    // whether an MCU holds a single block, as in non-interleaved scans
+    private boolean singleBlockMcu;
+
+    // width and height in pixels of the decoded block, 8 unless decoding at a reduced scale
+    private int blockSize = 8;
 
-    private final int[] blockInt = new int[64];
+    private int outputWidth;
 
-    private final float[] block = new float[64];
+    private int outputHeight;
+
+    private int hSize;
+
+    private int vSize;
+
+    private final JpegImagingParameters params;
 
     private boolean useTiffRgb;
 
@@ -151,27 +414,55 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
      * Constructs a new instance with the default, big-endian, byte order.
      */
     public JpegDecoder() {
-        // empty
+        this(null);
     }
 
-    private Block[] allocateMcuMemory() throws ImagingException {
-        final Block[] mcu = Allocator.array(sosSegment.numberOfComponents, Block[]::new, Block.SHALLOW_SIZE);
-        for (int i = 0; i < sosSegment.numberOfComponents; i++) {
-            final SosSegment.Component scanComponent = sosSegment.getComponents(i);
-            SofnSegment.Component frameComponent = null;
-            for (int j = 0; j < sofnSegment.numberOfComponents; j++) {
-                if (sofnSegment.getComponents(j).componentIdentifier == scanComponent.scanComponentSelector) {
-                    frameComponent = sofnSegment.getComponents(j);
-                    break;
+    /**
+     * Constructs a new instance with the default, big-endian, byte order.
+     *
+     * @param params the decoding parameters, may be null.
+     * @since 1.0.0-alpha7
+     */
+    public JpegDecoder(final JpegImagingParameters params) {
+        this.params = params != null ? params : new JpegImagingParameters();
+    }
+
+    private Block[] allocateMcuMemory() {
+        final Block[] mcu = Allocator.array(mcuComponents.length, Block[]::new, Block.SHALLOW_SIZE);
+        for (int i = 0; i < mcuComponents.length; i++) {
+            mcu[i] = new Block(blockSize * getHorizontalBlocks(mcuComponents[i]), blockSize * getVerticalBlocks(mcuComponents[i]));
+        }
+        return mcu;
+    }
+
+    /**
+     * Gets the number of blocks per MCU across for a component. A non-interleaved scan has one block per MCU whatever the sampling factors, see section
+     * A.2.2 of T.81.
+     */
+    private int getHorizontalBlocks(final SofnSegment.Component frameComponent) {
+        return singleBlockMcu ? 1 : frameComponent.horizontalSamplingFactor;
+    }
+
+    /**
+     * Gets the number of blocks per MCU down for a component, see {@link #getHorizontalBlocks(SofnSegment.Component)}.
+     */
+    private int getVerticalBlocks(final SofnSegment.Component frameComponent) {
+        return singleBlockMcu ? 1 : frameComponent.verticalSamplingFactor;
+    }
+
+    /**
+     * Returns the position of the marker that ends the entropy-coded data starting at {@code pos}, skipping stuffed zero bytes and RST markers.
+     */
+    private static int findEndOfScan(final byte[] imageData, final int pos) {
+        for (int i = pos; i + 1 < imageData.length; i++) {
+            if ((0xff & imageData[i]) == 0xff) {
+                final int next = 0xff & imageData[i + 1];
+                if (next != 0 && (next < (0xff & JpegConstants.RST0_MARKER) || next > (0xff & JpegConstants.RST7_MARKER))) {
+                    return i;
                 }
             }
-            if (frameComponent == null) {
-                throw new ImagingException("Invalid component");
-            }
-            final Block fullBlock = new Block(8 * frameComponent.horizontalSamplingFactor, 8 * frameComponent.verticalSamplingFactor);
-            mcu[i] = fullBlock;
         }
-        return mcu;
+        return imageData.length;
     }
 
     @Override
@@ -199,156 +490,157 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
         return image;
     }
 
-    private int decode(final JpegInputStream is, final DhtSegment.HuffmanTable huffmanTable) throws ImagingException {
-        // "DECODE", section F.2.2.3, figure F.16, page 109 of T.81
-        int i = 1;
-        int code = is.nextBit();
-        while (code > huffmanTable.getMaxCode(i)) {
-            i++;
-            code = code << 1 | is.nextBit();
+    /**
+     * Decodes the scans of a progressive JPEG, starting with the scan header at the beginning of {@code imageData}, and writes the image once the last scan,
+     * or the last scan allowed by {@link JpegImagingParameters#getProgressiveScanLimit()}, has been decoded.
+     */
+    private void decodeProgressive(final byte[] imageData, final int[] pixels) throws ImagingException, IOException {
+        final ProgressiveDecoder progressiveDecoder = new ProgressiveDecoder(sofnSegment);
+        final int scanLimit = params.getProgressiveScanLimit();
+        int scanCount = 0;
+        int pos = 0;
+        boolean moreScans = true;
+        while (moreScans) {
+            pos = readSosSegment(imageData, pos);
+            final int scanEnd = findEndOfScan(imageData, pos);
+            progressiveDecoder.decodeScan(sosSegment, splitByRstMarkers(imageData, pos, scanEnd), huffmanDCDecoders, huffmanACDecoders, restartInterval);
+            scanCount++;
+            pos = scanEnd;
+
+            // tables may be redefined between scans
+            moreScans = false;
+            while (pos + 1 < imageData.length && !moreScans) {
+                if ((0xff & imageData[pos + 1]) == 0xff) {
+                    // fill byte
+                    pos++;
+                    continue;
+                }
+                final int segmentMarker = (0xff & imageData[pos]) << 8 | 0xff & imageData[pos + 1];
+                pos += 2;
+                if (segmentMarker == JpegConstants.EOI_MARKER) {
+                    break;
+                }
+                if (segmentMarker == JpegConstants.SOS_MARKER) {
+                    moreScans = scanLimit <= 0 || scanCount < scanLimit;
+                    break;
+                }
+                if (pos + 2 > imageData.length) {
+                    throw new ImagingException("Not a Valid JPEG File");
+                }
+                final int length = ByteConversions.toUInt16(imageData, pos, getByteOrder());
+                if (length < 2 || pos + length > imageData.length) {
+                    throw new ImagingException("Invalid segment size");
+                }
+                visitSegment(segmentMarker, Arrays.copyOfRange(imageData, pos - 2, pos), length, Arrays.copyOfRange(imageData, pos, pos + 2),
+                        Arrays.copyOfRange(imageData, pos + 2, pos + length));
+                pos += length;
+            }
         }
-        int j = huffmanTable.getValPtr(i);
-        j += code - huffmanTable.getMinCode(i);
-        return huffmanTable.getHuffVal(j);
-    }
 
-    private int extend(int v, final int t) {
-        // "EXTEND", section F.2.2.1, figure F.12, page 105 of T.81
-        int vt = 1 << t - 1;
-        if (v < vt) {
-            vt = (-1 << t) + 1;
-            v += vt;
+        setMcuLayout(sofnSegment.getComponents());
+        final int xMCUs = (outputWidth + hSize - 1) / hSize;
+        final int yMCUs = (outputHeight + vSize - 1) / vSize;
+        final McuDecoder mcuDecoder = new McuDecoder();
+        for (int mcuY = 0; mcuY < yMCUs; mcuY++) {
+            for (int mcuX = 0; mcuX < xMCUs; mcuX++) {
+                mcuDecoder.transformMcu(progressiveDecoder, mcuX, mcuY, pixels);
+            }
         }
-        return v;
     }
 
-    private void readMcu(final JpegInputStream is, final int[] preds, final Block[] mcu) throws ImagingException {
+    /**
+     * Decodes the single scan of a sequential JPEG, starting with the scan header at the beginning of {@code imageData}.
+     */
+    private void decodeSequential(final byte[] imageData, final int[] pixels) throws IOException {
+        final int scanStart = readSosSegment(imageData, 0);
+        final SofnSegment.Component[] scanComponents = new SofnSegment.Component[sosSegment.numberOfComponents];
         for (int i = 0; i < sosSegment.numberOfComponents; i++) {
             final SosSegment.Component scanComponent = sosSegment.getComponents(i);
-            SofnSegment.Component frameComponent = null;
             for (int j = 0; j < sofnSegment.numberOfComponents; j++) {
                 if (sofnSegment.getComponents(j).componentIdentifier == scanComponent.scanComponentSelector) {
-                    frameComponent = sofnSegment.getComponents(j);
+                    scanComponents[i] = sofnSegment.getComponents(j);
                     break;
                 }
             }
-            if (frameComponent == null) {
+            if (scanComponents[i] == null) {
                 throw new ImagingException("Invalid component");
             }
-            final Block fullBlock = mcu[i];
-            for (int y = 0; y < frameComponent.verticalSamplingFactor; y++) {
-                for (int x = 0; x < frameComponent.horizontalSamplingFactor; x++) {
-                    Arrays.fill(zz, 0);
-                    // page 104 of T.81
-                    final int t = decode(is, huffmanDCTables[scanComponent.dcCodingTableSelector]);
-                    int diff = receive(t, is);
-                    diff = extend(diff, t);
-                    zz[0] = preds[i] + diff;
-                    preds[i] = zz[0];
-
-                    // "Decode_AC_coefficients", figure F.13, page 106 of T.81
-                    int k = 1;
-                    while (true) {
-                        final int rs = decode(is, huffmanACTables[scanComponent.acCodingTableSelector]);
-                        final int ssss = rs & 0xf;
-                        final int rrrr = rs >> 4;
-                        final int r = rrrr;
-
-                        if (ssss == 0) {
-                            if (r != 15) {
-                                break;
-                            }
-                            k += 16;
-                        } else {
-                            k += r;
-
-                            // "Decode_ZZ(k)", figure F.14, page 107 of T.81
-                            zz[k] = receive(ssss, is);
-                            zz[k] = extend(zz[k], ssss);
-
-                            if (k == 63) {
-                                break;
-                            }
-                            k++;
-                        }
-                    }
-
-                    final int shift = 1 << sofnSegment.precision - 1;
-                    final int max = (1 << sofnSegment.precision) - 1;
-
-                    final float[] scaledQuantizationTable = scaledQuantizationTables[frameComponent.quantTabDestSelector];
-                    ZigZag.zigZagToBlock(zz, blockInt);
-                    for (int j = 0; j < 64; j++) {
-                        block[j] = blockInt[j] * scaledQuantizationTable[j];
-                    }
-                    Dct.inverseDct8x8(block);
-
-                    int dstRowOffset = 8 * y * 8 * frameComponent.horizontalSamplingFactor + 8 * x;
-                    int srcNext = 0;
-                    for (int yy = 0; yy < 8; yy++) {
-                        for (int xx = 0; xx < 8; xx++) {
-                            float sample = block[srcNext++];
-                            sample += shift;
-                            final int result;
-                            if (sample < 0) {
-                                result = 0;
-                            } else if (sample > max) {
-                                result = max;
-                            } else {
-                                result = fastRound(sample);
-                            }
-                            fullBlock.samples[dstRowOffset + xx] = result;
-                        }
-                        dstRowOffset += 8 * frameComponent.horizontalSamplingFactor;
+        }
+        setMcuLayout(scanComponents);
+
+        final int xMCUs = (outputWidth + hSize - 1) / hSize;
+        final int yMCUs = (outputHeight + vSize - 1) / vSize;
+        final JpegInputStream[] bitInputStreams = splitByRstMarkers(imageData, scanStart, findEndOfScan(imageData, scanStart));
+        if (restartInterval > 0) {
+            decodeRestartIntervals(bitInputStreams, xMCUs, xMCUs * yMCUs, pixels);
+            return;
+        }
+        final McuDecoder mcuDecoder = new McuDecoder();
+        int bitInputStreamCount = 0;
+        JpegInputStream bitInputStream = bitInputStreams[0];
+
+        for (int y1 = 0; y1 < vSize * yMCUs; y1 += vSize) {
+            for (int x1 = 0; x1 < hSize * xMCUs; x1 += hSize) {
+                // Provide the next interval if an interval is read until it's end
+                // as long there are unread intervals available
+                if (!bitInputStream.hasNext()) {
+                    bitInputStreamCount++;
+                    if (bitInputStreamCount < bitInputStreams.length) {
+                        bitInputStream = bitInputStreams[bitInputStreamCount];
                     }
                 }
+                mcuDecoder.decodeMcu(bitInputStream, x1, y1, pixels);
             }
         }
     }
 
-    private int receive(final int ssss, final JpegInputStream is) throws ImagingException {
-        // "RECEIVE", section F.2.2.4, figure F.17, page 110 of T.81
-        int i = 0;
-        int v = 0;
-        while (i != ssss) {
-            i++;
-            v = (v << 1) + is.nextBit();
+    /**
+     * Decodes the restart intervals of a scan, concurrently if the parameters supply an executor. Each interval starts with zeroed DC predictions and is
+     * decoded with its own scratch memory, so workers only share the output buffer, to which they write disjoint MCUs.
+     */
+    private void decodeRestartIntervals(final JpegInputStream[] intervals, final int xMCUs, final int mcuCount, final int[] pixels)
+            throws ImagingException, IOException {
+        final int intervalCount = (mcuCount + restartInterval - 1) / restartInterval;
+        if (intervals.length < intervalCount) {
+            throw new ImagingException("Expected " + intervalCount + " restart intervals but found " + intervals.length);
         }
-        return v;
+        ConcurrentTasks.forEachRange(params.getExecutor(), intervalCount, (start, end) -> {
+            final McuDecoder mcuDecoder = new McuDecoder();
+            for (int i = start; i < end; i++) {
+                mcuDecoder.decodeInterval(intervals[i], i * restartInterval, Math.min(mcuCount, (i + 1) * restartInterval), xMCUs, pixels);
+            }
+        }, "decoding JPEG");
     }
 
-    private void rescaleMcu(final Block[] dataUnits, final int hSize, final int vSize, final Block[] ret) {
-        for (int i = 0; i < dataUnits.length; i++) {
-            final Block dataUnit = dataUnits[i];
-            if (dataUnit.width == hSize && dataUnit.height == vSize) {
-                System.arraycopy(dataUnit.samples, 0, ret[i].samples, 0, hSize * vSize);
-            } else {
-                final int hScale = hSize / dataUnit.width;
-                final int vScale = vSize / dataUnit.height;
-                if (hScale == 2 && vScale == 2) {
-                    int srcRowOffset = 0;
-                    int dstRowOffset = 0;
-                    for (int y = 0; y < dataUnit.height; y++) {
-                        for (int x = 0; x < hSize; x++) {
-                            final int sample = dataUnit.samples[srcRowOffset + (x >> 1)];
-                            ret[i].samples[dstRowOffset + x] = sample;
-                            ret[i].samples[dstRowOffset + hSize + x] = sample;
-                        }
-                        srcRowOffset += dataUnit.width;
-                        dstRowOffset += 2 * hSize;
-                    }
-                } else {
-                    // FIXME: optimize
-                    int dstRowOffset = 0;
-                    for (int y = 0; y < vSize; y++) {
-                        for (int x = 0; x < hSize; x++) {
-                            ret[i].samples[dstRowOffset + x] = dataUnit.samples[y / vScale * dataUnit.width + x / hScale];
-                        }
-                        dstRowOffset += hSize;
-                    }
-                }
-            }
+    /**
+     * Reads the scan header at {@code pos} into {@link #sosSegment} and returns the position of the entropy-coded data that follows it.
+     */
+    private int readSosSegment(final byte[] imageData, final int pos) throws IOException {
+        if (pos + 2 > imageData.length) {
+            throw new ImagingException("Not a Valid JPEG File");
         }
+        final int segmentLength = ByteConversions.toUInt16(imageData, pos, getByteOrder());
+        if (segmentLength < 2 || pos + segmentLength > imageData.length) {
+            throw new ImagingException("Invalid segment size");
+        }
+        sosSegment = new SosSegment(JpegConstants.SOS_MARKER, Arrays.copyOfRange(imageData, pos + 2, pos + segmentLength));
+        return pos + segmentLength;
+    }
+
+    /**
+     * Sets up MCU geometry for the given components, in MCU order.
+     */
+    private void setMcuLayout(final SofnSegment.Component[] components) {
+        mcuComponents = components;
+        singleBlockMcu = components.length == 1;
+        int hMax = 0;
+        int vMax = 0;
+        for (final SofnSegment.Component component : components) {
+            hMax = Math.max(hMax, getHorizontalBlocks(component));
+            vMax = Math.max(vMax, getVerticalBlocks(component));
+        }
+        hSize = blockSize * hMax;
+        vSize = blockSize * vMax;
     }
 
     /**
@@ -367,8 +659,8 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
                 JpegConstants.SOF11_MARKER, JpegConstants.SOF13_MARKER, JpegConstants.SOF14_MARKER, JpegConstants.SOF15_MARKER, };
 
         if (Arrays.binarySearch(sofnSegments, marker) >= 0) {
-            if (marker != JpegConstants.SOF0_MARKER) {
-                throw new ImagingException("Only sequential, baseline JPEGs are supported at the moment");
+            if (marker != JpegConstants.SOF0_MARKER && marker != JpegConstants.SOF2_MARKER) {
+                throw new ImagingException("Only sequential baseline and progressive JPEGs are supported at the moment");
             }
             sofnSegment = new SofnSegment(marker, segmentData);
         } else if (marker == JpegConstants.DQT_MARKER) {
@@ -385,6 +677,7 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
                 for (int j = 0; j < mSize; j++) {
                     quantizationMatrixFloat[j] = quantizationMatrixInt[j];
                 }
+                quantizationMatrices[table.destinationIdentifier] = quantizationMatrixFloat.clone();
                 Dct.scaleDequantizationMatrix(quantizationMatrixFloat);
                 scaledQuantizationTables[table.destinationIdentifier] = quantizationMatrixFloat;
             }
@@ -392,10 +685,13 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
             final DhtSegment dhtSegment = new DhtSegment(marker, segmentData);
             for (final HuffmanTable table : dhtSegment.huffmanTables) {
                 final DhtSegment.HuffmanTable[] tables;
+                final HuffmanDecoder[] decoders;
                 if (table.tableClass == 0) {
                     tables = huffmanDCTables;
+                    decoders = huffmanDCDecoders;
                 } else if (table.tableClass == 1) {
                     tables = huffmanACTables;
+                    decoders = huffmanACDecoders;
                 } else {
                     throw new ImagingException("Invalid huffman table class " + table.tableClass);
                 }
@@ -403,47 +699,27 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
                     throw new ImagingException("Invalid huffman table identifier " + table.destinationIdentifier);
                 }
                 tables[table.destinationIdentifier] = table;
+                decoders[table.destinationIdentifier] = new HuffmanDecoder(table);
+            }
+        } else if (marker == JpegConstants.DRI_MARKER) {
+            if (segmentData.length < 2) {
+                throw new ImagingException("Invalid DRI segment");
             }
+            restartInterval = ByteConversions.toUInt16(segmentData, getByteOrder());
         }
         return true;
     }
 
     @Override
     public void visitSos(final int marker, final byte[] markerBytes, final byte[] imageData) {
-        try (ByteArrayInputStream is = new ByteArrayInputStream(imageData)) {
-            // read the scan header
-            final int segmentLength = read2Bytes("segmentLength", is, "Not a Valid JPEG File", getByteOrder());
-            final byte[] sosSegmentBytes = readBytes("SosSegment", is, segmentLength - 2, "Not a Valid JPEG File");
-            sosSegment = new SosSegment(marker, sosSegmentBytes);
-            // read the payload of the scan, this is the remainder of image data after the header
-            // the payload contains the entropy-encoded segments (or ECS) divided by RST markers
-            // or only one ECS if the entropy-encoded data is not divided by RST markers
-            // length of payload = length of image data - length of data already read
-            final int[] scanPayload = Allocator.intArray(imageData.length - segmentLength);
-            int payloadReadCount = 0;
-            while (payloadReadCount < scanPayload.length) {
-                scanPayload[payloadReadCount] = is.read();
-                payloadReadCount++;
-            }
-
-            int hMax = 0;
-            int vMax = 0;
-            for (int i = 0; i < sofnSegment.numberOfComponents; i++) {
-                hMax = Math.max(hMax, sofnSegment.getComponents(i).horizontalSamplingFactor);
-                vMax = Math.max(vMax, sofnSegment.getComponents(i).verticalSamplingFactor);
-            }
-            final int hSize = 8 * hMax;
-            final int vSize = 8 * vMax;
-
-            final int xMCUs = (sofnSegment.width + hSize - 1) / hSize;
-            final int yMCUs = (sofnSegment.height + vSize - 1) / vSize;
-            final Block[] mcu = allocateMcuMemory();
-            final Block[] scaledMCU = Allocator.array(mcu.length, Block[]::new, Block.SHALLOW_SIZE);
-            Arrays.setAll(scaledMCU, i -> new Block(hSize, vSize));
-            final int[] preds = Allocator.intArray(sofnSegment.numberOfComponents);
+        try {
             final ColorModel colorModel;
             final WritableRaster raster;
-            Allocator.check(Integer.BYTES * sofnSegment.width * sofnSegment.height);
+            final int scaleDenominator = params.getScaleDenominator();
+            blockSize = 8 / scaleDenominator;
+            outputWidth = (sofnSegment.width + scaleDenominator - 1) / scaleDenominator;
+            outputHeight = (sofnSegment.height + scaleDenominator - 1) / scaleDenominator;
+            Allocator.check(Integer.BYTES * outputWidth * outputHeight);
             switch (sofnSegment.numberOfComponents) {
             case 4:
                 // Special handling for the application-RGB case: TIFF files with
@@ -452,21 +728,21 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
                 // with a fourth channel for alpha.
                 if (useTiffRgb) {
                     colorModel = new DirectColorModel(32, 0x00ff0000, 0x0000ff00, 0x000000ff, 0xff000000);
-                    raster = Raster.createPackedRaster(DataBuffer.TYPE_INT, sofnSegment.width, sofnSegment.height, BAND_MASK_ARGB, null);
+                    raster = Raster.createPackedRaster(DataBuffer.TYPE_INT, outputWidth, outputHeight, BAND_MASK_ARGB, null);
                 } else {
                     colorModel = new DirectColorModel(24, 0x00ff0000, 0x0000ff00, 0x000000ff);
-                    raster = Raster.createPackedRaster(DataBuffer.TYPE_INT, sofnSegment.width, sofnSegment.height, BAND_MASK_RGB, null);
+                    raster = Raster.createPackedRaster(DataBuffer.TYPE_INT, outputWidth, outputHeight, BAND_MASK_RGB, null);
                 }
 
                 break;
             case 3:
                 colorModel = new DirectColorModel(24, 0x00ff0000, 0x0000ff00, 0x000000ff);
-                raster = Raster.createPackedRaster(DataBuffer.TYPE_INT, sofnSegment.width, sofnSegment.height, new int[] { 0x00ff0000, 0x0000ff00, 0x000000ff },
+                raster = Raster.createPackedRaster(DataBuffer.TYPE_INT, outputWidth, outputHeight, new int[] { 0x00ff0000, 0x0000ff00, 0x000000ff },
                         null);
                 break;
             case 1:
                 colorModel = new DirectColorModel(24, 0x00ff0000, 0x0000ff00, 0x000000ff);
-                raster = Raster.createPackedRaster(DataBuffer.TYPE_INT, sofnSegment.width, sofnSegment.height, new int[] { 0x00ff0000, 0x0000ff00, 0x000000ff },
+                raster = Raster.createPackedRaster(DataBuffer.TYPE_INT, outputWidth, outputHeight, new int[] { 0x00ff0000, 0x0000ff00, 0x000000ff },
                         null);
                 // FIXME: why do images come out too bright with CS_GRAY?
                 // colorModel = new ComponentColorModel(
@@ -478,122 +754,14 @@ public class JpegDecoder extends BinaryFileParser implements JpegUtils.Visitor {
             default:
                 throw new ImagingException(sofnSegment.numberOfComponents + " components are invalid or unsupported");
             }
-            final DataBuffer dataBuffer = raster.getDataBuffer();
-
-            final JpegInputStream[] bitInputStreams = splitByRstMarkers(scanPayload);
-            int bitInputStreamCount = 0;
-            JpegInputStream bitInputStream = bitInputStreams[0];
-
-            for (int y1 = 0; y1 < vSize * yMCUs; y1 += vSize) {
-                for (int x1 = 0; x1 < hSize * xMCUs; x1 += hSize) {
-                    // Provide the next interval if an interval is read until it's end
-                    // as long there are unread intervals available
-                    if (!bitInputStream.hasNext()) {
-                        bitInputStreamCount++;
-                        if (bitInputStreamCount < bitInputStreams.length) {
-                            bitInputStream = bitInputStreams[bitInputStreamCount];
-                        }
-                    }
+            final int[] pixels = ((DataBufferInt) raster.getDataBuffer()).getData();
 
-                    readMcu(bitInputStream, preds, mcu);
-                    rescaleMcu(mcu, hSize, vSize, scaledMCU);
-                    int srcRowOffset = 0;
-                    int dstRowOffset = y1 * sofnSegment.width + x1;
-
-                    // The TIFF-RGB logic was adapted from the original x2,y2 loops
-                    // but special handling was added for TIFF-JPEG RGB colorspace
-                    // and conditional checks were reorganized for efficiency
-                    if (useTiffRgb && (scaledMCU.length == 3 || scaledMCU.length == 4)) {
-                        // The original (legacy) coding for the x2 and y2 loop was:
-                        // for(y2 = 0; y2 < vSize && y1 + y2 < sofnSegment.height; y2++)
-                        // for(x2 = 0; x2 < hSize && x1 + x2 < sofnSegment.width; x2++)
-                        // Here, we pre-compute the limits of the loop to reduce the
-                        // overhead for the loop conditional evaluation.
-                        final int x2Limit;
-                        if (x1 + hSize <= sofnSegment.width) {
-                            x2Limit = hSize;
-                        } else {
-                            x2Limit = sofnSegment.width - x1;
-                        }
-                        final int y2Limit;
-                        if (y1 + vSize <= sofnSegment.height) {
-                            y2Limit = vSize;
-                        } else {
-                            y2Limit = sofnSegment.height - y1;
-                        }
-
-                        if (scaledMCU.length == 4) {
-                            // RGBA colorspace
-                            // Although conventional JPEGs don't include an alpha channel
-                            // TIFF images that use JPEG encoding may do so. For example,
-                            // we have seen this variation in some false-color satellite images
-                            // from the U.S. National Weather Service. Ordinary JPEG files
-                            // may include an APP14 marker of type Unknowm indicating that
-                            // the scaledMCU.length of 3 should be interpreted as the RGB colorspace
-                            // and the 4-channel variation is interpreted as CYMK. But TIFF files
-                            // use their own tags to specify colorspace and do not include the APP14 marker.
-                            for (int y2 = 0; y2 < y2Limit; y2++) {
-                                for (int x2 = 0; x2 < x2Limit; x2++) {
-                                    final int r = scaledMCU[0].samples[srcRowOffset + x2];
-                                    final int g = scaledMCU[1].samples[srcRowOffset + x2];
-                                    final int b = scaledMCU[2].samples[srcRowOffset + x2];
-                                    final int a = scaledMCU[3].samples[srcRowOffset + x2];
-                                    final int rgb = a << 24 | r << 16 | g << 8 | b;
-                                    dataBuffer.setElem(dstRowOffset + x2, rgb);
-                                }
-                                srcRowOffset += hSize;
-                                dstRowOffset += sofnSegment.width;
-                            }
-                        } else {
-                            // scaledMCU.length == 3, standard RGB
-                            for (int y2 = 0; y2 < y2Limit; y2++) {
-                                for (int x2 = 0; x2 < x2Limit; x2++) {
-                                    final int r = scaledMCU[0].samples[srcRowOffset + x2];
-                                    final int g = scaledMCU[1].samples[srcRowOffset + x2];
-                                    final int b = scaledMCU[2].samples[srcRowOffset + x2];
-                                    final int rgb = r << 16 | g << 8 | b;
-                                    dataBuffer.setElem(dstRowOffset + x2, rgb);
-                                }
-                                srcRowOffset += hSize;
-                                dstRowOffset += sofnSegment.width;
-                            }
-                        }
-                    } else {
-                        for (int y2 = 0; y2 < vSize && y1 + y2 < sofnSegment.height; y2++) {
-                            for (int x2 = 0; x2 < hSize && x1 + x2 < sofnSegment.width; x2++) {
-                                if (scaledMCU.length == 4) {
-                                    final int c = scaledMCU[0].samples[srcRowOffset + x2];
-                                    final int m = scaledMCU[1].samples[srcRowOffset + x2];
-                                    final int y = scaledMCU[2].samples[srcRowOffset + x2];
-                                    final int k = scaledMCU[3].samples[srcRowOffset + x2];
-                                    final int rgb = ColorConversions.convertCmykToRgb(c, m, y, k);
-                                    dataBuffer.setElem(dstRowOffset + x2, rgb);
-                                } else if (scaledMCU.length == 3) {
-                                    final int y = scaledMCU[0].samples[srcRowOffset + x2];
-                                    final int cb = scaledMCU[1].samples[srcRowOffset + x2];
-                                    final int cr = scaledMCU[2].samples[srcRowOffset + x2];
-                                    final int rgb = YCbCrConverter.convertYCbCrToRgb(y, cb, cr);
-                                    dataBuffer.setElem(dstRowOffset + x2, rgb);
-                                } else if (mcu.length == 1) {
-                                    final int y = scaledMCU[0].samples[srcRowOffset + x2];
-                                    dataBuffer.setElem(dstRowOffset + x2, y << 16 | y << 8 | y);
-                                } else {
-                                    throw new ImagingException("Unsupported JPEG with " + mcu.length + " components");
-                                }
-                            }
-                            srcRowOffset += hSize;
-                            dstRowOffset += sofnSegment.width;
-                        }
-                    }
-                }
+            if (sofnSegment.marker == JpegConstants.SOF2_MARKER) {
+                decodeProgressive(imageData, pixels);
+            } else {
+                decodeSequential(imageData, pixels);
             }
             image = new BufferedImage(colorModel, raster, colorModel.isAlphaPremultiplied(), new Properties());
-            // byte[] remainder = super.getStreamBytes(is);
-            // for (int i = 0; i < remainder.length; i++)
-            // {
-            // System.out.println("" + i + " = " +
-            // Integer.toHexString(remainder[i]));
-            // }
         } catch (final ImagingException imageReadEx) {
             imageReadException = imageReadEx;
         } catch (final IOException ioEx) {
@@ -15,72 +15,159 @@
 
 package org.apache.commons.imaging.formats.jpeg.decoder;
 
-import java.util.Arrays;
-
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.formats.jpeg.JpegConstants;
 
 final class JpegInputStream {
-    static final int SHALLOW_SIZE = 32;
+    static final int SHALLOW_SIZE = 48;
     // Figure F.18, F.2.2.5, page 111 of ITU-T T.81
-    private final int[] interval;
+    // the interval is the range [nextPos, end) of the shared image data, which is never copied
+    private final byte[] data;
+    private final int end;
     // next position in the array to read
     private int nextPos;
-    private int cnt;
-    private int b;
+    // entropy-coded bits read ahead of the decoder, right-aligned
+    private long bitBuffer;
+    private int bitCount;
+    // set once the end of the interval or a marker stops the read-ahead
+    private boolean endOfData;
+    // reported when the decoder needs bits beyond the point where the read-ahead stopped
+    private String markerMessage;
 
-    JpegInputStream(final int[] interval) {
-        this.interval = Arrays.copyOf(interval, interval.length);
-        this.nextPos = 0;
+    JpegInputStream(final byte[] data) {
+        this(data, 0, data.length);
     }
 
     /**
-     * Returns {@code true} as long there are unread fields available, else {@code false}
+     * Constructs a stream over the entropy-coded bytes {@code data[from, to)}, without copying them.
      *
-     * @return {@code true} as long there are unread fields available, else {@code false}
+     * @param data the image data.
+     * @param from the position of the first byte of the interval.
+     * @param to the position after the last byte of the interval.
      */
-    public boolean hasNext() {
-        return nextPos < this.interval.length;
+    JpegInputStream(final byte[] data, final int from, final int to) {
+        this.data = data;
+        this.nextPos = from;
+        this.end = to;
     }
 
-    public int nextBit() throws ImagingException {
-        if (cnt == 0) {
-            b = read();
-            if (b < 0) {
-                throw new ImagingException("Premature End of File");
+    private void fillBitBuffer() {
+        while (bitCount <= 56 && !endOfData) {
+            if (!hasNextField()) {
+                endOfData = true;
+                break;
             }
-            cnt = 8;
+            final int b = 0xff & data[nextPos];
             if (b == 0xff) {
-                final int b2 = read();
-                if (b2 < 0) {
-                    throw new ImagingException("Premature End of File");
+                if (nextPos + 1 >= end) {
+                    // leave the dangling 0xFF unread, it is reported when its bits are needed
+                    endOfData = true;
+                    break;
                 }
+                final int b2 = 0xff & data[nextPos + 1];
                 if (b2 != 0) {
                     if (b2 == (0xff & JpegConstants.DNL_MARKER)) {
-                        throw new ImagingException("DNL not yet supported");
+                        markerMessage = "DNL not yet supported";
+                    } else {
+                        markerMessage = "Invalid marker found in entropy data: 0xFF " + Integer.toHexString(b2);
                     }
-                    throw new ImagingException("Invalid marker found in entropy data: 0xFF " + Integer.toHexString(b2));
+                    endOfData = true;
+                    break;
                 }
+                nextPos += 2;
+            } else {
+                nextPos++;
+            }
+            bitBuffer = bitBuffer << 8 | b;
+            bitCount += 8;
+        }
+    }
+
+    /**
+     * Returns {@code true} as long there are unread fields available, else {@code false}
+     *
+     * @return {@code true} as long there are unread fields available, else {@code false}
+     */
+    public boolean hasNext() {
+        // whole bytes still held in the bit buffer have not been read by the decoder yet
+        return hasNextField() || bitCount >= 8;
+    }
+
+    private boolean hasNextField() {
+        return nextPos < end;
+    }
+
+    public int nextBit() throws ImagingException {
+        return readBits(1);
+    }
+
+    /**
+     * Returns the next {@code count} bits without consuming them. Bits past the end of the entropy-coded data read as zero.
+     *
+     * @param count the number of bits to peek, between 1 and 25.
+     * @return the bits, right-aligned.
+     */
+    int peekBits(final int count) {
+        if (bitCount < count) {
+            fillBitBuffer();
+            if (bitCount < count) {
+                return (int) (bitBuffer << count - bitCount) & (1 << count) - 1;
             }
         }
-        final int bit = b >> 7 & 0x1;
-        cnt--;
-        b <<= 1;
-        return bit;
+        return (int) (bitBuffer >>> bitCount - count) & (1 << count) - 1;
     }
 
     /**
-     * Returns the value from current field (as {@code InputStream.read()} would do) and set the position of the pointer to the next field to read.
+     * Reads and returns the next {@code count} bits.
      *
-     * @return the value from current field (as {@code InputStream.read()} would do).
-     * @throws IllegalStateException if the stream hasn't any other value.
+     * @param count the number of bits to read, between 1 and 25.
+     * @return the bits, right-aligned.
+     * @throws ImagingException if the entropy-coded data ends with a marker before {@code count} bits are available.
      */
-    int read() {
-        if (!hasNext()) {
-            throw new IllegalStateException("This stream hasn't any other value, all values were already read.");
+    int readBits(final int count) throws ImagingException {
+        final int bits = peekBits(count);
+        skipBits(count);
+        return bits;
+    }
+
+    /**
+     * Reads {@code ssss} magnitude bits and sign-extends them, combining "RECEIVE" and "EXTEND" (figures F.17 and F.12 of T.81).
+     *
+     * @param ssss the magnitude category.
+     * @return the coefficient value.
+     * @throws ImagingException if the entropy-coded data ends with a marker before enough bits are available.
+     */
+    int receiveExtend(final int ssss) throws ImagingException {
+        if (ssss == 0) {
+            return 0;
+        }
+        final int v = readBits(ssss);
+        if (v < 1 << ssss - 1) {
+            return v + (-1 << ssss) + 1;
+        }
+        return v;
+    }
+
+    /**
+     * Consumes {@code count} bits previously returned by {@link #peekBits(int)}.
+     *
+     * @param count the number of bits to consume.
+     * @throws ImagingException if the entropy-coded data ends with a marker before {@code count} bits are available.
+     */
+    void skipBits(final int count) throws ImagingException {
+        if (bitCount < count) {
+            fillBitBuffer();
+            if (bitCount < count) {
+                if (markerMessage != null) {
+                    throw new ImagingException(markerMessage);
+                }
+                if (hasNextField()) {
+                    // a lone 0xFF at the end of the interval
+                    throw new ImagingException("Premature End of File");
+                }
+                throw new IllegalStateException("This stream hasn't any other value, all values were already read.");
+            }
         }
-        final int value = this.interval[nextPos];
-        this.nextPos++;
-        return value;
+        bitCount -= count;
     }
 }
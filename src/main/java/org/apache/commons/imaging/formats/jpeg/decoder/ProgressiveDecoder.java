@@ -0,0 +1,312 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *  under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg.decoder;
+
+import java.util.Arrays;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.Allocator;
+import org.apache.commons.imaging.formats.jpeg.segments.SofnSegment;
+import org.apache.commons.imaging.formats.jpeg.segments.SosSegment;
+
+/**
+ * Accumulates the DCT coefficients of a progressive JPEG over its scans, see section G.1.2 of T.81.
+ * <p>
+ * Coefficients are kept in zig-zag order, 64 per block, for every block of every frame component. The block grid of each component is padded to a whole
+ * number of MCUs, so interleaved and non-interleaved scans address the same storage.
+ * </p>
+ */
+final class ProgressiveDecoder {
+
+    private final SofnSegment sofnSegment;
+
+    private final int mcusPerLine;
+
+    private final int mcusPerColumn;
+
+    // padded block grid used for storage
+    private final int[] blocksPerLine;
+
+    // blocks actually covering the component, iterated by non-interleaved scans
+    private final int[] componentBlocksPerLine;
+
+    private final int[] componentBlocksPerColumn;
+
+    private final short[][] coefficients;
+
+    private final int[] preds;
+
+    private int eobrun;
+
+    ProgressiveDecoder(final SofnSegment sofnSegment) {
+        this.sofnSegment = sofnSegment;
+        int hMax = 0;
+        int vMax = 0;
+        for (int i = 0; i < sofnSegment.numberOfComponents; i++) {
+            hMax = Math.max(hMax, sofnSegment.getComponents(i).horizontalSamplingFactor);
+            vMax = Math.max(vMax, sofnSegment.getComponents(i).verticalSamplingFactor);
+        }
+        mcusPerLine = (sofnSegment.width + 8 * hMax - 1) / (8 * hMax);
+        mcusPerColumn = (sofnSegment.height + 8 * vMax - 1) / (8 * vMax);
+
+        final int componentCount = sofnSegment.numberOfComponents;
+        blocksPerLine = Allocator.intArray(componentCount);
+        componentBlocksPerLine = Allocator.intArray(componentCount);
+        componentBlocksPerColumn = Allocator.intArray(componentCount);
+        coefficients = new short[componentCount][];
+        preds = Allocator.intArray(componentCount);
+        for (int i = 0; i < componentCount; i++) {
+            final SofnSegment.Component component = sofnSegment.getComponents(i);
+            blocksPerLine[i] = mcusPerLine * component.horizontalSamplingFactor;
+            final int blocksPerColumn = mcusPerColumn * component.verticalSamplingFactor;
+            final int componentWidth = (sofnSegment.width * component.horizontalSamplingFactor + hMax - 1) / hMax;
+            final int componentHeight = (sofnSegment.height * component.verticalSamplingFactor + vMax - 1) / vMax;
+            componentBlocksPerLine[i] = (componentWidth + 7) / 8;
+            componentBlocksPerColumn[i] = (componentHeight + 7) / 8;
+            coefficients[i] = Allocator.shortArray(Allocator.check(64L * blocksPerLine[i] * blocksPerColumn, Short.BYTES));
+        }
+    }
+
+    private void decodeAcFirst(final JpegInputStream is, final HuffmanDecoder acDecoder, final short[] coefs, final int offset, final int ss, final int se,
+            final int al) throws ImagingException {
+        if (eobrun > 0) {
+            eobrun--;
+            return;
+        }
+        int k = ss;
+        while (k <= se) {
+            final int rs = acDecoder.decode(is);
+            final int s = rs & 0xf;
+            final int r = rs >> 4;
+            if (s == 0) {
+                if (r < 15) {
+                    // EOBn, this block and the next (2^r - 1 + extra bits) blocks end here
+                    eobrun = (1 << r) - 1;
+                    if (r > 0) {
+                        eobrun += is.readBits(r);
+                    }
+                    break;
+                }
+                k += 16;
+                continue;
+            }
+            k += r;
+            if (k > se) {
+                throw new ImagingException("Invalid AC coefficient index " + k);
+            }
+            coefs[offset + k] = (short) (is.receiveExtend(s) * (1 << al));
+            k++;
+        }
+    }
+
+    private void decodeAcRefine(final JpegInputStream is, final HuffmanDecoder acDecoder, final short[] coefs, final int offset, final int ss, final int se,
+            final int al) throws ImagingException {
+        // section G.1.2.3 of T.81, following the structure of the IJG decoder
+        final int p1 = 1 << al;
+        final int m1 = -1 << al;
+        int k = ss;
+        if (eobrun == 0) {
+            for (; k <= se; k++) {
+                final int rs = acDecoder.decode(is);
+                int r = rs >> 4;
+                int s = rs & 0xf;
+                if (s != 0) {
+                    if (s != 1) {
+                        throw new ImagingException("Invalid coefficient size " + s + " in refinement scan");
+                    }
+                    s = is.readBits(1) != 0 ? p1 : m1;
+                } else if (r != 15) {
+                    eobrun = 1 << r;
+                    if (r > 0) {
+                        eobrun += is.readBits(r);
+                    }
+                    break;
+                }
+                // skip r zero-history coefficients, refining the non-zero ones passed on the way
+                do {
+                    final int coef = coefs[offset + k];
+                    if (coef != 0) {
+                        refine(is, coefs, offset + k, p1, m1);
+                    } else {
+                        if (--r < 0) {
+                            break;
+                        }
+                    }
+                    k++;
+                } while (k <= se);
+                if (s != 0) {
+                    if (k > se) {
+                        throw new ImagingException("Invalid AC coefficient index " + k);
+                    }
+                    coefs[offset + k] = (short) s;
+                }
+            }
+        }
+        if (eobrun > 0) {
+            // the remainder of the band only carries correction bits
+            for (; k <= se; k++) {
+                if (coefs[offset + k] != 0) {
+                    refine(is, coefs, offset + k, p1, m1);
+                }
+            }
+            eobrun--;
+        }
+    }
+
+    private void decodeBlock(final JpegInputStream is, final SosSegment sosSegment, final HuffmanDecoder dcDecoder, final HuffmanDecoder acDecoder,
+            final int component, final int blockOffset) throws ImagingException {
+        final short[] coefs = coefficients[component];
+        final int al = sosSegment.successiveApproximationBitLow;
+        if (sosSegment.startOfSpectralSelection == 0) {
+            if (sosSegment.successiveApproximationBitHigh == 0) {
+                final int t = dcDecoder.decode(is);
+                preds[component] += is.receiveExtend(t);
+                coefs[blockOffset] = (short) (preds[component] * (1 << al));
+            } else if (is.readBits(1) != 0) {
+                coefs[blockOffset] |= 1 << al;
+            }
+        } else if (sosSegment.successiveApproximationBitHigh == 0) {
+            decodeAcFirst(is, acDecoder, coefs, blockOffset, sosSegment.startOfSpectralSelection, sosSegment.endOfSpectralSelection, al);
+        } else {
+            decodeAcRefine(is, acDecoder, coefs, blockOffset, sosSegment.startOfSpectralSelection, sosSegment.endOfSpectralSelection, al);
+        }
+    }
+
+    /**
+     * Decodes one scan into the coefficient buffers.
+     *
+     * @param sosSegment      the scan header.
+     * @param intervals       the entropy-coded data, one stream per restart interval.
+     * @param dcDecoders      the DC Huffman decoders by table destination.
+     * @param acDecoders      the AC Huffman decoders by table destination.
+     * @param restartInterval the number of MCUs per restart interval, 0 if there are none.
+     * @throws ImagingException if the scan is invalid or its data is corrupt.
+     */
+    void decodeScan(final SosSegment sosSegment, final JpegInputStream[] intervals, final HuffmanDecoder[] dcDecoders, final HuffmanDecoder[] acDecoders,
+            final int restartInterval) throws ImagingException {
+        final int ss = sosSegment.startOfSpectralSelection;
+        final int se = sosSegment.endOfSpectralSelection;
+        if (ss > se || se > 63 || ss == 0 && se != 0) {
+            throw new ImagingException("Invalid spectral selection " + ss + ".." + se);
+        }
+        if (ss > 0 && sosSegment.numberOfComponents != 1) {
+            throw new ImagingException("AC scans of progressive JPEGs must have a single component");
+        }
+
+        final int scanComponentCount = sosSegment.numberOfComponents;
+        final int[] components = Allocator.intArray(scanComponentCount);
+        final HuffmanDecoder[] scanDcDecoders = new HuffmanDecoder[scanComponentCount];
+        final HuffmanDecoder[] scanAcDecoders = new HuffmanDecoder[scanComponentCount];
+        for (int i = 0; i < scanComponentCount; i++) {
+            final SosSegment.Component scanComponent = sosSegment.getComponents(i);
+            components[i] = -1;
+            for (int j = 0; j < sofnSegment.numberOfComponents; j++) {
+                if (sofnSegment.getComponents(j).componentIdentifier == scanComponent.scanComponentSelector) {
+                    components[i] = j;
+                    break;
+                }
+            }
+            if (components[i] < 0) {
+                throw new ImagingException("Invalid component");
+            }
+            scanDcDecoders[i] = dcDecoders[scanComponent.dcCodingTableSelector];
+            scanAcDecoders[i] = acDecoders[scanComponent.acCodingTableSelector];
+            final boolean missingTable = ss == 0 ? sosSegment.successiveApproximationBitHigh == 0 && scanDcDecoders[i] == null : scanAcDecoders[i] == null;
+            if (missingTable) {
+                throw new ImagingException("Missing Huffman table for component " + scanComponent.scanComponentSelector);
+            }
+        }
+
+        Arrays.fill(preds, 0);
+        eobrun = 0;
+        int intervalIndex = 0;
+        JpegInputStream is = intervals[0];
+
+        if (scanComponentCount == 1) {
+            // a non-interleaved scan codes the blocks of one component in raster order, one block per MCU
+            final int component = components[0];
+            final int blocksAcross = componentBlocksPerLine[component];
+            final int blockCount = blocksAcross * componentBlocksPerColumn[component];
+            for (int n = 0; n < blockCount; n++) {
+                if (restartInterval > 0 && n > 0 && n % restartInterval == 0) {
+                    intervalIndex++;
+                    is = nextInterval(intervals, intervalIndex);
+                }
+                final int blockOffset = 64 * (n / blocksAcross * blocksPerLine[component] + n % blocksAcross);
+                decodeBlock(is, sosSegment, scanDcDecoders[0], scanAcDecoders[0], component, blockOffset);
+            }
+            return;
+        }
+
+        final int mcuCount = mcusPerLine * mcusPerColumn;
+        for (int m = 0; m < mcuCount; m++) {
+            if (restartInterval > 0 && m > 0 && m % restartInterval == 0) {
+                intervalIndex++;
+                is = nextInterval(intervals, intervalIndex);
+            }
+            final int mcuX = m % mcusPerLine;
+            final int mcuY = m / mcusPerLine;
+            for (int i = 0; i < scanComponentCount; i++) {
+                final int component = components[i];
+                final SofnSegment.Component frameComponent = sofnSegment.getComponents(component);
+                final int h = frameComponent.horizontalSamplingFactor;
+                final int v = frameComponent.verticalSamplingFactor;
+                for (int y = 0; y < v; y++) {
+                    for (int x = 0; x < h; x++) {
+                        final int blockOffset = 64 * ((mcuY * v + y) * blocksPerLine[component] + mcuX * h + x);
+                        decodeBlock(is, sosSegment, scanDcDecoders[i], scanAcDecoders[i], component, blockOffset);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of blocks per row in the coefficient buffer of a component.
+     *
+     * @param component the index of the component in the frame.
+     * @return the number of blocks per row.
+     */
+    int getBlocksPerLine(final int component) {
+        return blocksPerLine[component];
+    }
+
+    /**
+     * Gets the coefficient buffer of a component, 64 zig-zag ordered coefficients per block.
+     *
+     * @param component the index of the component in the frame.
+     * @return the coefficients.
+     */
+    short[] getCoefficients(final int component) {
+        return coefficients[component];
+    }
+
+    private JpegInputStream nextInterval(final JpegInputStream[] intervals, final int intervalIndex) throws ImagingException {
+        if (intervalIndex >= intervals.length) {
+            throw new ImagingException("Missing restart marker in progressive scan");
+        }
+        // predictions and end-of-band runs do not cross restart markers
+        Arrays.fill(preds, 0);
+        eobrun = 0;
+        return intervals[intervalIndex];
+    }
+
+    private void refine(final JpegInputStream is, final short[] coefs, final int index, final int p1, final int m1) throws ImagingException {
+        if (is.readBits(1) != 0 && (coefs[index] & p1) == 0) {
+            coefs[index] += coefs[index] >= 0 ? p1 : m1;
+        }
+    }
+}
@@ -104,6 +104,57 @@ final class YCbCrConverter {
         return r | g | b;
     }
 
+    /**
+     * Converts a row of YCbCr samples with full-resolution chroma, as in 4:4:4 sampling, to packed RGB.
+     *
+     * @param y the luma samples.
+     * @param yOffset the position of the first luma sample.
+     * @param cb the blue-difference samples.
+     * @param cr the red-difference samples.
+     * @param cOffset the position of the first chroma sample in {@code cb} and {@code cr}.
+     * @param rgb the destination pixels.
+     * @param rgbOffset the position of the first destination pixel.
+     * @param count the number of pixels.
+     */
+    static void convertRow(final int[] y, final int yOffset, final int[] cb, final int[] cr, final int cOffset, final int[] rgb, final int rgbOffset,
+            final int count) {
+        for (int x = 0; x < count; x++) {
+            rgb[rgbOffset + x] = convertYCbCrToRgb(y[yOffset + x], cb[cOffset + x], cr[cOffset + x]);
+        }
+    }
+
+    /**
+     * Converts a row of YCbCr samples with chroma subsampled by 2 horizontally, as in 4:2:2 and 4:2:0 sampling, to packed RGB. Each chroma sample is
+     * replicated over two pixels, and the green terms derived from it are looked up once for both.
+     *
+     * @param y the luma samples.
+     * @param yOffset the position of the first luma sample.
+     * @param cb the blue-difference samples.
+     * @param cr the red-difference samples.
+     * @param cOffset the position of the first chroma sample in {@code cb} and {@code cr}.
+     * @param rgb the destination pixels.
+     * @param rgbOffset the position of the first destination pixel.
+     * @param count the number of pixels.
+     */
+    static void convertRowH2(final int[] y, final int yOffset, final int[] cb, final int[] cr, final int cOffset, final int[] rgb, final int rgbOffset,
+            final int count) {
+        int x = 0;
+        for (int c = cOffset; x + 1 < count; c++) {
+            final int cbHigh = cb[c] << 8;
+            final int crHigh = cr[c] << 8;
+            final int g1 = GREENS1[cbHigh | cr[c]] << 8;
+            final int y0 = y[yOffset + x];
+            final int y1 = y[yOffset + x + 1];
+            rgb[rgbOffset + x] = REDS[crHigh | y0] | GREENS2[g1 | y0] | BLUES[cbHigh | y0];
+            rgb[rgbOffset + x + 1] = REDS[crHigh | y1] | GREENS2[g1 | y1] | BLUES[cbHigh | y1];
+            x += 2;
+        }
+        if (x < count) {
+            final int c = cOffset + (x >> 1);
+            rgb[rgbOffset + x] = convertYCbCrToRgb(y[yOffset + x], cb[c], cr[c]);
+        }
+    }
+
     private static int fastRound(final float x) {
         // Math.round() is very slow
         return (int) (x + 0.5f);
@@ -19,6 +19,11 @@ package org.apache.commons.imaging.formats.png;
 import static org.apache.commons.imaging.common.BinaryFunctions.readBytes;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -46,10 +51,23 @@ abstract class AbstractScanExpediter {
     final PngChunkPlte pngChunkPlte;
     final GammaCorrection gammaCorrection;
     final AbstractTransparencyFilter abstractTransparencyFilter;
+    final PngRowListener rowListener;
+
+    // pixels of TYPE_INT_RGB, TYPE_INT_ARGB and TYPE_BYTE_GRAY images are stored directly, others go through setRGB
+    private final int[] intPixels;
+    private final int intPixelMask;
+    private final byte[] grayPixels;
+    private byte[] grayTable;
+    private final int scanlineStride;
+
+    private final boolean hasRowConverter;
+    private int[] gammaTable;
+    // ARGB of each grey or palette sample, with gamma and tRNS applied
+    private int[] sampleArgb;
 
     AbstractScanExpediter(final int width, final int height, final InputStream is, final BufferedImage bi, final PngColorType pngColorType, final int bitDepth,
             final int bitsPerPixel, final PngChunkPlte pngChunkPLTE, final GammaCorrection gammaCorrection,
-            final AbstractTransparencyFilter abstractTransparencyFilter) {
+            final AbstractTransparencyFilter abstractTransparencyFilter, final PngRowListener rowListener) {
         this.width = width;
         this.height = height;
         this.is = is;
@@ -61,10 +79,166 @@ abstract class AbstractScanExpediter {
         this.pngChunkPlte = pngChunkPLTE;
         this.gammaCorrection = gammaCorrection;
         this.abstractTransparencyFilter = abstractTransparencyFilter;
+        this.rowListener = rowListener;
+
+        final WritableRaster raster = bi.getRaster();
+        switch (bi.getType()) {
+        case BufferedImage.TYPE_INT_RGB:
+        case BufferedImage.TYPE_INT_ARGB:
+            intPixels = ((DataBufferInt) raster.getDataBuffer()).getData();
+            intPixelMask = bi.getType() == BufferedImage.TYPE_INT_RGB ? 0x00ffffff : 0xffffffff;
+            grayPixels = null;
+            scanlineStride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+            break;
+        case BufferedImage.TYPE_BYTE_GRAY:
+            intPixels = null;
+            intPixelMask = 0;
+            grayPixels = ((DataBufferByte) raster.getDataBuffer()).getData();
+            scanlineStride = ((ComponentSampleModel) raster.getSampleModel()).getScanlineStride();
+            break;
+        default:
+            intPixels = null;
+            intPixelMask = 0;
+            grayPixels = null;
+            scanlineStride = 0;
+            break;
+        }
+
+        switch (pngColorType) {
+        case GREYSCALE:
+            hasRowConverter = bitDepth == 1 || bitDepth == 2 || bitDepth == 4 || bitDepth == 8 || bitDepth == 16;
+            break;
+        case INDEXED_COLOR:
+            hasRowConverter = bitDepth == 1 || bitDepth == 2 || bitDepth == 4 || bitDepth == 8;
+            break;
+        default:
+            hasRowConverter = bitDepth == 8 || bitDepth == 16;
+            break;
+        }
+    }
+
+    /**
+     * Converts the pixels of an unfiltered scanline to ARGB, giving the same values as {@link #getRgb(BitParser, int)}.
+     *
+     * @param scanline the unfiltered scanline.
+     * @param pixels the number of pixels in the scanline.
+     * @param argb receives the ARGB values.
+     * @throws ImagingException if the image data is invalid.
+     * @throws IOException if the transparency filter fails.
+     */
+    void convertRow(final byte[] scanline, final int pixels, final int[] argb) throws ImagingException, IOException {
+        if (!hasRowConverter) {
+            final BitParser bitParser = new BitParser(scanline, bitsPerPixel, bitDepth);
+            for (int x = 0; x < pixels; x++) {
+                argb[x] = getRgb(bitParser, x);
+            }
+            return;
+        }
+
+        final int sampleStep = bitDepth >> 3;
+        switch (pngColorType) {
+        case GREYSCALE:
+        case INDEXED_COLOR: {
+            final int[] lookup = getSampleArgb();
+            if (bitDepth >= 8) {
+                // the high byte of 16 bit samples
+                for (int x = 0, offset = 0; x < pixels; x++, offset += sampleStep) {
+                    argb[x] = getSampleArgb(lookup, 0xff & scanline[offset]);
+                }
+            } else {
+                final int mask = (1 << bitDepth) - 1;
+                for (int x = 0, bit = 0; x < pixels; x++, bit += bitDepth) {
+                    final int sample = scanline[bit >> 3] >> 8 - (bit & 7) - bitDepth & mask;
+                    argb[x] = getSampleArgb(lookup, sample);
+                }
+            }
+            break;
+        }
+        case TRUE_COLOR: {
+            final int[] gamma = gammaCorrection == null ? null : getGammaTable();
+            for (int x = 0, offset = 0; x < pixels; x++, offset += 3 * sampleStep) {
+                final int red = 0xff & scanline[offset];
+                final int green = 0xff & scanline[offset + sampleStep];
+                final int blue = 0xff & scanline[offset + 2 * sampleStep];
+                int rgb = 0xff000000 | red << 16 | green << 8 | blue;
+                if (abstractTransparencyFilter != null) {
+                    rgb = abstractTransparencyFilter.filter(rgb, -1);
+                }
+                if (gamma != null) {
+                    // keeps the alpha of the transparency filter
+                    rgb = rgb & 0xff000000 | gamma[red] << 16 | gamma[green] << 8 | gamma[blue];
+                }
+                argb[x] = rgb;
+            }
+            break;
+        }
+        case GREYSCALE_WITH_ALPHA: {
+            final int[] gamma = getGammaTable();
+            for (int x = 0, offset = 0; x < pixels; x++, offset += 2 * sampleStep) {
+                final int sample = gamma[0xff & scanline[offset]];
+                argb[x] = (0xff & scanline[offset + sampleStep]) << 24 | sample << 16 | sample << 8 | sample;
+            }
+            break;
+        }
+        case TRUE_COLOR_WITH_ALPHA: {
+            final int[] gamma = getGammaTable();
+            for (int x = 0, offset = 0; x < pixels; x++, offset += 4 * sampleStep) {
+                final int red = gamma[0xff & scanline[offset]];
+                final int green = gamma[0xff & scanline[offset + sampleStep]];
+                final int blue = gamma[0xff & scanline[offset + 2 * sampleStep]];
+                argb[x] = (0xff & scanline[offset + 3 * sampleStep]) << 24 | red << 16 | green << 8 | blue;
+            }
+            break;
+        }
+        default:
+            throw new ImagingException("PNG: unknown color type: " + pngColorType);
+        }
     }
 
     public abstract void drive() throws ImagingException, IOException;
 
+    private int[] getGammaTable() {
+        if (gammaTable == null) {
+            gammaTable = new int[256];
+            for (int i = 0; i < gammaTable.length; i++) {
+                gammaTable[i] = gammaCorrection == null ? i : gammaCorrection.correctSample(i);
+            }
+        }
+        return gammaTable;
+    }
+
+    private int[] getSampleArgb() throws ImagingException, IOException {
+        if (sampleArgb != null) {
+            return sampleArgb;
+        }
+        if (pngColorType == PngColorType.INDEXED_COLOR) {
+            if (pngChunkPlte == null) {
+                throw new ImagingException("A PLTE chunk is required for an indexed color type.");
+            }
+            final int[] palette = pngChunkPlte.getRgb();
+            sampleArgb = Allocator.intArray(palette.length);
+            for (int index = 0; index < palette.length; index++) {
+                sampleArgb[index] = abstractTransparencyFilter == null ? palette[index] : abstractTransparencyFilter.filter(palette[index], index);
+            }
+        } else {
+            final int[] gamma = getGammaTable();
+            sampleArgb = new int[bitDepth < 8 ? 1 << bitDepth : 256];
+            for (int i = 0; i < sampleArgb.length; i++) {
+                final int sample = gamma[bitDepth < 8 ? i * 255 / ((1 << bitDepth) - 1) : i];
+                final int rgb = getPixelRgb(sample, sample, sample);
+                sampleArgb[i] = abstractTransparencyFilter == null ? rgb : abstractTransparencyFilter.filter(rgb, sample);
+            }
+        }
+        return sampleArgb;
+    }
+
+    private int getSampleArgb(final int[] lookup, final int sample) throws ImagingException {
+        if (sample >= lookup.length) {
+            throw new ImagingException("PNG: unknown Palette reference: " + sample);
+        }
+        return lookup[sample];
+    }
+
     final int getBitsToBytesRoundingUp(final int bits) {
         return (bits + 7) / 8;
     }
@@ -183,6 +357,38 @@ abstract class AbstractScanExpediter {
         }
     }
 
+    /**
+     * Stores a row of converted pixels in the image.
+     *
+     * @param argb the ARGB values.
+     * @param pixels the number of pixels.
+     * @param y the image row.
+     * @param x the image column of the first pixel.
+     * @param xStep the number of image columns between pixels.
+     */
+    void setRow(final int[] argb, final int pixels, final int y, final int x, final int xStep) {
+        if (intPixels != null) {
+            for (int i = 0, offset = y * scanlineStride + x; i < pixels; i++, offset += xStep) {
+                intPixels[offset] = argb[i] & intPixelMask;
+            }
+        } else if (grayPixels != null) {
+            if (grayTable == null) {
+                // the color model maps sRGB grey to linear grey
+                grayTable = new byte[256];
+                for (int i = 0; i < grayTable.length; i++) {
+                    grayTable[i] = ((byte[]) bi.getColorModel().getDataElements(getPixelRgb(i, i, i), null))[0];
+                }
+            }
+            for (int i = 0, offset = y * scanlineStride + x; i < pixels; i++, offset += xStep) {
+                grayPixels[offset] = grayTable[0xff & argb[i]];
+            }
+        } else {
+            for (int i = 0; i < pixels; i++) {
+                bi.setRGB(x + i * xStep, y, argb[i]);
+            }
+        }
+    }
+
     ScanlineFilter getScanlineFilter(final FilterType filterType, final int bytesPerPixel) {
         switch (filterType) {
         case NONE:
@@ -16,28 +16,24 @@
  */
 package org.apache.commons.imaging.formats.png;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-
-import org.junit.jupiter.api.Test;
-
 /**
- * Tests for class {@link PngCrc}.
- *
- * @date 13.07.2017
- * @see PngCrc
+ * Which chunk CRCs the PNG parser verifies when reading.
+ * <p>
+ * Critical chunks (IHDR, PLTE, IDAT and IEND) are needed to decode the image, ancillary chunks carry metadata that a decoder may ignore. With verification
+ * every byte of the checked chunks is read, including chunks that would otherwise be skipped.
+ * </p>
  *
- **/
-class PngCrcTest {
-
-    @Test
-    void testCrc() {
-
-        final PngCrc pngCrc = new PngCrc();
-        final byte[] byteArray = new byte[4];
+ * @see <a href="https://www.w3.org/TR/png/#5Chunk-layout">Portable Network Graphics Specification - Chunk layout</a>
+ * @since 1.0.0-alpha7
+ */
+public enum PngCrcVerification {
 
-        assertEquals(558161692, pngCrc.crc(byteArray, (byte) 32));
-        assertEquals(3736805603L, pngCrc.startPartialCrc(byteArray, 0));
+    /** The CRC of every chunk is verified. */
+    VERIFY,
 
-    }
+    /** Only the CRCs of critical chunks are verified. */
+    VERIFY_CRITICAL,
 
+    /** No CRC is verified. */
+    SKIP
 }
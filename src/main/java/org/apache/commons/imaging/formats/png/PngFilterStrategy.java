@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.png;
+
+/**
+ * How the PNG writer chooses the filter type of each row of an image.
+ * <p>
+ * Filtering predicts each byte of a row from its neighbours and stores only the difference, which usually compresses much better than the raw bytes. The
+ * specification recommends {@link #NONE} for indexed color images and images with less than 8 bits per sample, and {@link #MINIMUM_SUM} for the others.
+ * </p>
+ *
+ * @see <a href="https://www.w3.org/TR/png/#12Filter-selection">Portable Network Graphics Specification - Filter selection</a>
+ * @since 1.0.0-alpha7
+ */
+public enum PngFilterStrategy {
+
+    /** Every row is stored unfiltered. */
+    NONE(FilterType.NONE),
+
+    /** Every row uses the Sub filter, predicting each byte from the byte to its left. */
+    SUB(FilterType.SUB),
+
+    /** Every row uses the Up filter, predicting each byte from the byte above it. */
+    UP(FilterType.UP),
+
+    /** Every row uses the Average filter, predicting each byte from the mean of the bytes to its left and above it. */
+    AVERAGE(FilterType.AVERAGE),
+
+    /** Every row uses the Paeth filter, predicting each byte from whichever of its left, upper and upper left neighbours is closest to their gradient. */
+    PAETH(FilterType.PAETH),
+
+    /**
+     * Each row uses the filter type whose output has the minimum sum of absolute differences, taking the filtered bytes as signed values. This is the
+     * heuristic recommended by the specification and used by most encoders.
+     */
+    MINIMUM_SUM(null),
+
+    /**
+     * Each row is filtered with every filter type and compressed on its own, and the filter type giving the smallest output is used. This is several times
+     * slower than {@link #MINIMUM_SUM} and usually gains a few percent more.
+     */
+    BRUTE_FORCE(null);
+
+    private final FilterType filterType;
+
+    PngFilterStrategy(final FilterType filterType) {
+        this.filterType = filterType;
+    }
+
+    /**
+     * Gets the filter type used for every row.
+     *
+     * @return the filter type, or null if it is chosen row by row.
+     */
+    FilterType getFilterType() {
+        return filterType;
+    }
+}
@@ -22,8 +22,6 @@ import java.awt.color.ICC_ColorSpace;
 import java.awt.color.ICC_Profile;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -32,6 +30,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
 import java.util.zip.InflaterInputStream;
 
 import org.apache.commons.imaging.AbstractImageParser;
@@ -51,7 +51,6 @@ import org.apache.commons.imaging.formats.png.chunks.AbstractPngTextChunk;
 import org.apache.commons.imaging.formats.png.chunks.PngChunk;
 import org.apache.commons.imaging.formats.png.chunks.PngChunkGama;
 import org.apache.commons.imaging.formats.png.chunks.PngChunkIccp;
-import org.apache.commons.imaging.formats.png.chunks.PngChunkIdat;
 import org.apache.commons.imaging.formats.png.chunks.PngChunkIhdr;
 import org.apache.commons.imaging.formats.png.chunks.PngChunkItxt;
 import org.apache.commons.imaging.formats.png.chunks.PngChunkPhys;
@@ -73,10 +72,140 @@ import org.apache.commons.imaging.icc.IccProfileParser;
  */
 public class PngImageParser extends AbstractImageParser<PngImagingParameters> implements XmpEmbeddable<PngImagingParameters> {
 
+    /**
+     * The data of all IDAT chunks as one stream, read straight from the PNG stream. The other chunks are read as they are reached, and those needed to
+     * decode the image are kept.
+     */
+    private final class ImageDataInputStream extends InputStream {
+
+        private final InputStream is;
+        private final List<PngChunk> chunks;
+        private final PngCrcVerification crcVerification;
+        // bytes left in the current IDAT chunk, -1 once IEND is read
+        private int remaining;
+        // the CRC of the current IDAT chunk so far, null if it is not verified
+        private CRC32 crc32;
+
+        ImageDataInputStream(final InputStream is, final List<PngChunk> chunks, final PngCrcVerification crcVerification)
+                throws ImagingException, IOException {
+            this.is = is;
+            this.chunks = chunks;
+            this.crcVerification = crcVerification;
+            startChunk();
+        }
+
+        boolean hasImageData() {
+            return remaining >= 0;
+        }
+
+        private void nextChunk() throws ImagingException, IOException {
+            // the CRC of the IDAT chunk just read
+            final int crc = BinaryFunctions.read4Bytes("CRC", is, "Not a Valid PNG File", getByteOrder());
+            if (crc32 != null) {
+                verifyCrc(ChunkType.IDAT.value, crc32, crc);
+            }
+            startChunk();
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : 0xff & b[0];
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (remaining == 0) {
+                nextChunk();
+            }
+            if (remaining < 0) {
+                return -1;
+            }
+            final int count = is.read(b, off, Math.min(len, remaining));
+            if (count < 0) {
+                throw new ImagingException("Not a Valid PNG File: Couldn't read Chunk Data.");
+            }
+            if (crc32 != null) {
+                crc32.update(b, off, count);
+            }
+            remaining -= count;
+            return count;
+        }
+
+        void readRemainingChunks() throws ImagingException, IOException {
+            while (remaining >= 0) {
+                if (crc32 != null) {
+                    updateCrc(is, remaining, crc32);
+                } else {
+                    BinaryFunctions.skipBytes(is, remaining, "Not a Valid PNG File");
+                }
+                nextChunk();
+            }
+        }
+
+        private void startChunk() throws ImagingException, IOException {
+            remaining = readChunks(is, IMAGE_CHUNK_TYPES, false, true, chunks, crcVerification);
+            crc32 = remaining >= 0 && isCrcVerified(ChunkType.IDAT.value, crcVerification) ? startCrc(ChunkType.IDAT.value) : null;
+        }
+    }
+
     private static final Logger LOGGER = Logger.getLogger(PngImageParser.class.getName());
 
     private static final String DEFAULT_EXTENSION = ImageFormats.PNG.getDefaultExtension();
     private static final String[] ACCEPTED_EXTENSIONS = ImageFormats.PNG.getExtensions();
+    private static final ChunkType[] IMAGE_CHUNK_TYPES = { ChunkType.IHDR, ChunkType.PLTE, ChunkType.tRNS, ChunkType.iCCP, ChunkType.gAMA, ChunkType.sRGB, };
+    private static final int INFLATER_BUFFER_SIZE = 8192;
+    private static final int CRC_BUFFER_SIZE = 8192;
+
+    private static PngCrcVerification getCrcVerification(final XmpImagingParameters<?> params) {
+        return params instanceof PngImagingParameters ? ((PngImagingParameters) params).getCrcVerification() : PngCrcVerification.SKIP;
+    }
+
+    private static boolean isCrcVerified(final int chunkType, final PngCrcVerification crcVerification) {
+        switch (crcVerification) {
+        case VERIFY:
+            return true;
+        case VERIFY_CRITICAL:
+            // the ancillary bit is bit 5 of the first byte of the chunk type
+            return (chunkType & 0x20000000) == 0;
+        default:
+            return false;
+        }
+    }
+
+    private static CRC32 startCrc(final int chunkType) {
+        final CRC32 crc32 = new CRC32();
+        crc32.update(chunkType >> 24);
+        crc32.update(chunkType >> 16);
+        crc32.update(chunkType >> 8);
+        crc32.update(chunkType);
+        return crc32;
+    }
+
+    /**
+     * Reads bytes into a CRC rather than skipping them.
+     */
+    private static void updateCrc(final InputStream is, final int length, final CRC32 crc32) throws IOException {
+        final byte[] buffer = Allocator.byteArray(Math.min(length, CRC_BUFFER_SIZE));
+        int remaining = length;
+        while (remaining > 0) {
+            final int count = is.read(buffer, 0, Math.min(remaining, buffer.length));
+            if (count < 0) {
+                throw new ImagingException("Not a Valid PNG File: Couldn't read Chunk Data.");
+            }
+            crc32.update(buffer, 0, count);
+            remaining -= count;
+        }
+    }
+
+    private static void verifyCrc(final int chunkType, final CRC32 crc32, final int crc) throws ImagingException {
+        if ((int) crc32.getValue() != crc) {
+            throw new ImagingException("Invalid PNG chunk CRC in " + getChunkTypeName(chunkType) + " chunk");
+        }
+    }
 
     /**
      * Gets the chunk type name from chunk type integer.
@@ -109,7 +238,7 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
 
         imageInfo.toString(pw, "");
 
-        final List<PngChunk> chunks = readChunks(byteSource, null, false);
+        final List<PngChunk> chunks = readChunks(byteSource, null, false, PngCrcVerification.SKIP);
         final List<PngChunk> IHDRs = filterChunks(chunks, ChunkType.IHDR);
         if (IHDRs.size() != 1) {
             if (LOGGER.isLoggable(Level.FINEST)) {
@@ -138,6 +267,24 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
         return true;
     }
 
+    private void checkChunkCounts(final List<PngChunk> chunks) throws ImagingException {
+        if (filterChunks(chunks, ChunkType.IHDR).size() != 1) {
+            throw new ImagingException("PNG contains more than one Header");
+        }
+        if (filterChunks(chunks, ChunkType.PLTE).size() > 1) {
+            throw new ImagingException("PNG contains more than one Palette");
+        }
+        if (filterChunks(chunks, ChunkType.sRGB).size() > 1) {
+            throw new ImagingException("PNG: unexpected sRGB chunk");
+        }
+        if (filterChunks(chunks, ChunkType.gAMA).size() > 1) {
+            throw new ImagingException("PNG: unexpected gAMA chunk");
+        }
+        if (filterChunks(chunks, ChunkType.iCCP).size() > 1) {
+            throw new ImagingException("PNG: unexpected iCCP chunk");
+        }
+    }
+
     private List<PngChunk> filterChunks(final List<PngChunk> chunks, final ChunkType type) {
         final List<PngChunk> result = new ArrayList<>();
 
@@ -165,48 +312,36 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
 
     @Override
     public BufferedImage getBufferedImage(final ByteSource byteSource, final PngImagingParameters params) throws ImagingException, IOException {
+        try (InputStream is = byteSource.getInputStream()) {
+            readSignature(is);
+            return getBufferedImage(is, params);
+        }
+    }
 
-        final List<PngChunk> chunks = readChunks(byteSource,
-                new ChunkType[] { ChunkType.IHDR, ChunkType.PLTE, ChunkType.IDAT, ChunkType.tRNS, ChunkType.iCCP, ChunkType.gAMA, ChunkType.sRGB, }, false);
+    private BufferedImage getBufferedImage(final InputStream is, final PngImagingParameters params) throws ImagingException, IOException {
+        // the chunks before the image data, the rest are added once it is decoded
+        final List<PngChunk> chunks = new ArrayList<>();
+        final ImageDataInputStream imageData = new ImageDataInputStream(is, chunks, getCrcVerification(params));
 
-        if (chunks.isEmpty()) {
+        if (chunks.isEmpty() && !imageData.hasImageData()) {
             throw new ImagingException("PNG: no chunks");
         }
 
-        final List<PngChunk> IHDRs = filterChunks(chunks, ChunkType.IHDR);
-        if (IHDRs.size() != 1) {
-            throw new ImagingException("PNG contains more than one Header");
-        }
+        checkChunkCounts(chunks);
 
-        final PngChunkIhdr pngChunkIHDR = (PngChunkIhdr) IHDRs.get(0);
+        final PngChunkIhdr pngChunkIHDR = (PngChunkIhdr) filterChunks(chunks, ChunkType.IHDR).get(0);
 
         final List<PngChunk> PLTEs = filterChunks(chunks, ChunkType.PLTE);
-        if (PLTEs.size() > 1) {
-            throw new ImagingException("PNG contains more than one Palette");
-        }
 
         PngChunkPlte pngChunkPLTE = null;
         if (PLTEs.size() == 1) {
             pngChunkPLTE = (PngChunkPlte) PLTEs.get(0);
         }
 
-        final List<PngChunk> IDATs = filterChunks(chunks, ChunkType.IDAT);
-        if (IDATs.isEmpty()) {
+        if (!imageData.hasImageData()) {
             throw new ImagingException("PNG missing image data");
         }
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        for (final PngChunk IDAT : IDATs) {
-            final PngChunkIdat pngChunkIDAT = (PngChunkIdat) IDAT;
-            final byte[] bytes = pngChunkIDAT.getBytes();
-            // System.out.println(i + ": bytes: " + bytes.length);
-            baos.write(bytes);
-        }
-
-        final byte[] compressed = baos.toByteArray();
-
-        baos = null;
-
         AbstractTransparencyFilter abstractTransparencyFilter = null;
 
         final List<PngChunk> tRNSs = filterChunks(chunks, ChunkType.tRNS);
@@ -221,15 +356,6 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
             final List<PngChunk> sRGBs = filterChunks(chunks, ChunkType.sRGB);
             final List<PngChunk> gAMAs = filterChunks(chunks, ChunkType.gAMA);
             final List<PngChunk> iCCPs = filterChunks(chunks, ChunkType.iCCP);
-            if (sRGBs.size() > 1) {
-                throw new ImagingException("PNG: unexpected sRGB chunk");
-            }
-            if (gAMAs.size() > 1) {
-                throw new ImagingException("PNG: unexpected gAMA chunk");
-            }
-            if (iCCPs.size() > 1) {
-                throw new ImagingException("PNG: unexpected iCCP chunk");
-            }
 
             if (sRGBs.size() == 1) {
                 // no color management necessary.
@@ -289,25 +415,35 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
                 result = getBufferedImageFactory(params).getColorBufferedImage(width, height, hasAlpha);
             }
 
-            final ByteArrayInputStream bais = new ByteArrayInputStream(compressed);
-            final InflaterInputStream iis = new InflaterInputStream(bais);
-
-            final AbstractScanExpediter abstractScanExpediter;
-
-            switch (pngChunkIHDR.getInterlaceMethod()) {
-            case NONE:
-                abstractScanExpediter = new ScanExpediterSimple(width, height, iis, result, pngColorType, bitDepth, bitsPerPixel, pngChunkPLTE, gammaCorrection,
-                        abstractTransparencyFilter);
-                break;
-            case ADAM7:
-                abstractScanExpediter = new ScanExpediterInterlaced(width, height, iis, result, pngColorType, bitDepth, bitsPerPixel, pngChunkPLTE,
-                        gammaCorrection, abstractTransparencyFilter);
-                break;
-            default:
-                throw new ImagingException("Unknown InterlaceMethod: " + pngChunkIHDR.getInterlaceMethod());
+            final PngRowListener rowListener = params == null ? null : params.getRowListener();
+            final Inflater inflater = new Inflater();
+            try {
+                // IDAT chunks are inflated as they are read
+                final InflaterInputStream iis = new InflaterInputStream(imageData, inflater, INFLATER_BUFFER_SIZE);
+
+                final AbstractScanExpediter abstractScanExpediter;
+
+                switch (pngChunkIHDR.getInterlaceMethod()) {
+                case NONE:
+                    abstractScanExpediter = new ScanExpediterSimple(width, height, iis, result, pngColorType, bitDepth, bitsPerPixel, pngChunkPLTE,
+                            gammaCorrection, abstractTransparencyFilter, rowListener);
+                    break;
+                case ADAM7:
+                    abstractScanExpediter = new ScanExpediterInterlaced(width, height, iis, result, pngColorType, bitDepth, bitsPerPixel, pngChunkPLTE,
+                            gammaCorrection, abstractTransparencyFilter, rowListener);
+                    break;
+                default:
+                    throw new ImagingException("Unknown InterlaceMethod: " + pngChunkIHDR.getInterlaceMethod());
+                }
+
+                abstractScanExpediter.drive();
+            } finally {
+                inflater.end();
             }
 
-            abstractScanExpediter.drive();
+            // the chunks after the image data must still be valid
+            imageData.readRemainingChunks();
+            checkChunkCounts(chunks);
 
             if (iccProfile != null) {
                 final boolean isSrgb = new IccProfileParser().isSrgb(iccProfile);
@@ -336,7 +472,7 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
      * @throws IOException      if it fails to read the input stream data
      */
     public List<String> getChunkTypes(final InputStream is) throws ImagingException, IOException {
-        final List<PngChunk> chunks = readChunks(is, null, false);
+        final List<PngChunk> chunks = readChunks(is, null, false, PngCrcVerification.SKIP);
         final List<String> chunkTypes = Allocator.arrayList(chunks.size());
         for (final PngChunk chunk : chunks) {
             chunkTypes.add(getChunkTypeName(chunk.getChunkType()));
@@ -389,7 +525,7 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
      * @since 1.0-alpha6
      */
     public byte[] getExifRawData(final ByteSource byteSource) throws ImagingException, IOException {
-        final List<PngChunk> chunks = readChunks(byteSource, new ChunkType[] { ChunkType.eXIf }, true);
+        final List<PngChunk> chunks = readChunks(byteSource, new ChunkType[] { ChunkType.eXIf }, true, PngCrcVerification.SKIP);
 
         if (chunks.isEmpty()) {
             return null;
@@ -400,7 +536,7 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
 
     @Override
     public byte[] getIccProfileBytes(final ByteSource byteSource, final PngImagingParameters params) throws ImagingException, IOException {
-        final List<PngChunk> chunks = readChunks(byteSource, new ChunkType[] { ChunkType.iCCP }, true);
+        final List<PngChunk> chunks = readChunks(byteSource, new ChunkType[] { ChunkType.iCCP }, true, getCrcVerification(params));
 
         if (chunks.isEmpty()) {
             return null;
@@ -418,7 +554,7 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
     @Override
     public ImageInfo getImageInfo(final ByteSource byteSource, final PngImagingParameters params) throws ImagingException, IOException {
         final List<PngChunk> chunks = readChunks(byteSource, new ChunkType[] { ChunkType.IHDR, ChunkType.pHYs, ChunkType.sCAL, ChunkType.tEXt, ChunkType.zTXt,
-                ChunkType.tRNS, ChunkType.PLTE, ChunkType.iTXt, }, false);
+                ChunkType.tRNS, ChunkType.PLTE, ChunkType.iTXt, }, false, getCrcVerification(params));
 
         if (chunks.isEmpty()) {
             throw new ImagingException("PNG: no chunks");
@@ -555,7 +691,7 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
 
     @Override
     public Dimension getImageSize(final ByteSource byteSource, final PngImagingParameters params) throws ImagingException, IOException {
-        final List<PngChunk> chunks = readChunks(byteSource, new ChunkType[] { ChunkType.IHDR, }, true);
+        final List<PngChunk> chunks = readChunks(byteSource, new ChunkType[] { ChunkType.IHDR, }, true, getCrcVerification(params));
 
         if (chunks.isEmpty()) {
             throw new ImagingException("Png: No chunks");
@@ -573,7 +709,7 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
     @Override
     public ImageMetadata getMetadata(final ByteSource byteSource, final PngImagingParameters params) throws ImagingException, IOException {
         final ChunkType[] chunkTypes = { ChunkType.tEXt, ChunkType.zTXt, ChunkType.iTXt, ChunkType.eXIf };
-        final List<PngChunk> chunks = readChunks(byteSource, chunkTypes, false);
+        final List<PngChunk> chunks = readChunks(byteSource, chunkTypes, false, getCrcVerification(params));
 
         if (chunks.isEmpty()) {
             return null;
@@ -623,7 +759,7 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
     @Override
     public String getXmpXml(final ByteSource byteSource, final XmpImagingParameters<PngImagingParameters> params) throws ImagingException, IOException {
 
-        final List<PngChunk> chunks = readChunks(byteSource, new ChunkType[] { ChunkType.iTXt }, false);
+        final List<PngChunk> chunks = readChunks(byteSource, new ChunkType[] { ChunkType.iTXt }, false, getCrcVerification(params));
 
         if (chunks.isEmpty()) {
             return null;
@@ -665,7 +801,7 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
     public boolean hasChunkType(final ByteSource byteSource, final ChunkType chunkType) throws ImagingException, IOException {
         try (InputStream is = byteSource.getInputStream()) {
             readSignature(is);
-            final List<PngChunk> chunks = readChunks(is, new ChunkType[] { chunkType }, true);
+            final List<PngChunk> chunks = readChunks(is, new ChunkType[] { chunkType }, true, PngCrcVerification.SKIP);
             return !chunks.isEmpty();
         }
     }
@@ -684,17 +820,33 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
         return false;
     }
 
-    private List<PngChunk> readChunks(final ByteSource byteSource, final ChunkType[] chunkTypes, final boolean returnAfterFirst)
-            throws ImagingException, IOException {
+    private List<PngChunk> readChunks(final ByteSource byteSource, final ChunkType[] chunkTypes, final boolean returnAfterFirst,
+            final PngCrcVerification crcVerification) throws ImagingException, IOException {
         try (InputStream is = byteSource.getInputStream()) {
             readSignature(is);
-            return readChunks(is, chunkTypes, returnAfterFirst);
+            return readChunks(is, chunkTypes, returnAfterFirst, crcVerification);
         }
     }
 
-    private List<PngChunk> readChunks(final InputStream is, final ChunkType[] chunkTypes, final boolean returnAfterFirst) throws ImagingException, IOException {
+    private List<PngChunk> readChunks(final InputStream is, final ChunkType[] chunkTypes, final boolean returnAfterFirst,
+            final PngCrcVerification crcVerification) throws ImagingException, IOException {
         final List<PngChunk> result = new ArrayList<>();
+        readChunks(is, chunkTypes, returnAfterFirst, false, result, crcVerification);
+        return result;
+    }
 
+    /**
+     * Reads chunks up to IEND.
+     *
+     * @param is the stream, positioned at the start of a chunk.
+     * @param chunkTypes the types of chunk to keep, or null to keep all chunks.
+     * @param returnAfterFirst whether to stop after the first chunk kept.
+     * @param stopAtImageData whether to stop at an IDAT chunk, leaving its data as the next bytes of the stream.
+     * @param result receives the chunks kept.
+     * @return the length of the IDAT chunk stopped at, or -1.
+     */
+    private int readChunks(final InputStream is, final ChunkType[] chunkTypes, final boolean returnAfterFirst, final boolean stopAtImageData,
+            final List<PngChunk> result, final PngCrcVerification crcVerification) throws ImagingException, IOException {
         while (true) {
             final int length = BinaryFunctions.read4Bytes("Length", is, "Not a Valid PNG File", getByteOrder());
             if (length < 0) {
@@ -706,11 +858,20 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
                 BinaryFunctions.logCharQuad("ChunkType", chunkType);
                 debugNumber("Length", length, 4);
             }
+            if (stopAtImageData && chunkType == ChunkType.IDAT.value) {
+                return length;
+            }
             final boolean keep = keepChunk(chunkType, chunkTypes);
+            final CRC32 crc32 = isCrcVerified(chunkType, crcVerification) ? startCrc(chunkType) : null;
 
             byte[] bytes = null;
             if (keep) {
                 bytes = BinaryFunctions.readBytes("Chunk Data", is, length, "Not a Valid PNG File: Couldn't read Chunk Data.");
+                if (crc32 != null) {
+                    crc32.update(bytes);
+                }
+            } else if (crc32 != null) {
+                updateCrc(is, length, crc32);
             } else {
                 BinaryFunctions.skipBytes(is, length, "Not a Valid PNG File");
             }
@@ -720,23 +881,22 @@ public class PngImageParser extends AbstractImageParser<PngImagingParameters> im
             }
 
             final int crc = BinaryFunctions.read4Bytes("CRC", is, "Not a Valid PNG File", getByteOrder());
+            if (crc32 != null) {
+                verifyCrc(chunkType, crc32, crc);
+            }
 
             if (keep) {
                 result.add(ChunkType.makeChunk(length, chunkType, crc, bytes));
 
                 if (returnAfterFirst) {
-                    return result;
+                    return -1;
                 }
             }
 
             if (chunkType == ChunkType.IEND.value) {
-                break;
+                return -1;
             }
-
         }
-
-        return result;
-
     }
 
     /**
@@ -17,6 +17,9 @@ package org.apache.commons.imaging.formats.png;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
 
 import org.apache.commons.imaging.common.XmpImagingParameters;
 
@@ -41,6 +44,26 @@ public class PngImagingParameters extends XmpImagingParameters<PngImagingParamet
 
     private boolean predictorEnabled;
 
+    /**
+     * Only used when writing PNG images.
+     */
+    private PngFilterStrategy filterStrategy;
+
+    /**
+     * Only used when writing PNG images.
+     */
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * Only used when writing PNG images.
+     */
+    private int deflateStrategy = Deflater.DEFAULT_STRATEGY;
+
+    /**
+     * Executor used to filter and compress blocks of rows concurrently when writing, or null to write on the calling thread.
+     */
+    private Executor executor;
+
     /**
      * Used in write operations to indicate the Physical Scale - sCAL.
      *
@@ -63,6 +86,16 @@ public class PngImagingParameters extends XmpImagingParameters<PngImagingParamet
      */
     private List<? extends AbstractPngText> textChunks;
 
+    /**
+     * Only used when reading PNG images.
+     */
+    private PngRowListener rowListener;
+
+    /**
+     * Only used when reading PNG images.
+     */
+    private PngCrcVerification crcVerification = PngCrcVerification.SKIP;
+
     /**
      * Constructs a new instance.
      */
@@ -79,6 +112,56 @@ public class PngImagingParameters extends XmpImagingParameters<PngImagingParamet
         return bitDepth;
     }
 
+    /**
+     * Gets the deflate compression level used when writing an image.
+     *
+     * @return the compression level, 0 to 9 or {@link Deflater#DEFAULT_COMPRESSION}.
+     * @since 1.0.0-alpha7
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Gets which chunk CRCs are verified when reading an image.
+     *
+     * @return the CRC verification.
+     * @since 1.0.0-alpha7
+     */
+    public PngCrcVerification getCrcVerification() {
+        return crcVerification;
+    }
+
+    /**
+     * Gets the deflate strategy used when writing an image.
+     *
+     * @return one of {@link Deflater#DEFAULT_STRATEGY}, {@link Deflater#FILTERED} and {@link Deflater#HUFFMAN_ONLY}.
+     * @since 1.0.0-alpha7
+     */
+    public int getDeflateStrategy() {
+        return deflateStrategy;
+    }
+
+    /**
+     * Gets the executor used to filter and compress blocks of rows concurrently when writing an image.
+     *
+     * @return the executor, or null if image data is written on the calling thread.
+     * @since 1.0.0-alpha7
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Gets the strategy used to choose the filter type of each row when writing an image.
+     *
+     * @return the filter strategy, or null if it follows {@link #isPredictorEnabled()}.
+     * @since 1.0.0-alpha7
+     */
+    public PngFilterStrategy getFilterStrategy() {
+        return filterStrategy;
+    }
+
     /**
      * Gets the physical scale.
      *
@@ -88,6 +171,16 @@ public class PngImagingParameters extends XmpImagingParameters<PngImagingParamet
         return physicalScale;
     }
 
+    /**
+     * Gets the listener for decoded rows.
+     *
+     * @return the listener, or null.
+     * @since 1.0.0-alpha7
+     */
+    public PngRowListener getRowListener() {
+        return rowListener;
+    }
+
     /**
      * Gets the text chunks.
      *
@@ -135,6 +228,81 @@ public class PngImagingParameters extends XmpImagingParameters<PngImagingParamet
         return asThis();
     }
 
+    /**
+     * Sets the deflate compression level used when writing an image, from 0 (no compression) to 9 (best compression). Higher levels take longer to write
+     * and never affect the time required to read the image.
+     *
+     * @param compressionLevel 0 to 9, or {@link Deflater#DEFAULT_COMPRESSION}.
+     * @return this instance.
+     * @throws IllegalArgumentException if the level is out of range.
+     * @since 1.0.0-alpha7
+     */
+    public PngImagingParameters setCompressionLevel(final int compressionLevel) {
+        if (compressionLevel != Deflater.DEFAULT_COMPRESSION && (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Invalid compression level " + compressionLevel);
+        }
+        this.compressionLevel = compressionLevel;
+        return asThis();
+    }
+
+    /**
+     * Sets which chunk CRCs are verified when reading an image or its metadata. A chunk with a CRC that does not match its contents fails the read with an
+     * {@link org.apache.commons.imaging.ImagingException} as soon as the chunk has been read, so that a corrupt image can be rejected before the rest of it is
+     * decoded. The default is {@link PngCrcVerification#SKIP}.
+     *
+     * @param crcVerification the CRC verification.
+     * @return this instance.
+     * @since 1.0.0-alpha7
+     */
+    public PngImagingParameters setCrcVerification(final PngCrcVerification crcVerification) {
+        this.crcVerification = Objects.requireNonNull(crcVerification, "crcVerification");
+        return asThis();
+    }
+
+    /**
+     * Sets the deflate strategy used when writing an image. {@link Deflater#FILTERED} favours the small values produced by row filters and often helps
+     * photographic images written with a {@link PngFilterStrategy}.
+     *
+     * @param deflateStrategy one of {@link Deflater#DEFAULT_STRATEGY}, {@link Deflater#FILTERED} and {@link Deflater#HUFFMAN_ONLY}.
+     * @return this instance.
+     * @throws IllegalArgumentException if the strategy is not one of these.
+     * @since 1.0.0-alpha7
+     */
+    public PngImagingParameters setDeflateStrategy(final int deflateStrategy) {
+        if (deflateStrategy != Deflater.DEFAULT_STRATEGY && deflateStrategy != Deflater.FILTERED && deflateStrategy != Deflater.HUFFMAN_ONLY) {
+            throw new IllegalArgumentException("Invalid deflate strategy " + deflateStrategy);
+        }
+        this.deflateStrategy = deflateStrategy;
+        return asThis();
+    }
+
+    /**
+     * Sets the executor used to filter and compress blocks of rows concurrently when writing an image. Each block is compressed on its own, with the end of
+     * the previous block as a preset dictionary, so the image data comes out slightly larger than when written on the calling thread. Images of a single
+     * block are always written on the calling thread.
+     *
+     * @param executor the executor, or null to write image data on the calling thread.
+     * @return this instance.
+     * @since 1.0.0-alpha7
+     */
+    public PngImagingParameters setExecutor(final Executor executor) {
+        this.executor = executor;
+        return asThis();
+    }
+
+    /**
+     * Sets the strategy used to choose the filter type of each row when writing an image. Unlike {@link #setPredictorEnabled(boolean)}, the strategy applies
+     * to every color type.
+     *
+     * @param filterStrategy the filter strategy, or null to follow {@link #isPredictorEnabled()}.
+     * @return this instance.
+     * @since 1.0.0-alpha7
+     */
+    public PngImagingParameters setFilterStrategy(final PngFilterStrategy filterStrategy) {
+        this.filterStrategy = filterStrategy;
+        return asThis();
+    }
+
     /**
      * Sets whether to force indexed color.
      *
@@ -171,7 +339,8 @@ public class PngImagingParameters extends XmpImagingParameters<PngImagingParamet
     /**
      * Sets the enabled status of the predictor. When performing data compression on an image, a PNG predictor often results in a reduced file size. Predictors
      * are particularly effective on photographic images, but may also work on graphics. The specification of a predictor may result in an increased processing
-     * time when writing an image, but will not affect the time required to read an image.
+     * time when writing an image, but will not affect the time required to read an image. Ignored when a filter strategy is set with
+     * {@link #setFilterStrategy(PngFilterStrategy)}.
      *
      * @param predictorEnabled true if a predictor is enabled; otherwise, false.
      * @return {@code this} instance.
@@ -181,6 +350,18 @@ public class PngImagingParameters extends XmpImagingParameters<PngImagingParamet
         return asThis();
     }
 
+    /**
+     * Sets a listener that is told about rows as they are decoded when reading an image.
+     *
+     * @param rowListener the listener, or null.
+     * @return this instance.
+     * @since 1.0.0-alpha7
+     */
+    public PngImagingParameters setRowListener(final PngRowListener rowListener) {
+        this.rowListener = rowListener;
+        return asThis();
+    }
+
     /**
      * Sets the text chunks.
      *
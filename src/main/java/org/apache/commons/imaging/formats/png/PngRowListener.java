@@ -0,0 +1,38 @@
+/*
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *  under the License.
+ */
+
+package org.apache.commons.imaging.formats.png;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Receives the rows of a PNG image as they are decoded, for example to display or process an image while the rest of its data is still being read.
+ *
+ * @see PngImagingParameters#setRowListener(PngRowListener)
+ * @since 1.0.0-alpha7
+ */
+@FunctionalInterface
+public interface PngRowListener {
+
+    /**
+     * Called when rows of the image are complete. Rows are reported in order; interlaced images are reported as a whole once the last pass is decoded. The
+     * image is the one being decoded, before any conversion from an embedded ICC profile.
+     *
+     * @param image the image being decoded.
+     * @param y the first complete row.
+     * @param rows the number of complete rows.
+     */
+    void rowsDecoded(BufferedImage image, int y, int rows);
+}
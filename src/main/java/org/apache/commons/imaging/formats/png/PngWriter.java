@@ -21,13 +21,24 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.PixelDensity;
 import org.apache.commons.imaging.common.Allocator;
+import org.apache.commons.imaging.common.ConcurrentTasks;
+import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilter;
+import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterAverage;
+import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterNone;
+import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterPaeth;
+import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterSub;
+import org.apache.commons.imaging.formats.png.scanlinefilters.ScanlineFilterUp;
 import org.apache.commons.imaging.internal.Debug;
 import org.apache.commons.imaging.palette.Palette;
 import org.apache.commons.imaging.palette.PaletteFactory;
@@ -37,6 +48,316 @@ import org.apache.commons.imaging.palette.PaletteFactory;
  */
 public class PngWriter {
 
+    /** Approximate amount of filtered image data compressed by each task when writing concurrently. */
+    private static final int CONCURRENT_BLOCK_SIZE = 128 * 1024;
+
+    private static final int DEFLATER_BUFFER_SIZE = 64 * 1024;
+
+    private static final int IDAT_CHUNK_SIZE = 256 * 1024;
+
+    private static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+
+    private static final int TRIAL_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * Collects compressed image data into IDAT chunks of up to {@link #IDAT_CHUNK_SIZE} bytes.
+     */
+    private final class ImageDataOutputStream extends OutputStream {
+
+        private final OutputStream os;
+        private final byte[] buffer = Allocator.byteArray(IDAT_CHUNK_SIZE);
+        private int count;
+
+        ImageDataOutputStream(final OutputStream os) {
+            this.os = os;
+        }
+
+        /**
+         * Writes the last IDAT chunk, leaving the underlying stream open.
+         */
+        @Override
+        public void close() throws IOException {
+            writeImageData();
+        }
+
+        @Override
+        public void write(final byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    writeImageData();
+                }
+                final int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            if (count == buffer.length) {
+                writeImageData();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        private void writeImageData() throws IOException {
+            if (count > 0) {
+                writeChunk(os, ChunkType.IDAT, buffer, count);
+                count = 0;
+            }
+        }
+    }
+
+    /**
+     * Filters and compresses a block of rows for {@link PngWriter#writeImageDataConcurrently}.
+     */
+    private static final class ImageDataBlock implements Callable<ImageDataBlock> {
+
+        private final byte[][] rows;
+        private final byte[] prior;
+        private final int contextRows;
+        private final boolean last;
+        private final RowPacker rowPacker;
+        private final PngFilterStrategy filterStrategy;
+        private final PngImagingParameters params;
+        private final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        private int adler32;
+        private long length;
+
+        /**
+         * Constructs a new block.
+         *
+         * @param rows           the raw rows, starting with the context rows that end the previous block.
+         * @param prior          the raw row before the first row, or null for the first row of the image.
+         * @param contextRows    the number of rows that only serve as the preset dictionary.
+         * @param last           whether this is the last block of the image.
+         * @param rowPacker      the row packer that produced the rows.
+         * @param filterStrategy the filter strategy.
+         * @param params         the compression parameters.
+         */
+        ImageDataBlock(final byte[][] rows, final byte[] prior, final int contextRows, final boolean last, final RowPacker rowPacker,
+                final PngFilterStrategy filterStrategy, final PngImagingParameters params) {
+            this.rows = rows;
+            this.prior = prior;
+            this.contextRows = contextRows;
+            this.last = last;
+            this.rowPacker = rowPacker;
+            this.filterStrategy = filterStrategy;
+            this.params = params;
+        }
+
+        @Override
+        public ImageDataBlock call() {
+            final int scanlineLength = rowPacker.rowLength + 1;
+            final byte[] data = Allocator.byteArray((long) rows.length * scanlineLength);
+            final RowFilter rowFilter = new RowFilter(filterStrategy, rowPacker.bytesPerPixel, rowPacker.rowLength, params);
+            final Deflater deflater = new Deflater(params.getCompressionLevel(), true);
+            try {
+                // the context rows are filtered again to reproduce the end of the previous block's data exactly
+                for (int i = 0; i < rows.length; i++) {
+                    final FilterType filterType = rowFilter.filter(rows[i], i == 0 ? prior : rows[i - 1]);
+                    data[i * scanlineLength] = (byte) filterType.ordinal();
+                    System.arraycopy(rowFilter.getFiltered(filterType), 0, data, i * scanlineLength + 1, rowPacker.rowLength);
+                }
+                final int start = contextRows * scanlineLength;
+                length = data.length - start;
+                final Adler32 checksum = new Adler32();
+                checksum.update(data, start, data.length - start);
+                adler32 = (int) checksum.getValue();
+
+                deflater.setStrategy(params.getDeflateStrategy());
+                if (start > 0) {
+                    final int dictionaryLength = Math.min(start, MAX_DICTIONARY_SIZE);
+                    deflater.setDictionary(data, start - dictionaryLength, dictionaryLength);
+                }
+                deflater.setInput(data, start, data.length - start);
+                final byte[] buffer = Allocator.byteArray(DEFLATER_BUFFER_SIZE);
+                if (last) {
+                    deflater.finish();
+                    while (!deflater.finished()) {
+                        compressed.write(buffer, 0, deflater.deflate(buffer));
+                    }
+                } else {
+                    // a sync flush ends the block on a byte boundary, so the next block can follow it in the same stream;
+                    // a call that applies the strategy may return before all input is consumed
+                    int count;
+                    do {
+                        count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                        compressed.write(buffer, 0, count);
+                    } while (count == buffer.length || !deflater.needsInput());
+                }
+            } finally {
+                deflater.end();
+                rowFilter.end();
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Packs the pixels of each image row into the bytes of a PNG row, without the filter type.
+     */
+    private static final class RowPacker {
+
+        private final BufferedImage src;
+        private final Palette palette;
+        private final boolean isGrayscale;
+        private final boolean useAlpha;
+        private final int[] argbRow;
+        final int height;
+        final int bytesPerPixel;
+        final int rowLength;
+
+        RowPacker(final BufferedImage src, final Palette palette, final boolean isGrayscale, final boolean useAlpha) {
+            this.src = src;
+            this.palette = palette;
+            this.isGrayscale = isGrayscale;
+            this.useAlpha = useAlpha;
+            this.argbRow = Allocator.intArray(src.getWidth());
+            this.height = src.getHeight();
+            this.bytesPerPixel = (palette != null || isGrayscale ? 1 : 3) + (useAlpha ? 1 : 0);
+            this.rowLength = Allocator.check((long) argbRow.length * bytesPerPixel, Byte.BYTES);
+        }
+
+        void pack(final int y, final byte[] row) throws ImagingException {
+            final int width = argbRow.length;
+            src.getRGB(0, y, width, 1, argbRow, 0, width);
+            if (palette != null) {
+                for (int x = 0; x < width; x++) {
+                    row[x] = (byte) palette.getPaletteIndex(argbRow[x]);
+                }
+                return;
+            }
+            int i = 0;
+            for (int x = 0; x < width; x++) {
+                final int argb = argbRow[x];
+                final int red = 0xff & argb >> 16;
+                final int green = 0xff & argb >> 8;
+                final int blue = 0xff & argb;
+                if (isGrayscale) {
+                    row[i++] = (byte) ((red + green + blue) / 3);
+                } else {
+                    row[i++] = (byte) red;
+                    row[i++] = (byte) green;
+                    row[i++] = (byte) blue;
+                }
+                if (useAlpha) {
+                    row[i++] = (byte) (argb >> 24);
+                }
+            }
+        }
+    }
+
+    /**
+     * Chooses the filter type of each row according to a {@link PngFilterStrategy} and filters the row.
+     */
+    private static final class RowFilter {
+
+        private final PngFilterStrategy filterStrategy;
+        private final ScanlineFilter[] scanlineFilters;
+        private final byte[][] filtered;
+        private final Deflater trialDeflater;
+        private final byte[] trialBuffer;
+
+        RowFilter(final PngFilterStrategy filterStrategy, final int bytesPerPixel, final int rowLength, final PngImagingParameters params) {
+            this.filterStrategy = filterStrategy;
+            final FilterType[] filterTypes = FilterType.values();
+            scanlineFilters = new ScanlineFilter[filterTypes.length];
+            filtered = new byte[filterTypes.length][];
+            for (final FilterType filterType : filterTypes) {
+                if (filterStrategy.getFilterType() == null || filterStrategy.getFilterType() == filterType) {
+                    scanlineFilters[filterType.ordinal()] = getScanlineFilter(filterType, bytesPerPixel);
+                    filtered[filterType.ordinal()] = Allocator.byteArray(rowLength);
+                }
+            }
+            if (filterStrategy == PngFilterStrategy.BRUTE_FORCE) {
+                trialDeflater = new Deflater(params.getCompressionLevel());
+                trialDeflater.setStrategy(params.getDeflateStrategy());
+                trialBuffer = Allocator.byteArray(TRIAL_BUFFER_SIZE);
+            } else {
+                trialDeflater = null;
+                trialBuffer = null;
+            }
+        }
+
+        private static ScanlineFilter getScanlineFilter(final FilterType filterType, final int bytesPerPixel) {
+            switch (filterType) {
+            case SUB:
+                return new ScanlineFilterSub(bytesPerPixel);
+            case UP:
+                return new ScanlineFilterUp();
+            case AVERAGE:
+                return new ScanlineFilterAverage(bytesPerPixel);
+            case PAETH:
+                return new ScanlineFilterPaeth(bytesPerPixel);
+            default:
+                return new ScanlineFilterNone();
+            }
+        }
+
+        /**
+         * Gets the compressed size of a filtered row on its own, or a value greater than {@code limit} once it is known to exceed it.
+         */
+        private int compressedSize(final byte[] row, final int limit) {
+            trialDeflater.reset();
+            trialDeflater.setInput(row);
+            trialDeflater.finish();
+            int size = 0;
+            while (!trialDeflater.finished() && size <= limit) {
+                size += trialDeflater.deflate(trialBuffer);
+            }
+            return size;
+        }
+
+        void end() {
+            if (trialDeflater != null) {
+                trialDeflater.end();
+            }
+        }
+
+        /**
+         * Filters a row.
+         *
+         * @param row   the raw row.
+         * @param prior the raw previous row, or null for the first row.
+         * @return the filter type chosen, whose output is given by {@link #getFiltered(FilterType)}.
+         */
+        FilterType filter(final byte[] row, final byte[] prior) {
+            final FilterType fixedFilterType = filterStrategy.getFilterType();
+            if (fixedFilterType != null) {
+                scanlineFilters[fixedFilterType.ordinal()].filter(row, filtered[fixedFilterType.ordinal()], prior);
+                return fixedFilterType;
+            }
+            FilterType best = null;
+            int bestCost = Integer.MAX_VALUE;
+            for (final FilterType filterType : FilterType.values()) {
+                final byte[] output = filtered[filterType.ordinal()];
+                scanlineFilters[filterType.ordinal()].filter(row, output, prior);
+                final int cost;
+                if (filterStrategy == PngFilterStrategy.BRUTE_FORCE) {
+                    cost = compressedSize(output, bestCost);
+                } else {
+                    int sum = 0;
+                    for (int i = 0; i < output.length && sum < bestCost; i++) {
+                        sum += Math.abs(output[i]);
+                    }
+                    cost = sum;
+                }
+                if (cost < bestCost) {
+                    best = filterType;
+                    bestCost = cost;
+                }
+            }
+            return best;
+        }
+
+        byte[] getFiltered(final FilterType filterType) {
+            return filtered[filterType.ordinal()];
+        }
+    }
+
     /**
      * 1. IHDR: image header, which is the first chunk in a PNG data stream. 2. PLTE: palette table associated with indexed PNG images. 3. IDAT: image data
      * chunks. 4. IEND: image trailer, which is the last chunk in a PNG data stream.
@@ -86,6 +407,55 @@ public class PngWriter {
         }
     }
 
+    /**
+     * Gets the two byte zlib stream header that {@link Deflater} would write for a compression level and strategy.
+     */
+    private static int getZlibHeader(final int compressionLevel, final int deflateStrategy) {
+        final int level;
+        if (deflateStrategy == Deflater.HUFFMAN_ONLY || compressionLevel == Deflater.NO_COMPRESSION || compressionLevel == Deflater.BEST_SPEED) {
+            level = 0;
+        } else if (compressionLevel == Deflater.DEFAULT_COMPRESSION || compressionLevel == 6) {
+            level = 2;
+        } else {
+            level = compressionLevel < 6 ? 1 : 3;
+        }
+        // deflate with a 32K window, and check bits that make the header a multiple of 31
+        final int header = 0x78 << 8 | level << 6;
+        return header + 31 - header % 31;
+    }
+
+    /**
+     * Combines the Adler-32 checksums of two byte sequences into the checksum of their concatenation, as zlib's adler32_combine does.
+     *
+     * @param adler1 the checksum of the first sequence.
+     * @param adler2 the checksum of the second sequence.
+     * @param length2 the length of the second sequence.
+     * @return the checksum of the concatenation.
+     */
+    static int combineAdler32(final int adler1, final int adler2, final long length2) {
+        final int base = 65521;
+        final long remainder = length2 % base;
+        long sum1 = adler1 & 0xffff;
+        long sum2 = remainder * sum1 % base;
+        sum1 += (adler2 & 0xffff) + base - 1;
+        sum2 += (adler1 >>> 16) + (adler2 >>> 16) + base - remainder;
+        sum1 %= base;
+        sum2 %= base;
+        return (int) (sum2 << 16 | sum1);
+    }
+
+    private PngFilterStrategy getFilterStrategy(final PngImagingParameters params, final boolean isGrayscale, final Palette palette) {
+        final PngFilterStrategy filterStrategy = params.getFilterStrategy();
+        if (filterStrategy != null) {
+            return filterStrategy;
+        }
+        // 28 March 2022. At this time, we only apply the predictor
+        // for non-grayscale, true-color images. This choice is made
+        // out of caution and is not necessarily required by the PNG
+        // spec. We may broaden the use of predictors in future versions.
+        return params.isPredictorEnabled() && !isGrayscale && palette == null ? PngFilterStrategy.SUB : PngFilterStrategy.NONE;
+    }
+
     private byte getBitDepth(final PngColorType pngColorType, final PngImagingParameters params) {
         final byte depth = params.getBitDepth();
 
@@ -98,24 +468,23 @@ public class PngWriter {
     }
 
     private void writeChunk(final OutputStream os, final ChunkType chunkType, final byte[] data) throws IOException {
-        final int dataLength = data == null ? 0 : data.length;
+        writeChunk(os, chunkType, data, data == null ? 0 : data.length);
+    }
+
+    private void writeChunk(final OutputStream os, final ChunkType chunkType, final byte[] data, final int dataLength) throws IOException {
         writeInt(os, dataLength);
         os.write(chunkType.array);
         if (data != null) {
-            os.write(data);
+            os.write(data, 0, dataLength);
         }
 
-        final PngCrc pngCrc = new PngCrc();
-
-        final long crc1 = pngCrc.startPartialCrc(chunkType.array, chunkType.array.length);
-        final long crc2 = data == null ? crc1 : pngCrc.continuePartialCrc(crc1, data, data.length);
-        final int crc = (int) pngCrc.finishPartialCrc(crc2);
-
-        writeInt(os, crc);
-    }
+        final CRC32 crc = new CRC32();
+        crc.update(chunkType.array);
+        if (data != null) {
+            crc.update(data, 0, dataLength);
+        }
 
-    private void writeChunkIDAT(final OutputStream os, final byte[] bytes) throws IOException {
-        writeChunk(os, ChunkType.IDAT, bytes);
+        writeInt(os, (int) crc.getValue());
     }
 
     private void writeChunkIEND(final OutputStream os) throws IOException {
@@ -313,8 +682,6 @@ public class PngWriter {
         if (paletteFactory == null) {
             paletteFactory = new PaletteFactory();
         }
-        final int compressionLevel = Deflater.DEFAULT_COMPRESSION;
-
         final int width = src.getWidth();
         final int height = src.getHeight();
 
@@ -430,135 +797,17 @@ public class PngWriter {
         }
 
         {
-            // Debug.debug("writing IDAT");
-
             // IDAT Yes Multiple IDAT chunks shall be consecutive
 
-            // 28 March 2022. At this time, we only apply the predictor
-            // for non-grayscale, true-color images. This choice is made
-            // out of caution and is not necessarily required by the PNG
-            // spec. We may broaden the use of predictors in future versions.
-            final boolean usePredictor = params.isPredictorEnabled() && !isGrayscale && palette == null;
-
-            final byte[] uncompressed;
-            if (!usePredictor) {
-                final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-                final boolean useAlpha = pngColorType == PngColorType.GREYSCALE_WITH_ALPHA || pngColorType == PngColorType.TRUE_COLOR_WITH_ALPHA;
-
-                final int[] row = Allocator.intArray(width);
-                for (int y = 0; y < height; y++) {
-                    // Debug.debug("y", y + "/" + height);
-                    src.getRGB(0, y, width, 1, row, 0, width);
-
-                    baos.write(FilterType.NONE.ordinal());
-                    for (int x = 0; x < width; x++) {
-                        final int argb = row[x];
-
-                        if (palette != null) {
-                            final int index = palette.getPaletteIndex(argb);
-                            baos.write(0xff & index);
-                        } else {
-                            final int alpha = 0xff & argb >> 24;
-                            final int red = 0xff & argb >> 16;
-                            final int green = 0xff & argb >> 8;
-                            final int blue = 0xff & argb >> 0;
-
-                            if (isGrayscale) {
-                                final int gray = (red + green + blue) / 3;
-                                // if (y == 0)
-                                // {
-                                // Debug.debug("gray: " + x + ", " + y +
-                                // " argb: 0x"
-                                // + Integer.toHexString(argb) + " gray: 0x"
-                                // + Integer.toHexString(gray));
-                                // // Debug.debug(x + ", " + y + " gray", gray);
-                                // // Debug.debug(x + ", " + y + " gray", gray);
-                                // Debug.debug(x + ", " + y + " gray", gray +
-                                // " " + Integer.toHexString(gray));
-                                // Debug.debug();
-                                // }
-                                baos.write(gray);
-                            } else {
-                                baos.write(red);
-                                baos.write(green);
-                                baos.write(blue);
-                            }
-                            if (useAlpha) {
-                                baos.write(alpha);
-                            }
-                        }
-                    }
-                }
-                uncompressed = baos.toByteArray();
-            } else {
-                final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-                final boolean useAlpha = pngColorType == PngColorType.GREYSCALE_WITH_ALPHA || pngColorType == PngColorType.TRUE_COLOR_WITH_ALPHA;
-
-                final int[] row = Allocator.intArray(width);
-                for (int y = 0; y < height; y++) {
-                    // Debug.debug("y", y + "/" + height);
-                    src.getRGB(0, y, width, 1, row, 0, width);
-
-                    int priorA = 0;
-                    int priorR = 0;
-                    int priorG = 0;
-                    int priorB = 0;
-                    baos.write(FilterType.SUB.ordinal());
-                    for (int x = 0; x < width; x++) {
-                        final int argb = row[x];
-                        final int alpha = 0xff & argb >> 24;
-                        final int red = 0xff & argb >> 16;
-                        final int green = 0xff & argb >> 8;
-                        final int blue = 0xff & argb;
-
-                        baos.write(red - priorR);
-                        baos.write(green - priorG);
-                        baos.write(blue - priorB);
-                        priorR = red;
-                        priorG = green;
-                        priorB = blue;
-
-                        if (useAlpha) {
-                            baos.write(alpha - priorA);
-                            priorA = alpha;
-                        }
-                    }
-                }
-                uncompressed = baos.toByteArray();
-            }
-
-            // Debug.debug("uncompressed", uncompressed.length);
-
-            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            final int chunkSize = 256 * 1024;
-            final Deflater deflater = new Deflater(compressionLevel);
-            final DeflaterOutputStream dos = new DeflaterOutputStream(baos, deflater, chunkSize);
-
-            for (int index = 0; index < uncompressed.length; index += chunkSize) {
-                final int end = Math.min(uncompressed.length, index + chunkSize);
-                final int length = end - index;
-
-                dos.write(uncompressed, index, length);
-                dos.flush();
-                baos.flush();
-
-                final byte[] compressed = baos.toByteArray();
-                baos.reset();
-                if (compressed.length > 0) {
-                    // Debug.debug("compressed", compressed.length);
-                    writeChunkIDAT(os, compressed);
-                }
+            final PngFilterStrategy filterStrategy = getFilterStrategy(params, isGrayscale, palette);
+            final boolean useAlpha = pngColorType == PngColorType.GREYSCALE_WITH_ALPHA || pngColorType == PngColorType.TRUE_COLOR_WITH_ALPHA;
+            final RowPacker rowPacker = new RowPacker(src, palette, isGrayscale, useAlpha);
+            final int rowsPerBlock = Math.max(1, CONCURRENT_BLOCK_SIZE / (rowPacker.rowLength + 1));
 
-            }
-            {
-                dos.finish();
-                final byte[] compressed = baos.toByteArray();
-                if (compressed.length > 0) {
-                    // Debug.debug("compressed final", compressed.length);
-                    writeChunkIDAT(os, compressed);
-                }
+            if (params.getExecutor() == null || height <= rowsPerBlock) {
+                writeImageData(os, rowPacker, filterStrategy, params);
+            } else {
+                writeImageDataConcurrently(os, rowPacker, filterStrategy, params, rowsPerBlock);
             }
         }
 
@@ -577,10 +826,81 @@ public class PngWriter {
          */
 
         os.close();
-    } // todo: filter types
-      // proper color types
+    } // todo: proper color types
       // srgb, etc.
 
+    private void writeImageData(final OutputStream os, final RowPacker rowPacker, final PngFilterStrategy filterStrategy, final PngImagingParameters params)
+            throws IOException {
+        byte[] row = Allocator.byteArray(rowPacker.rowLength);
+        byte[] prior = Allocator.byteArray(rowPacker.rowLength);
+        final Deflater deflater = new Deflater(params.getCompressionLevel());
+        final RowFilter rowFilter = new RowFilter(filterStrategy, rowPacker.bytesPerPixel, rowPacker.rowLength, params);
+        try {
+            deflater.setStrategy(params.getDeflateStrategy());
+            try (DeflaterOutputStream dos = new DeflaterOutputStream(new ImageDataOutputStream(os), deflater, DEFLATER_BUFFER_SIZE)) {
+                for (int y = 0; y < rowPacker.height; y++) {
+                    rowPacker.pack(y, row);
+                    final FilterType filterType = rowFilter.filter(row, y == 0 ? null : prior);
+                    dos.write(filterType.ordinal());
+                    dos.write(rowFilter.getFiltered(filterType));
+
+                    final byte[] swap = prior;
+                    prior = row;
+                    row = swap;
+                }
+            }
+        } finally {
+            deflater.end();
+            rowFilter.end();
+        }
+    }
+
+    /**
+     * Writes the image data as a single zlib stream made of independently compressed blocks of rows, in the manner of pigz. Each block is filtered and
+     * compressed by a task on the executor, with the end of the previous block as its preset dictionary, and ends with a sync flush so that the blocks can be
+     * concatenated. The Adler-32 checksums of the blocks are combined for the stream trailer.
+     */
+    private void writeImageDataConcurrently(final OutputStream os, final RowPacker rowPacker, final PngFilterStrategy filterStrategy,
+            final PngImagingParameters params, final int rowsPerBlock) throws ImagingException, IOException {
+        final int contextRowCount = (MAX_DICTIONARY_SIZE + rowPacker.rowLength) / (rowPacker.rowLength + 1);
+        // a few blocks per thread are compressed ahead of the one being written, which bounds the rows held in memory
+        try (OutputStream ids = new ImageDataOutputStream(os);
+                ConcurrentTasks tasks = new ConcurrentTasks(params.getExecutor(), "writing PNG image data")) {
+            final int header = getZlibHeader(params.getCompressionLevel(), params.getDeflateStrategy());
+            ids.write(header >> 8);
+            ids.write(header);
+
+            // the checksum of the blocks written so far
+            final int[] adler32 = { 1 };
+            byte[][] previousRows = null;
+            byte[] previousPrior = null;
+            for (int firstRow = 0; firstRow < rowPacker.height; firstRow += rowsPerBlock) {
+                final int rowCount = Math.min(rowsPerBlock, rowPacker.height - firstRow);
+                final int contextRows = previousRows == null ? 0 : Math.min(contextRowCount, previousRows.length);
+                final byte[][] rows = new byte[contextRows + rowCount][];
+                byte[] prior = null;
+                if (previousRows != null) {
+                    System.arraycopy(previousRows, previousRows.length - contextRows, rows, 0, contextRows);
+                    prior = contextRows < previousRows.length ? previousRows[previousRows.length - contextRows - 1] : previousPrior;
+                }
+                for (int i = contextRows; i < rows.length; i++) {
+                    rows[i] = Allocator.byteArray(rowPacker.rowLength);
+                    rowPacker.pack(firstRow + i - contextRows, rows[i]);
+                }
+                final boolean last = firstRow + rowCount == rowPacker.height;
+                tasks.add(new ImageDataBlock(rows, prior, contextRows, last, rowPacker, filterStrategy, params), block -> {
+                    block.compressed.writeTo(ids);
+                    adler32[0] = combineAdler32(adler32[0], block.adler32, block.length);
+                });
+
+                previousPrior = previousRows == null ? null : previousRows[previousRows.length - 1];
+                previousRows = Arrays.copyOfRange(rows, contextRows, rows.length);
+            }
+            tasks.finish();
+            writeInt(ids, adler32[0]);
+        }
+    }
+
     private void writeInt(final OutputStream os, final int value) throws IOException {
         os.write(0xff & value >> 24);
         os.write(0xff & value >> 16);
@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.Allocator;
 import org.apache.commons.imaging.formats.png.chunks.PngChunkPlte;
 import org.apache.commons.imaging.formats.png.transparencyfilters.AbstractTransparencyFilter;
 
@@ -34,12 +35,13 @@ final class ScanExpediterInterlaced extends AbstractScanExpediter {
 
     ScanExpediterInterlaced(final int width, final int height, final InputStream is, final BufferedImage bi, final PngColorType pngColorType,
             final int bitDepth, final int bitsPerPixel, final PngChunkPlte pngChunkPLTE, final GammaCorrection gammaCorrection,
-            final AbstractTransparencyFilter abstractTransparencyFilter) {
-        super(width, height, is, bi, pngColorType, bitDepth, bitsPerPixel, pngChunkPLTE, gammaCorrection, abstractTransparencyFilter);
+            final AbstractTransparencyFilter abstractTransparencyFilter, final PngRowListener rowListener) {
+        super(width, height, is, bi, pngColorType, bitDepth, bitsPerPixel, pngChunkPLTE, gammaCorrection, abstractTransparencyFilter, rowListener);
     }
 
     @Override
     public void drive() throws ImagingException, IOException {
+        final int[] argb = Allocator.intArray(width);
 
         int pass = 1;
         while (pass <= 7) {
@@ -49,8 +51,7 @@ final class ScanExpediterInterlaced extends AbstractScanExpediter {
             // int y_stride = ROW_INCREMENT[pass - 1];
             // final boolean rows_in_pass = (y < height);
             while (y < height) {
-                int x = STARTING_COL[pass - 1];
-                int pixelIndexInScanline = 0;
+                final int x = STARTING_COL[pass - 1];
 
                 if (x < width) {
                     // only get data if there are pixels in this scanline/pass
@@ -62,24 +63,15 @@ final class ScanExpediterInterlaced extends AbstractScanExpediter {
 
                     prev = unfiltered;
 
-                    final BitParser fBitParser = new BitParser(unfiltered, bitsPerPixel, bitDepth);
-
-                    while (x < width) {
-                        visit(x, y, bi, fBitParser, pixelIndexInScanline);
-
-                        x += COL_INCREMENT[pass - 1];
-                        pixelIndexInScanline++;
-                    }
+                    convertRow(unfiltered, columnsInRow, argb);
+                    setRow(argb, columnsInRow, y, x, COL_INCREMENT[pass - 1]);
                 }
                 y += ROW_INCREMENT[pass - 1];
             }
             pass += 1;
         }
-    }
-
-    private void visit(final int x, final int y, final BufferedImage bi, final BitParser fBitParser, final int pixelIndexInScanline)
-            throws ImagingException, IOException {
-        final int rgb = getRgb(fBitParser, pixelIndexInScanline);
-        bi.setRGB(x, y, rgb);
+        if (rowListener != null) {
+            rowListener.rowsDecoded(bi, 0, height);
+        }
     }
 }
@@ -21,14 +21,15 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.Allocator;
 import org.apache.commons.imaging.formats.png.chunks.PngChunkPlte;
 import org.apache.commons.imaging.formats.png.transparencyfilters.AbstractTransparencyFilter;
 
 final class ScanExpediterSimple extends AbstractScanExpediter {
     ScanExpediterSimple(final int width, final int height, final InputStream is, final BufferedImage bi, final PngColorType pngColorType, final int bitDepth,
             final int bitsPerPixel, final PngChunkPlte pngChunkPLTE, final GammaCorrection gammaCorrection,
-            final AbstractTransparencyFilter abstractTransparencyFilter) {
-        super(width, height, is, bi, pngColorType, bitDepth, bitsPerPixel, pngChunkPLTE, gammaCorrection, abstractTransparencyFilter);
+            final AbstractTransparencyFilter abstractTransparencyFilter, final PngRowListener rowListener) {
+        super(width, height, is, bi, pngColorType, bitDepth, bitsPerPixel, pngChunkPLTE, gammaCorrection, abstractTransparencyFilter, rowListener);
     }
 
     @Override
@@ -36,18 +37,17 @@ final class ScanExpediterSimple extends AbstractScanExpediter {
         final int bitsPerScanLine = bitsPerPixel * width;
         final int pixelBytesPerScanLine = getBitsToBytesRoundingUp(bitsPerScanLine);
         byte[] prev = null;
+        final int[] argb = Allocator.intArray(width);
 
         for (int y = 0; y < height; y++) {
             final byte[] unfiltered = getNextScanline(is, pixelBytesPerScanLine, prev, bytesPerPixel);
 
             prev = unfiltered;
 
-            final BitParser bitParser = new BitParser(unfiltered, bitsPerPixel, bitDepth);
-
-            for (int x = 0; x < width; x++) {
-                final int rgb = getRgb(bitParser, x);
-
-                bi.setRGB(x, y, rgb);
+            convertRow(unfiltered, width, argb);
+            setRow(argb, width, y, 0, 1);
+            if (rowListener != null) {
+                rowListener.rowsDecoded(bi, y, 1);
             }
         }
 
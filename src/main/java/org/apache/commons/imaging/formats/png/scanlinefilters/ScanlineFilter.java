@@ -25,6 +25,16 @@ import org.apache.commons.imaging.ImagingException;
  */
 public interface ScanlineFilter {
 
+    /**
+     * Filters a scanline, the inverse of {@link #unfilter(byte[], byte[], byte[])}.
+     *
+     * @param src the raw bytes of the scanline.
+     * @param dst receives the filtered bytes, must not be {@code src}.
+     * @param up the raw bytes of the previous scanline, or null for the first scanline.
+     * @since 1.0.0-alpha7
+     */
+    void filter(byte[] src, byte[] dst, byte[] up);
+
     /**
      * Unfilters a scanline.
      *
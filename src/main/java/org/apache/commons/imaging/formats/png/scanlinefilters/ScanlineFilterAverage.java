@@ -36,6 +36,24 @@ public class ScanlineFilterAverage implements ScanlineFilter {
         this.bytesPerPixel = bytesPerPixel;
     }
 
+    @Override
+    public void filter(final byte[] src, final byte[] dst, final byte[] up) {
+        final int start = Math.min(bytesPerPixel, src.length);
+        if (up == null) {
+            System.arraycopy(src, 0, dst, 0, start);
+            for (int i = start; i < src.length; i++) {
+                dst[i] = (byte) (src[i] - ((0xff & src[i - bytesPerPixel]) >> 1));
+            }
+            return;
+        }
+        for (int i = 0; i < start; i++) {
+            dst[i] = (byte) (src[i] - ((0xff & up[i]) >> 1));
+        }
+        for (int i = start; i < src.length; i++) {
+            dst[i] = (byte) (src[i] - ((0xff & src[i - bytesPerPixel]) + (0xff & up[i]) >> 1));
+        }
+    }
+
     @Override
     public void unfilter(final byte[] src, final byte[] dst, final byte[] up) throws ImagingException, IOException {
         for (int i = 0; i < src.length; i++) {
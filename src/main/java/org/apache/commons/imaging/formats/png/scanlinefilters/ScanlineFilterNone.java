@@ -32,6 +32,11 @@ public class ScanlineFilterNone implements ScanlineFilter {
         // Default constructor
     }
 
+    @Override
+    public void filter(final byte[] src, final byte[] dst, final byte[] up) {
+        System.arraycopy(src, 0, dst, 0, src.length);
+    }
+
     @Override
     public void unfilter(final byte[] src, final byte[] dst, final byte[] up) throws ImagingException, IOException {
         System.arraycopy(src, 0, dst, 0, src.length);
@@ -36,6 +36,26 @@ public class ScanlineFilterPaeth implements ScanlineFilter {
         this.bytesPerPixel = bytesPerPixel;
     }
 
+    @Override
+    public void filter(final byte[] src, final byte[] dst, final byte[] up) {
+        final int start = Math.min(bytesPerPixel, src.length);
+        if (up == null) {
+            // with no previous scanline the predictor is always the left byte, as for the Sub filter
+            System.arraycopy(src, 0, dst, 0, start);
+            for (int i = start; i < src.length; i++) {
+                dst[i] = (byte) (src[i] - src[i - bytesPerPixel]);
+            }
+            return;
+        }
+        for (int i = 0; i < start; i++) {
+            dst[i] = (byte) (src[i] - up[i]);
+        }
+        for (int i = start; i < src.length; i++) {
+            final int prevIndex = i - bytesPerPixel;
+            dst[i] = (byte) (src[i] - paethPredictor(0xff & src[prevIndex], 0xff & up[i], 0xff & up[prevIndex]));
+        }
+    }
+
     private int paethPredictor(final int a, final int b, final int c) {
         // ; a = left, b = above, c = upper left
         final int p = a + b - c; // ; initial estimate
@@ -36,6 +36,15 @@ public class ScanlineFilterSub implements ScanlineFilter {
         this.bytesPerPixel = bytesPerPixel;
     }
 
+    @Override
+    public void filter(final byte[] src, final byte[] dst, final byte[] up) {
+        final int start = Math.min(bytesPerPixel, src.length);
+        System.arraycopy(src, 0, dst, 0, start);
+        for (int i = start; i < src.length; i++) {
+            dst[i] = (byte) (src[i] - src[i - bytesPerPixel]);
+        }
+    }
+
     @Override
     public void unfilter(final byte[] src, final byte[] dst, final byte[] up) throws ImagingException, IOException {
         for (int i = 0; i < src.length; i++) {
@@ -32,6 +32,17 @@ public class ScanlineFilterUp implements ScanlineFilter {
         // Default constructor
     }
 
+    @Override
+    public void filter(final byte[] src, final byte[] dst, final byte[] up) {
+        if (up == null) {
+            System.arraycopy(src, 0, dst, 0, src.length);
+            return;
+        }
+        for (int i = 0; i < src.length; i++) {
+            dst[i] = (byte) (src[i] - up[i]);
+        }
+    }
+
     @Override
     public void unfilter(final byte[] src, final byte[] dst, final byte[] up) throws ImagingException, IOException {
         for (int i = 0; i < src.length; i++) {
@@ -16,6 +16,8 @@
  */
 package org.apache.commons.imaging.formats.tiff;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Comparator;
 
 /**
@@ -59,6 +61,28 @@ public abstract class AbstractTiffElement {
         public int getDataLength() {
             return data.length;
         }
+
+        /**
+         * Reads the element data. Unlike {@link #getData()}, this method reports a failure to load data that is read on demand as an I/O error.
+         *
+         * @return the data, which the caller may modify.
+         * @throws IOException if the data cannot be read.
+         * @since 1.0.0-alpha7
+         */
+        public byte[] readData() throws IOException {
+            return getData();
+        }
+
+        /**
+         * Reads the element data into a buffer, which may be a read-only view of the file rather than a copy.
+         *
+         * @return the data, from the position to the limit of the buffer.
+         * @throws IOException if the data cannot be read.
+         * @since 1.0.0-alpha7
+         */
+        public ByteBuffer readBuffer() throws IOException {
+            return ByteBuffer.wrap(readData());
+        }
     }
 
     /**
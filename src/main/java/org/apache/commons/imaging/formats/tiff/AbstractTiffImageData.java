@@ -17,9 +17,12 @@
 package org.apache.commons.imaging.formats.tiff;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.bytesource.ByteSource;
 import org.apache.commons.imaging.formats.tiff.constants.TiffPlanarConfiguration;
 import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
 import org.apache.commons.imaging.formats.tiff.datareaders.AbstractImageDataReader;
@@ -34,9 +37,28 @@ public abstract class AbstractTiffImageData {
 
     /**
      * Represents a data element containing TIFF image data.
+     * <p>
+     * The data is either held in memory or, when constructed from a {@link ByteSource}, read from the source each time it is requested. Readers of a
+     * sub-image then only load the strips or tiles that intersect it.
+     * </p>
      */
     public static class Data extends AbstractTiffElement.DataElement {
 
+        private final ByteSource byteSource;
+
+        /**
+         * Constructs a new data element whose bytes are read on demand.
+         *
+         * @param offset the offset in the TIFF file.
+         * @param length the length of the data.
+         * @param byteSource the source of the TIFF file.
+         * @since 1.0.0-alpha7
+         */
+        public Data(final long offset, final int length, final ByteSource byteSource) {
+            super(offset, length, null);
+            this.byteSource = byteSource;
+        }
+
         /**
          * Constructs a new data element.
          *
@@ -46,6 +68,27 @@ public abstract class AbstractTiffImageData {
          */
         public Data(final long offset, final int length, final byte[] data) {
             super(offset, length, data);
+            this.byteSource = null;
+        }
+
+        /**
+         * Gets a copy of the element data.
+         *
+         * @return the data.
+         * @throws UncheckedIOException if the data is read on demand and cannot be read.
+         */
+        @Override
+        public byte[] getData() {
+            try {
+                return readData();
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public int getDataLength() {
+            return byteSource == null ? super.getDataLength() : length;
         }
 
         @Override
@@ -53,6 +96,22 @@ public abstract class AbstractTiffImageData {
             return "TIFF image data: " + getDataLength() + " bytes";
         }
 
+        /**
+         * Reads the element data into a buffer. Data read on demand from a mapped byte source is a read-only view of the mapping, not a copy.
+         *
+         * @return the data, from the position to the limit of the buffer.
+         * @throws IOException if the data cannot be read.
+         */
+        @Override
+        public ByteBuffer readBuffer() throws IOException {
+            return byteSource == null ? super.readBuffer() : byteSource.getByteBuffer(offset, length);
+        }
+
+        @Override
+        public byte[] readData() throws IOException {
+            return byteSource == null ? super.getData() : byteSource.getByteArray(offset, length);
+        }
+
     }
 
     /**
@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
@@ -244,6 +245,91 @@ public class TiffImageParser extends AbstractImageParser<TiffImagingParameters>
         return result;
     }
 
+    /**
+     * Gets a buffered image of at least a given size from the byte source, read from the smallest reduced-resolution image, or overview, that is large enough
+     * if the image has any. Overviews are the directories following the first one whose NewSubfileType field marks them as reduced-resolution images, as in
+     * cloud-optimized GeoTIFF. The image is not resampled: it is returned at the resolution of the overview read, which is at least the target size unless
+     * the full-resolution image is smaller.
+     * <p>
+     * If a sub-image is set in the parameters, it is given in the coordinates of the full-resolution image and the target size applies to it. Only the area
+     * of the overview it covers, rounded out to whole pixels, is read, and only the strips or tiles holding that area are read from the byte source.
+     * </p>
+     *
+     * @param byteSource the byte source.
+     * @param targetSize the smallest size of the image, or sub-image, to read.
+     * @param params     the parameters, or null.
+     * @return the image, at the resolution of the overview it is read from.
+     * @throws ImagingException if the data is not a valid TIFF image or the sub-image is outside the image.
+     * @throws IOException      if an I/O error occurs.
+     * @since 1.0.0-alpha7
+     */
+    public BufferedImage getBufferedImage(final ByteSource byteSource, final Dimension targetSize, TiffImagingParameters params)
+            throws ImagingException, IOException {
+        if (targetSize.width <= 0 || targetSize.height <= 0) {
+            throw new IllegalArgumentException("Invalid target size " + targetSize.width + "x" + targetSize.height);
+        }
+        if (params == null) {
+            params = new TiffImagingParameters();
+        }
+        final FormatCompliance formatCompliance = FormatCompliance.getDefault();
+        final TiffReader reader = new TiffReader(params.isStrict());
+        final TiffContents contents = reader.readDirectories(byteSource, true, formatCompliance);
+        final ByteOrder byteOrder = reader.getByteOrder();
+        final TiffDirectory fullResolution = contents.directories.get(0);
+        final int width = fullResolution.getSingleFieldValue(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH);
+        final int height = fullResolution.getSingleFieldValue(TiffTagConstants.TIFF_TAG_IMAGE_LENGTH);
+        final Rectangle region = params.isSubImageSet() ? checkForSubImage(params) : new Rectangle(width, height);
+        if (region.isEmpty() || !new Rectangle(width, height).contains(region)) {
+            throw new ImagingException("Subimage is outside raster.");
+        }
+
+        // the overviews of the first image follow it, up to the next image of a multi-page file
+        TiffDirectory best = fullResolution;
+        long bestPixels = (long) width * height;
+        for (int i = 1; i < contents.directories.size(); i++) {
+            final TiffDirectory directory = contents.directories.get(i);
+            if (directory.type < 0) {
+                // an EXIF, GPS or interoperability directory
+                continue;
+            }
+            final TiffField subfileTypeField = directory.findField(TiffTagConstants.TIFF_TAG_NEW_SUBFILE_TYPE);
+            final int subfileType = subfileTypeField == null ? 0 : subfileTypeField.getIntValue();
+            if ((subfileType & TiffTagConstants.SUBFILE_TYPE_VALUE_REDUCED_RESOLUTION_IMAGE) == 0) {
+                break;
+            }
+            if ((subfileType & TiffTagConstants.SUBFILE_TYPE_VALUE_TRANSPARENCY_MASK) != 0 || !directory.hasTiffImageData()) {
+                continue;
+            }
+            final int levelWidth = directory.getSingleFieldValue(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH);
+            final int levelHeight = directory.getSingleFieldValue(TiffTagConstants.TIFF_TAG_IMAGE_LENGTH);
+            final long pixels = (long) levelWidth * levelHeight;
+            if (pixels < bestPixels && (long) region.width * levelWidth >= (long) targetSize.width * width
+                    && (long) region.height * levelHeight >= (long) targetSize.height * height) {
+                best = directory;
+                bestPixels = pixels;
+            }
+        }
+        if (best == fullResolution) {
+            return getBufferedImage(fullResolution, byteOrder, params);
+        }
+
+        final int levelWidth = best.getSingleFieldValue(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH);
+        final int levelHeight = best.getSingleFieldValue(TiffTagConstants.TIFF_TAG_IMAGE_LENGTH);
+        final TiffImagingParameters levelParams = new TiffImagingParameters();
+        levelParams.setStrict(params.isStrict());
+        levelParams.setBufferedImageFactory(params.getBufferedImageFactory());
+        levelParams.setCustomPhotometricInterpreter(params.getCustomPhotometricInterpreter());
+        levelParams.setExecutor(params.getExecutor());
+        if (params.isSubImageSet()) {
+            final int x0 = (int) ((long) region.x * levelWidth / width);
+            final int y0 = (int) ((long) region.y * levelHeight / height);
+            final int x1 = Math.min(levelWidth, (int) (((long) (region.x + region.width) * levelWidth + width - 1) / width));
+            final int y1 = Math.min(levelHeight, (int) (((long) (region.y + region.height) * levelHeight + height - 1) / height));
+            levelParams.setSubImage(x0, y0, x1 - x0, y1 - y0);
+        }
+        return getBufferedImage(best, byteOrder, levelParams);
+    }
+
     /**
      * Gets a buffered image from a TIFF directory.
      *
@@ -382,6 +468,9 @@ public class TiffImageParser extends AbstractImageParser<TiffImagingParameters>
 
         final AbstractImageDataReader dataReader = imageData.getDataReader(directory, photometricInterpreter, bitsPerPixel, bitsPerSample, predictor,
                 samplesPerPixel, width, height, compression, planarConfiguration, byteOrder);
+        if (params != null && params.getCustomPhotometricInterpreter() == null) {
+            dataReader.setExecutor(params.getExecutor());
+        }
         final ImageBuilder iBuilder = dataReader.readImageData(subImage, hasAlpha, isAlphaPremultiplied);
         return iBuilder.getBufferedImage();
     }
@@ -668,6 +757,7 @@ public class TiffImageParser extends AbstractImageParser<TiffImagingParameters>
         case 5: // CMYK
             return new PhotometricInterpreterCmyk(samplesPerPixel, bitsPerSample, predictor, width, height);
         case 6: {
+            // YCbCrSubSampling is handled by the data readers, which give each pixel the chroma samples of its block
 //            final double[] yCbCrCoefficients = directory.findField(
 //                    TiffTagConstants.TIFF_TAG_YCBCR_COEFFICIENTS, true)
 //                    .getDoubleArrayValue();
@@ -675,9 +765,6 @@ public class TiffImageParser extends AbstractImageParser<TiffImagingParameters>
 //            final int[] yCbCrPositioning = directory.findField(
 //                    TiffTagConstants.TIFF_TAG_YCBCR_POSITIONING, true)
 //                    .getIntArrayValue();
-//            final int[] yCbCrSubSampling = directory.findField(
-//                    TiffTagConstants.TIFF_TAG_YCBCR_SUB_SAMPLING, true)
-//                    .getIntArrayValue();
 //
 //            final double[] referenceBlackWhite = directory.findField(
 //                    TiffTagConstants.TIFF_TAG_REFERENCE_BLACK_WHITE, true)
@@ -828,6 +915,7 @@ public class TiffImageParser extends AbstractImageParser<TiffImagingParameters>
         final AbstractTiffImageData imageData = directory.getTiffImageData();
         final AbstractImageDataReader dataReader = imageData.getDataReader(directory, photometricInterpreter, bitsPerPixel, bitsPerSample, predictor,
                 samplesPerPixel, width, height, compression, planarConfiguration, byteOrder);
+        dataReader.setExecutor(params.getExecutor());
         return dataReader.readRasterData(subImage);
     }
 
@@ -857,4 +945,23 @@ public class TiffImageParser extends AbstractImageParser<TiffImagingParameters>
         new TiffImageWriterLossy().writeImage(src, os, params);
     }
 
+    /**
+     * Writes an image to a channel, from its current position. Unlike writing to a stream, only a few compressed strips or tiles are held in memory at once,
+     * so images too large to compress in memory can be written. Tiles and BigTIFF are selected with {@link TiffImagingParameters#setTileSize(int, int)} and
+     * {@link TiffImagingParameters#setBigTiff(Boolean)}.
+     *
+     * @param src     the image.
+     * @param channel the channel, such as a {@link java.nio.channels.FileChannel}.
+     * @param params  the parameters, may be null.
+     * @throws ImagingException if the image cannot be written as TIFF.
+     * @throws IOException      if an I/O error occurs.
+     * @since 1.0.0-alpha7
+     */
+    public void writeImage(final BufferedImage src, final SeekableByteChannel channel, TiffImagingParameters params) throws ImagingException, IOException {
+        if (params == null) {
+            params = new TiffImagingParameters();
+        }
+        new TiffImageWriterLossy().writeImage(src, channel, params);
+    }
+
 }
@@ -15,6 +15,8 @@
 
 package org.apache.commons.imaging.formats.tiff;
 
+import java.util.concurrent.Executor;
+
 import org.apache.commons.imaging.common.XmpImagingParameters;
 import org.apache.commons.imaging.formats.tiff.photometricinterpreters.AbstractPhotometricInterpreter;
 import org.apache.commons.imaging.formats.tiff.write.TiffOutputSet;
@@ -77,6 +79,32 @@ public class TiffImagingParameters extends XmpImagingParameters<TiffImagingParam
      */
     private AbstractPhotometricInterpreter customPhotometricInterpreter;
 
+    /**
+     * Executor used to decompress and interpret strips or tiles concurrently, and to compress the blocks of tiled or BigTIFF images, or null to do so on the
+     * calling thread.
+     */
+    private Executor executor;
+
+    /**
+     * Width of the tiles of written images, or zero to write strips.
+     */
+    private int tileWidth;
+
+    /**
+     * Length of the tiles of written images, or zero to write strips.
+     */
+    private int tileLength;
+
+    /**
+     * Whether written images are BigTIFF, with 64-bit offsets, or null to write BigTIFF only when the image could exceed the 4 GB classic TIFF can address.
+     */
+    private Boolean bigTiff;
+
+    /**
+     * Most reduced-resolution images, or overviews, written after a tiled image, each half the size of the one before.
+     */
+    private int overviewLevels;
+
     /**
      * TIFF compression algorithm, if any.
      */
@@ -115,6 +143,26 @@ public class TiffImagingParameters extends XmpImagingParameters<TiffImagingParam
         subImageHeight = 0;
     }
 
+    /**
+     * Clears the tile size. Subsequent write operations will write strips.
+     *
+     * @since 1.0.0-alpha7
+     */
+    public void clearTileSize() {
+        tileWidth = 0;
+        tileLength = 0;
+    }
+
+    /**
+     * Gets whether written images are BigTIFF.
+     *
+     * @return true for BigTIFF, false for classic TIFF, or null if BigTIFF is written only when the image could exceed 4 GB.
+     * @since 1.0.0-alpha7
+     */
+    public Boolean getBigTiff() {
+        return bigTiff;
+    }
+
     /**
      * Gets the compression algorithm.
      *
@@ -133,6 +181,16 @@ public class TiffImagingParameters extends XmpImagingParameters<TiffImagingParam
         return customPhotometricInterpreter;
     }
 
+    /**
+     * Gets the executor used to decompress and interpret strips or tiles concurrently.
+     *
+     * @return the executor, or null if image data is read on the calling thread.
+     * @since 1.0.0-alpha7
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
     /**
      * Gets the LZW compression block size.
      *
@@ -142,6 +200,16 @@ public class TiffImagingParameters extends XmpImagingParameters<TiffImagingParam
         return lzwCompressionBlockSize;
     }
 
+    /**
+     * Gets the most reduced-resolution images written after a tiled image.
+     *
+     * @return the most overviews, zero if none are written.
+     * @since 1.0.0-alpha7
+     */
+    public int getOverviewLevels() {
+        return overviewLevels;
+    }
+
     /**
      * Gets the TIFF output set for writing TIFF files.
      *
@@ -205,6 +273,26 @@ public class TiffImagingParameters extends XmpImagingParameters<TiffImagingParam
         return t6Options;
     }
 
+    /**
+     * Gets the length of the tiles of written images.
+     *
+     * @return the tile length, or zero if strips are written.
+     * @since 1.0.0-alpha7
+     */
+    public int getTileLength() {
+        return tileLength;
+    }
+
+    /**
+     * Gets the width of the tiles of written images.
+     *
+     * @return the tile width, or zero if strips are written.
+     * @since 1.0.0-alpha7
+     */
+    public int getTileWidth() {
+        return tileWidth;
+    }
+
     /**
      * Gets whether to read thumbnails.
      *
@@ -223,6 +311,19 @@ public class TiffImagingParameters extends XmpImagingParameters<TiffImagingParam
         return subImageWidth > 0 && subImageHeight > 0;
     }
 
+    /**
+     * Sets whether written images are BigTIFF, whose 64-bit offsets let files exceed the 4 GB that the 32-bit offsets of classic TIFF can address. Readers
+     * that predate BigTIFF cannot read such files.
+     *
+     * @param bigTiff true to write BigTIFF, false to write classic TIFF, or null to write BigTIFF only when the image could exceed 4 GB.
+     * @return this instance.
+     * @since 1.0.0-alpha7
+     */
+    public TiffImagingParameters setBigTiff(final Boolean bigTiff) {
+        this.bigTiff = bigTiff;
+        return asThis();
+    }
+
     /**
      * Sets the compression algorithm.
      *
@@ -245,6 +346,22 @@ public class TiffImagingParameters extends XmpImagingParameters<TiffImagingParam
         return asThis();
     }
 
+    /**
+     * Sets the executor used to decompress and interpret the strips or tiles of an image or raster concurrently. Images read with a custom photometric
+     * interpreter are always read on the calling thread, since such interpreters may keep state across pixels.
+     * <p>
+     * When writing tiled or BigTIFF images, the executor compresses their strips or tiles concurrently.
+     * </p>
+     *
+     * @param executor the executor, or null to read image data on the calling thread.
+     * @return this instance.
+     * @since 1.0.0-alpha7
+     */
+    public TiffImagingParameters setExecutor(final Executor executor) {
+        this.executor = executor;
+        return asThis();
+    }
+
     /**
      * Sets the LZW compression block size.
      *
@@ -268,6 +385,24 @@ public class TiffImagingParameters extends XmpImagingParameters<TiffImagingParam
         return asThis();
     }
 
+    /**
+     * Sets the most reduced-resolution images, or overviews, written after a tiled image, as in cloud-optimized GeoTIFF. Each overview is half the width and
+     * height of the image before it, rounded up, each pixel averaging the 2 by 2 pixels it covers. Fewer overviews are written if one fits in a single tile.
+     * Overviews are written only with tiles, and have the same tile size and compression as the image.
+     *
+     * @param overviewLevels the most overviews, zero to write none.
+     * @return this instance.
+     * @throws IllegalArgumentException if the number of overviews is negative.
+     * @since 1.0.0-alpha7
+     */
+    public TiffImagingParameters setOverviewLevels(final int overviewLevels) {
+        if (overviewLevels < 0) {
+            throw new IllegalArgumentException("Invalid number of overview levels " + overviewLevels);
+        }
+        this.overviewLevels = overviewLevels;
+        return asThis();
+    }
+
     /**
      * Sets whether to read thumbnails.
      *
@@ -306,6 +441,24 @@ public class TiffImagingParameters extends XmpImagingParameters<TiffImagingParam
         return asThis();
     }
 
+    /**
+     * Sets the size of the tiles of written images, which are then written as tiles instead of strips. TIFF requires tile dimensions to be multiples of 16;
+     * tiles past the right and bottom edges of the image are padded.
+     *
+     * @param tileWidth  the width of the tiles, a positive multiple of 16.
+     * @param tileLength the length of the tiles, a positive multiple of 16.
+     * @return this instance.
+     * @since 1.0.0-alpha7
+     */
+    public TiffImagingParameters setTileSize(final int tileWidth, final int tileLength) {
+        if (tileWidth <= 0 || tileLength <= 0 || tileWidth % 16 != 0 || tileLength % 16 != 0) {
+            throw new IllegalArgumentException("Invalid tile size " + tileWidth + "x" + tileLength + ": width and length must be positive multiples of 16");
+        }
+        this.tileWidth = tileWidth;
+        this.tileLength = tileLength;
+        return asThis();
+    }
+
     /**
      * Sets the T.4 options.
      *
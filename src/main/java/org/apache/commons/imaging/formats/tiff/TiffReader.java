@@ -23,6 +23,7 @@ import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.VE
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
@@ -32,7 +33,6 @@ import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.bytesource.ByteSource;
 import org.apache.commons.imaging.common.BinaryFileParser;
 import org.apache.commons.imaging.common.BinaryFunctions;
-import org.apache.commons.imaging.common.ByteConversions;
 import org.apache.commons.imaging.formats.jpeg.JpegConstants;
 import org.apache.commons.imaging.formats.tiff.TiffDirectory.ImageDataElement;
 import org.apache.commons.imaging.formats.tiff.constants.ExifTagConstants;
@@ -187,6 +187,14 @@ public class TiffReader extends BinaryFileParser {
         return new JpegImageData(offset, length, data);
     }
 
+    private static byte[] getBytes(final ByteBuffer buffer, final int index, final int length) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(index + i);
+        }
+        return bytes;
+    }
+
     private ByteOrder getTiffByteOrder(final int byteOrderByte) throws ImagingException {
         if (byteOrderByte == 'I') {
             return ByteOrder.LITTLE_ENDIAN; // Intel
@@ -202,10 +210,10 @@ public class TiffReader extends BinaryFileParser {
         final List<ImageDataElement> elements = directory.getTiffRawImageDataElements();
         final AbstractTiffImageData.Data[] data = new AbstractTiffImageData.Data[elements.size()];
 
+        // strips and tiles are only read when a data reader needs them, so a sub-image read loads just the ones it intersects
         for (int i = 0; i < elements.size(); i++) {
             final TiffDirectory.ImageDataElement element = elements.get(i);
-            final byte[] bytes = byteSource.getByteArray(element.offset, element.length);
-            data[i] = new AbstractTiffImageData.Data(element.offset, element.length, bytes);
+            data[i] = new AbstractTiffImageData.Data(element.offset, element.length, byteSource);
         }
 
         if (directory.imageDataInStrips()) {
@@ -343,142 +351,147 @@ public class TiffReader extends BinaryFileParser {
         }
         visited.add(directoryOffset);
 
-        try (InputStream is = byteSource.getInputStream()) {
-            if (directoryOffset >= byteSource.size()) {
-                return true;
-            }
+        final long size = byteSource.size();
+        if (directoryOffset >= size) {
+            return true;
+        }
 
-            BinaryFunctions.skipBytes(is, directoryOffset);
+        // the directory is parsed from buffers, which are views of the file for mapped byte sources
+        final int countLength = standardTiff ? 2 : 8;
+        final int entryLength = standardTiff ? 12 : 20;
+        final int nextOffsetLength = standardTiff ? 4 : 8;
+        if (directoryOffset + countLength > size) {
+            if (strict) {
+                throw new IOException("Not a Valid TIFF File");
+            }
+            return true;
+        }
+        final ByteBuffer countBuffer = byteSource.getByteBuffer(directoryOffset, countLength).order(getByteOrder());
+        final long entryCount = standardTiff ? 0xffff & countBuffer.getShort(0) : countBuffer.getLong(0);
+        // the entries are followed by the offset of the next directory
+        final long available = size - directoryOffset - countLength;
+        if (entryCount < 0 || entryCount > (available - nextOffsetLength) / entryLength
+                || entryCount > (Integer.MAX_VALUE - nextOffsetLength) / entryLength) {
+            throw new IOException("Not a Valid TIFF File");
+        }
+        final int nextOffsetIndex = (int) entryCount * entryLength;
+        final ByteBuffer entries = byteSource.getByteBuffer(directoryOffset + countLength, nextOffsetIndex + nextOffsetLength).order(getByteOrder());
+
+        final List<TiffField> fields = new ArrayList<>();
+
+        for (int i = 0; i < entryCount; i++) {
+            final int entryOffset = i * entryLength;
+            final int tag = 0xffff & entries.getShort(entryOffset);
+            final int type = 0xffff & entries.getShort(entryOffset + 2);
+            final long count;
+            final byte[] offsetBytes;
+            final long offset;
+            if (standardTiff) {
+                count = 0xFFFFffffL & entries.getInt(entryOffset + 4);
+                offsetBytes = getBytes(entries, entryOffset + 8, 4);
+                offset = 0xFFFFffffL & entries.getInt(entryOffset + 8);
+            } else {
+                count = entries.getLong(entryOffset + 4);
+                offsetBytes = getBytes(entries, entryOffset + 12, 8);
+                offset = entries.getLong(entryOffset + 12);
+            }
 
-            final List<TiffField> fields = new ArrayList<>();
+            if (tag == 0) {
+                // skip invalid fields.
+                // These are seen very rarely, but can have invalid value
+                // lengths,
+                // which can cause OOM problems.
+                continue;
+            }
 
-            final long entryCount;
+            final AbstractFieldType abstractFieldType;
             try {
-                if (standardTiff) {
-                    entryCount = BinaryFunctions.read2Bytes("DirectoryEntryCount", is, "Not a Valid TIFF File", getByteOrder());
-                } else {
-                    entryCount = BinaryFunctions.read8Bytes("DirectoryEntryCount", is, "Not a Valid TIFF File", getByteOrder());
-                }
-            } catch (final IOException e) {
-                if (strict) {
-                    throw e;
-                }
-                return true;
+                abstractFieldType = AbstractFieldType.getFieldType(type);
+            } catch (final ImagingException imageReadEx) {
+                // skip over unknown fields types, since we
+                // can't calculate their size without
+                // knowing their type
+                continue;
             }
-
-            for (int i = 0; i < entryCount; i++) {
-                final int tag = BinaryFunctions.read2Bytes("Tag", is, "Not a Valid TIFF File", getByteOrder());
-                final int type = BinaryFunctions.read2Bytes("Type", is, "Not a Valid TIFF File", getByteOrder());
-                final long count;
-                final byte[] offsetBytes;
-                final long offset;
-                if (standardTiff) {
-                    count = 0xFFFFffffL & BinaryFunctions.read4Bytes("Count", is, "Not a Valid TIFF File", getByteOrder());
-                    offsetBytes = BinaryFunctions.readBytes("Offset", is, 4, "Not a Valid TIFF File");
-                    offset = 0xFFFFffffL & ByteConversions.toInt(offsetBytes, getByteOrder());
-                } else {
-                    count = BinaryFunctions.read8Bytes("Count", is, "Not a Valid TIFF File", getByteOrder());
-                    offsetBytes = BinaryFunctions.readBytes("Offset", is, 8, "Not a Valid TIFF File");
-                    offset = ByteConversions.toLong(offsetBytes, getByteOrder());
-                }
-
-                if (tag == 0) {
-                    // skip invalid fields.
-                    // These are seen very rarely, but can have invalid value
-                    // lengths,
-                    // which can cause OOM problems.
-                    continue;
-                }
-
-                final AbstractFieldType abstractFieldType;
-                try {
-                    abstractFieldType = AbstractFieldType.getFieldType(type);
-                } catch (final ImagingException imageReadEx) {
-                    // skip over unknown fields types, since we
-                    // can't calculate their size without
-                    // knowing their type
-                    continue;
-                }
-                final long valueLength = count * abstractFieldType.getSize();
-                final byte[] value;
-                if (valueLength > entryMaxValueLength) {
-                    if (offset < 0 || offset + valueLength > byteSource.size()) {
-                        if (strict) {
-                            throw new IOException("Attempt to read byte range starting from " + offset + " of length " + valueLength + " "
-                                    + "which is outside the file's size of " + byteSource.size());
-                        }
-                        // corrupt field, ignore it
-                        continue;
+            final long valueLength = count * abstractFieldType.getSize();
+            final byte[] value;
+            if (valueLength > entryMaxValueLength) {
+                if (offset < 0 || offset + valueLength > byteSource.size()) {
+                    if (strict) {
+                        throw new IOException("Attempt to read byte range starting from " + offset + " of length " + valueLength + " "
+                                + "which is outside the file's size of " + byteSource.size());
                     }
-                    value = byteSource.getByteArray(offset, (int) valueLength);
-                } else {
-                    value = offsetBytes;
+                    // corrupt field, ignore it
+                    continue;
                 }
+                value = byteSource.getByteArray(offset, (int) valueLength);
+            } else {
+                value = offsetBytes;
+            }
 
-                final TiffField field = new TiffField(tag, dirType, abstractFieldType, count, offset, value, getByteOrder(), i);
+            final TiffField field = new TiffField(tag, dirType, abstractFieldType, count, offset, value, getByteOrder(), i);
 
-                fields.add(field);
+            fields.add(field);
 
-                if (!listener.addField(field)) {
-                    return true;
-                }
+            if (!listener.addField(field)) {
+                return true;
             }
+        }
 
-            final long nextDirectoryOffset = 0xFFFFffffL & BinaryFunctions.read4Bytes("nextDirectoryOffset", is, "Not a Valid TIFF File", getByteOrder());
+        final long nextDirectoryOffset = standardTiff ? 0xFFFFffffL & entries.getInt(nextOffsetIndex) : entries.getLong(nextOffsetIndex);
 
-            final TiffDirectory directory = new TiffDirectory(dirType, fields, directoryOffset, nextDirectoryOffset, getByteOrder());
+        final TiffDirectory directory = new TiffDirectory(dirType, fields, directoryOffset, nextDirectoryOffset, getByteOrder());
 
-            if (listener.readImageData()) {
-                if (directory.hasTiffImageData()) {
-                    final AbstractTiffImageData rawImageData = getTiffRawImageData(byteSource, directory);
-                    directory.setTiffImageData(rawImageData);
-                }
-                if (directory.hasJpegImageData()) {
-                    final JpegImageData rawJpegImageData = getJpegRawImageData(byteSource, directory);
-                    directory.setJpegImageData(rawJpegImageData);
-                }
+        if (listener.readImageData()) {
+            if (directory.hasTiffImageData()) {
+                final AbstractTiffImageData rawImageData = getTiffRawImageData(byteSource, directory);
+                directory.setTiffImageData(rawImageData);
             }
-
-            if (!listener.addDirectory(directory)) {
-                return true;
+            if (directory.hasJpegImageData()) {
+                final JpegImageData rawJpegImageData = getJpegRawImageData(byteSource, directory);
+                directory.setJpegImageData(rawJpegImageData);
             }
+        }
 
-            if (listener.readOffsetDirectories()) {
-                final TagInfoDirectory[] offsetFields = { ExifTagConstants.EXIF_TAG_EXIF_OFFSET, ExifTagConstants.EXIF_TAG_GPSINFO,
-                        ExifTagConstants.EXIF_TAG_INTEROP_OFFSET };
-                final int[] directoryTypes = { TiffDirectoryConstants.DIRECTORY_TYPE_EXIF, TiffDirectoryConstants.DIRECTORY_TYPE_GPS,
-                        TiffDirectoryConstants.DIRECTORY_TYPE_INTEROPERABILITY };
-                for (int i = 0; i < offsetFields.length; i++) {
-                    final TagInfoDirectory offsetField = offsetFields[i];
-                    final TiffField field = directory.findField(offsetField);
-                    if (field != null) {
-                        final long subDirectoryOffset;
-                        final int subDirectoryType;
-                        boolean subDirectoryRead = false;
-                        try {
-                            subDirectoryOffset = directory.getFieldValue(offsetField);
-                            subDirectoryType = directoryTypes[i];
-                            subDirectoryRead = readDirectory(byteSource, subDirectoryOffset, subDirectoryType, formatCompliance, listener, true, visited);
-
-                        } catch (final ImagingException imageReadException) {
-                            if (strict) {
-                                throw imageReadException;
-                            }
-                        }
-                        if (!subDirectoryRead) {
-                            fields.remove(field);
+        if (!listener.addDirectory(directory)) {
+            return true;
+        }
+
+        if (listener.readOffsetDirectories()) {
+            final TagInfoDirectory[] offsetFields = { ExifTagConstants.EXIF_TAG_EXIF_OFFSET, ExifTagConstants.EXIF_TAG_GPSINFO,
+                    ExifTagConstants.EXIF_TAG_INTEROP_OFFSET };
+            final int[] directoryTypes = { TiffDirectoryConstants.DIRECTORY_TYPE_EXIF, TiffDirectoryConstants.DIRECTORY_TYPE_GPS,
+                    TiffDirectoryConstants.DIRECTORY_TYPE_INTEROPERABILITY };
+            for (int i = 0; i < offsetFields.length; i++) {
+                final TagInfoDirectory offsetField = offsetFields[i];
+                final TiffField field = directory.findField(offsetField);
+                if (field != null) {
+                    final long subDirectoryOffset;
+                    final int subDirectoryType;
+                    boolean subDirectoryRead = false;
+                    try {
+                        subDirectoryOffset = directory.getFieldValue(offsetField);
+                        subDirectoryType = directoryTypes[i];
+                        subDirectoryRead = readDirectory(byteSource, subDirectoryOffset, subDirectoryType, formatCompliance, listener, true, visited);
+
+                    } catch (final ImagingException imageReadException) {
+                        if (strict) {
+                            throw imageReadException;
                         }
                     }
+                    if (!subDirectoryRead) {
+                        fields.remove(field);
+                    }
                 }
             }
+        }
 
-            if (!ignoreNextDirectory && directory.getNextDirectoryOffset() > 0) {
-                // Debug.debug("next dir", directory.nextDirectoryOffset );
-                readDirectory(byteSource, directory.getNextDirectoryOffset(), dirType + 1, formatCompliance, listener, visited);
-            }
-
-            return true;
+        if (!ignoreNextDirectory && directory.getNextDirectoryOffset() > 0) {
+            // Debug.debug("next dir", directory.nextDirectoryOffset );
+            readDirectory(byteSource, directory.getNextDirectoryOffset(), dirType + 1, formatCompliance, listener, visited);
         }
+
+        return true;
     }
 
     private boolean readDirectory(final ByteSource byteSource, final long offset, final int dirType, final FormatCompliance formatCompliance,
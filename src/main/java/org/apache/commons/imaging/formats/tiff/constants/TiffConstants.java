@@ -48,7 +48,7 @@ public final class TiffConstants {
     public static final int ENTRY_MAX_VALUE_LENGTH = 4;
 
     /** TIFF big entry length. */
-    public static final int ENTRY_LENGTH_BIG = 12;
+    public static final int ENTRY_LENGTH_BIG = 20;
 
     /** TIFF big entry maximum value length. */
     public static final int ENTRY_MAX_VALUE_LENGTH_BIG = 8;
@@ -17,14 +17,15 @@
 package org.apache.commons.imaging.formats.tiff.datareaders;
 
 import java.awt.Rectangle;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Arrays;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.common.Allocator;
+import org.apache.commons.imaging.common.ConcurrentTasks;
 import org.apache.commons.imaging.common.ImageBuilder;
 import org.apache.commons.imaging.common.PackBits;
 import org.apache.commons.imaging.common.ZlibDeflate;
@@ -36,6 +37,7 @@ import org.apache.commons.imaging.formats.tiff.constants.TiffPlanarConfiguration
 import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
 import org.apache.commons.imaging.formats.tiff.itu_t4.T4AndT6Compression;
 import org.apache.commons.imaging.formats.tiff.photometricinterpreters.AbstractPhotometricInterpreter;
+import org.apache.commons.imaging.formats.tiff.photometricinterpreters.PhotometricInterpreterRgb;
 import org.apache.commons.imaging.mylzw.MyLzwDecompressor;
 
 /**
@@ -131,6 +133,23 @@ import org.apache.commons.imaging.mylzw.MyLzwDecompressor;
  */
 public abstract class AbstractImageDataReader {
 
+    /**
+     * Decodes one strip or tile. Implementations keep their own predictor state and write to a region of the output that no other strip or tile touches,
+     * so that blocks can be decoded concurrently.
+     */
+    @FunctionalInterface
+    interface BlockDecoder {
+
+        /**
+         * Decodes a strip or tile.
+         *
+         * @param block the index of the block within the range being decoded.
+         * @throws ImagingException if the image format is invalid.
+         * @throws IOException if an I/O error occurs.
+         */
+        void decode(int block) throws ImagingException, IOException;
+    }
+
     /** The TIFF directory containing the image data. */
     protected final TiffDirectory directory;
 
@@ -162,6 +181,8 @@ public abstract class AbstractImageDataReader {
     /** The planar configuration of the image. */
     protected final TiffPlanarConfiguration planarConfiguration;
 
+    private Executor executor;
+
     /**
      * Constructs a new image data reader.
      *
@@ -198,6 +219,17 @@ public abstract class AbstractImageDataReader {
      * @return the modified samples array.
      */
     protected int[] applyPredictor(final int[] samples) {
+        return applyPredictor(samples, last);
+    }
+
+    /**
+     * Applies the predictor to the samples using the given predictor state rather than the state of this instance.
+     *
+     * @param samples the samples array.
+     * @param last the samples of the previous pixel in the row, updated by this method.
+     * @return the modified samples array.
+     */
+    int[] applyPredictor(final int[] samples, final int[] last) {
         if (predictor == 2) {
             // Horizontal differencing.
             for (int i = 0; i < samples.length; i++) {
@@ -242,11 +274,7 @@ public abstract class AbstractImageDataReader {
      */
     protected byte[] decompress(final byte[] compressedInput, final int compression, final int expectedSize, final int tileWidth, final int tileHeight)
             throws ImagingException, IOException {
-        final TiffField fillOrderField = directory.findField(TiffTagConstants.TIFF_TAG_FILL_ORDER);
-        int fillOrder = TiffTagConstants.FILL_ORDER_VALUE_NORMAL;
-        if (fillOrderField != null) {
-            fillOrder = fillOrderField.getIntValue();
-        }
+        final int fillOrder = getFillOrder();
         final byte[] compressedOrdered; // re-ordered bytes (if necessary)
         if (fillOrder == TiffTagConstants.FILL_ORDER_VALUE_NORMAL) {
             compressedOrdered = compressedInput;
@@ -297,9 +325,8 @@ public abstract class AbstractImageDataReader {
             return T4AndT6Compression.decompressT6(compressedOrdered, tileWidth, tileHeight);
         }
         case TiffConstants.COMPRESSION_LZW: {
-            final InputStream is = new ByteArrayInputStream(compressedOrdered);
             final int lzwMinimumCodeSize = 8;
-            return new MyLzwDecompressor(lzwMinimumCodeSize, ByteOrder.BIG_ENDIAN, true).decompress(is, expectedSize);
+            return new MyLzwDecompressor(lzwMinimumCodeSize, ByteOrder.BIG_ENDIAN, true).decompress(compressedOrdered, expectedSize);
         }
 
         // Packbits
@@ -318,6 +345,33 @@ public abstract class AbstractImageDataReader {
         }
     }
 
+    /**
+     * Decodes a range of strips or tiles, concurrently if an executor has been set.
+     *
+     * @param blockCount the number of blocks.
+     * @param blockDecoder decodes the block with a given index.
+     * @throws ImagingException if the image format is invalid.
+     * @throws IOException if an I/O error occurs.
+     */
+    void forEachBlock(final int blockCount, final BlockDecoder blockDecoder) throws ImagingException, IOException {
+        ConcurrentTasks.forEachRange(executor, blockCount, (start, end) -> {
+            for (int block = start; block < end; block++) {
+                blockDecoder.decode(block);
+            }
+        }, "reading TIFF image data");
+    }
+
+    /**
+     * Gets the fill order of the image, the order of the bits in each byte of its strips or tiles.
+     *
+     * @return the fill order, normal if the directory does not give one.
+     * @throws ImagingException if the fill order cannot be read.
+     */
+    private int getFillOrder() throws ImagingException {
+        final TiffField fillOrderField = directory.findField(TiffTagConstants.TIFF_TAG_FILL_ORDER);
+        return fillOrderField == null ? TiffTagConstants.FILL_ORDER_VALUE_NORMAL : fillOrderField.getIntValue();
+    }
+
     /**
      * Reads samples and returns them in an int array.
      *
@@ -342,6 +396,214 @@ public abstract class AbstractImageDataReader {
         }
     }
 
+    /**
+     * Gets the chroma subsampling of YCbCr image data, except for JPEG compressed data, which subsamples on its own.
+     *
+     * @param compression the compression of the image data.
+     * @return the horizontal and vertical subsampling, or null if every pixel has its own chroma samples.
+     * @throws ImagingException if the subsampling is invalid or not supported.
+     */
+    int[] getYCbCrSubsampling(final int compression) throws ImagingException {
+        final TiffField photometricField = directory.findField(TiffTagConstants.TIFF_TAG_PHOTOMETRIC_INTERPRETATION);
+        if (photometricField == null || photometricField.getIntValue() != TiffTagConstants.PHOTOMETRIC_INTERPRETATION_VALUE_YCB_CR
+                || compression == TiffConstants.COMPRESSION_JPEG) {
+            return null;
+        }
+        // the TIFF 6.0 default is 2 by 2
+        int[] subsampling = { 2, 2 };
+        final TiffField subsamplingField = directory.findField(TiffTagConstants.TIFF_TAG_YCBCR_SUB_SAMPLING);
+        if (subsamplingField != null) {
+            subsampling = subsamplingField.getIntArrayValue();
+            if (subsampling.length != 2) {
+                throw new ImagingException("Tiff: YCbCrSubSampling has " + subsampling.length + " values instead of 2");
+            }
+        }
+        for (final int factor : subsampling) {
+            if (factor != 1 && factor != 2 && factor != 4) {
+                throw new ImagingException("Tiff: invalid YCbCrSubSampling factor " + factor);
+            }
+        }
+        if (subsampling[0] == 1 && subsampling[1] == 1) {
+            return null;
+        }
+        if (bitsPerSampleLength != 3 || !isHomogenous(8) || planarConfiguration == TiffPlanarConfiguration.PLANAR) {
+            throw new ImagingException("Tiff: subsampled YCbCr is only supported with 3 interleaved samples of 8 bits");
+        }
+        if (predictor == TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING) {
+            throw new ImagingException("Tiff: subsampled YCbCr is not supported with the horizontal differencing predictor");
+        }
+        return subsampling;
+    }
+
+    /**
+     * Gets the number of bytes of subsampled YCbCr data covering an area, in which every block of pixels sharing chroma samples has its luma samples
+     * followed by one Cb and one Cr sample.
+     *
+     * @param subsampling the horizontal and vertical subsampling.
+     * @param scanWidth   the width of the area, the width of the image for strips and of a tile for tiles.
+     * @param rows        the number of rows of the area.
+     * @return the number of bytes.
+     */
+    static long getYCbCrSubsampledSize(final int[] subsampling, final int scanWidth, final int rows) {
+        final long blocksAcross = (scanWidth + subsampling[0] - 1) / subsampling[0];
+        final long blocksDown = (rows + subsampling[1] - 1) / subsampling[1];
+        return blocksAcross * blocksDown * (subsampling[0] * subsampling[1] + 2);
+    }
+
+    /**
+     * Interprets subsampled YCbCr data, giving each pixel the chroma samples of its block, and stores the pixels in the image a row at a time.
+     *
+     * @param imageBuilder the image to store the pixels in.
+     * @param bytes        the samples, as blocks of pixels sharing chroma samples, left to right and top to bottom.
+     * @param subsampling  the horizontal and vertical subsampling.
+     * @param scanWidth    the width of the area covered by the data, the width of the image for strips and of a tile for tiles.
+     * @param x            the x coordinate of the first pixel of each row.
+     * @param y            the y coordinate of the first row.
+     * @param count        the number of pixels to store from each row.
+     * @param rows         the number of rows to store.
+     * @throws ImagingException if the data is too short.
+     * @throws IOException      if an I/O error occurs.
+     */
+    void interpretYCbCrBlocks(final ImageBuilder imageBuilder, final byte[] bytes, final int[] subsampling, final int scanWidth, final int x, final int y,
+            final int count, final int rows) throws ImagingException, IOException {
+        final int blockWidth = subsampling[0];
+        final int blockHeight = subsampling[1];
+        final int lumaPerBlock = blockWidth * blockHeight;
+        final int blockSize = lumaPerBlock + 2;
+        final int blocksAcross = (scanWidth + blockWidth - 1) / blockWidth;
+        if (bytes.length < getYCbCrSubsampledSize(subsampling, scanWidth, rows)) {
+            throw new ImagingException("Tiff: subsampled YCbCr data is too short");
+        }
+        final int[][] samples = new int[blockHeight][];
+        for (int i = 0; i < blockHeight; i++) {
+            samples[i] = Allocator.intArray(3 * count);
+        }
+        final int[] argb = Allocator.intArray(count);
+        for (int blockRow = 0; blockRow * blockHeight < rows; blockRow++) {
+            final int rowsInBlock = Math.min(blockHeight, rows - blockRow * blockHeight);
+            for (int block = 0; block * blockWidth < count; block++) {
+                final int start = (blockRow * blocksAcross + block) * blockSize;
+                final int cb = bytes[start + lumaPerBlock] & 0xff;
+                final int cr = bytes[start + lumaPerBlock + 1] & 0xff;
+                final int columnsInBlock = Math.min(blockWidth, count - block * blockWidth);
+                for (int i = 0; i < rowsInBlock; i++) {
+                    final int[] row = samples[i];
+                    for (int j = 0, k = 3 * block * blockWidth; j < columnsInBlock; j++, k += 3) {
+                        row[k] = bytes[start + i * blockWidth + j] & 0xff;
+                        row[k + 1] = cb;
+                        row[k + 2] = cr;
+                    }
+                }
+            }
+            for (int i = 0; i < rowsInBlock; i++) {
+                interpretRow(imageBuilder, samples[i], count, argb, x, y + blockRow * blockHeight + i);
+            }
+        }
+    }
+
+    /**
+     * Interprets rows of pixels with one byte samples and stores them in the image.
+     *
+     * @param imageBuilder the image to store the pixels in.
+     * @param bytes        the samples, row after row.
+     * @param scanSize     the number of pixels of each row in {@code bytes}.
+     * @param x            the x coordinate of the first pixel of each row.
+     * @param y            the y coordinate of the first row.
+     * @param count        the number of pixels to interpret from each row.
+     * @param rows         the number of rows.
+     * @throws ImagingException if the image format is invalid.
+     * @throws IOException      if an I/O error occurs.
+     */
+    void interpretByteRows(final ImageBuilder imageBuilder, final byte[] bytes, final int scanSize, final int x, final int y, final int count, final int rows)
+            throws ImagingException, IOException {
+        final int[] samples = Allocator.intArray(count * bitsPerSampleLength);
+        final int[] argb = Allocator.intArray(count);
+        for (int row = 0; row < rows; row++) {
+            final int start = row * scanSize * bitsPerSampleLength;
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = bytes[start + i] & 0xff;
+            }
+            interpretRow(imageBuilder, samples, count, argb, x, y + row);
+        }
+    }
+
+    /**
+     * Interprets rows of 8-bit RGB or RGBA samples read into a buffer, such as a view of a mapped file, and stores them in the image.
+     *
+     * @param imageBuilder the image to store the pixels in.
+     * @param buffer       the samples, starting at the position of the buffer, which is not changed.
+     * @param scanSize     the number of pixels from the start of one row to the start of the next.
+     * @param x            the x coordinate of the first pixel of each row.
+     * @param y            the y coordinate of the first row.
+     * @param count        the number of pixels to interpret from each row.
+     * @param rows         the number of rows.
+     * @throws ImagingException if the buffer holds fewer samples than the rows need.
+     */
+    void interpretRgbRows(final ImageBuilder imageBuilder, final ByteBuffer buffer, final int scanSize, final int x, final int y, final int count,
+            final int rows) throws ImagingException {
+        final int bytesPerPixel = bitsPerSampleLength;
+        if (rows > 0 && count > 0 && buffer.remaining() < ((long) (rows - 1) * scanSize + count) * bytesPerPixel) {
+            throw new ImagingException("TIFF strip or tile of " + buffer.remaining() + " bytes is too short for " + rows + " rows of " + count + " pixels");
+        }
+        final int start = buffer.position();
+        for (int row = 0; row < rows; row++) {
+            int k = start + row * scanSize * bytesPerPixel;
+            if (bytesPerPixel == 3) {
+                for (int i = 0; i < count; i++, k += 3) {
+                    imageBuilder.setRgb(x + i, y + row, 0xff000000 | (buffer.get(k) & 0xff) << 16 | (buffer.get(k + 1) & 0xff) << 8 | buffer.get(k + 2) & 0xff);
+                }
+            } else {
+                for (int i = 0; i < count; i++, k += 4) {
+                    imageBuilder.setRgb(x + i, y + row,
+                            (buffer.get(k) & 0xff) << 16 | (buffer.get(k + 1) & 0xff) << 8 | buffer.get(k + 2) & 0xff | buffer.get(k + 3) << 24);
+                }
+            }
+        }
+    }
+
+    /**
+     * Interprets a run of pixels of a row and stores them in the image, all together if the photometric interpreter supports that and one at a time with
+     * their positions otherwise.
+     *
+     * @param imageBuilder the image to store the pixels in.
+     * @param samples      the samples of the pixels, {@code bitsPerSampleLength} per pixel.
+     * @param count        the number of pixels.
+     * @param argb         the array to hold the ARGB values of the pixels, at least {@code count} long.
+     * @param x            the x coordinate of the first pixel.
+     * @param y            the y coordinate of the row.
+     * @throws ImagingException if the image format is invalid.
+     * @throws IOException      if an I/O error occurs.
+     */
+    void interpretRow(final ImageBuilder imageBuilder, final int[] samples, final int count, final int[] argb, final int x, final int y)
+            throws ImagingException, IOException {
+        if (photometricInterpreter.supportsRowInterpretation()) {
+            photometricInterpreter.interpretRow(samples, 0, count, argb, 0);
+            imageBuilder.setRgb(x, y, argb, 0, count);
+            return;
+        }
+        final int[] pixel = Allocator.intArray(bitsPerSampleLength);
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(samples, i * bitsPerSampleLength, pixel, 0, bitsPerSampleLength);
+            photometricInterpreter.interpretPixel(imageBuilder, pixel, x + i, y);
+        }
+    }
+
+    /**
+     * Tests whether the samples of uncompressed strips or tiles are interpreted where they are read, with {@link #interpretRgbRows}, rather than copied to an
+     * array first: 8-bit RGB or RGBA samples in their normal fill order, with no predictor to undo in place.
+     *
+     * @param compression the compression of the strips or tiles.
+     * @return true if the samples are interpreted where they are read.
+     * @throws ImagingException if the fill order cannot be read.
+     */
+    boolean isInterpretedInPlace(final int compression) throws ImagingException {
+        return compression == TiffConstants.COMPRESSION_UNCOMPRESSED && getFillOrder() == TiffTagConstants.FILL_ORDER_VALUE_NORMAL
+                && predictor != TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING
+                && sampleFormat != TiffTagConstants.SAMPLE_FORMAT_VALUE_IEEE_FLOATING_POINT && planarConfiguration != TiffPlanarConfiguration.PLANAR
+                && (bitsPerSampleLength == 3 || bitsPerSampleLength == 4) && isHomogenous(8)
+                && photometricInterpreter instanceof PhotometricInterpreterRgb;
+    }
+
     /**
      * Checks if all the bits per sample entries are the same size.
      *
@@ -388,6 +650,17 @@ public abstract class AbstractImageDataReader {
         Arrays.fill(last, 0);
     }
 
+    /**
+     * Sets the executor used to decompress and interpret strips or tiles concurrently. Each strip or tile is decoded with its own predictor state and
+     * written to its own region of the output, so the photometric interpreter must tolerate concurrent calls for distinct pixels.
+     *
+     * @param executor the executor, or null to decode on the calling thread.
+     * @since 1.0.0-alpha7
+     */
+    public void setExecutor(final Executor executor) {
+        this.executor = executor;
+    }
+
     /**
      * Transfer samples obtained from the TIFF file to a floating-point raster.
      *
@@ -22,6 +22,7 @@ import java.awt.Rectangle;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.ByteOrder;
+import java.util.Arrays;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.common.Allocator;
@@ -48,8 +49,6 @@ public final class DataReaderStrips extends AbstractImageDataReader {
     private final int rowsPerStrip;
     private final TiffPlanarConfiguration planarConfiguration;
     private final ByteOrder byteOrder;
-    private int x;
-    private int y;
     private final AbstractTiffImageData.Strips imageData;
 
     /**
@@ -84,8 +83,11 @@ public final class DataReaderStrips extends AbstractImageDataReader {
         this.byteOrder = byteOrder;
     }
 
-    private void interpretStrip(final ImageBuilder imageBuilder, final byte[] bytes, final int pixelsPerStrip, final int yLimit)
+    private void interpretStrip(final ImageBuilder imageBuilder, final byte[] bytes, final int pixelsPerStrip, final int yStrip, final int yLimit)
             throws ImagingException, IOException {
+        // strips hold whole rows, so each one starts at x = 0 and at the row after the previous strip
+        int x = 0;
+        int y = yStrip;
         if (y >= yLimit) {
             return;
         }
@@ -99,8 +101,6 @@ public final class DataReaderStrips extends AbstractImageDataReader {
             }
             final int i0 = y;
             final int i1 = y + nRows;
-            x = 0;
-            y += nRows;
             final int[] samples = new int[1];
             final int[] b = unpackFloatingPointSamples(width, i1 - i0, width, bytes, bitsPerPixel, byteOrder);
 
@@ -159,22 +159,11 @@ public final class DataReaderStrips extends AbstractImageDataReader {
         final boolean allSamplesAreOneByte = isHomogenous(8);
 
         if (predictor != 2 && bitsPerPixel == 8 && allSamplesAreOneByte) {
-            int k = 0;
             int nRows = pixelsPerStrip / width;
             if (y + nRows > yLimit) {
                 nRows = yLimit - y;
             }
-            final int i0 = y;
-            final int i1 = y + nRows;
-            x = 0;
-            y += nRows;
-            final int[] samples = new int[1];
-            for (int i = i0; i < i1; i++) {
-                for (int j = 0; j < width; j++) {
-                    samples[0] = bytes[k++] & 0xff;
-                    photometricInterpreter.interpretPixel(imageBuilder, samples, j, i);
-                }
-            }
+            interpretByteRows(imageBuilder, bytes, width, 0, y, width, nRows);
             return;
         }
         if ((bitsPerPixel == 24 || bitsPerPixel == 32) && allSamplesAreOneByte && photometricInterpreter instanceof PhotometricInterpreterRgb) {
@@ -185,8 +174,6 @@ public final class DataReaderStrips extends AbstractImageDataReader {
             }
             final int i0 = y;
             final int i1 = y + nRows;
-            x = 0;
-            y += nRows;
             if (predictor == TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING) {
                 applyPredictorToBlock(width, nRows, samplesPerPixel, bytes);
             }
@@ -213,6 +200,20 @@ public final class DataReaderStrips extends AbstractImageDataReader {
 
             return;
         }
+        if (allSamplesAreOneByte && photometricInterpreter.supportsRowInterpretation()) {
+            // the other interpreters of whole rows, such as CMYK and YCbCr, get the samples of a row at once
+            int nRows = pixelsPerStrip / width;
+            if (y + nRows > yLimit) {
+                nRows = yLimit - y;
+            }
+            if (bytes.length >= (long) nRows * width * samplesPerPixel) {
+                if (predictor == TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING) {
+                    applyPredictorToBlock(width, nRows, samplesPerPixel, bytes);
+                }
+                interpretByteRows(imageBuilder, bytes, width, 0, y, width, nRows);
+                return;
+            }
+        }
 
         // original code before May 2012 modification
         // this logic will handle all cases not conforming to the
@@ -220,20 +221,23 @@ public final class DataReaderStrips extends AbstractImageDataReader {
         try (BitInputStream bis = new BitInputStream(new ByteArrayInputStream(bytes), byteOrder)) {
 
             int[] samples = Allocator.intArray(bitsPerSampleLength);
-            resetPredictor();
+            final int[] last = Allocator.intArray(samplesPerPixel);
+            // the pixels of a row are interpreted together once the row is read
+            final int[] rowSamples = Allocator.intArray(width * bitsPerSampleLength);
+            final int[] argb = Allocator.intArray(width);
             for (int i = 0; i < pixelsPerStrip; i++) {
                 getSamplesAsBytes(bis, samples);
 
                 if (x < width) {
-                    samples = applyPredictor(samples);
-
-                    photometricInterpreter.interpretPixel(imageBuilder, samples, x, y);
+                    samples = applyPredictor(samples, last);
+                    System.arraycopy(samples, 0, rowSamples, x * bitsPerSampleLength, bitsPerSampleLength);
                 }
 
                 x++;
                 if (x >= width) {
+                    interpretRow(imageBuilder, rowSamples, width, argb, 0, y);
                     x = 0;
-                    resetPredictor();
+                    Arrays.fill(last, 0);
                     y++;
                     bis.flushCache();
                     if (y >= yLimit) {
@@ -283,6 +287,7 @@ public final class DataReaderStrips extends AbstractImageDataReader {
         // This approach avoids the need for the interpretStrips method
         // to implement bounds checking for a subimage.
         final ImageBuilder workingBuilder = new ImageBuilder(width, workingHeight, hasAlpha, isAlphaPreMultiplied);
+        final int[] subsampling = getYCbCrSubsampling(compression);
 
         // the following statement accounts for cases where planar configuration
         // is not specified and the default (CHUNKY) is assumed.
@@ -291,7 +296,10 @@ public final class DataReaderStrips extends AbstractImageDataReader {
             // Pixel definitions are organized in an interleaved format
             // For example, red-green-blue values for each pixel
             // would appear contiguous in input sequence.
-            for (int strip = strip0; strip <= strip1; strip++) {
+            // Strips cover disjoint rows of the working image, so they may be decoded concurrently.
+            final boolean inPlace = isInterpretedInPlace(compression);
+            forEachBlock(strip1 - strip0 + 1, block -> {
+                final int strip = strip0 + block;
                 final long rowsPerStripLong = 0xFFFFffffL & rowsPerStrip;
                 final long rowsRemaining = height - strip * rowsPerStripLong;
                 final long rowsInThisStrip = Math.min(rowsRemaining, rowsPerStripLong);
@@ -299,19 +307,34 @@ public final class DataReaderStrips extends AbstractImageDataReader {
                 final long bytesPerStrip = rowsInThisStrip * bytesPerRow;
                 final long pixelsPerStrip = rowsInThisStrip * width;
 
-                final byte[] compressed = imageData.getImageData(strip).getData();
+                if (inPlace) {
+                    // uncompressed samples are interpreted where they are read, so a strip of a mapped file is not copied
+                    final int yStrip = block * rowsPerStrip;
+                    interpretRgbRows(workingBuilder, imageData.getImageData(strip).readBuffer(), width, 0, yStrip, width,
+                            Math.min((int) rowsInThisStrip, yLimit - yStrip));
+                    return;
+                }
+                final byte[] compressed = imageData.getImageData(strip).readData();
 
                 if (compression == COMPRESSION_JPEG) {
                     final int yBlock = strip * rowsPerStrip;
                     final int yWork = yBlock - y0;
                     DataInterpreterJpeg.intepretBlock(directory, workingBuilder, 0, yWork, width, (int) rowsInThisStrip, compressed);
-                    continue;
+                    return;
+                }
+                if (subsampling != null) {
+                    // blocks of pixels share their chroma samples, so the strip is smaller than its pixels times 3 bytes
+                    final long subsampledBytesPerStrip = getYCbCrSubsampledSize(subsampling, width, (int) rowsInThisStrip);
+                    final byte[] decompressed = decompress(compressed, compression, (int) subsampledBytesPerStrip, width, (int) rowsInThisStrip);
+                    final int yStrip = block * rowsPerStrip;
+                    interpretYCbCrBlocks(workingBuilder, decompressed, subsampling, width, 0, yStrip, width, Math.min((int) rowsInThisStrip, yLimit - yStrip));
+                    return;
                 }
 
                 final byte[] decompressed = decompress(compressed, compression, (int) bytesPerStrip, width, (int) rowsInThisStrip);
 
-                interpretStrip(workingBuilder, decompressed, (int) pixelsPerStrip, yLimit);
-            }
+                interpretStrip(workingBuilder, decompressed, (int) pixelsPerStrip, block * rowsPerStrip, yLimit);
+            });
         } else {
             // pixel definitions are organized in a 3 separate sections of input
             // sequence. For example, red-green-blue values would be given as
@@ -321,7 +344,8 @@ public final class DataReaderStrips extends AbstractImageDataReader {
                 throw new ImagingException("TIFF file in non-supported configuration: JPEG compression used in planar configuration.");
             }
             final int nStripsInPlane = imageData.getImageDataLength() / 3;
-            for (int strip = strip0; strip <= strip1; strip++) {
+            forEachBlock(strip1 - strip0 + 1, block -> {
+                final int strip = strip0 + block;
                 final long rowsPerStripLong = 0xFFFFffffL & rowsPerStrip;
                 final long rowsRemaining = height - strip * rowsPerStripLong;
                 final long rowsInThisStrip = Math.min(rowsRemaining, rowsPerStripLong);
@@ -332,7 +356,7 @@ public final class DataReaderStrips extends AbstractImageDataReader {
                 final byte[] b = Allocator.byteArray((int) bytesPerStrip);
                 for (int iPlane = 0; iPlane < 3; iPlane++) {
                     final int planeStrip = iPlane * nStripsInPlane + strip;
-                    final byte[] compressed = imageData.getImageData(planeStrip).getData();
+                    final byte[] compressed = imageData.getImageData(planeStrip).readData();
                     final byte[] decompressed = decompress(compressed, compression, (int) bytesPerStrip, width, (int) rowsInThisStrip);
                     int index = iPlane;
                     for (final byte element : decompressed) {
@@ -340,8 +364,8 @@ public final class DataReaderStrips extends AbstractImageDataReader {
                         index += 3;
                     }
                 }
-                interpretStrip(workingBuilder, b, (int) pixelsPerStrip, height);
-            }
+                interpretStrip(workingBuilder, b, (int) pixelsPerStrip, block * rowsPerStrip, height);
+            });
         }
 
         if (subImage.x == 0 && subImage.y == y0 && subImage.width == width && subImage.height == workingHeight) {
@@ -393,19 +417,20 @@ public final class DataReaderStrips extends AbstractImageDataReader {
         final int strip0 = yRaster / rowsPerStrip;
         final int strip1 = (yRaster + rasterHeight - 1) / rowsPerStrip;
 
-        for (int strip = strip0; strip <= strip1; strip++) {
+        forEachBlock(strip1 - strip0 + 1, block -> {
+            final int strip = strip0 + block;
             final int yStrip = strip * rowsPerStrip;
             final int rowsRemaining = height - yStrip;
             final int rowsInThisStrip = Math.min(rowsRemaining, rowsPerStrip);
             final int bytesPerRow = (bitsPerPixel * width + 7) / 8;
             final int bytesPerStrip = rowsInThisStrip * bytesPerRow;
 
-            final byte[] compressed = imageData.getImageData(strip).getData();
+            final byte[] compressed = imageData.getImageData(strip).readData();
             final byte[] decompressed = decompress(compressed, compression, bytesPerStrip, width, rowsInThisStrip);
 
             final int[] blockData = unpackFloatingPointSamples(width, rowsInThisStrip, width, decompressed, bitsPerPixel, byteOrder);
             transferBlockToRaster(0, yStrip, width, rowsInThisStrip, blockData, xRaster, yRaster, rasterWidth, rasterHeight, samplesPerPixel, rasterDataFloat);
-        }
+        });
         return new TiffRasterDataFloat(rasterWidth, rasterHeight, samplesPerPixel, rasterDataFloat);
     }
 
@@ -438,18 +463,19 @@ public final class DataReaderStrips extends AbstractImageDataReader {
         final int strip0 = yRaster / rowsPerStrip;
         final int strip1 = (yRaster + rasterHeight - 1) / rowsPerStrip;
 
-        for (int strip = strip0; strip <= strip1; strip++) {
+        forEachBlock(strip1 - strip0 + 1, block -> {
+            final int strip = strip0 + block;
             final int yStrip = strip * rowsPerStrip;
             final int rowsRemaining = height - yStrip;
             final int rowsInThisStrip = Math.min(rowsRemaining, rowsPerStrip);
             final int bytesPerRow = (bitsPerPixel * width + 7) / 8;
             final int bytesPerStrip = rowsInThisStrip * bytesPerRow;
 
-            final byte[] compressed = imageData.getImageData(strip).getData();
+            final byte[] compressed = imageData.getImageData(strip).readData();
             final byte[] decompressed = decompress(compressed, compression, bytesPerStrip, width, rowsInThisStrip);
             final int[] blockData = unpackIntSamples(width, rowsInThisStrip, width, decompressed, predictor, bitsPerPixel, byteOrder);
             transferBlockToRaster(0, yStrip, width, rowsInThisStrip, blockData, xRaster, yRaster, rasterWidth, rasterHeight, rasterDataInt);
-        }
+        });
         return new TiffRasterDataInt(rasterWidth, rasterHeight, rasterDataInt);
     }
 }
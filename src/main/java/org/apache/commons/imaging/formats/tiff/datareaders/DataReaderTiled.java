@@ -28,6 +28,7 @@ import java.awt.Rectangle;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.ByteOrder;
+import java.util.Arrays;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.common.Allocator;
@@ -178,6 +179,18 @@ public final class DataReaderTiled extends AbstractImageDataReader {
 
             return;
         }
+        if (allSamplesAreOneByte && photometricInterpreter.supportsRowInterpretation() && bytes.length >= tileWidth * tileLength * samplesPerPixel) {
+            // the other interpreters of whole rows, such as CMYK and YCbCr, get the samples of a row at once
+            final int rows = Math.min(tileLength, yLimit - startY);
+            final int count = Math.min(tileWidth, xLimit - startX);
+            if (rows > 0 && count > 0) {
+                if (predictor == TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING) {
+                    applyPredictorToBlock(tileWidth, rows, samplesPerPixel, bytes);
+                }
+                interpretByteRows(imageBuilder, bytes, tileWidth, startX, startY, count, rows);
+            }
+            return;
+        }
 
         // End of May 2012 changes
         try (BitInputStream bis = new BitInputStream(new ByteArrayInputStream(bytes), byteOrder)) {
@@ -188,7 +201,11 @@ public final class DataReaderTiled extends AbstractImageDataReader {
             int tileY = 0;
 
             int[] samples = Allocator.intArray(bitsPerSampleLength);
-            resetPredictor();
+            final int[] last = Allocator.intArray(samplesPerPixel);
+            // the pixels of a row within the image are interpreted together once the row is read
+            final int count = Math.max(0, Math.min(tileWidth, xLimit - startX));
+            final int[] rowSamples = Allocator.intArray(count * bitsPerSampleLength);
+            final int[] argb = Allocator.intArray(count);
             for (int i = 0; i < pixelsPerTile; i++) {
 
                 final int x = tileX + startX;
@@ -197,15 +214,18 @@ public final class DataReaderTiled extends AbstractImageDataReader {
                 getSamplesAsBytes(bis, samples);
 
                 if (x < xLimit && y < yLimit) {
-                    samples = applyPredictor(samples);
-                    photometricInterpreter.interpretPixel(imageBuilder, samples, x, y);
+                    samples = applyPredictor(samples, last);
+                    System.arraycopy(samples, 0, rowSamples, tileX * bitsPerSampleLength, bitsPerSampleLength);
                 }
 
                 tileX++;
 
                 if (tileX >= tileWidth) {
+                    if (y < yLimit && count > 0) {
+                        interpretRow(imageBuilder, rowSamples, count, argb, startX, y);
+                    }
                     tileX = 0;
-                    resetPredictor();
+                    Arrays.fill(last, 0);
                     tileY++;
                     bis.flushCache();
                     if (tileY >= tileLength) {
@@ -257,27 +277,46 @@ public final class DataReaderTiled extends AbstractImageDataReader {
         // at the end of this method. This approach avoids the need for the
         // interpretTile method to implement bounds checking for a subimage.
         final ImageBuilder workingBuilder = new ImageBuilder(workingWidth, workingHeight, hasAlpha, isAlphaPreMultiplied);
-
-        for (int iRow = row0; iRow <= row1; iRow++) {
-            for (int iCol = col0; iCol <= col1; iCol++) {
-                final int tile = iRow * nColumnsOfTiles + iCol;
-                final byte[] compressed = imageData.tiles[tile].getData();
-                final int x = iCol * tileWidth - x0;
-                final int y = iRow * tileLength - y0;
-                // Handle JPEG based compression
-                if (compression == COMPRESSION_JPEG) {
-                    if (planarConfiguration == TiffPlanarConfiguration.PLANAR) {
-                        throw new ImagingException("TIFF file in non-supported configuration: JPEG compression used in planar configuration.");
-                    }
-                    DataInterpreterJpeg.intepretBlock(directory, workingBuilder, x, y, tileWidth, tileLength, compressed);
-                    continue;
+        final int[] subsampling = getYCbCrSubsampling(compression);
+
+        // tiles cover disjoint regions of the working image, so they may be decoded concurrently
+        final boolean inPlace = isInterpretedInPlace(compression);
+        forEachBlock(nRow * nCol, block -> {
+            final int iRow = row0 + block / nCol;
+            final int iCol = col0 + block % nCol;
+            final int tile = iRow * nColumnsOfTiles + iCol;
+            final int x = iCol * tileWidth - x0;
+            final int y = iRow * tileLength - y0;
+            if (inPlace) {
+                // uncompressed samples are interpreted where they are read, so a tile of a mapped file is not copied
+                final int count = Math.min(tileWidth, width - x0 - x);
+                final int rows = Math.min(tileLength, height - y0 - y);
+                interpretRgbRows(workingBuilder, imageData.tiles[tile].readBuffer(), tileWidth, x, y, count, rows);
+                return;
+            }
+            final byte[] compressed = imageData.tiles[tile].readData();
+            // Handle JPEG based compression
+            if (compression == COMPRESSION_JPEG) {
+                if (planarConfiguration == TiffPlanarConfiguration.PLANAR) {
+                    throw new ImagingException("TIFF file in non-supported configuration: JPEG compression used in planar configuration.");
                 }
+                DataInterpreterJpeg.intepretBlock(directory, workingBuilder, x, y, tileWidth, tileLength, compressed);
+                return;
+            }
+            if (subsampling != null) {
+                // blocks of pixels share their chroma samples, so the tile is smaller than its pixels times 3 bytes
+                final long subsampledBytesPerTile = getYCbCrSubsampledSize(subsampling, tileWidth, tileLength);
+                final byte[] decompressed = decompress(compressed, compression, (int) subsampledBytesPerTile, tileWidth, tileLength);
+                final int count = Math.min(tileWidth, width - x0 - x);
+                final int rows = Math.min(tileLength, height - y0 - y);
+                interpretYCbCrBlocks(workingBuilder, decompressed, subsampling, tileWidth, x, y, count, rows);
+                return;
+            }
 
-                final byte[] decompressed = decompress(compressed, compression, bytesPerTile, tileWidth, tileLength);
+            final byte[] decompressed = decompress(compressed, compression, bytesPerTile, tileWidth, tileLength);
 
-                interpretTile(workingBuilder, decompressed, x, y, width, height);
-            }
-        }
+            interpretTile(workingBuilder, decompressed, x, y, width, height);
+        });
 
         if (subImage.x == x0 && subImage.y == y0 && subImage.width == workingWidth && subImage.height == workingHeight) {
             return workingBuilder;
@@ -327,19 +366,20 @@ public final class DataReaderTiled extends AbstractImageDataReader {
         final int row1 = (yRaster + rasterHeight - 1) / tileLength;
 
         final int nColumnsOfTiles = (width + tileWidth - 1) / tileWidth;
+        final int nCol = col1 - col0 + 1;
 
-        for (int iRow = row0; iRow <= row1; iRow++) {
-            for (int iCol = col0; iCol <= col1; iCol++) {
-                final int tile = iRow * nColumnsOfTiles + iCol;
-                final byte[] compressed = imageData.tiles[tile].getData();
-                final byte[] decompressed = decompress(compressed, compression, bytesPerTile, tileWidth, tileLength);
-                final int x = iCol * tileWidth;
-                final int y = iRow * tileLength;
+        forEachBlock((row1 - row0 + 1) * nCol, block -> {
+            final int iRow = row0 + block / nCol;
+            final int iCol = col0 + block % nCol;
+            final int tile = iRow * nColumnsOfTiles + iCol;
+            final byte[] compressed = imageData.tiles[tile].readData();
+            final byte[] decompressed = decompress(compressed, compression, bytesPerTile, tileWidth, tileLength);
+            final int x = iCol * tileWidth;
+            final int y = iRow * tileLength;
 
-                final int[] blockData = unpackFloatingPointSamples(tileWidth, tileLength, tileWidth, decompressed, bitsPerPixel, byteOrder);
-                transferBlockToRaster(x, y, tileWidth, tileLength, blockData, xRaster, yRaster, rasterWidth, rasterHeight, samplesPerPixel, rasterDataFloat);
-            }
-        }
+            final int[] blockData = unpackFloatingPointSamples(tileWidth, tileLength, tileWidth, decompressed, bitsPerPixel, byteOrder);
+            transferBlockToRaster(x, y, tileWidth, tileLength, blockData, xRaster, yRaster, rasterWidth, rasterHeight, samplesPerPixel, rasterDataFloat);
+        });
 
         return new TiffRasterDataFloat(rasterWidth, rasterHeight, samplesPerPixel, rasterDataFloat);
     }
@@ -373,18 +413,19 @@ public final class DataReaderTiled extends AbstractImageDataReader {
         final int row1 = (yRaster + rasterHeight - 1) / tileLength;
 
         final int nColumnsOfTiles = (width + tileWidth - 1) / tileWidth;
+        final int nCol = col1 - col0 + 1;
 
-        for (int iRow = row0; iRow <= row1; iRow++) {
-            for (int iCol = col0; iCol <= col1; iCol++) {
-                final int tile = iRow * nColumnsOfTiles + iCol;
-                final byte[] compressed = imageData.tiles[tile].getData();
-                final byte[] decompressed = decompress(compressed, compression, bytesPerTile, tileWidth, tileLength);
-                final int x = iCol * tileWidth;
-                final int y = iRow * tileLength;
-                final int[] blockData = unpackIntSamples(tileWidth, tileLength, tileWidth, decompressed, predictor, bitsPerPixel, byteOrder);
-                transferBlockToRaster(x, y, tileWidth, tileLength, blockData, xRaster, yRaster, rasterWidth, rasterHeight, rasterDataInt);
-            }
-        }
+        forEachBlock((row1 - row0 + 1) * nCol, block -> {
+            final int iRow = row0 + block / nCol;
+            final int iCol = col0 + block % nCol;
+            final int tile = iRow * nColumnsOfTiles + iCol;
+            final byte[] compressed = imageData.tiles[tile].readData();
+            final byte[] decompressed = decompress(compressed, compression, bytesPerTile, tileWidth, tileLength);
+            final int x = iCol * tileWidth;
+            final int y = iRow * tileLength;
+            final int[] blockData = unpackIntSamples(tileWidth, tileLength, tileWidth, decompressed, predictor, bitsPerPixel, byteOrder);
+            transferBlockToRaster(x, y, tileWidth, tileLength, blockData, xRaster, yRaster, rasterWidth, rasterHeight, rasterDataInt);
+        });
         return new TiffRasterDataInt(rasterWidth, rasterHeight, rasterDataInt);
     }
 }
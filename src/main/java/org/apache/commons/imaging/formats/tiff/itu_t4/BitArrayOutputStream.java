@@ -22,13 +22,14 @@ import java.util.Arrays;
 import org.apache.commons.imaging.common.Allocator;
 
 /**
- * Output stream writing to a byte array, and capable of writing 1 bit at a time, starting from the most significant bit.
+ * Output stream writing to a byte array, and capable of writing up to 24 bits at a time, starting from the most significant bit.
  */
 final class BitArrayOutputStream extends OutputStream {
     private byte[] buffer;
     private int bytesWritten;
+    // the bits written to the current byte so far, in the low bits
     private int cache;
-    private int cacheMask = 0x80;
+    private int cacheBitCount;
 
     BitArrayOutputStream() {
         buffer = new byte[16];
@@ -45,19 +46,15 @@ final class BitArrayOutputStream extends OutputStream {
 
     @Override
     public void flush() {
-        if (cacheMask != 0x80) {
-            writeByte(cache);
+        if (cacheBitCount > 0) {
+            writeByte(cache << 8 - cacheBitCount);
             cache = 0;
-            cacheMask = 0x80;
+            cacheBitCount = 0;
         }
     }
 
     public int getBitsAvailableInCurrentByte() {
-        int count = 0;
-        for (int mask = cacheMask; mask != 0; mask >>>= 1) {
-            ++count;
-        }
-        return count;
+        return 8 - cacheBitCount;
     }
 
     public int size() {
@@ -79,13 +76,23 @@ final class BitArrayOutputStream extends OutputStream {
     }
 
     public void writeBit(final int bit) {
-        if (bit != 0) {
-            cache |= cacheMask;
-        }
-        cacheMask >>>= 1;
-        if (cacheMask == 0) {
-            flush();
+        writeBits(bit, 1);
+    }
+
+    /**
+     * Writes the low bits of a value, most significant bit first.
+     *
+     * @param bits  the bits.
+     * @param count the number of bits, from 0 to 24.
+     */
+    public void writeBits(final int bits, final int count) {
+        cache = cache << count | bits & (1 << count) - 1;
+        cacheBitCount += count;
+        while (cacheBitCount >= 8) {
+            cacheBitCount -= 8;
+            writeByte(cache >>> cacheBitCount);
         }
+        cache &= (1 << cacheBitCount) - 1;
     }
 
     private void writeByte(final int b) {
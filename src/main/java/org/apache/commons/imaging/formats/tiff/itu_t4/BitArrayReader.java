@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff.itu_t4;
+
+import org.apache.commons.imaging.ImagingException;
+
+/**
+ * Reads bits from a byte array in most significant bit first order, and can look ahead at the next bits without consuming them, so that codes can be
+ * decoded with a table lookup.
+ */
+final class BitArrayReader {
+
+    private final byte[] data;
+    private final long bitLength;
+    private long position;
+
+    BitArrayReader(final byte[] data) {
+        this.data = data;
+        this.bitLength = 8L * data.length;
+    }
+
+    /**
+     * Skips to the start of the next byte, unless already at the start of a byte.
+     */
+    public void alignToByte() {
+        position = position + 7 & ~7L;
+    }
+
+    /**
+     * Gets the next bits without consuming them. Bits past the end of the data read as 0.
+     *
+     * @param count the number of bits, from 1 to 25.
+     * @return the bits, in the low bits of the result.
+     */
+    public int peekBits(final int count) {
+        final int index = (int) (position >>> 3);
+        int bits;
+        if (index + 3 < data.length) {
+            bits = (0xff & data[index]) << 24 | (0xff & data[index + 1]) << 16 | (0xff & data[index + 2]) << 8 | 0xff & data[index + 3];
+        } else {
+            bits = 0;
+            for (int i = 0; i < 4; i++) {
+                bits <<= 8;
+                if (index + i < data.length) {
+                    bits |= 0xff & data[index + i];
+                }
+            }
+        }
+        return bits << (int) (position & 7) >>> 32 - count;
+    }
+
+    /**
+     * Reads the next bits.
+     *
+     * @param count the number of bits, from 1 to 25.
+     * @return the bits, in the low bits of the result.
+     * @throws ImagingException if there are fewer bits left.
+     */
+    public int readBits(final int count) throws ImagingException {
+        final int bits = peekBits(count);
+        skipBits(count);
+        return bits;
+    }
+
+    /**
+     * Consumes bits.
+     *
+     * @param count the number of bits.
+     * @throws ImagingException if there are fewer bits left.
+     */
+    public void skipBits(final int count) throws ImagingException {
+        position += count;
+        if (position > bitLength) {
+            throw new ImagingException("Couldn't read bits");
+        }
+    }
+}
@@ -16,8 +16,7 @@
  */
 package org.apache.commons.imaging.formats.tiff.itu_t4;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
+import java.util.Arrays;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.common.Allocator;
@@ -25,90 +24,123 @@ import org.apache.commons.imaging.formats.tiff.itu_t4.T4_T6_Tables.Entry;
 
 /**
  * T4 and T6 compression implementation for TIFF.
+ * <p>
+ * Codes are decoded with a single lookup of the next bits in a table indexed by every bit pattern as long as the longest code, and rows are kept as the
+ * positions of their changing elements, so that runs are written to the output with bulk fills and found in the input a byte at a time.
+ * </p>
  */
 public final class T4AndT6Compression {
 
-    private static final HuffmanTree<Integer> WHITE_RUN_LENGTHS = new HuffmanTree<>();
-    private static final HuffmanTree<Integer> BLACK_RUN_LENGTHS = new HuffmanTree<>();
-    private static final HuffmanTree<Entry> CONTROL_CODES = new HuffmanTree<>();
-
     /** White color constant. */
     public static final int WHITE = 0;
 
     /** Black color constant. */
     public static final int BLACK = 1;
 
+    // the longest white and black run length codes, and the longest mode code
+    private static final int WHITE_CODE_BITS = 12;
+    private static final int BLACK_CODE_BITS = 13;
+    private static final int MODE_CODE_BITS = 7;
+    // the longest EOL, with 7 fill bits
+    private static final int EOL_BITS = 19;
+
+    // lookup tables entries are the run length or mode shifted left by 4, or'ed with the code length, and 0 for invalid codes
+    private static final int[] WHITE_RUN_LENGTHS = new int[1 << WHITE_CODE_BITS];
+    private static final int[] BLACK_RUN_LENGTHS = new int[1 << BLACK_CODE_BITS];
+    private static final int[] MODES = new int[1 << MODE_CODE_BITS];
+
+    // modes other than the vertical modes, which are a1 - b1 + 3
+    private static final int PASS_MODE = 7;
+    private static final int HORIZONTAL_MODE = 8;
+
+    // changing elements past the last one in a row, which are all at the width of the row
+    private static final int SENTINELS = 3;
+
     static {
-        try {
-            for (final Entry entry : T4_T6_Tables.WHITE_TERMINATING_CODES) {
-                WHITE_RUN_LENGTHS.insert(entry.bitString, entry.value);
-            }
-            for (final Entry entry : T4_T6_Tables.WHITE_MAKE_UP_CODES) {
-                WHITE_RUN_LENGTHS.insert(entry.bitString, entry.value);
-            }
-            for (final Entry entry : T4_T6_Tables.BLACK_TERMINATING_CODES) {
-                BLACK_RUN_LENGTHS.insert(entry.bitString, entry.value);
-            }
-            for (final Entry entry : T4_T6_Tables.BLACK_MAKE_UP_CODES) {
-                BLACK_RUN_LENGTHS.insert(entry.bitString, entry.value);
-            }
-            for (final Entry entry : T4_T6_Tables.ADDITIONAL_MAKE_UP_CODES) {
-                WHITE_RUN_LENGTHS.insert(entry.bitString, entry.value);
-                BLACK_RUN_LENGTHS.insert(entry.bitString, entry.value);
-            }
-            CONTROL_CODES.insert(T4_T6_Tables.EOL.bitString, T4_T6_Tables.EOL);
-            CONTROL_CODES.insert(T4_T6_Tables.EOL13.bitString, T4_T6_Tables.EOL13);
-            CONTROL_CODES.insert(T4_T6_Tables.EOL14.bitString, T4_T6_Tables.EOL14);
-            CONTROL_CODES.insert(T4_T6_Tables.EOL15.bitString, T4_T6_Tables.EOL15);
-            CONTROL_CODES.insert(T4_T6_Tables.EOL16.bitString, T4_T6_Tables.EOL16);
-            CONTROL_CODES.insert(T4_T6_Tables.EOL17.bitString, T4_T6_Tables.EOL17);
-            CONTROL_CODES.insert(T4_T6_Tables.EOL18.bitString, T4_T6_Tables.EOL18);
-            CONTROL_CODES.insert(T4_T6_Tables.EOL19.bitString, T4_T6_Tables.EOL19);
-            CONTROL_CODES.insert(T4_T6_Tables.P.bitString, T4_T6_Tables.P);
-            CONTROL_CODES.insert(T4_T6_Tables.H.bitString, T4_T6_Tables.H);
-            CONTROL_CODES.insert(T4_T6_Tables.V0.bitString, T4_T6_Tables.V0);
-            CONTROL_CODES.insert(T4_T6_Tables.VL1.bitString, T4_T6_Tables.VL1);
-            CONTROL_CODES.insert(T4_T6_Tables.VL2.bitString, T4_T6_Tables.VL2);
-            CONTROL_CODES.insert(T4_T6_Tables.VL3.bitString, T4_T6_Tables.VL3);
-            CONTROL_CODES.insert(T4_T6_Tables.VR1.bitString, T4_T6_Tables.VR1);
-            CONTROL_CODES.insert(T4_T6_Tables.VR2.bitString, T4_T6_Tables.VR2);
-            CONTROL_CODES.insert(T4_T6_Tables.VR3.bitString, T4_T6_Tables.VR3);
-        } catch (final ImagingException cannotHappen) {
-            throw new IllegalStateException(cannotHappen);
+        for (final Entry entry : T4_T6_Tables.WHITE_TERMINATING_CODES) {
+            insert(WHITE_RUN_LENGTHS, WHITE_CODE_BITS, entry, entry.value);
+        }
+        for (final Entry entry : T4_T6_Tables.WHITE_MAKE_UP_CODES) {
+            insert(WHITE_RUN_LENGTHS, WHITE_CODE_BITS, entry, entry.value);
+        }
+        for (final Entry entry : T4_T6_Tables.BLACK_TERMINATING_CODES) {
+            insert(BLACK_RUN_LENGTHS, BLACK_CODE_BITS, entry, entry.value);
+        }
+        for (final Entry entry : T4_T6_Tables.BLACK_MAKE_UP_CODES) {
+            insert(BLACK_RUN_LENGTHS, BLACK_CODE_BITS, entry, entry.value);
+        }
+        for (final Entry entry : T4_T6_Tables.ADDITIONAL_MAKE_UP_CODES) {
+            insert(WHITE_RUN_LENGTHS, WHITE_CODE_BITS, entry, entry.value);
+            insert(BLACK_RUN_LENGTHS, BLACK_CODE_BITS, entry, entry.value);
+        }
+        insert(MODES, MODE_CODE_BITS, T4_T6_Tables.P, PASS_MODE);
+        insert(MODES, MODE_CODE_BITS, T4_T6_Tables.H, HORIZONTAL_MODE);
+        insert(MODES, MODE_CODE_BITS, T4_T6_Tables.VL3, 0);
+        insert(MODES, MODE_CODE_BITS, T4_T6_Tables.VL2, 1);
+        insert(MODES, MODE_CODE_BITS, T4_T6_Tables.VL1, 2);
+        insert(MODES, MODE_CODE_BITS, T4_T6_Tables.V0, 3);
+        insert(MODES, MODE_CODE_BITS, T4_T6_Tables.VR1, 4);
+        insert(MODES, MODE_CODE_BITS, T4_T6_Tables.VR2, 5);
+        insert(MODES, MODE_CODE_BITS, T4_T6_Tables.VR3, 6);
+    }
+
+    /**
+     * Appends a changing element to a row, or removes the last one if it is at the same position, as two changes of color there cancel out.
+     *
+     * @return the new number of changing elements.
+     */
+    private static int addChange(final int[] changes, final int count, final int position) {
+        if (count > 0 && changes[count - 1] == position) {
+            return count - 1;
         }
+        changes[count] = position;
+        return count + 1;
     }
 
-    private static int changingElementAt(final int[] line, final int position) {
-        if (position < 0 || position >= line.length) {
-            return WHITE;
+    private static void checkLength(final byte[] uncompressed, final int width, final int height) throws ImagingException {
+        if (uncompressed.length < (long) rowBytes(width) * height) {
+            throw new ImagingException("Error reading image to compress");
         }
-        return line[position];
     }
 
-    private static void compress1DLine(final BitInputStreamFlexible inputStream, final BitArrayOutputStream outputStream, final int[] referenceLine,
-            final int width) throws ImagingException {
+    private static void compress1DLine(final BitArrayOutputStream outputStream, final int[] changes, final int count, final int width) {
         int color = WHITE;
-        int runLength = 0;
+        int a0 = 0;
+        for (int i = 0; i < count; i++) {
+            writeRunLength(outputStream, changes[i] - a0, color);
+            a0 = changes[i];
+            color = 1 - color;
+        }
+        writeRunLength(outputStream, width - a0, color);
+    }
 
-        for (int x = 0; x < width; x++) {
-            try {
-                final int nextColor = inputStream.readBits(1);
-                if (referenceLine != null) {
-                    referenceLine[x] = nextColor;
-                }
-                if (color == nextColor) {
-                    ++runLength;
-                } else {
-                    writeRunLength(outputStream, runLength, color);
-                    color = nextColor;
-                    runLength = 1;
-                }
-            } catch (final IOException ioException) {
-                throw new ImagingException("Error reading image to compress", ioException);
+    private static void compress2DLine(final BitArrayOutputStream outputStream, final int[] codingChanges, final int[] referenceChanges, final int width) {
+        int codingA0Color = WHITE;
+        int a1Index = 0;
+        int b1Index = 0;
+        // a0 starts on an imaginary white element before the row, so b1 can be the first element
+        for (int a0 = 0, from = 0; a0 < width; from = a0 + 1) {
+            b1Index = findB1(referenceChanges, b1Index, from, codingA0Color);
+            final int a1 = codingChanges[a1Index];
+            final int b1 = referenceChanges[b1Index];
+            final int b2 = referenceChanges[b1Index + 1];
+            if (b2 < a1) {
+                T4_T6_Tables.P.writeBits(outputStream);
+                a0 = b2;
+            } else if (a1 - b1 >= -3 && a1 - b1 <= 3) {
+                writeVerticalMode(outputStream, a1 - b1);
+                a0 = a1;
+                a1Index++;
+                codingA0Color = 1 - codingA0Color;
+            } else {
+                final int a2 = codingChanges[a1Index + 1];
+                T4_T6_Tables.H.writeBits(outputStream);
+                writeRunLength(outputStream, a1 - a0, codingA0Color);
+                writeRunLength(outputStream, a2 - a1, 1 - codingA0Color);
+                a0 = a2;
+                a1Index += 2;
             }
         }
-
-        writeRunLength(outputStream, runLength, color);
     }
 
     /**
@@ -121,57 +153,18 @@ public final class T4AndT6Compression {
      * @throws ImagingException if it fails to write the compressed data
      */
     public static byte[] compressModifiedHuffman(final byte[] uncompressed, final int width, final int height) throws ImagingException {
-        final BitInputStreamFlexible inputStream = new BitInputStreamFlexible(new ByteArrayInputStream(uncompressed));
+        checkLength(uncompressed, width, height);
+        final int[] changes = Allocator.intArray(width + SENTINELS + 1);
         try (BitArrayOutputStream outputStream = new BitArrayOutputStream()) {
             for (int y = 0; y < height; y++) {
-                compress1DLine(inputStream, outputStream, null, width);
-                inputStream.flushCache();
+                final int count = findChanges(uncompressed, y * rowBytes(width), width, changes);
+                compress1DLine(outputStream, changes, count, width);
                 outputStream.flush();
             }
             return outputStream.toByteArray();
         }
     }
 
-    private static int compressT(final int a0, final int a1, final int b1, final BitArrayOutputStream outputStream, final int codingA0Color,
-            final int[] codingLine) {
-        final int a1b1 = a1 - b1;
-        if (-3 <= a1b1 && a1b1 <= 3) {
-            final T4_T6_Tables.Entry entry;
-            switch (a1b1) {
-            case -3:
-                entry = T4_T6_Tables.VL3;
-                break;
-            case -2:
-                entry = T4_T6_Tables.VL2;
-                break;
-            case -1:
-                entry = T4_T6_Tables.VL1;
-                break;
-            case 0:
-                entry = T4_T6_Tables.V0;
-                break;
-            case 1:
-                entry = T4_T6_Tables.VR1;
-                break;
-            case 2:
-                entry = T4_T6_Tables.VR2;
-                break;
-            default:
-                entry = T4_T6_Tables.VR3;
-                break;
-            }
-            entry.writeBits(outputStream);
-            return a1;
-        }
-        final int a2 = nextChangingElement(codingLine, 1 - codingA0Color, a1 + 1);
-        final int a0a1 = a1 - a0;
-        final int a1a2 = a2 - a1;
-        T4_T6_Tables.H.writeBits(outputStream);
-        writeRunLength(outputStream, a0a1, codingA0Color);
-        writeRunLength(outputStream, a1a2, 1 - codingA0Color);
-        return a2;
-    }
-
     /**
      * Compresses data using T4 1D compression.
      *
@@ -183,7 +176,8 @@ public final class T4AndT6Compression {
      * @throws ImagingException if an imaging error occurs.
      */
     public static byte[] compressT4_1D(final byte[] uncompressed, final int width, final int height, final boolean hasFill) throws ImagingException {
-        final BitInputStreamFlexible inputStream = new BitInputStreamFlexible(new ByteArrayInputStream(uncompressed));
+        checkLength(uncompressed, width, height);
+        final int[] changes = Allocator.intArray(width + SENTINELS + 1);
         try (BitArrayOutputStream outputStream = new BitArrayOutputStream()) {
             if (hasFill) {
                 T4_T6_Tables.EOL16.writeBits(outputStream);
@@ -192,19 +186,12 @@ public final class T4AndT6Compression {
             }
 
             for (int y = 0; y < height; y++) {
-                compress1DLine(inputStream, outputStream, null, width);
+                final int count = findChanges(uncompressed, y * rowBytes(width), width, changes);
+                compress1DLine(outputStream, changes, count, width);
                 if (hasFill) {
-                    int bitsAvailable = outputStream.getBitsAvailableInCurrentByte();
-                    if (bitsAvailable < 4) {
-                        outputStream.flush();
-                        bitsAvailable = 8;
-                    }
-                    for (; bitsAvailable > 4; bitsAvailable--) {
-                        outputStream.writeBit(0);
-                    }
+                    writeFill(outputStream);
                 }
                 T4_T6_Tables.EOL.writeBits(outputStream);
-                inputStream.flushCache();
             }
 
             return outputStream.toByteArray();
@@ -224,10 +211,11 @@ public final class T4AndT6Compression {
      */
     public static byte[] compressT4_2D(final byte[] uncompressed, final int width, final int height, final boolean hasFill, final int parameterK)
             throws ImagingException {
-        final BitInputStreamFlexible inputStream = new BitInputStreamFlexible(new ByteArrayInputStream(uncompressed));
+        checkLength(uncompressed, width, height);
         final BitArrayOutputStream outputStream = new BitArrayOutputStream();
-        int[] referenceLine = Allocator.intArray(width);
-        int[] codingLine = Allocator.intArray(width);
+        int[] referenceChanges = Allocator.intArray(width + SENTINELS + 1);
+        int[] codingChanges = Allocator.intArray(width + SENTINELS + 1);
+        addSentinels(referenceChanges, 0, width);
         int kCounter = 0;
         if (hasFill) {
             T4_T6_Tables.EOL16.writeBits(outputStream);
@@ -236,65 +224,27 @@ public final class T4AndT6Compression {
         }
 
         for (int y = 0; y < height; y++) {
+            final int count = findChanges(uncompressed, y * rowBytes(width), width, codingChanges);
             if (kCounter > 0) {
                 // 2D
                 outputStream.writeBit(0);
-                for (int i = 0; i < width; i++) {
-                    try {
-                        codingLine[i] = inputStream.readBits(1);
-                    } catch (final IOException ioException) {
-                        throw new ImagingException("Error reading image to compress", ioException);
-                    }
-                }
-                int codingA0Color = WHITE;
-                int referenceA0Color = WHITE;
-                int a1 = nextChangingElement(codingLine, codingA0Color, 0);
-                int b1 = nextChangingElement(referenceLine, referenceA0Color, 0);
-                int b2 = nextChangingElement(referenceLine, 1 - referenceA0Color, b1 + 1);
-                for (int a0 = 0; a0 < width;) {
-                    if (b2 < a1) {
-                        T4_T6_Tables.P.writeBits(outputStream);
-                        a0 = b2;
-                    } else {
-                        a0 = compressT(a0, a1, b1, outputStream, codingA0Color, codingLine);
-                        if (a0 == a1) {
-                            codingA0Color = 1 - codingA0Color;
-                        }
-                    }
-                    referenceA0Color = changingElementAt(referenceLine, a0);
-                    a1 = nextChangingElement(codingLine, codingA0Color, a0 + 1);
-                    if (codingA0Color == referenceA0Color) {
-                        b1 = nextChangingElement(referenceLine, referenceA0Color, a0 + 1);
-                    } else {
-                        b1 = nextChangingElement(referenceLine, referenceA0Color, a0 + 1);
-                        b1 = nextChangingElement(referenceLine, 1 - referenceA0Color, b1 + 1);
-                    }
-                    b2 = nextChangingElement(referenceLine, 1 - codingA0Color, b1 + 1);
-                }
-                final int[] swap = referenceLine;
-                referenceLine = codingLine;
-                codingLine = swap;
+                compress2DLine(outputStream, codingChanges, referenceChanges, width);
             } else {
                 // 1D
                 outputStream.writeBit(1);
-                compress1DLine(inputStream, outputStream, referenceLine, width);
+                compress1DLine(outputStream, codingChanges, count, width);
             }
+            final int[] swap = referenceChanges;
+            referenceChanges = codingChanges;
+            codingChanges = swap;
             if (hasFill) {
-                int bitsAvailable = outputStream.getBitsAvailableInCurrentByte();
-                if (bitsAvailable < 4) {
-                    outputStream.flush();
-                    bitsAvailable = 8;
-                }
-                for (; bitsAvailable > 4; bitsAvailable--) {
-                    outputStream.writeBit(0);
-                }
+                writeFill(outputStream);
             }
             T4_T6_Tables.EOL.writeBits(outputStream);
             kCounter++;
             if (kCounter == parameterK) {
                 kCounter = 0;
             }
-            inputStream.flushCache();
         }
 
         return outputStream.toByteArray();
@@ -310,56 +260,95 @@ public final class T4AndT6Compression {
      * @throws ImagingException if an imaging error occurs.
      */
     public static byte[] compressT6(final byte[] uncompressed, final int width, final int height) throws ImagingException {
-        try (ByteArrayInputStream bais = new ByteArrayInputStream(uncompressed);
-                BitInputStreamFlexible inputStream = new BitInputStreamFlexible(bais)) {
-            final BitArrayOutputStream outputStream = new BitArrayOutputStream();
-            int[] referenceLine = Allocator.intArray(width);
-            int[] codingLine = Allocator.intArray(width);
-            for (int y = 0; y < height; y++) {
-                for (int i = 0; i < width; i++) {
-                    try {
-                        codingLine[i] = inputStream.readBits(1);
-                    } catch (final IOException e) {
-                        throw new ImagingException("Error reading image to compress", e);
-                    }
+        checkLength(uncompressed, width, height);
+        final BitArrayOutputStream outputStream = new BitArrayOutputStream();
+        int[] referenceChanges = Allocator.intArray(width + SENTINELS + 1);
+        int[] codingChanges = Allocator.intArray(width + SENTINELS + 1);
+        addSentinels(referenceChanges, 0, width);
+        for (int y = 0; y < height; y++) {
+            findChanges(uncompressed, y * rowBytes(width), width, codingChanges);
+            compress2DLine(outputStream, codingChanges, referenceChanges, width);
+            final int[] swap = referenceChanges;
+            referenceChanges = codingChanges;
+            codingChanges = swap;
+        }
+        // EOFB
+        T4_T6_Tables.EOL.writeBits(outputStream);
+        T4_T6_Tables.EOL.writeBits(outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static void addSentinels(final int[] changes, final int count, final int width) {
+        for (int i = 0; i < SENTINELS; i++) {
+            changes[count + i] = width;
+        }
+    }
+
+    /**
+     * Decodes a row of 2D coded changing elements against the changing elements of the reference row.
+     *
+     * @return the number of changing elements of the row.
+     */
+    private static int decode2DRow(final BitArrayReader reader, final int[] codingChanges, final int[] referenceChanges, final int width, final int y,
+            final String codeName) throws ImagingException {
+        int count = 0;
+        int codingA0Color = WHITE;
+        int b1Index = 0;
+        // a0 starts on an imaginary white element before the row, so b1 can be the first element
+        for (int a0 = 0, from = 0; a0 < width; from = a0 + 1) {
+            b1Index = findB1(referenceChanges, b1Index, from, codingA0Color);
+            final int entry = MODES[reader.peekBits(MODE_CODE_BITS)];
+            if (entry == 0) {
+                throw new ImagingException("Invalid/unknown " + codeName + " control code");
+            }
+            reader.skipBits(entry & 0xf);
+            final int mode = entry >>> 4;
+            if (mode == PASS_MODE) {
+                a0 = referenceChanges[b1Index + 1];
+            } else if (mode == HORIZONTAL_MODE) {
+                final int a1 = a0 + readTotalRunLength(reader, codingA0Color);
+                final int a2 = a1 + readTotalRunLength(reader, 1 - codingA0Color);
+                if (a2 > width) {
+                    throw new ImagingException("Unrecoverable row length error in image row " + y);
                 }
-                int codingA0Color = WHITE;
-                int referenceA0Color = WHITE;
-                int a1 = nextChangingElement(codingLine, codingA0Color, 0);
-                int b1 = nextChangingElement(referenceLine, referenceA0Color, 0);
-                int b2 = nextChangingElement(referenceLine, 1 - referenceA0Color, b1 + 1);
-                for (int a0 = 0; a0 < width;) {
-                    if (b2 < a1) {
-                        T4_T6_Tables.P.writeBits(outputStream);
-                        a0 = b2;
-                    } else {
-                        a0 = compressT(a0, a1, b1, outputStream, codingA0Color, codingLine);
-                        if (a0 == a1) {
-                            codingA0Color = 1 - codingA0Color;
-                        }
-                    }
-                    referenceA0Color = changingElementAt(referenceLine, a0);
-                    a1 = nextChangingElement(codingLine, codingA0Color, a0 + 1);
-                    if (codingA0Color == referenceA0Color) {
-                        b1 = nextChangingElement(referenceLine, referenceA0Color, a0 + 1);
-                    } else {
-                        b1 = nextChangingElement(referenceLine, referenceA0Color, a0 + 1);
-                        b1 = nextChangingElement(referenceLine, 1 - referenceA0Color, b1 + 1);
-                    }
-                    b2 = nextChangingElement(referenceLine, 1 - codingA0Color, b1 + 1);
+                count = addChange(codingChanges, count, a1);
+                count = addChange(codingChanges, count, a2);
+                a0 = a2;
+            } else {
+                final int a1 = referenceChanges[b1Index] + mode - 3;
+                if (a1 < a0 || a1 > width) {
+                    throw new ImagingException("Unrecoverable row length error in image row " + y);
                 }
-                final int[] swap = referenceLine;
-                referenceLine = codingLine;
-                codingLine = swap;
-                inputStream.flushCache();
+                count = addChange(codingChanges, count, a1);
+                a0 = a1;
+                codingA0Color = 1 - codingA0Color;
             }
-            // EOFB
-            T4_T6_Tables.EOL.writeBits(outputStream);
-            T4_T6_Tables.EOL.writeBits(outputStream);
-            return outputStream.toByteArray();
-        } catch (final IOException ioException) {
-            throw new ImagingException("I/O error", ioException);
         }
+        addSentinels(codingChanges, count, width);
+        return count;
+    }
+
+    /**
+     * Decodes a row of 1D coded runs.
+     *
+     * @return the number of changing elements of the row.
+     */
+    private static int decode1DRow(final BitArrayReader reader, final int[] changes, final int width, final int y) throws ImagingException {
+        int count = 0;
+        int color = WHITE;
+        int rowLength = 0;
+        while (rowLength < width) {
+            rowLength += readTotalRunLength(reader, color);
+            if (rowLength > width) {
+                throw new ImagingException("Unrecoverable row length error in image row " + y);
+            }
+            if (rowLength < width) {
+                count = addChange(changes, count, rowLength);
+            }
+            color = 1 - color;
+        }
+        addSentinels(changes, count, width);
+        return count;
     }
 
     /**
@@ -372,32 +361,15 @@ public final class T4AndT6Compression {
      * @throws ImagingException if it fails to read the compressed data
      */
     public static byte[] decompressModifiedHuffman(final byte[] compressed, final int width, final int height) throws ImagingException {
-        try (ByteArrayInputStream baos = new ByteArrayInputStream(compressed);
-                BitInputStreamFlexible inputStream = new BitInputStreamFlexible(baos);
-                BitArrayOutputStream outputStream = new BitArrayOutputStream()) {
-            for (int y = 0; y < height; y++) {
-                int color = WHITE;
-                int rowLength;
-                for (rowLength = 0; rowLength < width;) {
-                    final int runLength = readTotalRunLength(inputStream, color);
-                    for (int i = 0; i < runLength; i++) {
-                        outputStream.writeBit(color);
-                    }
-                    color = 1 - color;
-                    rowLength += runLength;
-                }
-
-                if (rowLength == width) {
-                    inputStream.flushCache();
-                    outputStream.flush();
-                } else if (rowLength > width) {
-                    throw new ImagingException("Unrecoverable row length error in image row " + y);
-                }
-            }
-            return outputStream.toByteArray();
-        } catch (final IOException ioException) {
-            throw new ImagingException("Error reading image to decompress", ioException);
+        final BitArrayReader reader = new BitArrayReader(compressed);
+        final byte[] uncompressed = Allocator.byteArray((long) rowBytes(width) * height);
+        final int[] changes = Allocator.intArray(width + SENTINELS + 1);
+        for (int y = 0; y < height; y++) {
+            final int count = decode1DRow(reader, changes, width, y);
+            fillRow(uncompressed, y * rowBytes(width), changes, count, width);
+            reader.alignToByte();
         }
+        return uncompressed;
     }
 
     /**
@@ -411,36 +383,15 @@ public final class T4AndT6Compression {
      * @throws ImagingException if it fails to read the compressed data
      */
     public static byte[] decompressT4_1D(final byte[] compressed, final int width, final int height, final boolean hasFill) throws ImagingException {
-        final BitInputStreamFlexible inputStream = new BitInputStreamFlexible(new ByteArrayInputStream(compressed));
-        try (BitArrayOutputStream outputStream = new BitArrayOutputStream()) {
-            for (int y = 0; y < height; y++) {
-                int rowLength;
-                try {
-                    final T4_T6_Tables.Entry entry = CONTROL_CODES.decode(inputStream);
-                    if (!isEol(entry, hasFill)) {
-                        throw new ImagingException("Expected EOL not found");
-                    }
-                    int color = WHITE;
-                    for (rowLength = 0; rowLength < width;) {
-                        final int runLength = readTotalRunLength(inputStream, color);
-                        for (int i = 0; i < runLength; i++) {
-                            outputStream.writeBit(color);
-                        }
-                        color = 1 - color;
-                        rowLength += runLength;
-                    }
-                } catch (final ImagingException huffmanException) {
-                    throw new ImagingException("Decompression error", huffmanException);
-                }
-
-                if (rowLength == width) {
-                    outputStream.flush();
-                } else if (rowLength > width) {
-                    throw new ImagingException("Unrecoverable row length error in image row " + y);
-                }
-            }
-            return outputStream.toByteArray();
+        final BitArrayReader reader = new BitArrayReader(compressed);
+        final byte[] uncompressed = Allocator.byteArray((long) rowBytes(width) * height);
+        final int[] changes = Allocator.intArray(width + SENTINELS + 1);
+        for (int y = 0; y < height; y++) {
+            readEol(reader, hasFill);
+            final int count = decode1DRow(reader, changes, width, y);
+            fillRow(uncompressed, y * rowBytes(width), changes, count, width);
         }
+        return uncompressed;
     }
 
     /**
@@ -455,98 +406,27 @@ public final class T4AndT6Compression {
      * @throws ImagingException if it fails to read the compressed data
      */
     public static byte[] decompressT4_2D(final byte[] compressed, final int width, final int height, final boolean hasFill) throws ImagingException {
-        final BitInputStreamFlexible inputStream = new BitInputStreamFlexible(new ByteArrayInputStream(compressed));
-        try (BitArrayOutputStream outputStream = new BitArrayOutputStream()) {
-            final int[] referenceLine = Allocator.intArray(width);
-            for (int y = 0; y < height; y++) {
-                int rowLength = 0;
-                try {
-                    T4_T6_Tables.Entry entry = CONTROL_CODES.decode(inputStream);
-                    if (!isEol(entry, hasFill)) {
-                        throw new ImagingException("Expected EOL not found");
-                    }
-                    final int tagBit = inputStream.readBits(1);
-                    if (tagBit == 0) {
-                        // 2D
-                        int codingA0Color = WHITE;
-                        int referenceA0Color = WHITE;
-                        int b1 = nextChangingElement(referenceLine, referenceA0Color, 0);
-                        int b2 = nextChangingElement(referenceLine, 1 - referenceA0Color, b1 + 1);
-                        for (int a0 = 0; a0 < width;) {
-                            final int a1;
-                            final int a2;
-                            entry = CONTROL_CODES.decode(inputStream);
-                            if (entry == T4_T6_Tables.P) {
-                                fillRange(outputStream, referenceLine, a0, b2, codingA0Color);
-                                a0 = b2;
-                            } else if (entry == T4_T6_Tables.H) {
-                                final int a0a1 = readTotalRunLength(inputStream, codingA0Color);
-                                a1 = a0 + a0a1;
-                                fillRange(outputStream, referenceLine, a0, a1, codingA0Color);
-                                final int a1a2 = readTotalRunLength(inputStream, 1 - codingA0Color);
-                                a2 = a1 + a1a2;
-                                fillRange(outputStream, referenceLine, a1, a2, 1 - codingA0Color);
-                                a0 = a2;
-                            } else {
-                                final int a1b1;
-                                if (entry == T4_T6_Tables.V0) {
-                                    a1b1 = 0;
-                                } else if (entry == T4_T6_Tables.VL1) {
-                                    a1b1 = -1;
-                                } else if (entry == T4_T6_Tables.VL2) {
-                                    a1b1 = -2;
-                                } else if (entry == T4_T6_Tables.VL3) {
-                                    a1b1 = -3;
-                                } else if (entry == T4_T6_Tables.VR1) {
-                                    a1b1 = 1;
-                                } else if (entry == T4_T6_Tables.VR2) {
-                                    a1b1 = 2;
-                                } else if (entry == T4_T6_Tables.VR3) {
-                                    a1b1 = 3;
-                                } else {
-                                    throw new ImagingException("Invalid/unknown T.4 control code " + entry.bitString);
-                                }
-                                a1 = b1 + a1b1;
-                                fillRange(outputStream, referenceLine, a0, a1, codingA0Color);
-                                a0 = a1;
-                                codingA0Color = 1 - codingA0Color;
-                            }
-                            referenceA0Color = changingElementAt(referenceLine, a0);
-                            if (codingA0Color == referenceA0Color) {
-                                b1 = nextChangingElement(referenceLine, referenceA0Color, a0 + 1);
-                            } else {
-                                b1 = nextChangingElement(referenceLine, referenceA0Color, a0 + 1);
-                                b1 = nextChangingElement(referenceLine, 1 - referenceA0Color, b1 + 1);
-                            }
-                            b2 = nextChangingElement(referenceLine, 1 - codingA0Color, b1 + 1);
-                            rowLength = a0;
-                        }
-                    } else {
-                        // 1D
-                        int color = WHITE;
-                        for (rowLength = 0; rowLength < width;) {
-                            final int runLength = readTotalRunLength(inputStream, color);
-                            for (int i = 0; i < runLength; i++) {
-                                outputStream.writeBit(color);
-                                referenceLine[rowLength + i] = color;
-                            }
-                            color = 1 - color;
-                            rowLength += runLength;
-                        }
-                    }
-                } catch (final IOException e) {
-                    throw new ImagingException("Decompression error", e);
-                }
-
-                if (rowLength == width) {
-                    outputStream.flush();
-                } else if (rowLength > width) {
-                    throw new ImagingException("Unrecoverable row length error in image row " + y);
-                }
+        final BitArrayReader reader = new BitArrayReader(compressed);
+        final byte[] uncompressed = Allocator.byteArray((long) rowBytes(width) * height);
+        int[] referenceChanges = Allocator.intArray(width + SENTINELS + 1);
+        int[] codingChanges = Allocator.intArray(width + SENTINELS + 1);
+        addSentinels(referenceChanges, 0, width);
+        for (int y = 0; y < height; y++) {
+            readEol(reader, hasFill);
+            final int count;
+            if (reader.readBits(1) == 0) {
+                // 2D
+                count = decode2DRow(reader, codingChanges, referenceChanges, width, y, "T.4");
+            } else {
+                // 1D
+                count = decode1DRow(reader, codingChanges, width, y);
             }
-
-            return outputStream.toByteArray();
+            fillRow(uncompressed, y * rowBytes(width), codingChanges, count, width);
+            final int[] swap = referenceChanges;
+            referenceChanges = codingChanges;
+            codingChanges = swap;
         }
+        return uncompressed;
     }
 
     /**
@@ -560,138 +440,141 @@ public final class T4AndT6Compression {
      * @throws ImagingException if it fails to read the compressed data
      */
     public static byte[] decompressT6(final byte[] compressed, final int width, final int height) throws ImagingException {
-        try (BitInputStreamFlexible inputStream = new BitInputStreamFlexible(new ByteArrayInputStream(compressed));
-                BitArrayOutputStream outputStream = new BitArrayOutputStream()) {
-            final int[] referenceLine = Allocator.intArray(width);
-            for (int y = 0; y < height; y++) {
-                int rowLength = 0;
-                int codingA0Color = WHITE;
-                int referenceA0Color = WHITE;
-                int b1 = nextChangingElement(referenceLine, referenceA0Color, 0);
-                int b2 = nextChangingElement(referenceLine, 1 - referenceA0Color, b1 + 1);
-                for (int a0 = 0; a0 < width;) {
-                    final int a1;
-                    final int a2;
-                    final T4_T6_Tables.Entry entry = CONTROL_CODES.decode(inputStream);
-                    if (entry == T4_T6_Tables.P) {
-                        fillRange(outputStream, referenceLine, a0, b2, codingA0Color);
-                        a0 = b2;
-                    } else if (entry == T4_T6_Tables.H) {
-                        final int a0a1 = readTotalRunLength(inputStream, codingA0Color);
-                        a1 = a0 + a0a1;
-                        fillRange(outputStream, referenceLine, a0, a1, codingA0Color);
-                        final int a1a2 = readTotalRunLength(inputStream, 1 - codingA0Color);
-                        a2 = a1 + a1a2;
-                        fillRange(outputStream, referenceLine, a1, a2, 1 - codingA0Color);
-                        a0 = a2;
-                    } else {
-                        final int a1b1;
-                        if (entry == T4_T6_Tables.V0) {
-                            a1b1 = 0;
-                        } else if (entry == T4_T6_Tables.VL1) {
-                            a1b1 = -1;
-                        } else if (entry == T4_T6_Tables.VL2) {
-                            a1b1 = -2;
-                        } else if (entry == T4_T6_Tables.VL3) {
-                            a1b1 = -3;
-                        } else if (entry == T4_T6_Tables.VR1) {
-                            a1b1 = 1;
-                        } else if (entry == T4_T6_Tables.VR2) {
-                            a1b1 = 2;
-                        } else if (entry == T4_T6_Tables.VR3) {
-                            a1b1 = 3;
-                        } else {
-                            throw new ImagingException("Invalid/unknown T.6 control code " + entry.bitString);
-                        }
-                        a1 = b1 + a1b1;
-                        fillRange(outputStream, referenceLine, a0, a1, codingA0Color);
-                        a0 = a1;
-                        codingA0Color = 1 - codingA0Color;
-                    }
-                    referenceA0Color = changingElementAt(referenceLine, a0);
-                    if (codingA0Color == referenceA0Color) {
-                        b1 = nextChangingElement(referenceLine, referenceA0Color, a0 + 1);
-                    } else {
-                        b1 = nextChangingElement(referenceLine, referenceA0Color, a0 + 1);
-                        b1 = nextChangingElement(referenceLine, 1 - referenceA0Color, b1 + 1);
-                    }
-                    b2 = nextChangingElement(referenceLine, 1 - codingA0Color, b1 + 1);
-                    rowLength = a0;
-                }
-                if (rowLength == width) {
-                    outputStream.flush();
-                } else if (rowLength > width) {
-                    throw new ImagingException("Unrecoverable row length error in image row " + y);
-                }
-            }
-            return outputStream.toByteArray();
-        } catch (final IOException e) {
-            if (e instanceof ImagingException) {
-                throw (ImagingException) e;
-            }
-            // IOException cannot happen because the close() methods in use here do not throw
-            throw new ImagingException("Closing stream", e);
+        final BitArrayReader reader = new BitArrayReader(compressed);
+        final byte[] uncompressed = Allocator.byteArray((long) rowBytes(width) * height);
+        int[] referenceChanges = Allocator.intArray(width + SENTINELS + 1);
+        int[] codingChanges = Allocator.intArray(width + SENTINELS + 1);
+        addSentinels(referenceChanges, 0, width);
+        for (int y = 0; y < height; y++) {
+            final int count = decode2DRow(reader, codingChanges, referenceChanges, width, y, "T.6");
+            fillRow(uncompressed, y * rowBytes(width), codingChanges, count, width);
+            final int[] swap = referenceChanges;
+            referenceChanges = codingChanges;
+            codingChanges = swap;
+        }
+        return uncompressed;
+    }
+
+    /**
+     * Sets the bits of a black run in a row.
+     */
+    private static void fillBlack(final byte[] data, final int rowOffset, final int start, final int end) {
+        if (start >= end) {
+            return;
+        }
+        final int first = rowOffset + (start >>> 3);
+        final int last = rowOffset + (end - 1 >>> 3);
+        final int firstMask = 0xff >>> (start & 7);
+        final int lastMask = 0xff & 0xff00 >>> (end - 1 & 7) + 1;
+        if (first == last) {
+            data[first] |= firstMask & lastMask;
+        } else {
+            data[first] |= firstMask;
+            Arrays.fill(data, first + 1, last, (byte) 0xff);
+            data[last] |= lastMask;
         }
     }
 
-    private static void fillRange(final BitArrayOutputStream outputStream, final int[] referenceRow, final int a0, final int end, final int color) {
-        for (int i = a0; i < end; i++) {
-            referenceRow[i] = color;
-            outputStream.writeBit(color);
+    /**
+     * Finds the changing elements of a row of packed pixels, looking at 8 pixels at a time.
+     *
+     * @return the number of changing elements, which are followed by sentinels.
+     */
+    private static int findChanges(final byte[] data, final int rowOffset, final int width, final int[] changes) {
+        int count = 0;
+        int flip = 0;
+        int x = 0;
+        while (x < width) {
+            final int bits = (data[rowOffset + (x >>> 3)] ^ flip) & 0xff >>> (x & 7);
+            if (bits == 0) {
+                x = (x | 7) + 1;
+            } else {
+                x = (x & ~7) + Integer.numberOfLeadingZeros(bits) - 24;
+                if (x < width) {
+                    changes[count++] = x;
+                    flip = ~flip;
+                }
+            }
         }
+        addSentinels(changes, count, width);
+        return count;
     }
 
-    private static boolean isEol(final T4_T6_Tables.Entry entry, final boolean hasFill) {
-        if (entry == T4_T6_Tables.EOL) {
-            return true;
+    /**
+     * Finds b1, the first changing element of the reference row at or after {@code from} whose color is the opposite of the color of a0.
+     *
+     * @param changes the changing elements of the reference row, whose colors alternate from black.
+     * @param index   the index of b1 for the previous a0.
+     * @return the index of b1, b2 follows it.
+     */
+    private static int findB1(final int[] changes, int index, final int from, final int codingA0Color) {
+        // a0 can move back before the previous b1
+        while (index > 0 && changes[index - 1] >= from) {
+            index--;
         }
-        if (hasFill) {
-            return entry == T4_T6_Tables.EOL13 || entry == T4_T6_Tables.EOL14 || entry == T4_T6_Tables.EOL15 || entry == T4_T6_Tables.EOL16
-                    || entry == T4_T6_Tables.EOL17 || entry == T4_T6_Tables.EOL18 || entry == T4_T6_Tables.EOL19;
+        while (changes[index] < from) {
+            index++;
+        }
+        // changing elements to black are at even indexes
+        if ((index & 1) != codingA0Color) {
+            index++;
         }
-        return false;
+        return index;
     }
 
-    private static T4_T6_Tables.Entry lowerBound(final T4_T6_Tables.Entry[] entries, final int value) {
-        int first = 0;
-        int last = entries.length - 1;
-        do {
-            final int middle = first + last >>> 1;
-            if (entries[middle].value <= value && (middle + 1 >= entries.length || value < entries[middle + 1].value)) {
-                return entries[middle];
-            }
-            if (entries[middle].value > value) {
-                last = middle - 1;
-            } else {
-                first = middle + 1;
-            }
-        } while (first < last);
+    private static void fillRow(final byte[] data, final int rowOffset, final int[] changes, final int count, final int width) {
+        for (int i = 0; i < count; i += 2) {
+            fillBlack(data, rowOffset, changes[i], i + 1 < count ? changes[i + 1] : width);
+        }
+    }
 
-        return entries[first];
+    private static void insert(final int[] table, final int tableBits, final Entry entry, final int value) {
+        final int first = entry.code << tableBits - entry.length;
+        final int last = first + (1 << tableBits - entry.length);
+        Arrays.fill(table, first, last, value << 4 | entry.length);
     }
 
-    private static int nextChangingElement(final int[] line, final int currentColour, final int start) {
-        int position;
-        for (position = start; position < line.length && line[position] == currentColour; position++) { // NOPMD
-            // noop
+    private static void readEol(final BitArrayReader reader, final boolean hasFill) throws ImagingException {
+        // an EOL is 11 zeros and a one, and fill bits are more zeros before it
+        final int zeros = Integer.numberOfLeadingZeros(reader.peekBits(EOL_BITS)) - (32 - EOL_BITS);
+        if (zeros < 11 || zeros > (hasFill ? EOL_BITS - 1 : 11)) {
+            throw new ImagingException("Expected EOL not found");
         }
-        return Math.min(position, line.length);
+        reader.skipBits(zeros + 1);
     }
 
-    private static int readTotalRunLength(final BitInputStreamFlexible bitStream, final int color) throws ImagingException {
+    private static int readTotalRunLength(final BitArrayReader reader, final int color) throws ImagingException {
+        final int[] table = color == WHITE ? WHITE_RUN_LENGTHS : BLACK_RUN_LENGTHS;
+        final int tableBits = color == WHITE ? WHITE_CODE_BITS : BLACK_CODE_BITS;
         int totalLength = 0;
-        Integer runLength;
+        int runLength;
         do {
-            if (color == WHITE) {
-                runLength = WHITE_RUN_LENGTHS.decode(bitStream);
-            } else {
-                runLength = BLACK_RUN_LENGTHS.decode(bitStream);
+            final int entry = table[reader.peekBits(tableBits)];
+            if (entry == 0) {
+                throw new ImagingException("Invalid bit pattern");
             }
+            reader.skipBits(entry & 0xf);
+            runLength = entry >>> 4;
             totalLength += runLength;
         } while (runLength > 63);
         return totalLength;
     }
 
+    private static int rowBytes(final int width) {
+        return (width + 7) / 8;
+    }
+
+    private static void writeFill(final BitArrayOutputStream outputStream) {
+        // pads with zeros so that the EOL ends on a byte boundary
+        final int bitsAvailable = outputStream.getBitsAvailableInCurrentByte();
+        if (bitsAvailable < 4) {
+            outputStream.flush();
+            outputStream.writeBits(0, 4);
+        } else {
+            outputStream.writeBits(0, bitsAvailable - 4);
+        }
+    }
+
     private static void writeRunLength(final BitArrayOutputStream bitStream, int runLength, final int color) {
         final T4_T6_Tables.Entry[] makeUpCodes;
         final T4_T6_Tables.Entry[] terminatingCodes;
@@ -702,18 +585,46 @@ public final class T4AndT6Compression {
             makeUpCodes = T4_T6_Tables.BLACK_MAKE_UP_CODES;
             terminatingCodes = T4_T6_Tables.BLACK_TERMINATING_CODES;
         }
+        // the make-up codes are for every multiple of 64, in order
         while (runLength >= 1792) {
-            final T4_T6_Tables.Entry entry = lowerBound(T4_T6_Tables.ADDITIONAL_MAKE_UP_CODES, runLength);
+            final T4_T6_Tables.Entry entry = T4_T6_Tables.ADDITIONAL_MAKE_UP_CODES[Math.min(runLength, 2560) - 1792 >>> 6];
             entry.writeBits(bitStream);
             runLength -= entry.value;
         }
-        while (runLength >= 64) {
-            final T4_T6_Tables.Entry entry = lowerBound(makeUpCodes, runLength);
+        if (runLength >= 64) {
+            final T4_T6_Tables.Entry entry = makeUpCodes[(runLength >>> 6) - 1];
             entry.writeBits(bitStream);
             runLength -= entry.value;
         }
-        final T4_T6_Tables.Entry terminatingEntry = terminatingCodes[runLength];
-        terminatingEntry.writeBits(bitStream);
+        terminatingCodes[runLength].writeBits(bitStream);
+    }
+
+    private static void writeVerticalMode(final BitArrayOutputStream outputStream, final int a1b1) {
+        final T4_T6_Tables.Entry entry;
+        switch (a1b1) {
+        case -3:
+            entry = T4_T6_Tables.VL3;
+            break;
+        case -2:
+            entry = T4_T6_Tables.VL2;
+            break;
+        case -1:
+            entry = T4_T6_Tables.VL1;
+            break;
+        case 0:
+            entry = T4_T6_Tables.V0;
+            break;
+        case 1:
+            entry = T4_T6_Tables.VR1;
+            break;
+        case 2:
+            entry = T4_T6_Tables.VR2;
+            break;
+        default:
+            entry = T4_T6_Tables.VR3;
+            break;
+        }
+        entry.writeBits(outputStream);
     }
 
     private T4AndT6Compression() {
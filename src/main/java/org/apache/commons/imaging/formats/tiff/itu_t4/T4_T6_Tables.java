@@ -20,16 +20,19 @@ final class T4_T6_Tables {
     public static class Entry {
         final String bitString;
         final Integer value;
+        // the code as an int, and its length in bits
+        final int code;
+        final int length;
 
         Entry(final String bitString, final int value) {
             this.bitString = bitString;
             this.value = value;
+            this.code = Integer.parseInt(bitString, 2);
+            this.length = bitString.length();
         }
 
         public void writeBits(final BitArrayOutputStream outputStream) {
-            for (int i = 0; i < bitString.length(); i++) {
-                outputStream.writeBit(bitString.charAt(i) == '0' ? 0 : 1);
-            }
+            outputStream.writeBits(code, length);
         }
     }
 
@@ -82,4 +82,52 @@ public abstract class AbstractPhotometricInterpreter {
      * @throws IOException if an I/O error occurs.
      */
     public abstract void interpretPixel(ImageBuilder imageBuilder, int[] samples, int x, int y) throws ImagingException, IOException;
+
+    /**
+     * Interprets a run of pixels of a row as ARGB values.
+     * <p>
+     * The samples of each pixel follow those of the previous pixel, {@link #samplesPerPixel} samples per pixel. This implementation interprets the pixels one
+     * at a time with {@link #interpretPixel(ImageBuilder, int[], int, int)} as if they were the only row of an image; the interpreters of the standard
+     * photometric interpretations override it with loops over the arrays. Subclasses overriding {@link #interpretPixel(ImageBuilder, int[], int, int)} of such
+     * an interpreter should override this method and {@link #supportsRowInterpretation()} as well.
+     * </p>
+     *
+     * @param samples    the samples of the pixels.
+     * @param offset     the index in {@code samples} of the first sample of the first pixel.
+     * @param count      the number of pixels.
+     * @param argb       the array to store the ARGB values of the pixels in.
+     * @param argbOffset the index in {@code argb} for the value of the first pixel.
+     * @throws ImagingException if the image format is invalid.
+     * @throws IOException      if an I/O error occurs.
+     * @since 1.0.0-alpha7
+     */
+    public void interpretRow(final int[] samples, final int offset, final int count, final int[] argb, final int argbOffset)
+            throws ImagingException, IOException {
+        if (count <= 0) {
+            return;
+        }
+        final ImageBuilder row = new ImageBuilder(count, 1, false);
+        final int[] pixel = new int[samplesPerPixel];
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(samples, offset + i * samplesPerPixel, pixel, 0, samplesPerPixel);
+            interpretPixel(row, pixel, i, 0);
+            argb[argbOffset + i] = row.getRgb(i, 0);
+        }
+    }
+
+    /**
+     * Tests whether the pixels of a row may be interpreted together by {@link #interpretRow(int[], int, int, int[], int)} instead of one at a time by
+     * {@link #interpretPixel(ImageBuilder, int[], int, int)}, which the data readers then do.
+     * <p>
+     * This is the case when the color of a pixel depends on its samples only, not on its position or on the other pixels, and
+     * {@link #interpretRow(int[], int, int, int[], int)} is faster. This implementation returns false, so that custom interpreters keep being called for
+     * each pixel with its position.
+     * </p>
+     *
+     * @return whether rows may be interpreted together.
+     * @since 1.0.0-alpha7
+     */
+    public boolean supportsRowInterpretation() {
+        return false;
+    }
 }
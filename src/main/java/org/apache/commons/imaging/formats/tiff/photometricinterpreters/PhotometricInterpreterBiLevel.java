@@ -64,4 +64,19 @@ public class PhotometricInterpreterBiLevel extends AbstractPhotometricInterprete
 
         imageBuilder.setRgb(x, y, rgb);
     }
+
+    @Override
+    public void interpretRow(final int[] samples, final int offset, final int count, final int[] argb, final int argbOffset) {
+        final int base = invert ? 255 : 0;
+        final int sign = invert ? -1 : 1;
+        for (int i = 0, k = offset; i < count; i++, k += samplesPerPixel) {
+            final int sample = base + sign * samples[k];
+            argb[argbOffset + i] = 0xff000000 | sample << 16 | sample << 8 | sample;
+        }
+    }
+
+    @Override
+    public boolean supportsRowInterpretation() {
+        return true;
+    }
 }
@@ -18,6 +18,7 @@
 package org.apache.commons.imaging.formats.tiff.photometricinterpreters;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.color.ColorConversions;
@@ -28,6 +29,9 @@ import org.apache.commons.imaging.common.ImageBuilder;
  */
 public class PhotometricInterpreterCieLab extends AbstractPhotometricInterpreter {
 
+    private static final int CACHE_BITS = 8;
+    private static final int CACHE_SIZE = 1 << CACHE_BITS;
+
     /**
      * Constructs a new CIE L*a*b* photometric interpreter.
      *
@@ -49,4 +53,34 @@ public class PhotometricInterpreterCieLab extends AbstractPhotometricInterpreter
         final int rgb = ColorConversions.convertCieLabToArgbTest(cieL, cieA, cieB);
         imageBuilder.setRgb(x, y, rgb);
     }
+
+    @Override
+    public void interpretRow(final int[] samples, final int offset, final int count, final int[] argb, final int argbOffset) {
+        // the conversion has no cheap exact table, so the colors already converted in this row are kept
+        // in a small direct mapped cache keyed by the 24 bits of the samples
+        final int[] cachedKeys = new int[CACHE_SIZE];
+        final int[] cachedArgb = new int[CACHE_SIZE];
+        Arrays.fill(cachedKeys, -1);
+        for (int i = 0, k = offset; i < count; i++, k += samplesPerPixel) {
+            final int cieL = samples[k];
+            final int cieA = (byte) samples[k + 1];
+            final int cieB = (byte) samples[k + 2];
+            if (cieL >>> 8 != 0) {
+                argb[argbOffset + i] = ColorConversions.convertCieLabToArgbTest(cieL, cieA, cieB);
+                continue;
+            }
+            final int key = cieL << 16 | (cieA & 0xff) << 8 | cieB & 0xff;
+            final int slot = key * 0x9E3779B9 >>> 32 - CACHE_BITS;
+            if (cachedKeys[slot] != key) {
+                cachedKeys[slot] = key;
+                cachedArgb[slot] = ColorConversions.convertCieLabToArgbTest(cieL, cieA, cieB);
+            }
+            argb[argbOffset + i] = cachedArgb[slot];
+        }
+    }
+
+    @Override
+    public boolean supportsRowInterpretation() {
+        return true;
+    }
 }
@@ -28,6 +28,23 @@ import org.apache.commons.imaging.common.ImageBuilder;
  */
 public class PhotometricInterpreterCmyk extends AbstractPhotometricInterpreter {
 
+    /**
+     * The red, green or blue value of 8 bit cyan, magenta or yellow and black samples, indexed by the color sample times 256 plus the black sample, computed
+     * with the same arithmetic as {@link ColorConversions#convertCmykToRgb(int, int, int, int)} so that rows interpret exactly like pixels.
+     */
+    private static final byte[] RGB_OF_CMY_AND_K = new byte[1 << 16];
+
+    static {
+        for (int color = 0; color < 256; color++) {
+            for (int black = 0; black < 256; black++) {
+                final double c = color / 255.0;
+                final double k = black / 255.0;
+                final double rgb = (1 - (c * (1 - k) + k)) * 255.0;
+                RGB_OF_CMY_AND_K[color << 8 | black] = (byte) Math.min(255, Math.max(0, (int) Math.round(rgb)));
+            }
+        }
+    }
+
     /**
      * Constructs a new CMYK photometric interpreter.
      *
@@ -50,4 +67,27 @@ public class PhotometricInterpreterCmyk extends AbstractPhotometricInterpreter {
         final int rgb = ColorConversions.convertCmykToRgb(sc, sm, sy, sk);
         imageBuilder.setRgb(x, y, rgb);
     }
+
+    @Override
+    public void interpretRow(final int[] samples, final int offset, final int count, final int[] argb, final int argbOffset) {
+        for (int i = 0, j = offset; i < count; i++, j += samplesPerPixel) {
+            final int sc = samples[j];
+            final int sm = samples[j + 1];
+            final int sy = samples[j + 2];
+            final int sk = samples[j + 3];
+            if ((sc | sm | sy | sk) >>> 8 != 0) {
+                argb[argbOffset + i] = ColorConversions.convertCmykToRgb(sc, sm, sy, sk);
+                continue;
+            }
+            final int red = RGB_OF_CMY_AND_K[sc << 8 | sk] & 0xff;
+            final int green = RGB_OF_CMY_AND_K[sm << 8 | sk] & 0xff;
+            final int blue = RGB_OF_CMY_AND_K[sy << 8 | sk] & 0xff;
+            argb[argbOffset + i] = 0xff000000 | red << 16 | green << 8 | blue;
+        }
+    }
+
+    @Override
+    public boolean supportsRowInterpretation() {
+        return true;
+    }
 }
@@ -98,4 +98,16 @@ public final class PhotometricInterpreterPalette extends AbstractPhotometricInte
     public void interpretPixel(final ImageBuilder imageBuilder, final int[] samples, final int x, final int y) throws ImagingException, IOException {
         imageBuilder.setRgb(x, y, indexColorMap[samples[0] & bitsPerPixelMask]);
     }
+
+    @Override
+    public void interpretRow(final int[] samples, final int offset, final int count, final int[] argb, final int argbOffset) {
+        for (int i = 0, k = offset; i < count; i++, k += samplesPerPixel) {
+            argb[argbOffset + i] = indexColorMap[samples[k] & bitsPerPixelMask];
+        }
+    }
+
+    @Override
+    public boolean supportsRowInterpretation() {
+        return true;
+    }
 }
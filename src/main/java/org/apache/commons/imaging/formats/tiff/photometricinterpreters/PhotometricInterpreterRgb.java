@@ -50,4 +50,16 @@ public class PhotometricInterpreterRgb extends AbstractPhotometricInterpreter {
         imageBuilder.setRgb(x, y, rgb);
 
     }
+
+    @Override
+    public void interpretRow(final int[] samples, final int offset, final int count, final int[] argb, final int argbOffset) {
+        for (int i = 0, k = offset; i < count; i++, k += samplesPerPixel) {
+            argb[argbOffset + i] = 0xff000000 | samples[k] << 16 | samples[k + 1] << 8 | samples[k + 2];
+        }
+    }
+
+    @Override
+    public boolean supportsRowInterpretation() {
+        return true;
+    }
 }
@@ -26,6 +26,30 @@ import org.apache.commons.imaging.common.ImageBuilder;
  */
 public class PhotometricInterpreterYCbCr extends AbstractPhotometricInterpreter {
 
+    /**
+     * Marks the table entries of sums which are so close to an integer that the truncation of the double arithmetic in
+     * {@link #interpretPixel(ImageBuilder, int[], int, int)} has to be repeated to get the same result.
+     */
+    private static final int INEXACT = Integer.MIN_VALUE;
+
+    // the offsets from Y of red by 8 bit Cr, of blue by 8 bit Cb and of green by Cb times 256 plus Cr,
+    // rounded down so that adding them to Y truncates like the double arithmetic for positive values
+    private static final int[] RED_OF_CR = new int[256];
+    private static final int[] BLUE_OF_CB = new int[256];
+    private static final int[] GREEN_OF_CB_CR = new int[1 << 16];
+
+    static {
+        for (int c = 0; c < 256; c++) {
+            RED_OF_CR[c] = floor(1.402 * (c - 128.0));
+            BLUE_OF_CB[c] = floor(1.772 * (c - 128.0));
+        }
+        for (int cb = 0; cb < 256; cb++) {
+            for (int cr = 0; cr < 256; cr++) {
+                GREEN_OF_CB_CR[cb << 8 | cr] = floor(-0.34414 * (cb - 128.0) - 0.71414 * (cr - 128.0));
+            }
+        }
+    }
+
     /**
      * This method converts a YUV (aka YCbCr) colorspace to a RGB colorspace. This is handy when trying to reconstruct an image in Java from YCbCr transmitted
      * data. This routine expects the data to fall in the standard PC 0..255 range per pixel, with the array dimensions corresponding to the imageWidth and
@@ -50,6 +74,29 @@ public class PhotometricInterpreterYCbCr extends AbstractPhotometricInterpreter
         return alpha << 24 | r << 16 | g << 8 | b << 0;
     }
 
+    private static int floor(final double value) {
+        // the coefficients have 5 decimals, so sums that are not integers are at least 1e-5 away from one,
+        // and a sum is only exactly 0 if its terms are, which keeps the double arithmetic exact
+        final double floor = Math.floor(value);
+        if (value != 0 && (value - floor < 1e-9 || floor + 1 - value < 1e-9)) {
+            return INEXACT;
+        }
+        return (int) floor;
+    }
+
+    private static int interpret(final int y, final int cb, final int cr) {
+        final double r = y + 1.402 * (cr - 128.0);
+        final double g = y - 0.34414 * (cb - 128.0) - 0.71414 * (cr - 128.0);
+        final double b = y + 1.772 * (cb - 128.0);
+
+        final int red = limit((int) r, 0, 255);
+        final int green = limit((int) g, 0, 255);
+        final int blue = limit((int) b, 0, 255);
+
+        final int alpha = 0xff;
+        return alpha << 24 | red << 16 | green << 8 | blue << 0;
+    }
+
     /**
      * Limits a value to a specified range.
      *
@@ -77,20 +124,35 @@ public class PhotometricInterpreterYCbCr extends AbstractPhotometricInterpreter
 
     @Override
     public void interpretPixel(final ImageBuilder imageBuilder, final int[] samples, final int x, final int y) throws ImagingException, IOException {
-        final int Y = samples[0];
-        final int cb = samples[1];
-        final int cr = samples[2];
-        final double r = Y + 1.402 * (cr - 128.0);
-        final double g = Y - 0.34414 * (cb - 128.0) - 0.71414 * (cr - 128.0);
-        final double b = Y + 1.772 * (cb - 128.0);
-
-        final int red = limit((int) r, 0, 255);
-        final int green = limit((int) g, 0, 255);
-        final int blue = limit((int) b, 0, 255);
+        imageBuilder.setRgb(x, y, interpret(samples[0], samples[1], samples[2]));
+    }
 
-        final int alpha = 0xff;
-        final int rgb = alpha << 24 | red << 16 | green << 8 | blue << 0;
-        imageBuilder.setRgb(x, y, rgb);
+    @Override
+    public void interpretRow(final int[] samples, final int offset, final int count, final int[] argb, final int argbOffset) {
+        for (int i = 0, k = offset; i < count; i++, k += samplesPerPixel) {
+            final int y = samples[k];
+            final int cb = samples[k + 1];
+            final int cr = samples[k + 2];
+            if ((y | cb | cr) >>> 8 != 0) {
+                argb[argbOffset + i] = interpret(y, cb, cr);
+                continue;
+            }
+            final int redOffset = RED_OF_CR[cr];
+            final int greenOffset = GREEN_OF_CB_CR[cb << 8 | cr];
+            final int blueOffset = BLUE_OF_CB[cb];
+            if (redOffset == INEXACT || greenOffset == INEXACT || blueOffset == INEXACT) {
+                argb[argbOffset + i] = interpret(y, cb, cr);
+                continue;
+            }
+            final int red = Math.min(255, Math.max(0, y + redOffset));
+            final int green = Math.min(255, Math.max(0, y + greenOffset));
+            final int blue = Math.min(255, Math.max(0, y + blueOffset));
+            argb[argbOffset + i] = 0xff000000 | red << 16 | green << 8 | blue;
+        }
+    }
 
+    @Override
+    public boolean supportsRowInterpretation() {
+        return true;
     }
 }
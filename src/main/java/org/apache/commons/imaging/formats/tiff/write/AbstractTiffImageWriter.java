@@ -16,27 +16,29 @@
  */
 package org.apache.commons.imaging.formats.tiff.write;
 
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.PixelDensity;
 import org.apache.commons.imaging.common.AbstractBinaryOutputStream;
 import org.apache.commons.imaging.common.Allocator;
-import org.apache.commons.imaging.common.PackBits;
 import org.apache.commons.imaging.common.RationalNumber;
-import org.apache.commons.imaging.common.ZlibDeflate;
 import org.apache.commons.imaging.formats.tiff.AbstractTiffElement;
 import org.apache.commons.imaging.formats.tiff.AbstractTiffImageData;
 import org.apache.commons.imaging.formats.tiff.TiffImagingParameters;
@@ -44,8 +46,6 @@ import org.apache.commons.imaging.formats.tiff.constants.ExifTagConstants;
 import org.apache.commons.imaging.formats.tiff.constants.TiffConstants;
 import org.apache.commons.imaging.formats.tiff.constants.TiffDirectoryConstants;
 import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
-import org.apache.commons.imaging.formats.tiff.itu_t4.T4AndT6Compression;
-import org.apache.commons.imaging.mylzw.MyLzwCompressor;
 
 /**
  * Abstract class for writing TIFF images.
@@ -54,6 +54,11 @@ public abstract class AbstractTiffImageWriter {
 
     private static final int MAX_PIXELS_FOR_RGB = 1024 * 1024;
 
+    // fields giving the image data of the written image, which user fields cannot replace
+    private static final Set<Integer> IMAGE_DATA_TAGS = new HashSet<>(Arrays.asList(TiffTagConstants.TIFF_TAG_STRIP_OFFSETS.tag,
+            TiffTagConstants.TIFF_TAG_STRIP_BYTE_COUNTS.tag, TiffTagConstants.TIFF_TAG_TILE_OFFSETS.tag, TiffTagConstants.TIFF_TAG_TILE_BYTE_COUNTS.tag,
+            TiffTagConstants.TIFF_TAG_JPEG_INTERCHANGE_FORMAT.tag, TiffTagConstants.TIFF_TAG_JPEG_INTERCHANGE_FORMAT_LENGTH.tag));
+
     /**
      * Calculates the padding length needed for image data alignment.
      *
@@ -83,17 +88,6 @@ public abstract class AbstractTiffImageWriter {
         this.byteOrder = byteOrder;
     }
 
-    private void applyPredictor(final int width, final int bytesPerSample, final byte[] b) {
-        final int nBytesPerRow = bytesPerSample * width;
-        final int nRows = b.length / nBytesPerRow;
-        for (int iRow = 0; iRow < nRows; iRow++) {
-            final int offset = iRow * nBytesPerRow;
-            for (int i = nBytesPerRow - 1; i >= bytesPerSample; i--) {
-                b[offset + i] -= b[offset + i - bytesPerSample];
-            }
-        }
-    }
-
     /**
      * Check an image to see if any of its pixels are non-opaque.
      *
@@ -143,7 +137,7 @@ public abstract class AbstractTiffImageWriter {
         }
     }
 
-    private byte[][] getStrips(final BufferedImage src, final int samplesPerPixel, final int bitsPerSample, final int rowsPerStrip) {
+    private byte[][] getStrips(final BufferedImage src, final TiffBlockEncoder encoder, final int rowsPerStrip) {
         final int width = src.getWidth();
         final int height = src.getHeight();
 
@@ -151,68 +145,10 @@ public abstract class AbstractTiffImageWriter {
 
         // Write Strips
         final byte[][] result = new byte[Allocator.check(stripCount)][];
-
-        int remainingRows = height;
-
         for (int i = 0; i < stripCount; i++) {
-            final int rowsInStrip = Math.min(rowsPerStrip, remainingRows);
-            remainingRows -= rowsInStrip;
-
-            final int bitsInRow = bitsPerSample * samplesPerPixel * width;
-            final int bytesPerRow = (bitsInRow + 7) / 8;
-            final int bytesInStrip = rowsInStrip * bytesPerRow;
-
-            final byte[] uncompressed = Allocator.byteArray(bytesInStrip);
-
-            int counter = 0;
-            int y = i * rowsPerStrip;
-            final int stop = i * rowsPerStrip + rowsPerStrip;
-
-            for (; y < height && y < stop; y++) {
-                int bitCache = 0;
-                int bitsInCache = 0;
-                for (int x = 0; x < width; x++) {
-                    final int rgb = src.getRGB(x, y);
-                    final int red = 0xff & rgb >> 16;
-                    final int green = 0xff & rgb >> 8;
-                    final int blue = 0xff & rgb >> 0;
-
-                    if (bitsPerSample == 1) {
-                        int sample = (red + green + blue) / 3;
-                        if (sample > 127) {
-                            sample = 0;
-                        } else {
-                            sample = 1;
-                        }
-                        bitCache <<= 1;
-                        bitCache |= sample;
-                        bitsInCache++;
-                        if (bitsInCache == 8) {
-                            uncompressed[counter++] = (byte) bitCache;
-                            bitCache = 0;
-                            bitsInCache = 0;
-                        }
-                    } else if (samplesPerPixel == 4) {
-                        uncompressed[counter++] = (byte) red;
-                        uncompressed[counter++] = (byte) green;
-                        uncompressed[counter++] = (byte) blue;
-                        uncompressed[counter++] = (byte) (rgb >> 24);
-                    } else {
-                        // samples per pixel is 3
-                        uncompressed[counter++] = (byte) red;
-                        uncompressed[counter++] = (byte) green;
-                        uncompressed[counter++] = (byte) blue;
-                    }
-                }
-                if (bitsInCache > 0) {
-                    bitCache <<= 8 - bitsInCache;
-                    uncompressed[counter++] = (byte) bitCache;
-                }
-            }
-
-            result[i] = uncompressed;
+            final int y = i * rowsPerStrip;
+            result[i] = encoder.getBlock(src, 0, y, width, Math.min(rowsPerStrip, height - y));
         }
-
         return result;
     }
 
@@ -390,8 +326,104 @@ public abstract class AbstractTiffImageWriter {
      */
     public abstract void write(OutputStream os, TiffOutputSet outputSet) throws IOException, ImagingException;
 
+    /**
+     * Adds the fields describing an image to its directory. An overview has the resolution of the image scaled to its size, and no XMP.
+     */
+    private void addImageFields(final TiffOutputDirectory directory, final int width, final int height, final int fullWidth, final int fullHeight,
+            final TiffBlockEncoder encoder, final int compression, final int photometricInterpretation, final int samplesPerPixel, final int bitsPerSample,
+            final TiffImagingParameters params) throws ImagingException {
+        final boolean overview = width != fullWidth || height != fullHeight;
+        final double scaleX = (double) width / fullWidth;
+        final double scaleY = (double) height / fullHeight;
+        final String xmpXml = params.getXmpXml();
+
+        PixelDensity pixelDensity = params.getPixelDensity();
+        if (pixelDensity == null) {
+            pixelDensity = PixelDensity.createFromPixelsPerInch(72, 72);
+        }
+
+        if (overview) {
+            directory.add(TiffTagConstants.TIFF_TAG_NEW_SUBFILE_TYPE, TiffTagConstants.SUBFILE_TYPE_VALUE_REDUCED_RESOLUTION_IMAGE);
+        }
+        directory.add(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH, width);
+        directory.add(TiffTagConstants.TIFF_TAG_IMAGE_LENGTH, height);
+        directory.add(TiffTagConstants.TIFF_TAG_PHOTOMETRIC_INTERPRETATION, (short) photometricInterpretation);
+        directory.add(TiffTagConstants.TIFF_TAG_COMPRESSION, (short) compression);
+        directory.add(TiffTagConstants.TIFF_TAG_SAMPLES_PER_PIXEL, (short) samplesPerPixel);
+
+        switch (samplesPerPixel) {
+        case 3:
+            directory.add(TiffTagConstants.TIFF_TAG_BITS_PER_SAMPLE, (short) bitsPerSample, (short) bitsPerSample, (short) bitsPerSample);
+            break;
+        case 4:
+            directory.add(TiffTagConstants.TIFF_TAG_BITS_PER_SAMPLE, (short) bitsPerSample, (short) bitsPerSample, (short) bitsPerSample,
+                    (short) bitsPerSample);
+            directory.add(TiffTagConstants.TIFF_TAG_EXTRA_SAMPLES, (short) TiffTagConstants.EXTRA_SAMPLE_UNASSOCIATED_ALPHA);
+            break;
+        case 1:
+            directory.add(TiffTagConstants.TIFF_TAG_BITS_PER_SAMPLE, (short) bitsPerSample);
+            break;
+        default:
+            break;
+        }
+        if (pixelDensity.isUnitless()) {
+            directory.add(TiffTagConstants.TIFF_TAG_RESOLUTION_UNIT, (short) 0);
+            directory.add(TiffTagConstants.TIFF_TAG_XRESOLUTION, RationalNumber.valueOf(pixelDensity.getRawHorizontalDensity() * scaleX));
+            directory.add(TiffTagConstants.TIFF_TAG_YRESOLUTION, RationalNumber.valueOf(pixelDensity.getRawVerticalDensity() * scaleY));
+        } else if (pixelDensity.isInInches()) {
+            directory.add(TiffTagConstants.TIFF_TAG_RESOLUTION_UNIT, (short) 2);
+            directory.add(TiffTagConstants.TIFF_TAG_XRESOLUTION, RationalNumber.valueOf(pixelDensity.horizontalDensityInches() * scaleX));
+            directory.add(TiffTagConstants.TIFF_TAG_YRESOLUTION, RationalNumber.valueOf(pixelDensity.verticalDensityInches() * scaleY));
+        } else {
+            directory.add(TiffTagConstants.TIFF_TAG_RESOLUTION_UNIT, (short) 1);
+            directory.add(TiffTagConstants.TIFF_TAG_XRESOLUTION, RationalNumber.valueOf(pixelDensity.horizontalDensityCentimetres() * scaleX));
+            directory.add(TiffTagConstants.TIFF_TAG_YRESOLUTION, RationalNumber.valueOf(pixelDensity.verticalDensityCentimetres() * scaleY));
+        }
+        if (encoder.getT4Options() != 0) {
+            directory.add(TiffTagConstants.TIFF_TAG_T4_OPTIONS, encoder.getT4Options());
+        }
+        if (encoder.getT6Options() != 0) {
+            directory.add(TiffTagConstants.TIFF_TAG_T6_OPTIONS, encoder.getT6Options());
+        }
+
+        if (null != xmpXml && !overview) {
+            final byte[] xmpXmlBytes = xmpXml.getBytes(StandardCharsets.UTF_8);
+            directory.add(TiffTagConstants.TIFF_TAG_XMP, xmpXmlBytes);
+        }
+
+        final short predictor = encoder.getPredictor();
+        if (predictor == TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING) {
+            directory.add(TiffTagConstants.TIFF_TAG_PREDICTOR, predictor);
+        }
+    }
+
+    /**
+     * Adds the fields of the root directory of a user output set to the single directory of a tiled or BigTIFF image.
+     */
+    private void addUserFields(final TiffOutputSet userExif, final TiffOutputDirectory directory) throws ImagingException {
+        for (final TiffOutputDirectory userDirectory : userExif) {
+            if (userDirectory.getType() != TiffDirectoryConstants.DIRECTORY_TYPE_ROOT) {
+                throw new ImagingException("Tiled and BigTIFF images are written with a root directory only, not directory " + userDirectory.getType());
+            }
+            for (final TiffOutputField userField : userDirectory) {
+                if (userField.tag == ExifTagConstants.EXIF_TAG_EXIF_OFFSET.tag || userField.tag == ExifTagConstants.EXIF_TAG_GPSINFO.tag
+                        || userField.tag == ExifTagConstants.EXIF_TAG_INTEROP_OFFSET.tag) {
+                    throw new ImagingException("Tiled and BigTIFF images cannot have field " + userField.tagInfo.getDescription());
+                }
+                if (directory.findField(userField.tag) == null && !IMAGE_DATA_TAGS.contains(userField.tag)) {
+                    directory.add(userField);
+                }
+            }
+        }
+    }
+
     /**
      * Writes a BufferedImage to an output stream in TIFF format.
+     * <p>
+     * Images are written as strips in classic TIFF unless tiles or BigTIFF are asked for, or the image could exceed the 4 GB classic TIFF can address. Since
+     * a stream cannot be rewound, all compressed strips or tiles are held in memory until the image is written; write to a channel with
+     * {@link #writeImage(BufferedImage, SeekableByteChannel, TiffImagingParameters)} to write very large images.
+     * </p>
      *
      * @param src the source image.
      * @param os the output stream.
@@ -400,14 +432,32 @@ public abstract class AbstractTiffImageWriter {
      * @throws IOException if an I/O error occurs.
      */
     public void writeImage(final BufferedImage src, final OutputStream os, final TiffImagingParameters params) throws ImagingException, IOException {
-        final TiffOutputSet userExif = params.getOutputSet();
+        writeImage(src, os, null, params);
+    }
 
-        final String xmpXml = params.getXmpXml();
+    /**
+     * Writes a BufferedImage to a channel in TIFF format, from the current position of the channel.
+     * <p>
+     * The image is written as strips, or as tiles if a tile size is set, which are compressed concurrently if an executor is set. Each is written to the
+     * channel as soon as it and those before it are done, so only a few are held in memory at once, and their offsets are written into the directory at the
+     * start of the file at the end. BigTIFF is written if asked for, or if the image could exceed the 4 GB classic TIFF can address.
+     * </p>
+     *
+     * @param src the source image.
+     * @param channel the channel, left positioned after the image.
+     * @param params the imaging parameters.
+     * @throws ImagingException if the image format is invalid.
+     * @throws IOException if an I/O error occurs.
+     * @since 1.0.0-alpha7
+     */
+    public void writeImage(final BufferedImage src, final SeekableByteChannel channel, final TiffImagingParameters params) throws ImagingException,
+            IOException {
+        writeImage(src, null, channel, params);
+    }
 
-        PixelDensity pixelDensity = params.getPixelDensity();
-        if (pixelDensity == null) {
-            pixelDensity = PixelDensity.createFromPixelsPerInch(72, 72);
-        }
+    private void writeImage(final BufferedImage src, final OutputStream os, final SeekableByteChannel channel, final TiffImagingParameters params)
+            throws ImagingException, IOException {
+        final TiffOutputSet userExif = params.getOutputSet();
 
         final int width = src.getWidth();
         final int height = src.getHeight();
@@ -433,7 +483,6 @@ public abstract class AbstractTiffImageWriter {
         // commensurate with the complexity of the extra code it would require.
 
         int compression = TiffConstants.COMPRESSION_LZW;
-        short predictor = TiffTagConstants.PREDICTOR_VALUE_NONE;
 
         int stripSizeInBits = 64000; // the default from legacy implementation
         final Integer compressionParameter = params.getCompression();
@@ -461,91 +510,58 @@ public abstract class AbstractTiffImageWriter {
             bitsPerSample = 8;
             photometricInterpretation = 2;
         }
+        final TiffBlockEncoder encoder = new TiffBlockEncoder(compression, samplesPerPixel, bitsPerSample, params);
 
         int rowsPerStrip = stripSizeInBits / (width * bitsPerSample * samplesPerPixel);
         rowsPerStrip = Math.max(1, rowsPerStrip); // must have at least one.
 
-        final byte[][] strips = getStrips(src, samplesPerPixel, bitsPerSample, rowsPerStrip);
-
-        // System.out.println("width: " + width);
-        // System.out.println("height: " + height);
-        // System.out.println("fRowsPerStrip: " + fRowsPerStrip);
-        // System.out.println("fSamplesPerPixel: " + fSamplesPerPixel);
-        // System.out.println("stripCount: " + stripCount);
-
-        int t4Options = 0;
-        int t6Options = 0;
-        switch (compression) {
-        case TiffConstants.COMPRESSION_CCITT_1D:
-            for (int i = 0; i < strips.length; i++) {
-                strips[i] = T4AndT6Compression.compressModifiedHuffman(strips[i], width, strips[i].length / ((width + 7) / 8));
-            }
-            break;
-        case TiffConstants.COMPRESSION_CCITT_GROUP_3: {
-            final Integer t4Parameter = params.getT4Options();
-            if (t4Parameter != null) {
-                t4Options = t4Parameter.intValue();
-            }
-            t4Options &= 0x7;
-            final boolean is2D = (t4Options & 1) != 0;
-            final boolean usesUncompressedMode = (t4Options & 2) != 0;
-            if (usesUncompressedMode) {
-                throw new ImagingException("T.4 compression with the uncompressed mode extension is not yet supported");
+        final boolean tiles = params.getTileWidth() > 0;
+        final Boolean bigTiff = params.getBigTiff();
+        if (params.getOverviewLevels() > 0 && !tiles) {
+            throw new ImagingException("Overviews are written only with tiled images, a tile size must be set");
+        }
+        if (channel != null || tiles || Boolean.TRUE.equals(bigTiff)
+                || bigTiff == null && encoder.maxCompressedLength((long) encoder.getBytesPerRow(width) * height, height) > TiffBlockWriter.MAX_CLASSIC_OFFSET) {
+            final List<Dimension> sizes = new ArrayList<>();
+            sizes.add(new Dimension(width, height));
+            if (tiles) {
+                sizes.addAll(TiffOverviews.getSizes(width, height, params.getOverviewLevels(), params.getTileWidth(), params.getTileLength()));
             }
-            final boolean hasFillBitsBeforeEOL = (t4Options & 4) != 0;
-            for (int i = 0; i < strips.length; i++) {
-                if (is2D) {
-                    strips[i] = T4AndT6Compression.compressT4_2D(strips[i], width, strips[i].length / ((width + 7) / 8), hasFillBitsBeforeEOL, rowsPerStrip);
+            final List<TiffBlockWriter.Subfile> subfiles = new ArrayList<>(sizes.size());
+            for (int i = 0; i < sizes.size(); i++) {
+                final Dimension size = sizes.get(i);
+                final TiffOutputDirectory directory = new TiffOutputDirectory(TiffDirectoryConstants.DIRECTORY_TYPE_ROOT + i, byteOrder);
+                addImageFields(directory, size.width, size.height, width, height, encoder, compression, photometricInterpretation, samplesPerPixel,
+                        bitsPerSample, params);
+                if (tiles) {
+                    directory.add(TiffTagConstants.TIFF_TAG_TILE_WIDTH, params.getTileWidth());
+                    directory.add(TiffTagConstants.TIFF_TAG_TILE_LENGTH, params.getTileLength());
                 } else {
-                    strips[i] = T4AndT6Compression.compressT4_1D(strips[i], width, strips[i].length / ((width + 7) / 8), hasFillBitsBeforeEOL);
+                    directory.add(TiffTagConstants.TIFF_TAG_ROWS_PER_STRIP, rowsPerStrip);
                 }
+                if (userExif != null && i == 0) {
+                    addUserFields(userExif, directory);
+                }
+                subfiles.add(new TiffBlockWriter.Subfile(directory, size.width, size.height, tiles, tiles ? params.getTileWidth() : width,
+                        tiles ? params.getTileLength() : rowsPerStrip));
             }
-            break;
-        }
-        case TiffConstants.COMPRESSION_CCITT_GROUP_4: {
-            final Integer t6Parameter = params.getT6Options();
-            if (t6Parameter != null) {
-                t6Options = t6Parameter.intValue();
-            }
-            t6Options &= 0x4;
-            final boolean usesUncompressedMode = (t6Options & TiffConstants.FLAG_T6_OPTIONS_UNCOMPRESSED_MODE) != 0;
-            if (usesUncompressedMode) {
-                throw new ImagingException("T.6 compression with the uncompressed mode extension is not yet supported");
-            }
-            for (int i = 0; i < strips.length; i++) {
-                strips[i] = T4AndT6Compression.compressT6(strips[i], width, strips[i].length / ((width + 7) / 8));
+            // the tiles of the overviews are made as the rows of the image are read, and written as they are made
+            final Iterator<TiffBlockWriter.Block> blocks = subfiles.size() > 1
+                    ? new TiffOverviews(src, encoder, subfiles, sizes.subList(1, sizes.size()), params.getTileWidth(), params.getTileLength())
+                    : subfiles.get(0).getBlocks(src, encoder);
+            // the directories are complete, since their length sets where the image data starts
+            final TiffBlockWriter blockWriter = new TiffBlockWriter(byteOrder, encoder, subfiles, blocks, bigTiff, params.getExecutor());
+            if (channel != null) {
+                blockWriter.write(channel);
+            } else {
+                blockWriter.write(os);
             }
-            break;
+            return;
         }
-        case TiffConstants.COMPRESSION_PACKBITS:
-            for (int i = 0; i < strips.length; i++) {
-                strips[i] = PackBits.compress(strips[i]);
-            }
-            break;
-        case TiffConstants.COMPRESSION_LZW:
-            predictor = TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING;
-            for (int i = 0; i < strips.length; i++) {
-                final byte[] uncompressed = strips[i];
-                applyPredictor(width, samplesPerPixel, strips[i]);
-
-                final int LZW_MINIMUM_CODE_SIZE = 8;
-                final MyLzwCompressor compressor = new MyLzwCompressor(LZW_MINIMUM_CODE_SIZE, ByteOrder.BIG_ENDIAN, true);
-                final byte[] compressed = compressor.compress(uncompressed);
-                strips[i] = compressed;
-            }
-            break;
-        case TiffConstants.COMPRESSION_DEFLATE_ADOBE:
-            predictor = TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING;
-            for (int i = 0; i < strips.length; i++) {
-                applyPredictor(width, samplesPerPixel, strips[i]);
-                strips[i] = ZlibDeflate.compress(strips[i]);
-            }
-            break;
-        case TiffConstants.COMPRESSION_UNCOMPRESSED:
-            break;
-        default:
-            throw new ImagingException(
-                    "Invalid compression parameter (Only CCITT 1D/Group 3/Group 4, LZW, Packbits, Zlib Deflate and uncompressed supported).");
+
+        final byte[][] strips = getStrips(src, encoder, rowsPerStrip);
+        for (int i = 0; i < strips.length; i++) {
+            strips[i] = encoder.compress(strips[i], width, strips[i].length / encoder.getBytesPerRow(width));
         }
 
         final AbstractTiffElement.DataElement[] imageData = new AbstractTiffElement.DataElement[strips.length];
@@ -553,72 +569,8 @@ public abstract class AbstractTiffImageWriter {
 
         final TiffOutputSet outputSet = new TiffOutputSet(byteOrder);
         final TiffOutputDirectory directory = outputSet.addRootDirectory();
-
-        // WriteField stripOffsetsField;
-
-        directory.add(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH, width);
-        directory.add(TiffTagConstants.TIFF_TAG_IMAGE_LENGTH, height);
-        directory.add(TiffTagConstants.TIFF_TAG_PHOTOMETRIC_INTERPRETATION, (short) photometricInterpretation);
-        directory.add(TiffTagConstants.TIFF_TAG_COMPRESSION, (short) compression);
-        directory.add(TiffTagConstants.TIFF_TAG_SAMPLES_PER_PIXEL, (short) samplesPerPixel);
-
-        switch (samplesPerPixel) {
-        case 3:
-            directory.add(TiffTagConstants.TIFF_TAG_BITS_PER_SAMPLE, (short) bitsPerSample, (short) bitsPerSample, (short) bitsPerSample);
-            break;
-        case 4:
-            directory.add(TiffTagConstants.TIFF_TAG_BITS_PER_SAMPLE, (short) bitsPerSample, (short) bitsPerSample, (short) bitsPerSample,
-                    (short) bitsPerSample);
-            directory.add(TiffTagConstants.TIFF_TAG_EXTRA_SAMPLES, (short) TiffTagConstants.EXTRA_SAMPLE_UNASSOCIATED_ALPHA);
-            break;
-        case 1:
-            directory.add(TiffTagConstants.TIFF_TAG_BITS_PER_SAMPLE, (short) bitsPerSample);
-            break;
-        default:
-            break;
-        }
-        // {
-        // stripOffsetsField = new WriteField(TIFF_TAG_STRIP_OFFSETS,
-        // FIELD_TYPE_LONG, stripOffsets.length, FIELD_TYPE_LONG
-        // .writeData(stripOffsets, byteOrder));
-        // directory.add(stripOffsetsField);
-        // }
-        // {
-        // WriteField field = new WriteField(TIFF_TAG_STRIP_BYTE_COUNTS,
-        // FIELD_TYPE_LONG, stripByteCounts.length,
-        // FIELD_TYPE_LONG.writeData(stripByteCounts,
-        // WRITE_BYTE_ORDER));
-        // directory.add(field);
-        // }
+        addImageFields(directory, width, height, width, height, encoder, compression, photometricInterpretation, samplesPerPixel, bitsPerSample, params);
         directory.add(TiffTagConstants.TIFF_TAG_ROWS_PER_STRIP, rowsPerStrip);
-        if (pixelDensity.isUnitless()) {
-            directory.add(TiffTagConstants.TIFF_TAG_RESOLUTION_UNIT, (short) 0);
-            directory.add(TiffTagConstants.TIFF_TAG_XRESOLUTION, RationalNumber.valueOf(pixelDensity.getRawHorizontalDensity()));
-            directory.add(TiffTagConstants.TIFF_TAG_YRESOLUTION, RationalNumber.valueOf(pixelDensity.getRawVerticalDensity()));
-        } else if (pixelDensity.isInInches()) {
-            directory.add(TiffTagConstants.TIFF_TAG_RESOLUTION_UNIT, (short) 2);
-            directory.add(TiffTagConstants.TIFF_TAG_XRESOLUTION, RationalNumber.valueOf(pixelDensity.horizontalDensityInches()));
-            directory.add(TiffTagConstants.TIFF_TAG_YRESOLUTION, RationalNumber.valueOf(pixelDensity.verticalDensityInches()));
-        } else {
-            directory.add(TiffTagConstants.TIFF_TAG_RESOLUTION_UNIT, (short) 1);
-            directory.add(TiffTagConstants.TIFF_TAG_XRESOLUTION, RationalNumber.valueOf(pixelDensity.horizontalDensityCentimetres()));
-            directory.add(TiffTagConstants.TIFF_TAG_YRESOLUTION, RationalNumber.valueOf(pixelDensity.verticalDensityCentimetres()));
-        }
-        if (t4Options != 0) {
-            directory.add(TiffTagConstants.TIFF_TAG_T4_OPTIONS, t4Options);
-        }
-        if (t6Options != 0) {
-            directory.add(TiffTagConstants.TIFF_TAG_T6_OPTIONS, t6Options);
-        }
-
-        if (null != xmpXml) {
-            final byte[] xmpXmlBytes = xmpXml.getBytes(StandardCharsets.UTF_8);
-            directory.add(TiffTagConstants.TIFF_TAG_XMP, xmpXmlBytes);
-        }
-
-        if (predictor == TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING) {
-            directory.add(TiffTagConstants.TIFF_TAG_PREDICTOR, predictor);
-        }
 
         final AbstractTiffImageData abstractTiffImageData = new AbstractTiffImageData.Strips(imageData, rowsPerStrip);
         directory.setTiffImageData(abstractTiffImageData);
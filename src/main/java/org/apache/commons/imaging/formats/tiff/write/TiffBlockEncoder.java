@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff.write;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.Allocator;
+import org.apache.commons.imaging.common.PackBits;
+import org.apache.commons.imaging.common.ZlibDeflate;
+import org.apache.commons.imaging.formats.tiff.TiffImagingParameters;
+import org.apache.commons.imaging.formats.tiff.constants.TiffConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.itu_t4.T4AndT6Compression;
+import org.apache.commons.imaging.mylzw.MyLzwCompressor;
+
+/**
+ * Converts rectangles of an image, the strips or tiles of a TIFF image, into samples and compresses them.
+ * <p>
+ * Blocks may be encoded concurrently. LZW compressors, whose string tables are costly to allocate, are pooled so that each thread reuses one.
+ * </p>
+ */
+final class TiffBlockEncoder {
+
+    private static final int LZW_MINIMUM_CODE_SIZE = 8;
+
+    private final int compression;
+    private final int samplesPerPixel;
+    private final int bitsPerSample;
+    private final int t4Options;
+    private final int t6Options;
+    private final Queue<MyLzwCompressor> lzwCompressors = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param compression     the compression.
+     * @param samplesPerPixel the samples per pixel, 1 for bilevel images, 3 for RGB or 4 for RGB with alpha.
+     * @param bitsPerSample   the bits per sample, 1 for bilevel images or 8.
+     * @param params          the parameters giving the T.4 and T.6 options.
+     * @throws ImagingException if the compression or its options are not supported.
+     */
+    TiffBlockEncoder(final int compression, final int samplesPerPixel, final int bitsPerSample, final TiffImagingParameters params) throws ImagingException {
+        this.compression = compression;
+        this.samplesPerPixel = samplesPerPixel;
+        this.bitsPerSample = bitsPerSample;
+
+        int t4 = 0;
+        int t6 = 0;
+        switch (compression) {
+        case TiffConstants.COMPRESSION_CCITT_GROUP_3: {
+            final Integer t4Parameter = params.getT4Options();
+            if (t4Parameter != null) {
+                t4 = t4Parameter.intValue();
+            }
+            t4 &= 0x7;
+            final boolean usesUncompressedMode = (t4 & 2) != 0;
+            if (usesUncompressedMode) {
+                throw new ImagingException("T.4 compression with the uncompressed mode extension is not yet supported");
+            }
+            break;
+        }
+        case TiffConstants.COMPRESSION_CCITT_GROUP_4: {
+            final Integer t6Parameter = params.getT6Options();
+            if (t6Parameter != null) {
+                t6 = t6Parameter.intValue();
+            }
+            t6 &= 0x4;
+            final boolean usesUncompressedMode = (t6 & TiffConstants.FLAG_T6_OPTIONS_UNCOMPRESSED_MODE) != 0;
+            if (usesUncompressedMode) {
+                throw new ImagingException("T.6 compression with the uncompressed mode extension is not yet supported");
+            }
+            break;
+        }
+        case TiffConstants.COMPRESSION_CCITT_1D:
+        case TiffConstants.COMPRESSION_PACKBITS:
+        case TiffConstants.COMPRESSION_LZW:
+        case TiffConstants.COMPRESSION_DEFLATE_ADOBE:
+        case TiffConstants.COMPRESSION_UNCOMPRESSED:
+            break;
+        default:
+            throw new ImagingException(
+                    "Invalid compression parameter (Only CCITT 1D/Group 3/Group 4, LZW, Packbits, Zlib Deflate and uncompressed supported).");
+        }
+        this.t4Options = t4;
+        this.t6Options = t6;
+    }
+
+    private void applyPredictor(final int width, final byte[] b) {
+        final int nBytesPerRow = samplesPerPixel * width;
+        final int nRows = b.length / nBytesPerRow;
+        for (int iRow = 0; iRow < nRows; iRow++) {
+            final int offset = iRow * nBytesPerRow;
+            for (int i = nBytesPerRow - 1; i >= samplesPerPixel; i--) {
+                b[offset + i] -= b[offset + i - samplesPerPixel];
+            }
+        }
+    }
+
+    /**
+     * Compresses the samples of a block. Samples are differenced in place first if a predictor is used.
+     *
+     * @param uncompressed the samples, as returned by {@link #getBlock(BufferedImage, int, int, int, int)}.
+     * @param blockWidth   the width of the block.
+     * @param rows         the number of rows of the block.
+     * @return the compressed block.
+     * @throws ImagingException if the samples cannot be compressed.
+     * @throws IOException      if an I/O error occurs.
+     */
+    byte[] compress(final byte[] uncompressed, final int blockWidth, final int rows) throws ImagingException, IOException {
+        switch (compression) {
+        case TiffConstants.COMPRESSION_CCITT_1D:
+            return T4AndT6Compression.compressModifiedHuffman(uncompressed, blockWidth, rows);
+        case TiffConstants.COMPRESSION_CCITT_GROUP_3: {
+            final boolean is2D = (t4Options & 1) != 0;
+            final boolean hasFillBitsBeforeEOL = (t4Options & 4) != 0;
+            if (is2D) {
+                // with K at least the number of rows, only the first row of the block is coded in one dimension
+                return T4AndT6Compression.compressT4_2D(uncompressed, blockWidth, rows, hasFillBitsBeforeEOL, rows);
+            }
+            return T4AndT6Compression.compressT4_1D(uncompressed, blockWidth, rows, hasFillBitsBeforeEOL);
+        }
+        case TiffConstants.COMPRESSION_CCITT_GROUP_4:
+            return T4AndT6Compression.compressT6(uncompressed, blockWidth, rows);
+        case TiffConstants.COMPRESSION_PACKBITS:
+            return PackBits.compress(uncompressed);
+        case TiffConstants.COMPRESSION_LZW: {
+            applyPredictor(blockWidth, uncompressed);
+            MyLzwCompressor compressor = lzwCompressors.poll();
+            if (compressor == null) {
+                compressor = new MyLzwCompressor(LZW_MINIMUM_CODE_SIZE, ByteOrder.BIG_ENDIAN, true);
+            }
+            final byte[] compressed = compressor.compress(uncompressed);
+            lzwCompressors.add(compressor);
+            return compressed;
+        }
+        case TiffConstants.COMPRESSION_DEFLATE_ADOBE:
+            applyPredictor(blockWidth, uncompressed);
+            return ZlibDeflate.compress(uncompressed);
+        default:
+            return uncompressed;
+        }
+    }
+
+    /**
+     * Gets the samples of a block of an image. Samples of pixels past the right or bottom edge of the image, which pad tiles, are zero.
+     *
+     * @param src        the image.
+     * @param x0         the X coordinate of the block.
+     * @param y0         the Y coordinate of the block.
+     * @param blockWidth the width of the block.
+     * @param rows       the number of rows of the block.
+     * @return the samples, with each row starting on a byte boundary.
+     */
+    byte[] getBlock(final BufferedImage src, final int x0, final int y0, final int blockWidth, final int rows) {
+        final int bytesPerRow = getBytesPerRow(blockWidth);
+        final byte[] block = Allocator.byteArray((long) bytesPerRow * rows);
+        final int width = Math.min(blockWidth, src.getWidth() - x0);
+        final int height = Math.min(rows, src.getHeight() - y0);
+        final int[] argb = Allocator.intArray(width);
+        for (int row = 0; row < height; row++) {
+            src.getRGB(x0, y0 + row, width, 1, argb, 0, width);
+            int counter = row * bytesPerRow;
+            if (bitsPerSample == 1) {
+                for (int x = 0; x < width; x++) {
+                    final int rgb = argb[x];
+                    final int sample = (0xff & rgb >> 16) + (0xff & rgb >> 8) + (0xff & rgb);
+                    // dark pixels are 1, since the photometric interpretation is white is zero
+                    if (sample / 3 <= 127) {
+                        block[counter + (x >> 3)] |= 0x80 >> (x & 7);
+                    }
+                }
+            } else if (samplesPerPixel == 4) {
+                for (int x = 0; x < width; x++) {
+                    final int rgb = argb[x];
+                    block[counter++] = (byte) (rgb >> 16);
+                    block[counter++] = (byte) (rgb >> 8);
+                    block[counter++] = (byte) rgb;
+                    block[counter++] = (byte) (rgb >> 24);
+                }
+            } else {
+                // samples per pixel is 3
+                for (int x = 0; x < width; x++) {
+                    final int rgb = argb[x];
+                    block[counter++] = (byte) (rgb >> 16);
+                    block[counter++] = (byte) (rgb >> 8);
+                    block[counter++] = (byte) rgb;
+                }
+            }
+        }
+        return block;
+    }
+
+    /**
+     * Gets the number of bytes of a row of samples.
+     *
+     * @param width the number of pixels of the row.
+     * @return the number of bytes.
+     */
+    int getBytesPerRow(final int width) {
+        return (bitsPerSample * samplesPerPixel * width + 7) / 8;
+    }
+
+    /**
+     * Gets the predictor applied before compression.
+     *
+     * @return the predictor.
+     */
+    short getPredictor() {
+        if (compression == TiffConstants.COMPRESSION_LZW || compression == TiffConstants.COMPRESSION_DEFLATE_ADOBE) {
+            return TiffTagConstants.PREDICTOR_VALUE_HORIZONTAL_DIFFERENCING;
+        }
+        return TiffTagConstants.PREDICTOR_VALUE_NONE;
+    }
+
+    /**
+     * Gets the T.4 options written with Group 3 compression.
+     *
+     * @return the options, 0 for other compressions.
+     */
+    int getT4Options() {
+        return t4Options;
+    }
+
+    /**
+     * Gets the T.6 options written with Group 4 compression.
+     *
+     * @return the options, 0 for other compressions.
+     */
+    int getT6Options() {
+        return t6Options;
+    }
+
+    /**
+     * Gets an upper bound of the compressed length of samples, used to tell whether an image needs BigTIFF before it is compressed.
+     *
+     * @param length the number of bytes of samples.
+     * @param rows   the number of rows they hold.
+     * @return the most bytes they can compress to.
+     */
+    long maxCompressedLength(final long length, final long rows) {
+        switch (compression) {
+        case TiffConstants.COMPRESSION_CCITT_1D:
+        case TiffConstants.COMPRESSION_CCITT_GROUP_3:
+        case TiffConstants.COMPRESSION_CCITT_GROUP_4:
+            // no code takes more than 8 bits per pixel, plus an end of line and fill for each row
+            return 8 * length + 4 * rows + 16;
+        case TiffConstants.COMPRESSION_PACKBITS:
+            return length + (length + 127) / 128;
+        case TiffConstants.COMPRESSION_LZW:
+            // at most one 12-bit code per byte, plus the clear codes
+            return length + (length >> 1) + (length >> 7) + 16;
+        case TiffConstants.COMPRESSION_DEFLATE_ADOBE:
+            return length + (length >> 12) + (length >> 14) + 32;
+        default:
+            return length;
+        }
+    }
+}
@@ -0,0 +1,425 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff.write;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.AbstractBinaryOutputStream;
+import org.apache.commons.imaging.common.Allocator;
+import org.apache.commons.imaging.common.ByteConversions;
+import org.apache.commons.imaging.common.ConcurrentTasks;
+import org.apache.commons.imaging.formats.tiff.constants.TiffConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.fieldtypes.AbstractFieldType;
+import org.apache.commons.imaging.formats.tiff.taginfos.TagInfo;
+
+/**
+ * Writes images as strips or tiles, in classic TIFF or BigTIFF, each with its directory in a chain of directories.
+ * <p>
+ * The file is laid out as the header, the directories with their values, then the image data, so the length of everything before the image data is known
+ * before any block is compressed. Blocks are taken from an iterator in the order they are written, which may interleave those of several images, so an
+ * iterator may make the samples of blocks as it goes rather than hold whole images. Blocks are compressed concurrently if an executor is given, a few per
+ * processor ahead of the one being written, and written in order as they complete. When writing to a channel, only those blocks are held in memory, and the
+ * header and directories are written last, over the space left for them, once the offsets and byte counts of the blocks are known.
+ * </p>
+ */
+final class TiffBlockWriter {
+
+    /**
+     * A block to write: the strip or tile of an image and a supplier of its samples, called on the thread that compresses it.
+     */
+    static final class Block {
+        private final Subfile subfile;
+        private final int index;
+        private final Supplier<byte[]> samples;
+
+        /**
+         * Constructs a new instance.
+         *
+         * @param subfile the image of the block.
+         * @param index   the index of the block in the image.
+         * @param samples the supplier of the samples of the block, as returned by {@link TiffBlockEncoder#getBlock(BufferedImage, int, int, int, int)}.
+         */
+        Block(final Subfile subfile, final int index, final Supplier<byte[]> samples) {
+            this.subfile = subfile;
+            this.index = index;
+            this.samples = samples;
+        }
+    }
+
+    @FunctionalInterface
+    private interface BlockConsumer {
+        void accept(Block block, byte[] data) throws ImagingException, IOException;
+    }
+
+    /**
+     * An image written as blocks, with its directory.
+     */
+    static final class Subfile {
+        private final TiffOutputDirectory directory;
+        private final int height;
+        private final boolean tiles;
+        private final int blockWidth;
+        private final int blockLength;
+        private final int blocksAcross;
+        private final int blockCount;
+        private final TagInfo offsetsTag;
+        private final TagInfo byteCountsTag;
+        private final long[] offsets;
+        private final int[] byteCounts;
+
+        /**
+         * Constructs a new instance.
+         *
+         * @param directory   the directory, with all fields but the offsets and byte counts of the blocks.
+         * @param width       the width of the image.
+         * @param height      the height of the image.
+         * @param tiles       true to write tiles, false to write strips.
+         * @param blockWidth  the width of the tiles, or of the image for strips.
+         * @param blockLength the length of the tiles, or the rows per strip.
+         * @throws ImagingException if the image has too many blocks.
+         */
+        Subfile(final TiffOutputDirectory directory, final int width, final int height, final boolean tiles, final int blockWidth, final int blockLength)
+                throws ImagingException {
+            this.directory = directory;
+            this.height = height;
+            this.tiles = tiles;
+            this.blockWidth = blockWidth;
+            this.blockLength = blockLength;
+            this.blocksAcross = (width + blockWidth - 1) / blockWidth;
+            final int blocksDown = (height + blockLength - 1) / blockLength;
+            this.blockCount = Allocator.check((long) blocksAcross * blocksDown, 1);
+            this.offsetsTag = tiles ? TiffTagConstants.TIFF_TAG_TILE_OFFSETS : TiffTagConstants.TIFF_TAG_STRIP_OFFSETS;
+            this.byteCountsTag = tiles ? TiffTagConstants.TIFF_TAG_TILE_BYTE_COUNTS : TiffTagConstants.TIFF_TAG_STRIP_BYTE_COUNTS;
+            this.offsets = Allocator.longArray(blockCount);
+            this.byteCounts = Allocator.intArray(blockCount);
+        }
+
+        /**
+         * Gets the blocks of an image held in memory, in order, each taking its samples from the image when compressed.
+         *
+         * @param src     the image.
+         * @param encoder the encoder of blocks.
+         * @return the blocks.
+         */
+        Iterator<Block> getBlocks(final BufferedImage src, final TiffBlockEncoder encoder) {
+            return IntStream.range(0, blockCount)
+                    .mapToObj(block -> new Block(this, block, () -> encoder.getBlock(src, getX(block), getY(block), blockWidth, getRows(block)))).iterator();
+        }
+
+        /**
+         * Gets the number of rows of samples of a block, which for tiles includes the padding past the bottom of the image.
+         *
+         * @param block the index of the block.
+         * @return the number of rows.
+         */
+        int getRows(final int block) {
+            if (tiles) {
+                return blockLength;
+            }
+            return Math.min(blockLength, height - block / blocksAcross * blockLength);
+        }
+
+        int getX(final int block) {
+            return block % blocksAcross * blockWidth;
+        }
+
+        int getY(final int block) {
+            return block / blocksAcross * blockLength;
+        }
+    }
+
+    /** The largest offset classic TIFF can hold. */
+    static final long MAX_CLASSIC_OFFSET = 0xFFFFFFFFL;
+
+    // byte order, version 43, 8 bytes per offset, a zero and the 8-byte offset of the first directory
+    private static final int HEADER_SIZE_BIG = 16;
+
+    private static long getDirectoryLength(final int fieldCount, final boolean big) {
+        if (big) {
+            return 8 + (long) TiffConstants.ENTRY_LENGTH_BIG * fieldCount + 8;
+        }
+        return TiffConstants.DIRECTORY_HEADER_LENGTH + (long) TiffConstants.ENTRY_LENGTH * fieldCount + TiffConstants.DIRECTORY_FOOTER_LENGTH;
+    }
+
+    private static void writeFully(final SeekableByteChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void writePadding(final OutputStream os, final int length) throws IOException {
+        for (int i = AbstractTiffImageWriter.imageDataPaddingLength(length); i > 0; i--) {
+            os.write(0);
+        }
+    }
+
+    private final ByteOrder byteOrder;
+    private final TiffBlockEncoder encoder;
+    private final List<Subfile> subfiles;
+    private final Iterator<Block> blocks;
+    private final Executor executor;
+    private final boolean bigTiff;
+
+    // the offset of the first block, after the header, the directories and their values
+    private final long dataOffset;
+
+    private long nextOffset;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param byteOrder the byte order.
+     * @param encoder   the encoder of blocks.
+     * @param subfiles  the images, in the order of their directories.
+     * @param blocks    the blocks of all images, in the order they are written.
+     * @param bigTiff   true to write BigTIFF, false to write classic TIFF, or null to write BigTIFF only if the file could exceed 4 GB.
+     * @param executor  the executor to compress blocks on, or null to compress them on the calling thread.
+     * @throws ImagingException if the directories cannot be written.
+     */
+    TiffBlockWriter(final ByteOrder byteOrder, final TiffBlockEncoder encoder, final List<Subfile> subfiles, final Iterator<Block> blocks,
+            final Boolean bigTiff, final Executor executor) throws ImagingException {
+        this.byteOrder = byteOrder;
+        this.encoder = encoder;
+        this.subfiles = subfiles;
+        this.blocks = blocks;
+        this.executor = executor;
+
+        if (bigTiff != null) {
+            this.bigTiff = bigTiff;
+        } else {
+            long maxLength = getHeaderAndDirectoriesLength(false);
+            for (final Subfile subfile : subfiles) {
+                for (int block = 0; block < subfile.blockCount; block++) {
+                    final int rows = subfile.getRows(block);
+                    final long length = encoder.maxCompressedLength((long) encoder.getBytesPerRow(subfile.blockWidth) * rows, rows);
+                    maxLength += length + AbstractTiffImageWriter.imageDataPaddingLength((int) (length & 3));
+                }
+            }
+            this.bigTiff = maxLength > MAX_CLASSIC_OFFSET;
+        }
+        this.dataOffset = getHeaderAndDirectoriesLength(this.bigTiff);
+        this.nextOffset = dataOffset;
+    }
+
+    private void addBlock(final Block block, final byte[] data) throws ImagingException {
+        if (!bigTiff && nextOffset + data.length > MAX_CLASSIC_OFFSET) {
+            throw new ImagingException("TIFF image data exceeds the 4 GB of classic TIFF, BigTIFF is required");
+        }
+        block.subfile.offsets[block.index] = nextOffset;
+        block.subfile.byteCounts[block.index] = data.length;
+        nextOffset += data.length + AbstractTiffImageWriter.imageDataPaddingLength(data.length);
+    }
+
+    private byte[] compressBlock(final Block block) throws ImagingException, IOException {
+        return encoder.compress(block.samples.get(), block.subfile.blockWidth, block.subfile.getRows(block.index));
+    }
+
+    private void forEachCompressedBlock(final BlockConsumer consumer) throws ImagingException, IOException {
+        // a few blocks per thread are compressed ahead of the one being written, which bounds the memory they take
+        try (ConcurrentTasks tasks = new ConcurrentTasks(executor, "writing TIFF image data")) {
+            while (blocks.hasNext()) {
+                final Block block = blocks.next();
+                tasks.add(() -> compressBlock(block), data -> consumer.accept(block, data));
+            }
+            tasks.finish();
+        }
+    }
+
+    private List<TiffOutputField> getFields(final Subfile subfile, final boolean big) throws ImagingException {
+        final TiffOutputDirectory directory = subfile.directory;
+        final int blockCount = subfile.blockCount;
+        directory.removeField(subfile.offsetsTag);
+        directory.removeField(subfile.byteCountsTag);
+        if (big) {
+            directory.add(new TiffOutputField(subfile.offsetsTag, AbstractFieldType.LONG8, blockCount,
+                    AbstractFieldType.LONG8.writeData(subfile.offsets, byteOrder)));
+        } else {
+            final int[] classicOffsets = Allocator.intArray(blockCount);
+            for (int block = 0; block < blockCount; block++) {
+                classicOffsets[block] = (int) subfile.offsets[block];
+            }
+            directory.add(new TiffOutputField(subfile.offsetsTag, AbstractFieldType.LONG, blockCount,
+                    AbstractFieldType.LONG.writeData(classicOffsets, byteOrder)));
+        }
+        // no block is 4 GB, so byte counts are LONG in BigTIFF too
+        directory.add(new TiffOutputField(subfile.byteCountsTag, AbstractFieldType.LONG, blockCount,
+                AbstractFieldType.LONG.writeData(subfile.byteCounts, byteOrder)));
+        directory.sortFields();
+        return directory.getFields();
+    }
+
+    /**
+     * Gets the header and the directories, with the offsets and byte counts of the blocks added so far.
+     */
+    private byte[] getHeaderAndDirectories() throws ImagingException, IOException {
+        final int maxLocalLength = bigTiff ? TiffConstants.ENTRY_MAX_VALUE_LENGTH_BIG : TiffConstants.ENTRY_MAX_VALUE_LENGTH;
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(Allocator.check(dataOffset, 1));
+        try (AbstractBinaryOutputStream bos = AbstractBinaryOutputStream.create(bytes, byteOrder)) {
+            if (byteOrder == ByteOrder.LITTLE_ENDIAN) {
+                bos.write('I');
+                bos.write('I');
+            } else {
+                bos.write('M');
+                bos.write('M');
+            }
+            if (bigTiff) {
+                bos.write2Bytes(TiffConstants.VERSION_BIG);
+                bos.write2Bytes(8);
+                bos.write2Bytes(0);
+            } else {
+                bos.write2Bytes(TiffConstants.VERSION_STANDARD);
+            }
+            long offset = bigTiff ? HEADER_SIZE_BIG : TiffConstants.HEADER_SIZE;
+            writeOffset(bos, offset);
+
+            // each directory is followed by its values that are too long for their entries, each starting on a word boundary
+            for (int i = 0; i < subfiles.size(); i++) {
+                final List<TiffOutputField> fields = getFields(subfiles.get(i), bigTiff);
+                if (bigTiff) {
+                    writeOffset(bos, fields.size());
+                } else {
+                    bos.write2Bytes(fields.size());
+                }
+                long valueOffset = offset + getDirectoryLength(fields.size(), bigTiff);
+                for (final TiffOutputField field : fields) {
+                    bos.write2Bytes(field.tag);
+                    bos.write2Bytes(field.abstractFieldType.getType());
+                    writeOffset(bos, field.count);
+                    final byte[] data = field.getData();
+                    if (data.length <= maxLocalLength) {
+                        bos.write(data);
+                        for (int j = data.length; j < maxLocalLength; j++) {
+                            bos.write(0);
+                        }
+                    } else {
+                        writeOffset(bos, valueOffset);
+                        valueOffset += data.length + (data.length & 1);
+                    }
+                }
+                // the offset of the next directory, or 0 after the last
+                writeOffset(bos, i + 1 < subfiles.size() ? valueOffset : 0);
+
+                for (final TiffOutputField field : fields) {
+                    final byte[] data = field.getData();
+                    if (data.length > maxLocalLength) {
+                        bos.write(data);
+                        if ((data.length & 1) != 0) {
+                            bos.write(0);
+                        }
+                    }
+                }
+                offset = valueOffset;
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private long getHeaderAndDirectoriesLength(final boolean big) throws ImagingException {
+        // the length of the values does not depend on the offsets and byte counts, only on how many there are
+        final int maxLocalLength = big ? TiffConstants.ENTRY_MAX_VALUE_LENGTH_BIG : TiffConstants.ENTRY_MAX_VALUE_LENGTH;
+        long length = big ? HEADER_SIZE_BIG : TiffConstants.HEADER_SIZE;
+        for (final Subfile subfile : subfiles) {
+            final List<TiffOutputField> fields = getFields(subfile, big);
+            length += getDirectoryLength(fields.size(), big);
+            for (final TiffOutputField field : fields) {
+                final int dataLength = field.getData().length;
+                if (dataLength > maxLocalLength) {
+                    length += dataLength + (dataLength & 1);
+                }
+            }
+        }
+        return length + AbstractTiffImageWriter.imageDataPaddingLength((int) (length & 3));
+    }
+
+    /**
+     * Tells whether BigTIFF is written.
+     *
+     * @return true for BigTIFF, false for classic TIFF.
+     */
+    boolean isBigTiff() {
+        return bigTiff;
+    }
+
+    /**
+     * Writes the images to a stream. Since a stream cannot go back to the directories, all compressed blocks are held in memory until the last one is done.
+     *
+     * @param os the stream.
+     * @throws ImagingException if the images cannot be written as TIFF.
+     * @throws IOException      if an I/O error occurs.
+     */
+    void write(final OutputStream os) throws ImagingException, IOException {
+        final List<byte[]> compressed = new ArrayList<>();
+        forEachCompressedBlock((block, data) -> {
+            addBlock(block, data);
+            compressed.add(data);
+        });
+        final byte[] headerAndDirectories = getHeaderAndDirectories();
+        os.write(headerAndDirectories);
+        writePadding(os, headerAndDirectories.length);
+        for (final byte[] data : compressed) {
+            os.write(data);
+            writePadding(os, data.length);
+        }
+    }
+
+    /**
+     * Writes the images to a channel, from its current position. Blocks are written as they are compressed, then the header and directories are written in
+     * the space left for them before the first block. The channel is left positioned after the images.
+     *
+     * @param channel the channel.
+     * @throws ImagingException if the images cannot be written as TIFF.
+     * @throws IOException      if an I/O error occurs.
+     */
+    void write(final SeekableByteChannel channel) throws ImagingException, IOException {
+        final long start = channel.position();
+        final byte[] padding = new byte[3];
+        channel.position(start + dataOffset);
+        forEachCompressedBlock((block, data) -> {
+            addBlock(block, data);
+            writeFully(channel, ByteBuffer.wrap(data));
+            writeFully(channel, ByteBuffer.wrap(padding, 0, AbstractTiffImageWriter.imageDataPaddingLength(data.length)));
+        });
+        final long end = channel.position();
+        channel.position(start);
+        final byte[] headerAndDirectories = getHeaderAndDirectories();
+        writeFully(channel, ByteBuffer.wrap(headerAndDirectories));
+        writeFully(channel, ByteBuffer.wrap(padding, 0, AbstractTiffImageWriter.imageDataPaddingLength(headerAndDirectories.length)));
+        channel.position(end);
+    }
+
+    private void writeOffset(final AbstractBinaryOutputStream bos, final long offset) throws IOException {
+        if (bigTiff) {
+            bos.write(ByteConversions.toBytes(offset, byteOrder));
+        } else {
+            bos.write4Bytes((int) offset);
+        }
+    }
+}
@@ -733,8 +733,9 @@ public final class TiffOutputDirectory extends AbstractTiffOutputItem implements
      * @param outputSummary the output summary.
      * @return the list of output items.
      * @throws ImagingException if an error occurs.
+     * @throws IOException if image data read on demand from the source file cannot be read.
      */
-    protected List<AbstractTiffOutputItem> getOutputItems(final TiffOutputSummary outputSummary) throws ImagingException {
+    protected List<AbstractTiffOutputItem> getOutputItems(final TiffOutputSummary outputSummary) throws ImagingException, IOException {
         // first validate directory fields.
 
         removeFieldIfPresent(TiffTagConstants.TIFF_TAG_JPEG_INTERCHANGE_FORMAT);
@@ -815,7 +816,7 @@ public final class TiffOutputDirectory extends AbstractTiffOutputItem implements
         }
 
         if (null != jpegImageData) {
-            final AbstractTiffOutputItem item = new AbstractTiffOutputItem.Value("JPEG image data", jpegImageData.getData());
+            final AbstractTiffOutputItem item = new AbstractTiffOutputItem.Value("JPEG image data", jpegImageData.readData());
             result.add(item);
             outputSummary.add(item, jpegOffsetField);
         }
@@ -18,6 +18,7 @@ package org.apache.commons.imaging.formats.tiff.write;
 
 import static org.apache.commons.imaging.formats.tiff.constants.TiffConstants.DEFAULT_TIFF_BYTE_ORDER;
 
+import java.io.IOException;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -261,8 +262,9 @@ public final class TiffOutputSet implements Iterable<TiffOutputDirectory> {
      * @param outputSummary the output summary.
      * @return the list of all output items.
      * @throws ImagingException if an error occurs.
+     * @throws IOException if image data read on demand from the source file cannot be read.
      */
-    protected List<AbstractTiffOutputItem> getOutputItems(final TiffOutputSummary outputSummary) throws ImagingException {
+    protected List<AbstractTiffOutputItem> getOutputItems(final TiffOutputSummary outputSummary) throws ImagingException, IOException {
         final List<AbstractTiffOutputItem> result = new ArrayList<>();
 
         for (final TiffOutputDirectory directory : directories) {
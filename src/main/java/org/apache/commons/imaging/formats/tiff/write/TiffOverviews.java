@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff.write;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+
+import org.apache.commons.imaging.common.Allocator;
+
+/**
+ * Gives the tiles of an image and of its reduced-resolution images, or overviews, each half the width and height of the one before, rounded up.
+ * <p>
+ * All overviews are made in a single pass over the rows of the image, and the tiles of each are given as soon as a row of them is complete, so only a row of
+ * tiles of each overview is held in memory. Each overview sums the pixels of the image its pixels cover, so a pixel of any overview is the average of the
+ * pixels of the image under it rather than an average of averages. Colors are weighted by alpha, so transparent pixels do not darken their neighbors.
+ * </p>
+ */
+final class TiffOverviews implements Iterator<TiffBlockWriter.Block> {
+
+    /**
+     * An overview being made: the sums of the pixels of the image under each pixel of its current row, and its current row of tiles.
+     */
+    private final class Level {
+        private final TiffBlockWriter.Subfile subfile;
+        private final int width;
+        private final int height;
+        private final int inputHeight;
+        private final BufferedImage tileRow;
+        private final long[] alpha;
+        private final long[] red;
+        private final long[] green;
+        private final long[] blue;
+        private final long[] count;
+        private final int[] argb;
+        private int inputRow;
+        private int row;
+
+        Level(final TiffBlockWriter.Subfile subfile, final int width, final int height, final int inputHeight) {
+            this.subfile = subfile;
+            this.width = width;
+            this.height = height;
+            this.inputHeight = inputHeight;
+            this.tileRow = new BufferedImage(width, tileLength, hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            this.alpha = Allocator.longArray(width);
+            this.red = Allocator.longArray(width);
+            this.green = Allocator.longArray(width);
+            this.blue = Allocator.longArray(width);
+            this.count = Allocator.longArray(width);
+            this.argb = Allocator.intArray(width);
+        }
+
+        /**
+         * Adds a row of the level before, as sums, and completes a row of this level every second row and at the last row.
+         *
+         * @return true if a row is complete.
+         */
+        boolean addRow(final Level input) {
+            for (int x = 0; x < input.width; x++) {
+                final int i = x >> 1;
+                alpha[i] += input.alpha[x];
+                red[i] += input.red[x];
+                green[i] += input.green[x];
+                blue[i] += input.blue[x];
+                count[i] += input.count[x];
+            }
+            return ++inputRow % 2 == 0 || inputRow == inputHeight;
+        }
+
+        /**
+         * Adds a row of the image, and completes a row of this level every second row and at the last row.
+         *
+         * @return true if a row is complete.
+         */
+        boolean addRow(final int[] pixels) {
+            for (int x = 0; x < pixels.length; x++) {
+                final int i = x >> 1;
+                final int pixel = pixels[x];
+                final int a = pixel >>> 24;
+                alpha[i] += a;
+                red[i] += (pixel >> 16 & 0xff) * a;
+                green[i] += (pixel >> 8 & 0xff) * a;
+                blue[i] += (pixel & 0xff) * a;
+                count[i]++;
+            }
+            return ++inputRow % 2 == 0 || inputRow == inputHeight;
+        }
+
+        void clear() {
+            for (int x = 0; x < width; x++) {
+                alpha[x] = 0;
+                red[x] = 0;
+                green[x] = 0;
+                blue[x] = 0;
+                count[x] = 0;
+            }
+        }
+
+        /**
+         * Sets the completed row into the row of tiles, and gives its tiles once it is complete. The sums of the row are kept for the next level until
+         * {@link #clear()}.
+         */
+        void completeRow() {
+            for (int x = 0; x < width; x++) {
+                final long a = alpha[x];
+                if (a == 0) {
+                    argb[x] = 0;
+                } else {
+                    final long n = count[x];
+                    final int r = (int) ((red[x] + a / 2) / a);
+                    final int g = (int) ((green[x] + a / 2) / a);
+                    final int b = (int) ((blue[x] + a / 2) / a);
+                    argb[x] = (int) ((a + n / 2) / n) << 24 | r << 16 | g << 8 | b;
+                }
+            }
+            tileRow.setRGB(0, row % tileLength, width, 1, argb, 0, width);
+            row++;
+            if (row % tileLength == 0 || row == height) {
+                // the rows past the bottom of the last row of tiles are padding
+                final int rows = (row - 1) % tileLength + 1;
+                addTiles(subfile, (row - 1) / tileLength, width, rows < tileLength ? tileRow.getSubimage(0, 0, width, rows) : tileRow, true);
+            }
+        }
+    }
+
+    /**
+     * Gets the sizes of the overviews of an image, halving it until an overview fits in a tile or the most levels are reached.
+     *
+     * @param width      the width of the image.
+     * @param height     the height of the image.
+     * @param maxLevels  the most overviews.
+     * @param tileWidth  the width of the tiles.
+     * @param tileLength the length of the tiles.
+     * @return the sizes of the overviews, largest first, empty if the image fits in a tile.
+     */
+    static List<Dimension> getSizes(final int width, final int height, final int maxLevels, final int tileWidth, final int tileLength) {
+        final List<Dimension> sizes = new ArrayList<>();
+        int levelWidth = width;
+        int levelHeight = height;
+        while (sizes.size() < maxLevels && (levelWidth > tileWidth || levelHeight > tileLength)) {
+            levelWidth = (levelWidth + 1) / 2;
+            levelHeight = (levelHeight + 1) / 2;
+            sizes.add(new Dimension(levelWidth, levelHeight));
+        }
+        return sizes;
+    }
+
+    private final BufferedImage src;
+    private final TiffBlockEncoder encoder;
+    private final TiffBlockWriter.Subfile fullResolution;
+    private final int tileWidth;
+    private final int tileLength;
+    private final boolean hasAlpha;
+    private final List<Level> levels;
+    private final int[] pixels;
+    private final Queue<TiffBlockWriter.Block> pending = new ArrayDeque<>();
+    private int y;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param src        the image.
+     * @param encoder    the encoder of tiles.
+     * @param subfiles   the image, then its overviews.
+     * @param sizes      the sizes of the overviews, as returned by {@link #getSizes(int, int, int, int, int)}.
+     * @param tileWidth  the width of the tiles.
+     * @param tileLength the length of the tiles.
+     */
+    TiffOverviews(final BufferedImage src, final TiffBlockEncoder encoder, final List<TiffBlockWriter.Subfile> subfiles, final List<Dimension> sizes,
+            final int tileWidth, final int tileLength) {
+        this.src = src;
+        this.encoder = encoder;
+        this.fullResolution = subfiles.get(0);
+        this.tileWidth = tileWidth;
+        this.tileLength = tileLength;
+        this.hasAlpha = src.getColorModel().hasAlpha();
+        this.levels = new ArrayList<>(sizes.size());
+        int inputHeight = src.getHeight();
+        for (int i = 0; i < sizes.size(); i++) {
+            final Dimension size = sizes.get(i);
+            levels.add(new Level(subfiles.get(i + 1), size.width, size.height, inputHeight));
+            inputHeight = size.height;
+        }
+        this.pixels = Allocator.intArray(src.getWidth());
+    }
+
+    /**
+     * Adds the tiles of a row of tiles of an image, taking their samples now if the image is about to be reused, or when each is compressed otherwise.
+     */
+    private void addTiles(final TiffBlockWriter.Subfile subfile, final int tileRow, final int width, final BufferedImage image, final boolean copy) {
+        final int tilesAcross = (width + tileWidth - 1) / tileWidth;
+        final int y0 = copy ? 0 : tileRow * tileLength;
+        for (int i = 0; i < tilesAcross; i++) {
+            final int x0 = i * tileWidth;
+            final TiffBlockWriter.Block block;
+            if (copy) {
+                final byte[] samples = encoder.getBlock(image, x0, y0, tileWidth, tileLength);
+                block = new TiffBlockWriter.Block(subfile, tileRow * tilesAcross + i, () -> samples);
+            } else {
+                block = new TiffBlockWriter.Block(subfile, tileRow * tilesAcross + i, () -> encoder.getBlock(image, x0, y0, tileWidth, tileLength));
+            }
+            pending.add(block);
+        }
+    }
+
+    /**
+     * Adds a row of the image to the overviews, giving the tiles of the image and of the overviews whose rows of tiles it completes.
+     */
+    private void addRow() {
+        final int height = src.getHeight();
+        if ((y + 1) % tileLength == 0 || y + 1 == height) {
+            addTiles(fullResolution, y / tileLength, src.getWidth(), src, false);
+        }
+        src.getRGB(0, y, pixels.length, 1, pixels, 0, pixels.length);
+        y++;
+        // a completed row of a level is a row of input for the next one
+        boolean complete = !levels.isEmpty() && levels.get(0).addRow(pixels);
+        for (int i = 0; complete; i++) {
+            final Level level = levels.get(i);
+            level.completeRow();
+            complete = i + 1 < levels.size() && levels.get(i + 1).addRow(level);
+            level.clear();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (pending.isEmpty() && y < src.getHeight()) {
+            addRow();
+        }
+        return !pending.isEmpty();
+    }
+
+    @Override
+    public TiffBlockWriter.Block next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return pending.remove();
+    }
+}
@@ -16,79 +16,23 @@
  */
 package org.apache.commons.imaging.mylzw;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteOrder;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.common.Allocator;
 
 /**
  * LZW compressor implementation.
+ * <p>
+ * Each string in the table is the string of a prefix code followed by one byte, so the table is an open-addressed hash of {@code prefixCode << 8 | byte}
+ * keys in {@code int} arrays. Codes are gathered in a 64-bit buffer and written to the output four bytes at a time. An instance may be reused, for example
+ * for all strips of an image, without allocating a new table.
+ * </p>
  */
 public class MyLzwCompressor {
 
-    /**
-     * Byte array wrapper for hash map keys.
-     */
-    private static final class ByteArray {
-        private final byte[] bytes;
-        private final int start;
-        private final int length;
-        private final int hash;
-
-        /**
-         * Constructs a byte array wrapper.
-         *
-         * @param bytes the bytes.
-         * @param start the start index.
-         * @param length the length.
-         */
-        ByteArray(final byte[] bytes, final int start, final int length) {
-            this.bytes = bytes;
-            this.start = start;
-            this.length = length;
-
-            int tempHash = length;
-
-            for (int i = 0; i < length; i++) {
-                final int b = 0xff & bytes[i + start];
-                tempHash = tempHash + (tempHash << 8) ^ b ^ i;
-            }
-
-            hash = tempHash;
-        }
-
-        @Override
-        public boolean equals(final Object o) {
-            if (o instanceof ByteArray) {
-                final ByteArray other = (ByteArray) o;
-                if (other.hash != hash) {
-                    return false;
-                }
-                if (other.length != length) {
-                    return false;
-                }
-
-                for (int i = 0; i < length; i++) {
-                    if (other.bytes[i + other.start] != bytes[i + start]) {
-                        return false;
-                    }
-                }
-
-                return true;
-            }
-            return false;
-        }
-
-        @Override
-        public int hashCode() {
-            return hash;
-        }
-    }
-
     /**
      * Listener interface for LZW compression events.
      */
@@ -124,18 +68,30 @@ public class MyLzwCompressor {
         void init(int clearCode, int eoiCode);
     }
 
+    private static final int HASH_BITS = 13;
+    private static final int HASH_SIZE = 1 << HASH_BITS;
+
     private int codeSize;
 
     private final int initialCodeSize;
     private int codes = -1;
-    private final ByteOrder byteOrder;
+    private final boolean bigEndian;
     private final boolean earlyLimit;
     private final int clearCode;
     private final int eoiCode;
 
     private final Listener listener;
 
-    private final Map<ByteArray, Integer> map = new HashMap<>();
+    // code of each single byte string, -1 if the byte cannot be coded
+    private final int[] rootCodes = new int[256];
+    // prefixCode << 8 | byte of each longer string, -1 for free slots
+    private final int[] hashKeys = new int[HASH_SIZE];
+    private final int[] hashCodes = new int[HASH_SIZE];
+
+    private byte[] output;
+    private int outputLength;
+    private long bitCache;
+    private int bitsInCache;
 
     /**
      * Constructs a new instance.
@@ -158,7 +114,7 @@ public class MyLzwCompressor {
      */
     public MyLzwCompressor(final int initialCodeSize, final ByteOrder byteOrder, final boolean earlyLimit, final Listener listener) {
         this.listener = listener;
-        this.byteOrder = byteOrder;
+        this.bigEndian = byteOrder == ByteOrder.BIG_ENDIAN;
         this.earlyLimit = earlyLimit;
 
         this.initialCodeSize = initialCodeSize;
@@ -170,17 +126,18 @@ public class MyLzwCompressor {
             listener.init(clearCode, eoiCode);
         }
 
-        initializeStringTable();
-    }
+        Arrays.fill(rootCodes, -1);
+        final int initialEntriesCount = (1 << initialCodeSize) + 2;
+        for (int code = 0; code < initialEntriesCount; code++) {
+            if (code != clearCode && code != eoiCode) {
+                rootCodes[0xff & code] = code;
+            }
+        }
 
-    private boolean addTableEntry(final MyBitOutputStream bos, final byte[] bytes, final int start, final int length) throws IOException {
-        final ByteArray key = arrayToKey(bytes, start, length);
-        return addTableEntry(bos, key);
+        initializeStringTable();
     }
 
-    private boolean addTableEntry(final MyBitOutputStream bos, final ByteArray key) throws IOException {
-        boolean cleared = false;
-
+    private void addTableEntry(final int slot, final int key) {
         int limit = 1 << codeSize;
         if (earlyLimit) {
             limit--;
@@ -190,26 +147,15 @@ public class MyLzwCompressor {
             if (codeSize < 12) {
                 incrementCodeSize();
             } else {
-                writeClearCode(bos);
+                writeClearCode();
                 clearTable();
-                cleared = true;
+                return;
             }
         }
 
-        if (!cleared) {
-            map.put(key, codes);
-            codes++;
-        }
-
-        return cleared;
-    }
-
-    private ByteArray arrayToKey(final byte b) {
-        return arrayToKey(new byte[] { b, }, 0, 1);
-    }
-
-    private ByteArray arrayToKey(final byte[] bytes, final int start, final int length) {
-        return new ByteArray(bytes, start, length);
+        hashKeys[slot] = key;
+        hashCodes[slot] = codes;
+        codes++;
     }
 
     private void clearTable() {
@@ -217,15 +163,6 @@ public class MyLzwCompressor {
         incrementCodeSize();
     }
 
-    private int codeFromString(final byte[] bytes, final int start, final int length) throws ImagingException {
-        final ByteArray key = arrayToKey(bytes, start, length);
-        final Integer code = map.get(key);
-        if (code == null) {
-            throw new ImagingException("CodeFromString");
-        }
-        return code;
-    }
-
     /**
      * Compresses data using LZW compression.
      *
@@ -234,35 +171,70 @@ public class MyLzwCompressor {
      * @throws IOException if an I/O error occurs.
      */
     public byte[] compress(final byte[] bytes) throws IOException {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream(Allocator.checkByteArray(bytes.length));
-                MyBitOutputStream bos = new MyBitOutputStream(baos, byteOrder)) {
-
+        output = Allocator.byteArray(Math.max(16, bytes.length / 2));
+        outputLength = 0;
+        bitCache = 0;
+        bitsInCache = 0;
+        try {
             initializeStringTable();
             clearTable();
-            writeClearCode(bos);
+            writeClearCode();
 
-            int wStart = 0;
-            int wLength = 0;
+            if (bytes.length == 0) {
+                throw new ImagingException("CodeFromString");
+            }
+
+            int code = rootCode(bytes[0]);
+
+            for (int i = 1; i < bytes.length; i++) {
+                final int key = code << 8 | 0xff & bytes[i];
+                int slot = key * 0x9E3779B1 >>> 32 - HASH_BITS;
+                int found;
+                while ((found = hashKeys[slot]) != key && found != -1) {
+                    slot = slot + 1 & HASH_SIZE - 1;
+                }
 
-            for (int i = 0; i < bytes.length; i++) {
-                if (isInTable(bytes, wStart, wLength + 1)) {
-                    wLength++;
+                if (found == key) {
+                    code = hashCodes[slot];
                 } else {
-                    final int code = codeFromString(bytes, wStart, wLength);
-                    writeDataCode(bos, code);
-                    addTableEntry(bos, bytes, wStart, wLength + 1);
+                    writeDataCode(code);
+                    addTableEntry(slot, key);
 
-                    wStart = i;
-                    wLength = 1;
+                    code = rootCode(bytes[i]);
                 }
             }
 
-            final int code = codeFromString(bytes, wStart, wLength);
-            writeDataCode(bos, code);
-            writeEoiCode(bos);
-            bos.flushCache();
-            return baos.toByteArray();
+            writeDataCode(code);
+            writeEoiCode();
+            flushCache();
+            return Arrays.copyOf(output, outputLength);
+        } finally {
+            output = null;
+        }
+    }
+
+    private void ensureCapacity(final int count) {
+        if (outputLength + count > output.length) {
+            output = Arrays.copyOf(output, Math.max(output.length * 2, outputLength + count));
+        }
+    }
+
+    private void flushCache() {
+        ensureCapacity(5);
+        while (bitsInCache >= 8) {
+            writeCachedByte();
         }
+        if (bitsInCache > 0) {
+            int b = (int) bitCache & (1 << bitsInCache) - 1;
+            if (bigEndian) {
+                // MSB, so write from left
+                b <<= 8 - bitsInCache; // left align fragment.
+            }
+            output[outputLength++] = (byte) b;
+        }
+
+        bitsInCache = 0;
+        bitCache = 0;
     }
 
     private void incrementCodeSize() {
@@ -273,47 +245,67 @@ public class MyLzwCompressor {
 
     private void initializeStringTable() {
         codeSize = initialCodeSize;
+        codes = (1 << codeSize) + 2;
+        Arrays.fill(hashKeys, -1);
+    }
 
-        final int initialEntriesCount = (1 << codeSize) + 2;
-
-        map.clear();
-        for (codes = 0; codes < initialEntriesCount; codes++) {
-            if (codes != clearCode && codes != eoiCode) {
-                final ByteArray key = arrayToKey((byte) codes);
-
-                map.put(key, codes);
-            }
+    private int rootCode(final byte b) throws ImagingException {
+        final int code = rootCodes[0xff & b];
+        if (code < 0) {
+            throw new ImagingException("CodeFromString");
         }
+        return code;
     }
 
-    private boolean isInTable(final byte[] bytes, final int start, final int length) {
-        final ByteArray key = arrayToKey(bytes, start, length);
-
-        return map.containsKey(key);
+    private void writeCachedByte() {
+        if (bigEndian) {
+            // MSB, so write from left
+            output[outputLength++] = (byte) (bitCache >>> bitsInCache - 8);
+        } else {
+            // LSB, so write from right
+            output[outputLength++] = (byte) bitCache;
+            bitCache >>>= 8;
+        }
+        bitsInCache -= 8;
     }
 
-    private void writeClearCode(final MyBitOutputStream bos) throws IOException {
+    private void writeClearCode() {
         if (null != listener) {
             listener.dataCode(clearCode);
         }
-        writeCode(bos, clearCode);
+        writeCode(clearCode);
     }
 
-    private void writeCode(final MyBitOutputStream bos, final int code) throws IOException {
-        bos.writeBits(code, codeSize);
+    private void writeCode(final int code) {
+        final int value = code & (1 << codeSize) - 1;
+        if (bigEndian) {
+            // MSB, so add to right
+            bitCache = bitCache << codeSize | value;
+        } else {
+            // LSB, so add to left
+            bitCache |= (long) value << bitsInCache;
+        }
+        bitsInCache += codeSize;
+
+        if (bitsInCache >= 32) {
+            ensureCapacity(4);
+            for (int i = 0; i < 4; i++) {
+                writeCachedByte();
+            }
+        }
     }
 
-    private void writeDataCode(final MyBitOutputStream bos, final int code) throws IOException {
+    private void writeDataCode(final int code) {
         if (null != listener) {
             listener.dataCode(code);
         }
-        writeCode(bos, code);
+        writeCode(code);
     }
 
-    private void writeEoiCode(final MyBitOutputStream bos) throws IOException {
+    private void writeEoiCode() {
         if (null != listener) {
             listener.eoiCode(eoiCode);
         }
-        writeCode(bos, eoiCode);
+        writeCode(eoiCode);
     }
 }
@@ -16,18 +16,21 @@
  */
 package org.apache.commons.imaging.mylzw;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.nio.ByteOrder;
 import java.util.Arrays;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.common.Allocator;
+import org.apache.commons.io.IOUtils;
 
 /**
  * LZW decompressor.
+ * <p>
+ * The string table is kept as flat prefix code, suffix byte and length arrays: each string is its prefix string followed by one byte. Strings are written
+ * back to front straight into the output array, so no per-code arrays are allocated while decoding.
+ * </p>
  */
 public final class MyLzwDecompressor {
 
@@ -53,16 +56,23 @@ public final class MyLzwDecompressor {
     }
 
     private static final int MAX_TABLE_SIZE = 1 << 12;
-    private final byte[][] table;
+    private final int[] prefixes = new int[MAX_TABLE_SIZE];
+    private final byte[] suffixes = new byte[MAX_TABLE_SIZE];
+    private final int[] lengths = new int[MAX_TABLE_SIZE];
     private int codeSize;
     private final int initialCodeSize;
     private int codes = -1;
-    private final ByteOrder byteOrder;
+    private final boolean bigEndian;
     private final Listener listener;
     private final int clearCode;
     private final int eoiCode;
-    private int written;
     private final boolean tiffLZWMode;
+    private byte[] input;
+    private int inputPosition;
+    private int bitCache;
+    private int bitsInCache;
+    private byte[] output;
+    private int written;
 
     /**
      * Constructs a decompressor.
@@ -87,11 +97,10 @@ public final class MyLzwDecompressor {
      */
     public MyLzwDecompressor(final int initialCodeSize, final ByteOrder byteOrder, final boolean tiffLZWMode, final Listener listener) throws ImagingException {
         this.listener = listener;
-        this.byteOrder = byteOrder;
+        this.bigEndian = byteOrder == ByteOrder.BIG_ENDIAN;
         this.tiffLZWMode = tiffLZWMode;
         this.initialCodeSize = initialCodeSize;
 
-        table = new byte[MAX_TABLE_SIZE][];
         clearCode = 1 << initialCodeSize;
         eoiCode = clearCode + 1;
 
@@ -102,9 +111,11 @@ public final class MyLzwDecompressor {
         initializeTable();
     }
 
-    private void addStringToTable(final byte[] bytes) {
+    private void addStringToTable(final int prefix, final byte suffix) {
         if (codes < 1 << codeSize) {
-            table[codes] = bytes;
+            prefixes[codes] = prefix;
+            suffixes[codes] = suffix;
+            lengths[codes] = lengths[prefix] + 1;
             codes++;
         }
         // If the table already full, then we simply ignore these bytes
@@ -113,10 +124,10 @@ public final class MyLzwDecompressor {
         checkCodeSize();
     }
 
-    private byte[] appendBytes(final byte[] bytes, final byte b) {
-        final byte[] result = Arrays.copyOf(bytes, bytes.length + 1);
-        result[result.length - 1] = b;
-        return result;
+    private void checkCode(final int code) throws ImagingException {
+        if (code >= codes || code < 0) {
+            throw new ImagingException("Bad Code: " + code + " codes: " + codes + " code_size: " + codeSize + ", table: " + MAX_TABLE_SIZE);
+        }
     }
 
     private void checkCodeSize() {
@@ -139,40 +150,49 @@ public final class MyLzwDecompressor {
     /**
      * Decompresses data.
      *
-     * @param is input stream.
+     * @param compressed compressed bytes.
      * @param expectedLength expected length.
      * @return decompressed bytes.
      * @throws IOException if I/O error occurs.
+     * @since 1.0.0-alpha7
      */
-    public byte[] decompress(final InputStream is, final int expectedLength) throws IOException {
-        int code;
-        int oldCode = -1;
-        try (MyBitInputStream mbis = new MyBitInputStream(is, byteOrder, tiffLZWMode);
-                ByteArrayOutputStream baos = new ByteArrayOutputStream(Allocator.checkByteArray(expectedLength))) {
+    public byte[] decompress(final byte[] compressed, final int expectedLength) throws IOException {
+        input = compressed;
+        inputPosition = 0;
+        bitCache = 0;
+        bitsInCache = 0;
+        output = Allocator.byteArray(expectedLength);
+        written = 0;
+        try {
+            int code;
+            int oldCode = -1;
 
             clearTable();
 
-            while ((code = getNextCode(mbis)) != eoiCode) {
+            while ((code = getNextCode()) != eoiCode) {
                 if (code == clearCode) {
                     clearTable();
 
                     if (written >= expectedLength) {
                         break;
                     }
-                    code = getNextCode(mbis);
+                    code = getNextCode();
 
                     if (code == eoiCode) {
                         break;
                     }
-                    writeToResult(baos, stringFromCode(code));
-                } else if (isInTable(code)) {
-                    writeToResult(baos, stringFromCode(code));
-
-                    addStringToTable(appendBytes(stringFromCode(oldCode), firstChar(stringFromCode(code))));
+                    writeString(code);
+                } else if (code < codes) {
+                    final int start = written;
+                    writeString(code);
+                    checkCode(oldCode);
+                    addStringToTable(oldCode, output[start]);
                 } else {
-                    final byte[] outString = appendBytes(stringFromCode(oldCode), firstChar(stringFromCode(oldCode)));
-                    writeToResult(baos, outString);
-                    addStringToTable(outString);
+                    final int start = written;
+                    writeString(oldCode);
+                    final byte firstChar = output[start];
+                    writeByte(firstChar);
+                    addStringToTable(oldCode, firstChar);
                 }
                 oldCode = code;
 
@@ -181,16 +201,34 @@ public final class MyLzwDecompressor {
                 }
             }
 
-            return baos.toByteArray();
+            return written == output.length ? output : Arrays.copyOf(output, written);
+        } finally {
+            input = null;
+            output = null;
         }
     }
 
-    private byte firstChar(final byte[] bytes) {
-        return bytes[0];
+    /**
+     * Decompresses data.
+     *
+     * @param is input stream.
+     * @param expectedLength expected length.
+     * @return decompressed bytes.
+     * @throws IOException if I/O error occurs.
+     */
+    public byte[] decompress(final InputStream is, final int expectedLength) throws IOException {
+        return decompress(IOUtils.toByteArray(is), expectedLength);
     }
 
-    private int getNextCode(final MyBitInputStream is) throws IOException {
-        final int code = is.readBits(codeSize);
+    private void ensureCapacity(final int length) {
+        // only the last string may run past the expected length
+        if (written + length > output.length) {
+            output = Arrays.copyOf(output, written + length);
+        }
+    }
+
+    private int getNextCode() {
+        final int code = readBits(codeSize);
 
         if (null != listener) {
             listener.code(code);
@@ -209,28 +247,59 @@ public final class MyLzwDecompressor {
 
         final int initialEntriesCount = 1 << codeSize + 2;
 
-        if (initialEntriesCount > table.length) {
-            throw new ImagingException(String.format("Invalid Lzw table length [%d]; entries count is [%d]", table.length, initialEntriesCount));
+        if (initialEntriesCount > MAX_TABLE_SIZE) {
+            throw new ImagingException(String.format("Invalid Lzw table length [%d]; entries count is [%d]", MAX_TABLE_SIZE, initialEntriesCount));
         }
 
         for (int i = 0; i < initialEntriesCount; i++) {
-            table[i] = new byte[] { (byte) i, };
+            prefixes[i] = -1;
+            suffixes[i] = (byte) i;
+            lengths[i] = 1;
         }
     }
 
-    private boolean isInTable(final int code) {
-        return code < codes;
-    }
+    private int readBits(final int count) {
+        while (bitsInCache < count) {
+            if (inputPosition >= input.length) {
+                // the same end of data codes MyBitInputStream reports
+                return tiffLZWMode ? 257 : -1;
+            }
+            final int next = 0xff & input[inputPosition++];
+            if (bigEndian) {
+                bitCache = bitCache << 8 | next;
+            } else {
+                bitCache |= next << bitsInCache;
+            }
+            bitsInCache += 8;
+        }
 
-    private byte[] stringFromCode(final int code) throws ImagingException {
-        if (code >= codes || code < 0) {
-            throw new ImagingException("Bad Code: " + code + " codes: " + codes + " code_size: " + codeSize + ", table: " + table.length);
+        final int sampleMask = (1 << count) - 1;
+        final int sample;
+        bitsInCache -= count;
+        if (bigEndian) {
+            sample = sampleMask & bitCache >> bitsInCache;
+        } else {
+            sample = sampleMask & bitCache;
+            bitCache >>= count;
         }
-        return table[code];
+        bitCache &= (1 << bitsInCache) - 1;
+        return sample;
     }
 
-    private void writeToResult(final OutputStream os, final byte[] bytes) throws IOException {
-        os.write(bytes);
-        written += bytes.length;
+    private void writeByte(final byte b) {
+        ensureCapacity(1);
+        output[written++] = b;
+    }
+
+    private void writeString(final int code) throws ImagingException {
+        checkCode(code);
+        final int length = lengths[code];
+        ensureCapacity(length);
+        int c = code;
+        for (int i = written + length - 1; i >= written; i--) {
+            output[i] = suffixes[c];
+            c = prefixes[c];
+        }
+        written += length;
     }
 }
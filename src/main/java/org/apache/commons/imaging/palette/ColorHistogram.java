@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.palette;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.apache.commons.imaging.ImagingRuntimeException;
+import org.apache.commons.imaging.common.Allocator;
+import org.apache.commons.imaging.common.ConcurrentTasks;
+
+/**
+ * Counts the pixels of each color of an image in an open-addressed hash table of primitive ints, without boxing colors or allocating an object per color.
+ * <p>
+ * A slot is empty while its count is zero, so any ARGB value, including zero, can be a key.
+ * </p>
+ */
+final class ColorHistogram {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    // pixels read by getRGB at once, which is much faster than reading them one at a time
+    private static final int CHUNK_PIXELS = 1 << 14;
+
+    // the fewest pixels counted by a task, smaller tasks are not worth scheduling
+    private static final int MIN_PIXELS_PER_TASK = 1 << 16;
+
+    private int[] keys;
+    private int[] counts;
+    private int size;
+
+    // 32 minus the number of bits of the capacity, the hash is the top bits of the product
+    private int shift;
+
+    /**
+     * Counts the colors of an image, concurrently over bands of rows if an executor is given.
+     *
+     * @param image      the image.
+     * @param mask       the mask applied to each ARGB pixel before it is counted.
+     * @param opaqueOnly whether pixels that are not fully opaque are left out.
+     * @param max        the number of distinct colors above which counting stops.
+     * @param executor   the executor to count bands of rows on, or null to count on the calling thread.
+     * @return the histogram, or null if the image has more than {@code max} distinct colors.
+     */
+    static ColorHistogram of(final BufferedImage image, final int mask, final boolean opaqueOnly, final int max, final Executor executor) {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final int bands = executor == null ? 1
+                : (int) Math.min(Math.min(height, ConcurrentTasks.getTaskCount(executor)), (long) width * height / MIN_PIXELS_PER_TASK);
+        if (bands <= 1) {
+            return of(image, 0, height, mask, opaqueOnly, max);
+        }
+
+        final List<ColorHistogram> histograms = new ArrayList<>(bands);
+        try (ConcurrentTasks tasks = new ConcurrentTasks(executor, "counting colors")) {
+            for (int i = 0; i < bands; i++) {
+                final int startY = (int) ((long) height * i / bands);
+                final int endY = (int) ((long) height * (i + 1) / bands);
+                tasks.add(() -> of(image, startY, endY, mask, opaqueOnly, max), histograms::add);
+            }
+            tasks.finish();
+        } catch (final IOException e) {
+            throw new ImagingRuntimeException("Couldn't count colors", e);
+        }
+        final ColorHistogram result = histograms.get(0);
+        for (int i = 1; i < bands; i++) {
+            final ColorHistogram band = histograms.get(i);
+            if (result == null || band == null) {
+                return null;
+            }
+            result.addAll(band);
+            if (result.size() > max) {
+                return null;
+            }
+        }
+        return result;
+    }
+
+    private static ColorHistogram of(final BufferedImage image, final int startY, final int endY, final int mask, final boolean opaqueOnly,
+            final int max) {
+        final ColorHistogram histogram = new ColorHistogram();
+        final int width = image.getWidth();
+        final int rowsPerChunk = Math.max(1, CHUNK_PIXELS / Math.max(1, width));
+        final int[] pixels = Allocator.intArray(width * Math.min(rowsPerChunk, Math.max(1, endY - startY)));
+        // a run of pixels must also agree on being opaque when only opaque pixels are counted
+        final int runMask = opaqueOnly ? mask | 0xff000000 : mask;
+        for (int y = startY; y < endY; y += rowsPerChunk) {
+            final int rows = Math.min(rowsPerChunk, endY - y);
+            final int length = width * rows;
+            image.getRGB(0, y, width, rows, pixels, 0, width);
+            // runs of one color are common, so they are counted before going to the table
+            int i = 0;
+            while (i < length) {
+                final int run = pixels[i] & runMask;
+                final int start = i;
+                for (i++; i < length && (pixels[i] & runMask) == run; i++) {
+                    // same color
+                }
+                if (opaqueOnly && run >>> 24 != 0xff) {
+                    continue;
+                }
+                if (histogram.add(run & mask, i - start) && histogram.size() > max) {
+                    return null;
+                }
+            }
+        }
+        return histogram;
+    }
+
+    ColorHistogram() {
+        keys = new int[INITIAL_CAPACITY];
+        counts = new int[INITIAL_CAPACITY];
+        shift = Integer.numberOfLeadingZeros(INITIAL_CAPACITY) + 1;
+    }
+
+    /**
+     * Adds pixels of a color.
+     *
+     * @param argb  the color.
+     * @param count the number of pixels, at least 1.
+     * @return whether the color was not in this histogram before.
+     */
+    boolean add(final int argb, final int count) {
+        final int mask = keys.length - 1;
+        int slot = argb * 0x9E3779B9 >>> shift;
+        while (counts[slot] != 0) {
+            if (keys[slot] == argb) {
+                counts[slot] += count;
+                return false;
+            }
+            slot = slot + 1 & mask;
+        }
+        keys[slot] = argb;
+        counts[slot] = count;
+        if (++size > keys.length >> 1) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Adds the pixels counted by another histogram.
+     *
+     * @param other the other histogram.
+     */
+    void addAll(final ColorHistogram other) {
+        for (int slot = 0; slot < other.keys.length; slot++) {
+            if (other.counts[slot] != 0) {
+                add(other.keys[slot], other.counts[slot]);
+            }
+        }
+    }
+
+    /**
+     * Gets the distinct colors.
+     *
+     * @return the colors, in ascending order.
+     */
+    int[] getColors() {
+        final int[] colors = Allocator.intArray(size);
+        int next = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (counts[slot] != 0) {
+                colors[next++] = keys[slot];
+            }
+        }
+        Arrays.sort(colors);
+        return colors;
+    }
+
+    /**
+     * Gets the number of pixels of a color.
+     *
+     * @param argb the color.
+     * @return the number of pixels, 0 if the color was not counted.
+     */
+    int getCount(final int argb) {
+        final int mask = keys.length - 1;
+        int slot = argb * 0x9E3779B9 >>> shift;
+        while (counts[slot] != 0) {
+            if (keys[slot] == argb) {
+                return counts[slot];
+            }
+            slot = slot + 1 & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the colors with their counts.
+     *
+     * @return the color counts, in ascending order of color.
+     */
+    List<ColorCount> getColorCounts() {
+        final int[] colors = getColors();
+        final List<ColorCount> colorCounts = new ArrayList<>(colors.length);
+        for (final int argb : colors) {
+            final ColorCount colorCount = new ColorCount(argb);
+            colorCount.count = getCount(argb);
+            colorCounts.add(colorCount);
+        }
+        return colorCounts;
+    }
+
+    private void grow() {
+        final int[] oldKeys = keys;
+        final int[] oldCounts = counts;
+        keys = Allocator.intArray(oldKeys.length << 1);
+        counts = Allocator.intArray(oldKeys.length << 1);
+        shift--;
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldCounts[slot] != 0) {
+                add(oldKeys[slot], oldCounts[slot]);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of distinct colors.
+     *
+     * @return the number of colors.
+     */
+    int size() {
+        return size;
+    }
+}
@@ -32,18 +32,18 @@ final class ColorSpaceSubset {
 
     private static final Logger LOGGER = Logger.getLogger(ColorSpaceSubset.class.getName());
     public static final RgbComparator RGB_COMPARATOR = new RgbComparator();
-    static final int SHALLOW_SIZE = 40;
+    static final int SHALLOW_SIZE = 48;
     final int[] mins;
     final int[] maxs;
     final int precision;
     final int precisionMask;
-    final int total;
+    final long total;
 
     int rgb; // median
     // the index in the palette.
     private int index;
 
-    ColorSpaceSubset(final int total, final int precision) {
+    ColorSpaceSubset(final long total, final int precision) {
         this.total = total;
         this.precision = precision;
         precisionMask = (1 << precision) - 1;
@@ -55,7 +55,7 @@ final class ColorSpaceSubset {
         rgb = -1;
     }
 
-    ColorSpaceSubset(final int total, final int precision, final int[] mins, final int[] maxs) {
+    ColorSpaceSubset(final long total, final int precision, final int[] mins, final int[] maxs) {
         this.total = total;
         this.precision = precision;
         this.mins = mins;
@@ -132,7 +132,7 @@ final class ColorSpaceSubset {
         return index;
     }
 
-    public void setAverageRgb(final int[] table) {
+    public void setAverageRgb(final long[] table) {
         long redsum = 0;
         long greensum = 0;
         long bluesum = 0;
@@ -142,7 +142,7 @@ final class ColorSpaceSubset {
                 for (int blue = mins[2]; blue <= maxs[2]; blue++) {
                     // note: order reversed
                     final int idx = blue << 2 * precision | green << 1 * precision | red << 0 * precision;
-                    final int count = table[idx];
+                    final long count = table[idx];
                     redsum += count * (red << 8 - precision);
                     greensum += count * (green << 8 - precision);
                     bluesum += count * (blue << 8 - precision);
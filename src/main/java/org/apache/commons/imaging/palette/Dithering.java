@@ -61,7 +61,8 @@ public final class Dithering {
 
     /**
      * Changes the given image to only use colors from the given palette, applying Floyd-Steinberg dithering in the process. Ensure that your alpha values in
-     * the image and in the palette are consistent.
+     * the image and in the palette are consistent. Colors are mapped to the nearest entry of a {@link SimplePalette}, and through
+     * {@link Palette#getPaletteIndex(int)} for other palettes.
      *
      * @param image   the image to change
      * @param palette the palette to use
@@ -71,7 +72,8 @@ public final class Dithering {
         for (int y = 0; y < image.getHeight(); y++) {
             for (int x = 0; x < image.getWidth(); x++) {
                 final int argb = image.getRGB(x, y);
-                final int index = palette.getPaletteIndex(argb);
+                // diffused errors make colors that are not in the palette
+                final int index = palette instanceof SimplePalette ? ((SimplePalette) palette).getNearestPaletteIndex(argb) : palette.getPaletteIndex(argb);
                 final int nextArgb = palette.getEntry(index);
                 image.setRGB(x, y, nextArgb);
 
@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.common.Allocator;
@@ -31,6 +32,7 @@ import org.apache.commons.imaging.internal.Debug;
  */
 public class MedianCutQuantizer {
     private final boolean ignoreAlpha;
+    private final Executor executor;
 
     /**
      * Constructs a new median cut quantizer.
@@ -38,7 +40,19 @@ public class MedianCutQuantizer {
      * @param ignoreAlpha whether to ignore the alpha channel during quantization.
      */
     public MedianCutQuantizer(final boolean ignoreAlpha) {
+        this(ignoreAlpha, null);
+    }
+
+    /**
+     * Constructs a new median cut quantizer that counts the colors of large images concurrently over bands of rows.
+     *
+     * @param ignoreAlpha whether to ignore the alpha channel during quantization.
+     * @param executor    the executor to count colors on, or null to count them on the calling thread.
+     * @since 1.0.0-alpha7
+     */
+    public MedianCutQuantizer(final boolean ignoreAlpha, final Executor executor) {
         this.ignoreAlpha = ignoreAlpha;
+        this.executor = executor;
     }
 
     /**
@@ -49,54 +63,17 @@ public class MedianCutQuantizer {
      * @return a map of colors to their counts.
      */
     public Map<Integer, ColorCount> groupColors(final BufferedImage image, final int maxColors) {
-        final int max = Integer.MAX_VALUE;
-
-        for (int i = 0; i < 8; i++) {
-            int mask = 0xff & 0xff << i;
-            mask = mask | mask << 8 | mask << 16 | mask << 24;
-
-            Debug.debug("mask(" + i + "): " + mask + " (" + Integer.toHexString(mask) + ")");
-
-            final Map<Integer, ColorCount> result = groupColors1(image, max, mask);
-            if (result != null) {
-                return result;
-            }
-        }
-        throw new IllegalArgumentException();
-    }
-
-    private Map<Integer, ColorCount> groupColors1(final BufferedImage image, final int max, final int mask) {
         final Map<Integer, ColorCount> colorMap = new HashMap<>();
-
-        final int width = image.getWidth();
-        final int height = image.getHeight();
-
-        final int[] row = Allocator.intArray(width);
-        for (int y = 0; y < height; y++) {
-            image.getRGB(0, y, width, 1, row, 0, width);
-            for (int x = 0; x < width; x++) {
-                int argb = row[x];
-
-                if (ignoreAlpha) {
-                    argb &= 0xffffff;
-                }
-                argb &= mask;
-
-                ColorCount color = colorMap.get(argb);
-                if (color == null) {
-                    color = new ColorCount(argb);
-                    colorMap.put(argb, color);
-                    if (colorMap.size() > max) {
-                        return null;
-                    }
-                }
-                color.count++;
-            }
+        for (final ColorCount colorCount : groupColors1(image)) {
+            colorMap.put(colorCount.argb, colorCount);
         }
-
         return colorMap;
     }
 
+    private List<ColorCount> groupColors1(final BufferedImage image) {
+        return ColorHistogram.of(image, ignoreAlpha ? 0xffffff : 0xffffffff, false, Integer.MAX_VALUE, executor).getColorCounts();
+    }
+
     /**
      * Processes an image to create a palette using median cut quantization.
      *
@@ -107,14 +84,13 @@ public class MedianCutQuantizer {
      * @throws ImagingException if an imaging error occurs.
      */
     public Palette process(final BufferedImage image, final int maxColors, final MedianCut medianCut) throws ImagingException {
-        final Map<Integer, ColorCount> colorMap = groupColors(image, maxColors);
+        final List<ColorCount> colorCounts = groupColors1(image);
 
-        final int discreteColors = colorMap.size();
+        final int discreteColors = colorCounts.size();
         if (discreteColors <= maxColors) {
             Debug.debug("lossless palette: " + discreteColors);
 
             final int[] palette = Allocator.intArray(discreteColors);
-            final List<ColorCount> colorCounts = new ArrayList<>(colorMap.values());
 
             for (int i = 0; i < colorCounts.size(); i++) {
                 final ColorCount colorCount = colorCounts.get(i);
@@ -130,7 +106,7 @@ public class MedianCutQuantizer {
         Debug.debug("discrete colors: " + discreteColors);
 
         final List<ColorGroup> colorGroups = new ArrayList<>();
-        final ColorGroup root = new ColorGroup(new ArrayList<>(colorMap.values()), ignoreAlpha);
+        final ColorGroup root = new ColorGroup(colorCounts, ignoreAlpha);
         colorGroups.add(root);
 
         while (colorGroups.size() < maxColors) {
@@ -21,9 +21,9 @@ import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -52,10 +52,23 @@ public class PaletteFactory {
     /** Number of color components (in bits). */
     public static final int COMPONENTS = 3; // in bits
 
+    private final Executor executor;
+
     /**
      * Constructs a new instance.
      */
     public PaletteFactory() {
+        this(null);
+    }
+
+    /**
+     * Constructs a new instance that counts the colors of large images concurrently over bands of rows.
+     *
+     * @param executor the executor to count colors on, or null to count them on the calling thread.
+     * @since 1.0.0-alpha7
+     */
+    public PaletteFactory(final Executor executor) {
+        this.executor = executor;
     }
 
     /**
@@ -121,18 +134,18 @@ public class PaletteFactory {
         return 1;
     }
 
-    private void divide(final List<ColorSpaceSubset> v, final int desiredCount, final int[] table, final int precision) {
+    private void divide(final List<ColorSpaceSubset> v, final int desiredCount, final long[] table, final int precision) {
         final List<ColorSpaceSubset> ignore = new ArrayList<>();
 
         while (true) {
-            int maxArea = -1;
+            long maxArea = -1;
             ColorSpaceSubset maxSubset = null;
 
             for (final ColorSpaceSubset subset : v) {
                 if (ignore.contains(subset)) {
                     continue;
                 }
-                final int area = subset.total;
+                final long area = subset.total;
 
                 if (maxSubset == null || area > maxArea) {
                     maxSubset = subset;
@@ -162,7 +175,7 @@ public class PaletteFactory {
         }
     }
 
-    private DivisionCandidate divideSubset2(final int[] table, final ColorSpaceSubset subset, final int precision) {
+    private DivisionCandidate divideSubset2(final long[] table, final ColorSpaceSubset subset, final int precision) {
         final List<DivisionCandidate> dcs = new ArrayList<>(divideSubset2(table, subset, 0, precision));
 
         dcs.addAll(divideSubset2(table, subset, 1, precision));
@@ -174,10 +187,10 @@ public class PaletteFactory {
         for (final DivisionCandidate dc : dcs) {
             final ColorSpaceSubset first = dc.dstA;
             final ColorSpaceSubset second = dc.dstB;
-            final int area1 = first.total;
-            final int area2 = second.total;
+            final long area1 = first.total;
+            final long area2 = second.total;
 
-            final int diff = Math.abs(area1 - area2);
+            final long diff = Math.abs(area1 - area2);
             final double score = (double) diff / (double) Math.max(area1, area2);
 
             if (bestV == null || score < bestScore) {
@@ -190,19 +203,19 @@ public class PaletteFactory {
         return bestV;
     }
 
-    private List<DivisionCandidate> divideSubset2(final int[] table, final ColorSpaceSubset subset, final int component, final int precision) {
+    private List<DivisionCandidate> divideSubset2(final long[] table, final ColorSpaceSubset subset, final int component, final int precision) {
         if (LOGGER.isLoggable(Level.FINEST)) {
             subset.dump("trying (" + component + "): ");
         }
 
-        final int total = subset.total;
+        final long total = subset.total;
 
         final int[] sliceMins = Arrays.copyOf(subset.mins, subset.mins.length);
         final int[] sliceMaxs = Arrays.copyOf(subset.maxs, subset.maxs.length);
 
-        int sum1 = 0;
+        long sum1 = 0;
         int slice1;
-        int last = 0;
+        long last = 0;
 
         for (slice1 = subset.mins[component]; slice1 != subset.maxs[component] + 1; slice1++) {
             sliceMins[component] = slice1;
@@ -217,7 +230,7 @@ public class PaletteFactory {
             }
         }
 
-        final int sum2 = sum1 - last;
+        final long sum2 = sum1 - last;
         final int slice2 = slice1 - 1;
 
         final DivisionCandidate dc1 = finishDivision(subset, component, precision, sum1, slice1);
@@ -235,12 +248,12 @@ public class PaletteFactory {
         return result;
     }
 
-    private DivisionCandidate finishDivision(final ColorSpaceSubset subset, final int component, final int precision, final int sum, final int slice) {
+    private DivisionCandidate finishDivision(final ColorSpaceSubset subset, final int component, final int precision, final long sum, final int slice) {
         if (LOGGER.isLoggable(Level.FINEST)) {
             subset.dump("trying (" + component + "): ");
         }
 
-        final int total = subset.total;
+        final long total = subset.total;
 
         if (slice < subset.mins[component] || slice >= subset.maxs[component]) {
             return null;
@@ -273,8 +286,8 @@ public class PaletteFactory {
 
     }
 
-    private int getFrequencyTotal(final int[] table, final int[] mins, final int[] maxs, final int precision) {
-        int sum = 0;
+    private long getFrequencyTotal(final long[] table, final int[] mins, final int[] maxs, final int precision) {
+        long sum = 0;
 
         for (int blue = mins[2]; blue <= maxs[2]; blue++) {
             final int b = blue << 2 * precision;
@@ -423,31 +436,34 @@ public class PaletteFactory {
      * @return the complete palette of {@code max} or less colors, or {@code null} if more than {@code max} colors are necessary
      */
     public SimplePalette makeExactRgbPaletteSimple(final BufferedImage src, final int max) {
-        // This is not efficient for large values of max, say, max > 256;
-        final Set<Integer> rgbs = new HashSet<>();
-
-        final int width = src.getWidth();
-        final int height = src.getHeight();
-
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                final int argb = src.getRGB(x, y);
-                final int rgb = 0xffffff & argb;
+        final ColorHistogram histogram = ColorHistogram.of(src, 0xffffff, false, max, executor);
+        return histogram == null ? null : new SimplePalette(histogram.getColors());
+    }
 
-                if (rgbs.add(rgb) && rgbs.size() > max) {
+    /**
+     * Builds an exact complete opaque palette containing all the colors of the opaque pixels in {@code srcs}, and fails by returning {@code null} if there
+     * are more than {@code max} colors necessary to do this. Pixels that are not fully opaque are left out.
+     *
+     * @param srcs the images whose palette to build
+     * @param max  the maximum number of colors the palette can contain
+     * @return the complete palette of {@code max} or less colors, or {@code null} if more than {@code max} colors are necessary
+     * @since 1.0.0-alpha7
+     */
+    public SimplePalette makeExactOpaqueRgbPalette(final List<BufferedImage> srcs, final int max) {
+        final ColorHistogram colors = new ColorHistogram();
+        for (final BufferedImage src : srcs) {
+            final ColorHistogram histogram = ColorHistogram.of(src, 0xffffff, true, max, executor);
+            if (histogram == null) {
+                return null;
+            }
+            // only the colors are kept, so the counts of many images cannot overflow
+            for (final int rgb : histogram.getColors()) {
+                if (colors.add(rgb, 1) && colors.size() > max) {
                     return null;
                 }
             }
         }
-
-        final int[] result = Allocator.intArray(rgbs.size());
-        int next = 0;
-        for (final int rgb : rgbs) {
-            result[next++] = rgb;
-        }
-        Arrays.sort(result);
-
-        return new SimplePalette(result);
+        return new SimplePalette(colors.getColors());
     }
 
     /**
@@ -462,7 +478,7 @@ public class PaletteFactory {
      * @throws ImagingException if it fails to process the palette
      */
     public Palette makeQuantizedRgbaPalette(final BufferedImage src, final boolean transparent, final int max) throws ImagingException {
-        return new MedianCutQuantizer(!transparent).process(src, max, new LongestAxisMedianCut());
+        return new MedianCutQuantizer(!transparent, executor).process(src, max, new LongestAxisMedianCut());
     }
 
     /**
@@ -475,46 +491,66 @@ public class PaletteFactory {
      * @return the palette of at most {@code max} colors
      */
     public Palette makeQuantizedRgbPalette(final BufferedImage src, final int max) {
+        return makeQuantizedRgbPalette(Collections.singletonList(src), max);
+    }
+
+    /**
+     * Builds an inexact opaque palette of at most {@code max} colors shared by all the images in {@code srcs}, in the same way as
+     * {@link #makeQuantizedRgbPalette(BufferedImage, int)} does for a single image.
+     *
+     * @param srcs the images whose palette to build
+     * @param max  the maximum number of colors the palette can contain
+     * @return the palette of at most {@code max} colors
+     * @since 1.0.0-alpha7
+     */
+    public Palette makeQuantizedRgbPalette(final List<BufferedImage> srcs, final int max) {
         final int precision = 6; // in bits
 
         final int tableScale = precision * COMPONENTS;
         final int tableSize = 1 << tableScale;
-        final int[] table = Allocator.intArray(tableSize);
+        // the counts of many large frames overflow an int
+        final long[] table = Allocator.longArray(tableSize);
 
-        final int width = src.getWidth();
-        final int height = src.getHeight();
+        long pixelCount = 0;
+        for (final BufferedImage src : srcs) {
+            pixelCount += (long) src.getWidth() * src.getHeight();
+        }
 
         final List<ColorSpaceSubset> subsets = new ArrayList<>();
-        final ColorSpaceSubset all = new ColorSpaceSubset(width * height, precision);
+        final ColorSpaceSubset all = new ColorSpaceSubset(pixelCount, precision);
         subsets.add(all);
 
         if (LOGGER.isLoggable(Level.FINEST)) {
-            final int preTotal = getFrequencyTotal(table, all.mins, all.maxs, precision);
+            final long preTotal = getFrequencyTotal(table, all.mins, all.maxs, precision);
             LOGGER.finest("pre total: " + preTotal);
         }
 
         // step 1: count frequency of colors
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                final int argb = src.getRGB(x, y);
-
-                final int index = pixelToQuantizationTableIndex(argb, precision);
-
-                table[index]++;
+        for (final BufferedImage src : srcs) {
+            final int width = src.getWidth();
+            final int height = src.getHeight();
+            final int[] row = Allocator.intArray(width);
+            for (int y = 0; y < height; y++) {
+                src.getRGB(0, y, width, 1, row, 0, width);
+                for (final int argb : row) {
+                    final int index = pixelToQuantizationTableIndex(argb, precision);
+
+                    table[index]++;
+                }
             }
         }
 
         if (LOGGER.isLoggable(Level.FINEST)) {
-            final int allTotal = getFrequencyTotal(table, all.mins, all.maxs, precision);
+            final long allTotal = getFrequencyTotal(table, all.mins, all.maxs, precision);
             LOGGER.finest("all total: " + allTotal);
-            LOGGER.finest("width * height: " + width * height);
+            LOGGER.finest("pixel count: " + pixelCount);
         }
 
         divide(subsets, max, table, precision);
 
         if (LOGGER.isLoggable(Level.FINEST)) {
             LOGGER.finest("subsets: " + subsets.size());
-            LOGGER.finest("width*height: " + width * height);
+            LOGGER.finest("pixel count: " + pixelCount);
         }
 
         for (int i = 0; i < subsets.size(); i++) {
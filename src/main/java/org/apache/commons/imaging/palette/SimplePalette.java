@@ -16,14 +16,39 @@
  */
 package org.apache.commons.imaging.palette;
 
+import java.util.Arrays;
 import java.util.Objects;
 
+import org.apache.commons.imaging.common.Allocator;
+
 /**
  * Simple palette implementation.
+ * <p>
+ * Exact lookups go through an open-addressed hash table of the entries, nearest color lookups through a k-d tree of the entries that is built on first use.
+ * </p>
  */
 public class SimplePalette implements Palette {
 
+    // larger palettes are searched linearly rather than doubling their memory for a hash table
+    private static final int MAX_HASHED_LENGTH = 1 << 16;
+    // the components of a k-d tree node, alpha to blue
+    private static final int COMPONENTS = 4;
+
+    private static int getComponent(final int argb, final int component) {
+        return 0xff & argb >>> 24 - 8 * component;
+    }
+
+    private static int hash(final int rgb, final int shift) {
+        return rgb * 0x9E3779B9 >>> shift;
+    }
+
     private final int[] palette;
+    // entries of the hash table, and their palette index + 1, 0 for an empty slot
+    private final int[] hashKeys;
+    private final int[] hashValues;
+    private final int hashShift;
+    // palette indices in k-d tree order: the median of each range is the node splitting it on component depth % COMPONENTS
+    private volatile int[] kdTree;
 
     /**
      * Constructs a new instance.
@@ -32,6 +57,53 @@ public class SimplePalette implements Palette {
      */
     public SimplePalette(final int[] palette) {
         this.palette = Objects.requireNonNull(palette, "palette").clone();
+        if (palette.length <= MAX_HASHED_LENGTH) {
+            final int capacity = Integer.highestOneBit(Math.max(palette.length, 1)) << 2;
+            hashKeys = Allocator.intArray(capacity);
+            hashValues = Allocator.intArray(capacity);
+            hashShift = Integer.numberOfLeadingZeros(capacity) + 1;
+            for (int i = 0; i < palette.length; i++) {
+                int slot = hash(palette[i], hashShift);
+                while (hashValues[slot] != 0 && hashKeys[slot] != palette[i]) {
+                    slot = slot + 1 & capacity - 1;
+                }
+                // keeps the first of duplicate entries
+                if (hashValues[slot] == 0) {
+                    hashKeys[slot] = palette[i];
+                    hashValues[slot] = i + 1;
+                }
+            }
+        } else {
+            hashKeys = null;
+            hashValues = null;
+            hashShift = 0;
+        }
+    }
+
+    private int[] buildKdTree() {
+        final int[] tree = Allocator.intArray(palette.length);
+        for (int i = 0; i < tree.length; i++) {
+            tree[i] = i;
+        }
+        buildKdTree(tree, new long[tree.length], 0, tree.length, 0);
+        return tree;
+    }
+
+    private void buildKdTree(final int[] tree, final long[] keys, final int from, final int to, final int depth) {
+        if (to - from <= 1) {
+            return;
+        }
+        final int component = depth % COMPONENTS;
+        for (int i = from; i < to; i++) {
+            keys[i] = (long) getComponent(palette[tree[i]], component) << 32 | tree[i];
+        }
+        Arrays.sort(keys, from, to);
+        for (int i = from; i < to; i++) {
+            tree[i] = (int) keys[i];
+        }
+        final int median = from + to >>> 1;
+        buildKdTree(tree, keys, from, median, depth + 1);
+        buildKdTree(tree, keys, median + 1, to, depth + 1);
     }
 
     @Override
@@ -39,18 +111,90 @@ public class SimplePalette implements Palette {
         return palette[index];
     }
 
-    @Override
-    public int getPaletteIndex(final int rgb) {
-        for (int i = 0; i < palette.length; i++) {
-            if (palette[i] == rgb) {
-                return i;
+    private int getExactPaletteIndex(final int rgb) {
+        if (hashKeys == null) {
+            for (int i = 0; i < palette.length; i++) {
+                if (palette[i] == rgb) {
+                    return i;
+                }
             }
+            return -1;
+        }
+        int slot = hash(rgb, hashShift);
+        while (hashValues[slot] != 0) {
+            if (hashKeys[slot] == rgb) {
+                return hashValues[slot] - 1;
+            }
+            slot = slot + 1 & hashKeys.length - 1;
         }
         return -1;
     }
 
+    /**
+     * Gets the index of the entry closest to a color, by the squared distance between their alpha, red, green and blue components. Of entries at the same
+     * distance, the one with the lowest index is chosen.
+     *
+     * @param argb the color to look up.
+     * @return the palette index, or -1 if the palette is empty.
+     * @since 1.0.0-alpha7
+     */
+    public int getNearestPaletteIndex(final int argb) {
+        final int index = getExactPaletteIndex(argb);
+        if (index >= 0 || palette.length == 0) {
+            return index;
+        }
+        int[] tree = kdTree;
+        if (tree == null) {
+            // racing threads build equal trees
+            tree = buildKdTree();
+            kdTree = tree;
+        }
+        return (int) searchKdTree(tree, 0, tree.length, 0, argb, Long.MAX_VALUE);
+    }
+
+    @Override
+    public int getPaletteIndex(final int rgb) {
+        return getExactPaletteIndex(rgb);
+    }
+
     @Override
     public int length() {
         return palette.length;
     }
+
+    /**
+     * Searches a range of the k-d tree for an entry closer than the best so far.
+     *
+     * @return the best so far as {@code squaredDistance << 32 | index}.
+     */
+    private long searchKdTree(final int[] tree, final int from, final int to, final int depth, final int argb, long best) {
+        if (from >= to) {
+            return best;
+        }
+        final int median = from + to >>> 1;
+        final int index = tree[median];
+        final int entry = palette[index];
+        long distance = 0;
+        for (int component = 0; component < COMPONENTS; component++) {
+            final int difference = getComponent(argb, component) - getComponent(entry, component);
+            distance += difference * difference;
+        }
+        best = Math.min(best, distance << 32 | index);
+
+        final int component = depth % COMPONENTS;
+        final int difference = getComponent(argb, component) - getComponent(entry, component);
+        // the near side first, then the far side if the splitting plane is closer than the best so far
+        if (difference < 0) {
+            best = searchKdTree(tree, from, median, depth + 1, argb, best);
+            if ((long) difference * difference <= best >>> 32) {
+                best = searchKdTree(tree, median + 1, to, depth + 1, argb, best);
+            }
+        } else {
+            best = searchKdTree(tree, median + 1, to, depth + 1, argb, best);
+            if ((long) difference * difference <= best >>> 32) {
+                best = searchKdTree(tree, from, median, depth + 1, argb, best);
+            }
+        }
+        return best;
+    }
 }
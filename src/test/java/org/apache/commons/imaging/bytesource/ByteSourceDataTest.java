@@ -19,6 +19,7 @@ package org.apache.commons.imaging.bytesource;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayInputStream;
@@ -26,12 +27,15 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.stream.Stream;
 
+import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
@@ -72,6 +76,15 @@ class ByteSourceDataTest extends AbstractByteSourceTest {
 
     }
 
+    private final class ByteSourceMappedFactory implements ByteSourceFactory {
+
+        @Override
+        public ByteSource getByteSource(final byte[] src) throws IOException {
+            final Path file = createTempFile(src).toPath();
+            return ByteSource.mapped(file);
+        }
+    }
+
     private final class ByteSourcePathFactory implements ByteSourceFactory {
 
         @Override
@@ -105,6 +118,42 @@ class ByteSourceDataTest extends AbstractByteSourceTest {
         writeAndReadBytes(new ByteSourceInputStreamRawFactory(), testByteArray);
     }
 
+    @ParameterizedTest
+    @MethodSource("data")
+    void testByteSourceMappedFactory(final byte[] testByteArray) throws Exception {
+        writeAndReadBytes(new ByteSourceMappedFactory(), testByteArray);
+    }
+
+    @Test
+    void testMappedChunks() throws Exception {
+        final byte[] src = new byte[1000];
+        for (int i = 0; i < src.length; i++) {
+            src[i] = (byte) (i * 7);
+        }
+        // small chunks so that reads and slices straddle chunk boundaries
+        final ByteSource byteSource = new MappedByteSource(createTempFile(src).toPath(), null, 64);
+        assertEquals(src.length, byteSource.size());
+        assertArrayEquals(Arrays.copyOfRange(src, 60, 200), byteSource.getByteArray(60, 140));
+
+        final ByteBuffer slice = byteSource.getByteBuffer(130, 20);
+        assertTrue(slice.isReadOnly());
+        assertEquals(20, slice.remaining());
+        final ByteBuffer straddling = byteSource.getByteBuffer(120, 20);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(src[130 + i], slice.get(i));
+            assertEquals(src[120 + i], straddling.get(i));
+        }
+        assertEquals(0, byteSource.getByteBuffer(src.length, 0).remaining());
+        assertThrows(ImagingException.class, () -> byteSource.getByteBuffer(990, 20));
+
+        try (InputStream is = byteSource.getInputStream()) {
+            assertEquals(100, is.skip(100));
+            assertEquals(0xff & src[100], is.read());
+            assertArrayEquals(Arrays.copyOfRange(src, 101, src.length), IOUtils.toByteArray(is));
+            assertEquals(-1, is.read());
+        }
+    }
+
     @ParameterizedTest
     @MethodSource("data")
     void testByteSourcePathFactory(final byte[] testByteArray) throws Exception {
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.apache.commons.imaging.ImagingException;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentTasksTest {
+
+    private static void assertFailures(final ExecutorService executor) {
+        final IOException ioException = new IOException("read");
+        assertSame(ioException, assertThrows(IOException.class, () -> {
+            try (ConcurrentTasks tasks = new ConcurrentTasks(executor, "testing")) {
+                tasks.add(() -> {
+                    throw ioException;
+                }, result -> {
+                    // not called
+                });
+                tasks.finish();
+            }
+        }));
+        final ImagingException e = assertThrows(ImagingException.class, () -> {
+            try (ConcurrentTasks tasks = new ConcurrentTasks(executor, "testing")) {
+                tasks.add(() -> {
+                    throw new Exception("checked");
+                }, result -> {
+                    // not called
+                });
+                tasks.finish();
+            }
+        });
+        assertEquals("Error testing", e.getMessage());
+        assertThrows(IllegalStateException.class, () -> ConcurrentTasks.forEachRange(executor, 100, (start, end) -> {
+            if (end == 100) {
+                throw new IllegalStateException();
+            }
+        }, "testing"));
+    }
+
+    private static void assertResultsInOrder(final ExecutorService executor) throws Exception {
+        final List<Integer> results = new ArrayList<>();
+        try (ConcurrentTasks tasks = new ConcurrentTasks(executor, "testing")) {
+            for (int i = 0; i < 100; i++) {
+                final int value = i;
+                tasks.add(() -> {
+                    // later tasks finish sooner, their results still come in order
+                    Thread.sleep(value % 3);
+                    return value;
+                }, results::add);
+            }
+            tasks.finish();
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, results.get(i).intValue());
+        }
+
+        final AtomicIntegerArray counts = new AtomicIntegerArray(1000);
+        ConcurrentTasks.forEachRange(executor, counts.length(), (start, end) -> {
+            for (int i = start; i < end; i++) {
+                counts.incrementAndGet(i);
+            }
+        }, "testing");
+        for (int i = 0; i < counts.length(); i++) {
+            assertEquals(1, counts.get(i));
+        }
+    }
+
+    @Test
+    void testConcurrent() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            assertResultsInOrder(executor);
+            assertFailures(executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testParallelism() {
+        final ExecutorService fixed = Executors.newFixedThreadPool(3);
+        final ExecutorService cached = Executors.newCachedThreadPool();
+        final ForkJoinPool forkJoinPool = new ForkJoinPool(5);
+        try {
+            assertEquals(3, ConcurrentTasks.getParallelism(fixed));
+            assertEquals(12, ConcurrentTasks.getTaskCount(fixed));
+            assertEquals(Runtime.getRuntime().availableProcessors(), ConcurrentTasks.getParallelism(cached));
+            assertEquals(5, ConcurrentTasks.getParallelism(forkJoinPool));
+        } finally {
+            fixed.shutdown();
+            cached.shutdown();
+            forkJoinPool.shutdown();
+        }
+    }
+
+    @Test
+    void testSerial() throws Exception {
+        assertResultsInOrder(null);
+        assertFailures(null);
+    }
+}
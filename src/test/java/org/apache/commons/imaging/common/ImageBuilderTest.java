@@ -18,6 +18,7 @@ package org.apache.commons.imaging.common;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -111,6 +112,24 @@ class ImageBuilderTest {
         assertTrue(model.isAlphaPremultiplied(), "Output image does not have alpha pre-multiplied where specified");
     }
 
+    /**
+     * Test of setting a run of pixels in a row
+     */
+    @Test
+    void testSetRgbRun() {
+        final ImageBuilder imageBuilder = new ImageBuilder(10, 3, false);
+        final int[] argb = { 1, 2, 3, 4, 5 };
+        imageBuilder.setRgb(6, 1, argb, 1, 4);
+        for (int x = 0; x < 10; x++) {
+            assertEquals(x < 6 ? 0 : x - 4, imageBuilder.getRgb(x, 1));
+            assertEquals(0, imageBuilder.getRgb(x, 0));
+            assertEquals(0, imageBuilder.getRgb(x, 2));
+        }
+        assertThrows(IllegalArgumentException.class, () -> imageBuilder.setRgb(7, 1, argb, 1, 4));
+        assertThrows(IllegalArgumentException.class, () -> imageBuilder.setRgb(-1, 1, argb, 1, 4));
+        assertThrows(IllegalArgumentException.class, () -> imageBuilder.setRgb(0, 3, argb, 1, 4));
+    }
+
     /**
      * Test whether sub-image is consistent with source
      */
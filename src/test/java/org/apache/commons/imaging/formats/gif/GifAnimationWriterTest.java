@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.formats.gif;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class GifAnimationWriterTest {
+
+    private static final int WIDTH = 40;
+    private static final int HEIGHT = 30;
+
+    /**
+     * Creates frames of a square moving over a striped background, which turns transparent around the square in the later frames.
+     */
+    private static List<BufferedImage> createFrames(final int count) {
+        final List<BufferedImage> frames = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final BufferedImage frame = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    final int argb;
+                    if (x >= 2 * i && x < 2 * i + 8 && y >= i && y < i + 8) {
+                        argb = 0xff000000 | 0x1234 * (i + 1);
+                    } else if (i >= count / 2 && y < HEIGHT / 3) {
+                        argb = 0;
+                    } else {
+                        argb = (y & 4) == 0 ? 0xffffffff : 0xff3366cc;
+                    }
+                    frame.setRGB(x, y, argb);
+                }
+            }
+            frames.add(frame);
+        }
+        return frames;
+    }
+
+    private static int[] getArgb(final BufferedImage image) {
+        final int[] argbs = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+        for (int i = 0; i < argbs.length; i++) {
+            if (argbs[i] >>> 24 != 0xff) {
+                argbs[i] = 0;
+            }
+        }
+        return argbs;
+    }
+
+    private static byte[] write(final List<BufferedImage> frames, final int[] delays, final GifImagingParameters params) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new GifImageParser().writeAnimation(frames, delays, out, params);
+        return out.toByteArray();
+    }
+
+    @Test
+    void testInvalidArguments() {
+        final List<BufferedImage> frames = createFrames(2);
+        final GifImageParser parser = new GifImageParser();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThrows(IllegalArgumentException.class, () -> parser.writeAnimation(Collections.emptyList(), new int[0], out, null));
+        assertThrows(IllegalArgumentException.class, () -> parser.writeAnimation(frames, new int[1], out, null));
+        assertThrows(IllegalArgumentException.class, () -> parser.writeAnimation(frames, new int[] { 0, 0x10000 }, out, null));
+        assertThrows(IllegalArgumentException.class, () -> new GifImagingParameters().setLoopCount(-1));
+    }
+
+    @Test
+    void testQuantizedColors() throws Exception {
+        final List<BufferedImage> frames = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final BufferedImage frame = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    frame.setRGB(x, y, x * 6 << 16 | y * 8 << 8 | (x + y) * 3 + i * 10);
+                }
+            }
+            frames.add(frame);
+        }
+        for (final boolean globalColorTable : new boolean[] { true, false }) {
+            final byte[] gif = write(frames, new int[3], new GifImagingParameters().setGlobalColorTable(globalColorTable));
+            long error = 0;
+            try (GifFrameIterator iterator = new GifImageParser().getFrameIterator(ByteSource.array(gif))) {
+                for (int i = 0; i < frames.size(); i++) {
+                    final BufferedImage image = iterator.next().getImage();
+                    for (int y = 0; y < HEIGHT; y++) {
+                        for (int x = 0; x < WIDTH; x++) {
+                            final int expected = frames.get(i).getRGB(x, y);
+                            final int actual = image.getRGB(x, y);
+                            assertEquals(0xff, actual >>> 24);
+                            for (int shift = 0; shift < 24; shift += 8) {
+                                error += Math.abs((0xff & expected >> shift) - (0xff & actual >> shift));
+                            }
+                        }
+                    }
+                }
+                assertFalse(iterator.hasNext());
+            }
+            // mean error per color component
+            assertTrue(error < 8 * 3 * frames.size() * WIDTH * HEIGHT, () -> "global color table: " + globalColorTable);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { true, false })
+    void testRoundTrip(final boolean globalColorTable) throws Exception {
+        final List<BufferedImage> frames = createFrames(10);
+        final int[] delays = new int[frames.size()];
+        Arrays.fill(delays, 7);
+        delays[3] = 0xffff;
+        final byte[] gif = write(frames, delays, new GifImagingParameters().setGlobalColorTable(globalColorTable).setLoopCount(3));
+
+        final GifImageParser parser = new GifImageParser();
+        try (GifFrameIterator iterator = parser.getFrameIterator(ByteSource.array(gif))) {
+            for (int i = 0; i < frames.size(); i++) {
+                final GifFrame frame = iterator.next();
+                assertEquals(delays[i], frame.getDelay());
+                assertArrayEquals(getArgb(frames.get(i)), getArgb(frame.getImage()), "frame " + i);
+            }
+            assertFalse(iterator.hasNext());
+        }
+
+        // frames after the first only cover what changed
+        final List<BufferedImage> images = parser.getAllBufferedImages(ByteSource.array(gif));
+        assertEquals(WIDTH * HEIGHT, images.get(0).getWidth() * images.get(0).getHeight());
+        assertEquals(10 * 9, images.get(1).getWidth() * images.get(1).getHeight());
+    }
+
+    @Test
+    void testUnchangedFrames() throws Exception {
+        final BufferedImage frame = createFrames(1).get(0);
+        final byte[] gif = write(Arrays.asList(frame, frame, frame), new int[] { 1, 2, 3 }, null);
+        final List<BufferedImage> images = new GifImageParser().getAllBufferedImages(ByteSource.array(gif));
+        assertEquals(3, images.size());
+        assertEquals(1, images.get(2).getWidth());
+        assertEquals(1, images.get(2).getHeight());
+    }
+
+    @Test
+    void testWriteWithExecutor() throws Exception {
+        final List<BufferedImage> frames = createFrames(12);
+        final int[] delays = new int[frames.size()];
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (final boolean globalColorTable : new boolean[] { true, false }) {
+                final byte[] expected = write(frames, delays, new GifImagingParameters().setGlobalColorTable(globalColorTable));
+                final byte[] actual = write(frames, delays, new GifImagingParameters().setGlobalColorTable(globalColorTable).setExecutor(executor));
+                assertArrayEquals(expected, actual);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
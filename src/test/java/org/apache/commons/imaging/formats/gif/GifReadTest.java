@@ -17,16 +17,22 @@
 
 package org.apache.commons.imaging.formats.gif;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.stream.Stream;
 
 import org.apache.commons.imaging.ImageInfo;
@@ -34,6 +40,7 @@ import org.apache.commons.imaging.Imaging;
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.bytesource.ByteSource;
 import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.mylzw.MyLzwCompressor;
 import org.apache.commons.imaging.test.TestResources;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -41,10 +48,61 @@ import org.junit.jupiter.params.provider.MethodSource;
 
 class GifReadTest extends AbstractGifTest {
 
+    private static final int[] PALETTE = { 0xff000000, 0xffff0000, 0xff00ff00, 0xff0000ff };
+
     public static Stream<File> animatedImageData() throws Exception {
         return getAnimatedGifImages().stream();
     }
 
+    /**
+     * Creates an animated GIF with a four color global color table and a graphic control extension for every frame.
+     *
+     * @param frames left, top, width, height, disposal method, transparent index or -1, then the color indices of each frame.
+     */
+    private static byte[] createAnimatedGif(final int width, final int height, final int[]... frames) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write("GIF89a".getBytes(StandardCharsets.US_ASCII));
+        writeShort(out, width);
+        writeShort(out, height);
+        out.write(0x81);
+        out.write(0);
+        out.write(0);
+        for (final int rgb : PALETTE) {
+            out.write(rgb >> 16);
+            out.write(rgb >> 8);
+            out.write(rgb);
+        }
+        for (final int[] frame : frames) {
+            out.write(0x21);
+            out.write(0xf9);
+            out.write(4);
+            out.write(frame[4] << 2 | (frame[5] >= 0 ? 1 : 0));
+            writeShort(out, 10);
+            out.write(Math.max(frame[5], 0));
+            out.write(0);
+
+            out.write(0x2c);
+            for (int i = 0; i < 4; i++) {
+                writeShort(out, frame[i]);
+            }
+            out.write(0);
+            final byte[] pixels = new byte[frame.length - 6];
+            for (int i = 0; i < pixels.length; i++) {
+                pixels[i] = (byte) frame[6 + i];
+            }
+            final byte[] compressed = new MyLzwCompressor(2, ByteOrder.LITTLE_ENDIAN, false).compress(pixels);
+            out.write(2);
+            for (int i = 0; i < compressed.length; i += 255) {
+                final int length = Math.min(255, compressed.length - i);
+                out.write(length);
+                out.write(compressed, i, length);
+            }
+            out.write(0);
+        }
+        out.write(0x3b);
+        return out.toByteArray();
+    }
+
     public static Stream<File> data() throws Exception {
         return getGifImages().stream();
     }
@@ -75,6 +133,15 @@ class GifReadTest extends AbstractGifTest {
         assertEquals(1, images.size());
     }
 
+    private static void writeShort(final ByteArrayOutputStream out, final int value) {
+        out.write(value);
+        out.write(value >> 8);
+    }
+
+    private int[] getArgb(final BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
     @Test
     void testConvertInvalidDisposalMethodValues() {
         assertThrows(ImagingException.class, () -> GifImageParser.createDisposalMethodFromIntValue(8));
@@ -108,6 +175,62 @@ class GifReadTest extends AbstractGifTest {
         }
     }
 
+    @ParameterizedTest
+    @MethodSource("animatedImageData")
+    void testFrameIterator(final File imageFile) throws Exception {
+        final GifImageParser parser = new GifImageParser();
+        final GifImageMetadata metadata = (GifImageMetadata) parser.getMetadata(imageFile);
+        int count = 0;
+        try (GifFrameIterator frames = parser.getFrameIterator(ByteSource.file(imageFile))) {
+            while (frames.hasNext()) {
+                final GifFrame frame = frames.next();
+                final GifImageMetadataItem metadataItem = metadata.getItems().get(count);
+                assertEquals(count++, frame.getIndex());
+                assertEquals(metadata.getWidth(), frame.getImage().getWidth());
+                assertEquals(metadata.getHeight(), frame.getImage().getHeight());
+                assertEquals(metadataItem.getDelay(), frame.getDelay());
+                assertEquals(metadataItem.getDisposalMethod(), frame.getDisposalMethod());
+            }
+            assertThrows(NoSuchElementException.class, frames::next);
+        }
+        assertEquals(metadata.getItems().size(), count);
+    }
+
+    @Test
+    void testFrameIteratorComposition() throws Exception {
+        final int t = 0;
+        final int r = PALETTE[1];
+        final int g = PALETTE[2];
+        final int b = PALETTE[3];
+        final byte[] gif = createAnimatedGif(4, 4,
+                new int[] { 0, 0, 4, 4, 1, -1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1 },
+                new int[] { 1, 1, 2, 2, 3, -1, 2, 2, 2, 2 },
+                new int[] { 0, 0, 1, 1, 2, -1, 3 },
+                new int[] { 2, 2, 2, 2, 0, 0, 0, 2, 2, 0 },
+                new int[] { 3, 3, 2, 2, 0, -1, 3, 3, 3, 3 });
+        final int[][] expected = {
+                { r, r, r, r, r, r, r, r, r, r, r, r, r, r, r, r },
+                { r, r, r, r, r, g, g, r, r, g, g, r, r, r, r, r },
+                { b, r, r, r, r, r, r, r, r, r, r, r, r, r, r, r },
+                { t, r, r, r, r, r, r, r, r, r, r, g, r, r, g, r },
+                // the last frame is clipped to the logical screen
+                { t, r, r, r, r, r, r, r, r, r, r, g, r, r, g, b } };
+        final DisposalMethod[] disposalMethods = { DisposalMethod.DO_NOT_DISPOSE, DisposalMethod.RESTORE_TO_PREVIOUS, DisposalMethod.RESTORE_TO_BACKGROUND,
+                DisposalMethod.UNSPECIFIED, DisposalMethod.UNSPECIFIED };
+
+        try (GifFrameIterator frames = new GifImageParser().getFrameIterator(ByteSource.array(gif))) {
+            for (int i = 0; i < expected.length; i++) {
+                assertTrue(frames.hasNext());
+                final GifFrame frame = frames.next();
+                assertEquals(i, frame.getIndex());
+                assertEquals(10, frame.getDelay());
+                assertEquals(disposalMethods[i], frame.getDisposalMethod());
+                assertArrayEquals(expected[i], getArgb(frame.getImage()), "frame " + i);
+            }
+            assertFalse(frames.hasNext());
+        }
+    }
+
     @ParameterizedTest
     @MethodSource("data")
     void testImageDimensions(final File imageFile) throws Exception {
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg.decoder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.formats.jpeg.JpegConstants;
+import org.apache.commons.imaging.formats.jpeg.segments.DhtSegment;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for class {@link HuffmanDecoder}.
+ */
+class HuffmanDecoderTest {
+
+    private static HuffmanDecoder acDecoder() throws IOException {
+        // one 1-bit code "0" for run/size 0x01 and one 16-bit code "1000000000000000" for 0x02
+        final byte[] segmentData = new byte[1 + 16 + 2];
+        segmentData[0] = 0x10;
+        segmentData[1] = 1;
+        segmentData[16] = 1;
+        segmentData[17] = 0x01;
+        segmentData[18] = 0x02;
+        final DhtSegment dhtSegment = new DhtSegment(JpegConstants.DHT_MARKER, segmentData);
+        return new HuffmanDecoder(dhtSegment.huffmanTables.get(0));
+    }
+
+    @Test
+    void testDecodeLookupAndLongCode() throws IOException, ImagingException {
+        final HuffmanDecoder decoder = acDecoder();
+        // 0 | 1000000000000000 | 0 | 1 -> 0x40 0x00 0x20
+        final JpegInputStream is = new JpegInputStream(new byte[] { 0x40, 0x00, 0x20 });
+        assertEquals(0x01, decoder.decode(is));
+        assertEquals(0x02, decoder.decode(is));
+
+        final int fast = decoder.fastAc(is.peekBits(HuffmanDecoder.LOOKAHEAD_BITS));
+        assertEquals(1, fast >> 8);
+        assertEquals(0, fast >> 4 & 0xf);
+        assertEquals(2, fast & 0xf);
+    }
+
+    @Test
+    void testFastAcNegativeCoefficient() throws IOException {
+        final HuffmanDecoder decoder = acDecoder();
+        // code "0" followed by magnitude bit "0" extends to -1
+        assertEquals(-1, decoder.fastAc(0) >> 8);
+        // the 16-bit code cannot be resolved by the lookahead
+        assertEquals(0, decoder.fastAc(0x100));
+    }
+}
@@ -17,12 +17,21 @@
 
 package org.apache.commons.imaging.formats.jpeg.decoder;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.formats.jpeg.JpegImagingParameters;
 import org.apache.commons.imaging.test.TestResources;
 import org.junit.jupiter.api.Test;
 
@@ -31,6 +40,10 @@ import org.junit.jupiter.api.Test;
  */
 class JpegDecoderTest {
 
+    private static int[] getRgb(final BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
     /**
      * Test that a bad file does not hang or take too long to be processed.
      */
@@ -41,4 +54,94 @@ class JpegDecoderTest {
         final ByteSource byteSourceFile = ByteSource.file(inputFile);
         assertThrows(ImagingException.class, () -> new JpegDecoder().decode(byteSourceFile));
     }
+
+    /**
+     * Test that decoding restart intervals concurrently gives the same pixels as decoding them on the calling thread.
+     */
+    @Test
+    void testDecodeRestartIntervalsWithExecutor() throws IOException {
+        // defines a restart interval of 10 MCUs
+        final File inputFile = TestResources.resourceToFile("/images/jpeg/photoshop/IMAGING-246/FallHarvestKitKat_07610.jpg");
+        final ByteSource byteSource = ByteSource.file(inputFile);
+        final BufferedImage expected = new JpegDecoder().decode(byteSource);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final BufferedImage actual = new JpegDecoder(new JpegImagingParameters().setExecutor(executor)).decode(byteSource);
+            assertArrayEquals(getRgb(expected), getRgb(actual));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Test that decoding at a reduced scale rounds the size up, and that at 1/8 scale each pixel is the average of its 8x8 block.
+     */
+    @Test
+    void testDecodeScaled() throws IOException {
+        final ByteSource byteSource = ByteSource.file(TestResources.resourceToFile("/images/jpeg/photoshop/IMAGING-246/FallHarvestKitKat_07610.jpg"));
+        final int[][] expectedSizes = { { 2, 975, 616 }, { 4, 488, 308 }, { 8, 244, 154 } };
+        for (final int[] expectedSize : expectedSizes) {
+            final BufferedImage image = new JpegDecoder(new JpegImagingParameters().setScaleDenominator(expectedSize[0])).decode(byteSource);
+            assertEquals(expectedSize[1], image.getWidth());
+            assertEquals(expectedSize[2], image.getHeight());
+        }
+
+        final File progressiveFile = TestResources.resourceToFile("/images/jpeg/iptc/IMAGING-168/111083453-c07f1880-851e-11eb-8b61-2757f7d934bf.jpg");
+        final ByteSource progressive = ByteSource.file(progressiveFile);
+        final BufferedImage image = new JpegDecoder().decode(progressive);
+        final BufferedImage scaled = new JpegDecoder(new JpegImagingParameters().setScaleDenominator(8)).decode(progressive);
+        final int[] expected = getRgb(image);
+        final int[] actual = getRgb(scaled);
+        for (int y = 0; y < scaled.getHeight(); y++) {
+            for (int x = 0; x < scaled.getWidth(); x++) {
+                for (int shift = 0; shift < 24; shift += 8) {
+                    final double expectedMean = getMean(expected, image.getWidth(), 8 * x, 8 * y, 8, shift);
+                    assertEquals(expectedMean, actual[y * scaled.getWidth() + x] >> shift & 0xff, 4, "pixel at " + x + "," + y);
+                }
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> new JpegImagingParameters().setScaleDenominator(3));
+    }
+
+    /**
+     * Test that a progressive JPEG decodes, and that stopping after its first scan gives a close preview.
+     */
+    @Test
+    void testDecodeProgressive() throws IOException {
+        final File inputFile = TestResources.resourceToFile("/images/jpeg/iptc/IMAGING-168/111083453-c07f1880-851e-11eb-8b61-2757f7d934bf.jpg");
+        final ByteSource byteSource = ByteSource.file(inputFile);
+        final BufferedImage image = new JpegDecoder().decode(byteSource);
+        assertEquals(200, image.getWidth());
+        assertEquals(200, image.getHeight());
+
+        final BufferedImage preview = new JpegDecoder(new JpegImagingParameters().setProgressiveScanLimit(1)).decode(byteSource);
+        assertEquals(image.getWidth(), preview.getWidth());
+        assertEquals(image.getHeight(), preview.getHeight());
+        // the first scan holds the DC coefficients only, so the preview loses detail but keeps the average of each MCU
+        final int[] expected = getRgb(image);
+        final int[] actual = getRgb(preview);
+        assertFalse(Arrays.equals(expected, actual));
+        final int mcuSize = 16;
+        for (int y = 0; y < image.getHeight(); y += mcuSize) {
+            for (int x = 0; x < image.getWidth(); x += mcuSize) {
+                for (int shift = 0; shift < 24; shift += 8) {
+                    final double expectedMean = getMean(expected, image.getWidth(), x, y, mcuSize, shift);
+                    final double actualMean = getMean(actual, image.getWidth(), x, y, mcuSize, shift);
+                    assertEquals(expectedMean, actualMean, 4, "MCU at " + x + "," + y);
+                }
+            }
+        }
+    }
+
+    private static double getMean(final int[] rgb, final int width, final int x0, final int y0, final int size, final int shift) {
+        long sum = 0;
+        int count = 0;
+        for (int y = y0; y < Math.min(y0 + size, rgb.length / width); y++) {
+            for (int x = x0; x < Math.min(x0 + size, width); x++) {
+                sum += rgb[y * width + x] >> shift & 0xff;
+                count++;
+            }
+        }
+        return (double) sum / count;
+    }
 }
@@ -16,7 +16,10 @@
  */
 package org.apache.commons.imaging.formats.jpeg.decoder;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.apache.commons.imaging.ImagingException;
 import org.junit.jupiter.api.Test;
@@ -30,7 +33,7 @@ class JpegInputStreamTest {
 
     @Test
     void testNextBitThrowsImageReadExceptionOne() {
-        final int[] byteArray = new int[6];
+        final byte[] byteArray = new byte[6];
         byteArray[0] = (byte) -1;
         byteArray[1] = (byte) 74;
         final JpegInputStream jpegInputStream = new JpegInputStream(byteArray);
@@ -41,11 +44,41 @@ class JpegInputStreamTest {
 
     @Test
     void testNextBitThrowsImageReadExceptionTwo() {
-        final int[] byteArray = {};
+        final byte[] byteArray = {};
         final JpegInputStream jpegInputStream = new JpegInputStream(byteArray);
 
         assertThrows(IllegalStateException.class, jpegInputStream::nextBit);
 
     }
 
+    @Test
+    void testReadBitsSkipsStuffedZeroByte() throws ImagingException {
+        final JpegInputStream jpegInputStream = new JpegInputStream(new byte[] { (byte) 0xFF, 0x00, (byte) 0xA5 });
+
+        assertEquals(0xFF, jpegInputStream.peekBits(8));
+        assertEquals(0xFFA, jpegInputStream.readBits(12));
+        assertFalse(jpegInputStream.hasNext());
+        assertEquals(0x5, jpegInputStream.readBits(4));
+    }
+
+    @Test
+    void testReceiveExtend() throws ImagingException {
+        // 3 bits "010" -> -5, 3 bits "110" -> 6
+        final JpegInputStream jpegInputStream = new JpegInputStream(new byte[] { 0x58 });
+
+        assertEquals(-5, jpegInputStream.receiveExtend(3));
+        assertEquals(6, jpegInputStream.receiveExtend(3));
+        assertEquals(0, jpegInputStream.receiveExtend(0));
+    }
+
+    @Test
+    void testReadBitsStopsAtMarker() throws ImagingException {
+        final JpegInputStream jpegInputStream = new JpegInputStream(new byte[] { (byte) 0x80, (byte) 0xFF, (byte) 0xD9 });
+
+        assertEquals(0x80, jpegInputStream.readBits(8));
+        assertTrue(jpegInputStream.hasNext());
+        assertEquals(0, jpegInputStream.peekBits(8));
+        assertThrows(ImagingException.class, jpegInputStream::nextBit);
+    }
+
 }
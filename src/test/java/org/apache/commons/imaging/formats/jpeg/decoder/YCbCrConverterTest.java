@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.imaging.formats.jpeg.decoder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for class {@link YCbCrConverter}.
+ */
+class YCbCrConverterTest {
+
+    private static final int[] Y = { 0, 16, 64, 100, 128, 200, 235, 255 };
+
+    private static final int[] CB = { 90, 240, 16, 128 };
+
+    private static final int[] CR = { 240, 110, 128, 16 };
+
+    @Test
+    void testConvertRow() {
+        final int[] rgb = new int[Y.length + 1];
+        YCbCrConverter.convertRow(Y, 2, CB, CR, 1, rgb, 1, 3);
+        assertEquals(0, rgb[0]);
+        for (int x = 0; x < 3; x++) {
+            assertEquals(YCbCrConverter.convertYCbCrToRgb(Y[2 + x], CB[1 + x], CR[1 + x]), rgb[1 + x]);
+        }
+        assertEquals(0, rgb[4]);
+    }
+
+    @Test
+    void testConvertRowH2() {
+        // an odd count ends with a pixel that has a chroma sample to itself
+        for (int count = 1; count <= Y.length; count++) {
+            final int[] rgb = new int[Y.length];
+            YCbCrConverter.convertRowH2(Y, 0, CB, CR, 0, rgb, 0, count);
+            for (int x = 0; x < Y.length; x++) {
+                final int expected = x < count ? YCbCrConverter.convertYCbCrToRgb(Y[x], CB[x >> 1], CR[x >> 1]) : 0;
+                assertEquals(expected, rgb[x], "pixel " + x + " of " + count);
+            }
+        }
+    }
+}
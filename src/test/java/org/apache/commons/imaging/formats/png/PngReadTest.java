@@ -19,21 +19,32 @@ package org.apache.commons.imaging.formats.png;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
 
 import org.apache.commons.imaging.ImageInfo;
 import org.apache.commons.imaging.Imaging;
 import org.apache.commons.imaging.ImagingException;
 import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.common.BufferedImageFactory;
 import org.apache.commons.imaging.common.GenericImageMetadata;
 import org.apache.commons.imaging.common.ImageMetadata;
+import org.apache.commons.imaging.common.RgbBufferedImageFactory;
 import org.apache.commons.imaging.formats.tiff.TiffImageMetadata;
 import org.apache.commons.imaging.formats.tiff.constants.TiffDirectoryConstants;
 import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
@@ -43,6 +54,70 @@ import org.junit.jupiter.api.Test;
 
 class PngReadTest extends AbstractPngTest {
 
+    private static final int[] ADAM7_STARTING_ROW = { 0, 0, 4, 0, 2, 0, 1 };
+    private static final int[] ADAM7_STARTING_COL = { 0, 4, 0, 2, 0, 1, 0 };
+    private static final int[] ADAM7_ROW_INCREMENT = { 8, 8, 8, 4, 4, 2, 2 };
+    private static final int[] ADAM7_COL_INCREMENT = { 8, 8, 4, 4, 2, 2, 1 };
+
+    private static void writeChunk(final DataOutputStream dos, final String type, final byte[] data) throws IOException {
+        final byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        final CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        dos.writeInt(data.length);
+        dos.write(typeBytes);
+        dos.write(data);
+        dos.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Creates a greyscale PNG, splitting the compressed scanlines into IDAT chunks of at most the given size with a tEXt chunk after each of them.
+     */
+    private static byte[] createGreyscalePng(final int width, final int height, final int bitDepth, final boolean interlaced, final byte[] scanlines,
+            final int idatSize) throws IOException {
+        final ByteArrayOutputStream png = new ByteArrayOutputStream();
+        try (DataOutputStream dos = new DataOutputStream(png)) {
+            PngConstants.PNG_SIGNATURE.writeTo(dos);
+            final ByteArrayOutputStream ihdr = new ByteArrayOutputStream();
+            try (DataOutputStream ihdrDos = new DataOutputStream(ihdr)) {
+                ihdrDos.writeInt(width);
+                ihdrDos.writeInt(height);
+                ihdrDos.write(new byte[] { (byte) bitDepth, 0, 0, 0, (byte) (interlaced ? 1 : 0) });
+            }
+            writeChunk(dos, "IHDR", ihdr.toByteArray());
+            final ByteArrayOutputStream idat = new ByteArrayOutputStream();
+            try (DeflaterOutputStream deflater = new DeflaterOutputStream(idat)) {
+                deflater.write(scanlines);
+            }
+            final byte[] compressed = idat.toByteArray();
+            for (int offset = 0; offset < compressed.length; offset += idatSize) {
+                writeChunk(dos, "IDAT", Arrays.copyOfRange(compressed, offset, Math.min(compressed.length, offset + idatSize)));
+                if (idatSize < compressed.length) {
+                    writeChunk(dos, "tEXt", "Comment\0split".getBytes(StandardCharsets.ISO_8859_1));
+                }
+            }
+            writeChunk(dos, "IEND", new byte[0]);
+        }
+        return png.toByteArray();
+    }
+
+    private void assertCrcFailure(final IOException e) {
+        // chunks read while the image data is decoded are reported as missing image data, caused by the CRC mismatch
+        final Throwable cause = e instanceof ImagingException ? e : e.getCause();
+        assertInstanceOf(ImagingException.class, cause);
+        assertTrue(cause.getMessage().contains("CRC"), cause::getMessage);
+    }
+
+    private void assertSameRgb(final BufferedImage expected, final BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+            }
+        }
+    }
+
     @Test
     void test() throws Exception {
         Debug.debug("start");
@@ -72,6 +147,158 @@ class PngReadTest extends AbstractPngTest {
         }
     }
 
+    @Test
+    void testInterlacedSubByteGreyscale() throws Exception {
+        final int width = 13;
+        final int height = 11;
+        final int bitDepth = 2;
+        final int[][] samples = new int[height][width];
+        final Random random = new Random(0);
+        for (final int[] row : samples) {
+            for (int x = 0; x < width; x++) {
+                row[x] = random.nextInt(1 << bitDepth);
+            }
+        }
+
+        final ByteArrayOutputStream scanlines = new ByteArrayOutputStream();
+        for (int pass = 0; pass < 7; pass++) {
+            if (ADAM7_STARTING_COL[pass] >= width) {
+                continue;
+            }
+            for (int y = ADAM7_STARTING_ROW[pass]; y < height; y += ADAM7_ROW_INCREMENT[pass]) {
+                // filter type none
+                scanlines.write(0);
+                int bits = 0;
+                int cache = 0;
+                for (int x = ADAM7_STARTING_COL[pass]; x < width; x += ADAM7_COL_INCREMENT[pass]) {
+                    cache = cache << bitDepth | samples[y][x];
+                    bits += bitDepth;
+                    if (bits == 8) {
+                        scanlines.write(cache);
+                        cache = 0;
+                        bits = 0;
+                    }
+                }
+                if (bits > 0) {
+                    scanlines.write(cache << 8 - bits);
+                }
+            }
+        }
+
+        final byte[] png = createGreyscalePng(width, height, bitDepth, true, scanlines.toByteArray(), Integer.MAX_VALUE);
+
+        final PngImagingParameters params = new PngImagingParameters();
+        params.setBufferedImageFactory(new RgbBufferedImageFactory());
+        final BufferedImage image = new PngImageParser().getBufferedImage(ByteSource.array(png), params);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int sample = samples[y][x] * 0x55;
+                assertEquals(0xff000000 | sample << 16 | sample << 8 | sample, image.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    void testReadWithCrcVerification() throws Exception {
+        final int width = 29;
+        final int height = 17;
+        final byte[] scanlines = new byte[height * (width + 1)];
+        for (int y = 0; y < height; y++) {
+            for (int x = 1; x <= width; x++) {
+                scanlines[y * (width + 1) + x] = (byte) (x * y);
+            }
+        }
+        // signature, IHDR, a 7 byte IDAT and its CRC, then a tEXt chunk with 13 bytes of data
+        final byte[] png = createGreyscalePng(width, height, 8, false, scanlines, 7);
+        final int idatCrcOffset = 8 + 25 + 8 + 7;
+        final int textDataOffset = idatCrcOffset + 4 + 8;
+        final PngImageParser parser = new PngImageParser();
+        final BufferedImage expected = parser.getBufferedImage(ByteSource.array(png), null);
+
+        for (final PngCrcVerification crcVerification : PngCrcVerification.values()) {
+            final PngImagingParameters params = new PngImagingParameters().setCrcVerification(crcVerification);
+            assertSameRgb(expected, parser.getBufferedImage(ByteSource.array(png), params));
+
+            final byte[] badText = png.clone();
+            badText[textDataOffset + 12]++;
+            final byte[] badImageData = png.clone();
+            badImageData[idatCrcOffset]++;
+            if (crcVerification == PngCrcVerification.VERIFY) {
+                assertCrcFailure(assertThrows(IOException.class, () -> parser.getBufferedImage(ByteSource.array(badText), params)));
+                assertCrcFailure(assertThrows(IOException.class, () -> parser.getImageInfo(ByteSource.array(badText), params)));
+            } else {
+                assertSameRgb(expected, parser.getBufferedImage(ByteSource.array(badText), params));
+            }
+            if (crcVerification == PngCrcVerification.SKIP) {
+                assertSameRgb(expected, parser.getBufferedImage(ByteSource.array(badImageData), params));
+            } else {
+                assertCrcFailure(assertThrows(IOException.class, () -> parser.getBufferedImage(ByteSource.array(badImageData), params)));
+            }
+        }
+    }
+
+    @Test
+    void testReadSplitImageDataWithRowListener() throws Exception {
+        final int width = 29;
+        final int height = 17;
+        final byte[] scanlines = new byte[height * (width + 1)];
+        final Random random = new Random(0);
+        for (int y = 0; y < height; y++) {
+            // filter type none, then the samples
+            for (int x = 1; x <= width; x++) {
+                scanlines[y * (width + 1) + x] = (byte) random.nextInt(256);
+            }
+        }
+        final byte[] png = createGreyscalePng(width, height, 8, false, scanlines, 7);
+
+        final List<Integer> rows = new ArrayList<>();
+        final PngImagingParameters params = new PngImagingParameters();
+        params.setBufferedImageFactory(new RgbBufferedImageFactory());
+        params.setRowListener((image, y, count) -> {
+            assertEquals(1, count);
+            final int sample = 0xff & scanlines[y * (width + 1) + width];
+            assertEquals(0xff000000 | sample << 16 | sample << 8 | sample, image.getRGB(width - 1, y));
+            rows.add(y);
+        });
+        final BufferedImage image = new PngImageParser().getBufferedImage(ByteSource.array(png), params);
+
+        assertEquals(height, rows.size());
+        for (int y = 0; y < height; y++) {
+            assertEquals(y, rows.get(y).intValue());
+            for (int x = 0; x < width; x++) {
+                final int sample = 0xff & scanlines[y * (width + 1) + x + 1];
+                assertEquals(0xff000000 | sample << 16 | sample << 8 | sample, image.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    void testReadIntoOtherImageTypes() throws Exception {
+        // byte interleaved images are filled through setRGB rather than directly
+        final BufferedImageFactory byteFactory = new BufferedImageFactory() {
+            @Override
+            public BufferedImage getColorBufferedImage(final int width, final int height, final boolean hasAlpha) {
+                return new BufferedImage(width, height, hasAlpha ? BufferedImage.TYPE_4BYTE_ABGR : BufferedImage.TYPE_3BYTE_BGR);
+            }
+
+            @Override
+            public BufferedImage getGrayscaleBufferedImage(final int width, final int height, final boolean hasAlpha) {
+                return getColorBufferedImage(width, height, hasAlpha);
+            }
+        };
+
+        for (final File imageFile : getPngImages()) {
+            if (isInvalidPngTestFile(imageFile)) {
+                continue;
+            }
+            final PngImagingParameters params = new PngImagingParameters();
+            params.setBufferedImageFactory(new RgbBufferedImageFactory());
+            final BufferedImage expected = new PngImageParser().getBufferedImage(ByteSource.file(imageFile), params);
+            params.setBufferedImageFactory(byteFactory);
+            assertSameRgb(expected, new PngImageParser().getBufferedImage(ByteSource.file(imageFile), params));
+        }
+    }
+
     /**
      * Test reading EXIF from the 'eXIf' chunk in PNG file.
      *
@@ -16,13 +16,20 @@
  */
 package org.apache.commons.imaging.formats.png;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
 
 import org.apache.commons.imaging.Imaging;
 import org.apache.commons.imaging.ImagingTestConstants;
@@ -30,6 +37,8 @@ import org.apache.commons.imaging.palette.Palette;
 import org.apache.commons.imaging.palette.PaletteFactory;
 import org.apache.commons.imaging.palette.SimplePalette;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 
 /**
  * Tests for class {@link PngWriter}.
@@ -55,11 +64,79 @@ class PngWriterTest extends AbstractPngTest {
         }
     }
 
+    private static BufferedImage createGradientImage(final int width, final int height, final int imageType) {
+        final BufferedImage image = new BufferedImage(width, height, imageType);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                final int alpha = 0xff - (x + y) % 64;
+                image.setRGB(x, y, alpha << 24 | (x * 2 & 0xff) << 16 | (y * 4 & 0xff) << 8 | (x * y + x) & 0xff);
+            }
+        }
+        return image;
+    }
+
+    private static int[] getRgb(final BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
     private File getPngFile(final String name) {
         final File pngFolder = new File(ImagingTestConstants.TEST_IMAGE_FOLDER, "png");
         return new File(pngFolder, name);
     }
 
+    @Test
+    void testCombineAdler32() {
+        final byte[] bytes = new byte[200_000];
+        new Random(42).nextBytes(bytes);
+        final Adler32 whole = new Adler32();
+        whole.update(bytes);
+        for (final int split : new int[] { 0, 1, 65521, 100_000, bytes.length }) {
+            final Adler32 first = new Adler32();
+            first.update(bytes, 0, split);
+            final Adler32 second = new Adler32();
+            second.update(bytes, split, bytes.length - split);
+            assertEquals((int) whole.getValue(), PngWriter.combineAdler32((int) first.getValue(), (int) second.getValue(), bytes.length - split));
+        }
+    }
+
+    @Test
+    void testCompression() throws IOException {
+        final BufferedImage image = createGradientImage(97, 61, BufferedImage.TYPE_INT_ARGB);
+        final PngImagingParameters params = new PngImagingParameters().setFilterStrategy(PngFilterStrategy.MINIMUM_SUM);
+        final int[] rgb = getRgb(image);
+        final byte[] stored = getImageBytes(image, params.setCompressionLevel(Deflater.NO_COMPRESSION), null);
+        assertArrayEquals(rgb, getRgb(Imaging.getBufferedImage(stored)));
+        assertTrue(stored.length > image.getWidth() * image.getHeight() * 4);
+
+        final byte[] best = getImageBytes(image, params.setCompressionLevel(Deflater.BEST_COMPRESSION).setDeflateStrategy(Deflater.FILTERED), null);
+        assertArrayEquals(rgb, getRgb(Imaging.getBufferedImage(best)));
+        assertTrue(best.length < stored.length);
+
+        assertThrows(IllegalArgumentException.class, () -> params.setCompressionLevel(10));
+        assertThrows(IllegalArgumentException.class, () -> params.setDeflateStrategy(3));
+    }
+
+    @ParameterizedTest
+    @EnumSource(PngFilterStrategy.class)
+    void testFilterStrategy(final PngFilterStrategy filterStrategy) throws IOException {
+        for (final int imageType : new int[] { BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_BYTE_GRAY }) {
+            final BufferedImage image = createGradientImage(97, 61, imageType);
+            final PngImagingParameters params = new PngImagingParameters();
+            final byte[] unfiltered = getImageBytes(image, params, null);
+            params.setFilterStrategy(filterStrategy);
+            final byte[] filtered = getImageBytes(image, params, null);
+
+            assertArrayEquals(getRgb(Imaging.getBufferedImage(unfiltered)), getRgb(Imaging.getBufferedImage(filtered)), filterStrategy::toString);
+            if (filterStrategy != PngFilterStrategy.NONE) {
+                assertTrue(filtered.length < unfiltered.length, filterStrategy::toString);
+            }
+
+            params.setForceIndexedColor(true);
+            assertArrayEquals(getRgb(Imaging.getBufferedImage(getImageBytes(image, params.setFilterStrategy(null), null))),
+                    getRgb(Imaging.getBufferedImage(getImageBytes(image, params.setFilterStrategy(filterStrategy), null))), filterStrategy::toString);
+        }
+    }
+
     @Test
     void testNullParameters() throws IOException {
         for (final String[] testTarget : testSet) {
@@ -103,4 +180,26 @@ class PngWriterTest extends AbstractPngTest {
             assertEquals(colorCount, countColors(palettedBytes), filePath);
         }
     }
+
+    @Test
+    void testWriteWithExecutor() throws IOException {
+        final int[] deflateStrategies = { Deflater.DEFAULT_STRATEGY, Deflater.FILTERED, Deflater.HUFFMAN_ONLY };
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (final int imageType : new int[] { BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_BYTE_GRAY }) {
+                // several blocks of rows, and rows longer than a block
+                for (final BufferedImage image : new BufferedImage[] { createGradientImage(400, 700, imageType), createGradientImage(40_000, 9, imageType) }) {
+                    for (final PngFilterStrategy filterStrategy : PngFilterStrategy.values()) {
+                        final int deflateStrategy = deflateStrategies[filterStrategy.ordinal() % deflateStrategies.length];
+                        final PngImagingParameters params = new PngImagingParameters().setFilterStrategy(filterStrategy).setDeflateStrategy(deflateStrategy);
+                        final byte[] expected = getImageBytes(image, params, null);
+                        final byte[] actual = getImageBytes(image, params.setExecutor(executor), null);
+                        assertArrayEquals(getRgb(Imaging.getBufferedImage(expected)), getRgb(Imaging.getBufferedImage(actual)), filterStrategy::toString);
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
@@ -25,6 +25,23 @@ import org.junit.jupiter.api.Test;
 
 class ScanlineFilterPaethTest {
 
+    @Test
+    void testFilter() throws IOException, ImagingException {
+        final ScanlineFilterPaeth scanlineFilterPaeth = new ScanlineFilterPaeth(3);
+        final byte[] up = { 10, (byte) 200, 30, 40, (byte) 250, 60, 70, (byte) 129 };
+        final byte[] raw = { 1, 2, (byte) 255, 7, (byte) 128, 9, 11, (byte) 254 };
+        final byte[] filtered = new byte[raw.length];
+        final byte[] unfiltered = new byte[raw.length];
+
+        scanlineFilterPaeth.filter(raw, filtered, up);
+        scanlineFilterPaeth.unfilter(filtered, unfiltered, up);
+        assertArrayEquals(raw, unfiltered);
+
+        scanlineFilterPaeth.filter(raw, filtered, null);
+        scanlineFilterPaeth.unfilter(filtered, unfiltered, null);
+        assertArrayEquals(raw, unfiltered);
+    }
+
     @Test
     void testUnfilter() throws IOException, ImagingException {
         final ScanlineFilterPaeth scanlineFilterPaeth = new ScanlineFilterPaeth(0);
@@ -25,6 +25,23 @@ import org.junit.jupiter.api.Test;
 
 class ScanlineFilterUpTest {
 
+    @Test
+    void testFilter() throws IOException, ImagingException {
+        final ScanlineFilterUp scanlineFilterUp = new ScanlineFilterUp();
+        final byte[] up = { 10, (byte) 200, 30, 40, (byte) 250, 60, 70, (byte) 129 };
+        final byte[] raw = { 1, 2, (byte) 255, 7, (byte) 128, 9, 11, (byte) 254 };
+        final byte[] filtered = new byte[raw.length];
+        final byte[] unfiltered = new byte[raw.length];
+
+        scanlineFilterUp.filter(raw, filtered, up);
+        scanlineFilterUp.unfilter(filtered, unfiltered, up);
+        assertArrayEquals(raw, unfiltered);
+
+        scanlineFilterUp.filter(raw, filtered, null);
+        scanlineFilterUp.unfilter(filtered, unfiltered, null);
+        assertArrayEquals(raw, unfiltered);
+    }
+
     @Test
     void testUnfilterWithNull() throws IOException, ImagingException {
         final ScanlineFilterUp scanlineFilterUp = new ScanlineFilterUp();
@@ -17,12 +17,15 @@
 
 package org.apache.commons.imaging.formats.tiff;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Random;
 
 import org.apache.commons.imaging.Imaging;
 import org.apache.commons.imaging.ImagingException;
@@ -282,4 +285,76 @@ class TiffCcittTest extends AbstractTiffTest {
             }
         } while (nextCombination(combinations, 1));
     }
+
+    @Test
+    void testCorruptData() {
+        final Random random = new Random(21);
+        for (int i = 0; i < 200; i++) {
+            final byte[] compressed = new byte[random.nextInt(40)];
+            random.nextBytes(compressed);
+            final int width = 1 + random.nextInt(100);
+            final int height = 1 + random.nextInt(5);
+            // corrupt data either decodes to a full image or fails with an ImagingException
+            for (final boolean hasFill : new boolean[] { true, false }) {
+                decompressOrFail(() -> T4AndT6Compression.decompressT4_1D(compressed, width, height, hasFill), width, height);
+                decompressOrFail(() -> T4AndT6Compression.decompressT4_2D(compressed, width, height, hasFill), width, height);
+            }
+            decompressOrFail(() -> T4AndT6Compression.decompressModifiedHuffman(compressed, width, height), width, height);
+            decompressOrFail(() -> T4AndT6Compression.decompressT6(compressed, width, height), width, height);
+        }
+        assertThrows(ImagingException.class, () -> T4AndT6Compression.compressT6(new byte[3], 9, 2));
+    }
+
+    @Test
+    void testLongRunsAndWideRows() throws ImagingException {
+        final Random random = new Random(7);
+        for (final int width : new int[] { 1, 63, 64, 1728, 1792, 2561, 6000 }) {
+            final int height = 12;
+            final int rowBytes = (width + 7) / 8;
+            final byte[] uncompressed = new byte[rowBytes * height];
+            for (int y = 0; y < height; y++) {
+                int color = random.nextInt(2);
+                for (int x = 0; x < width;) {
+                    // short runs, runs shifted from the row above, and runs longer than the largest make-up code
+                    final int runLength = y % 3 == 0 ? 1 + random.nextInt(4) : y % 3 == 1 ? 1 + random.nextInt(100) : 1 + random.nextInt(6000);
+                    for (final int end = Math.min(width, x + runLength); x < end; x++) {
+                        if (color != 0) {
+                            uncompressed[y * rowBytes + x / 8] |= 0x80 >>> x % 8;
+                        }
+                    }
+                    color = 1 - color;
+                }
+            }
+            // set padding bits, which must be ignored
+            if (width % 8 != 0) {
+                uncompressed[rowBytes - 1] |= 0xff >>> width % 8;
+            }
+            final byte[] expected = uncompressed.clone();
+            if (width % 8 != 0) {
+                expected[rowBytes - 1] &= 0xff << 8 - width % 8;
+            }
+
+            assertArrayEquals(expected, T4AndT6Compression.decompressModifiedHuffman(T4AndT6Compression.compressModifiedHuffman(uncompressed, width, height),
+                    width, height));
+            for (final boolean hasFill : new boolean[] { true, false }) {
+                assertArrayEquals(expected, T4AndT6Compression.decompressT4_1D(T4AndT6Compression.compressT4_1D(uncompressed, width, height, hasFill), width,
+                        height, hasFill));
+                assertArrayEquals(expected, T4AndT6Compression.decompressT4_2D(T4AndT6Compression.compressT4_2D(uncompressed, width, height, hasFill, 4),
+                        width, height, hasFill));
+            }
+            assertArrayEquals(expected, T4AndT6Compression.decompressT6(T4AndT6Compression.compressT6(uncompressed, width, height), width, height));
+        }
+    }
+
+    private interface Decompressor {
+        byte[] decompress() throws ImagingException;
+    }
+
+    private void decompressOrFail(final Decompressor decompressor, final int width, final int height) {
+        try {
+            assertEquals((width + 7) / 8 * height, decompressor.decompress().length);
+        } catch (final ImagingException e) {
+            // expected for most corrupt data
+        }
+    }
 }
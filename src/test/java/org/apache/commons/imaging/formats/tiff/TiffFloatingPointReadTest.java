@@ -16,6 +16,7 @@
  */
 package org.apache.commons.imaging.formats.tiff;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -27,6 +28,8 @@ import java.io.IOException;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.commons.imaging.FormatCompliance;
 import org.apache.commons.imaging.ImagingException;
@@ -220,4 +223,29 @@ class TiffFloatingPointReadTest {
         checkSubImage(target, fullRaster, 0, 0, width, height);
     }
 
+    @Test
+    void testReadWithExecutor() throws ImagingException, IOException {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // one file organized in strips, the other in tiles
+            for (final String name : new String[] { "Sample64BitFloatingPointPix451x337.tiff", "USGS_13_n38w077_dir5.tiff" }) {
+                final File target = getTiffFile(name);
+                final AbstractTiffRasterData fullRaster = readRasterFromTIFF(target, new TiffImagingParameters());
+                final TiffImagingParameters params = new TiffImagingParameters().setExecutor(executor);
+                final AbstractTiffRasterData raster = readRasterFromTIFF(target, params);
+                assertArrayEquals(fullRaster.getData(), raster.getData(), 0f, name);
+
+                params.setSubImage(3, 5, fullRaster.getWidth() - 7, fullRaster.getHeight() - 9);
+                final AbstractTiffRasterData partRaster = readRasterFromTIFF(target, params);
+                for (int y = 0; y < partRaster.getHeight(); y++) {
+                    for (int x = 0; x < partRaster.getWidth(); x++) {
+                        assertEquals(fullRaster.getValue(x + 3, y + 5), partRaster.getValue(x, y), "Invalid value at (" + x + "," + y + ") for " + name);
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
 }
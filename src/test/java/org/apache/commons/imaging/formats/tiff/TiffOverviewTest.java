@@ -0,0 +1,276 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.imaging.FormatCompliance;
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.formats.tiff.constants.TiffConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.write.TiffImageWriterLossy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Tests writing reduced-resolution images, or overviews, after tiled images and reading images from them.
+ */
+class TiffOverviewTest {
+
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 130;
+
+    // with 32 by 32 tiles, 100x65, 50x33 and 25x17, which fits in a tile
+    private static final int[][] LEVEL_SIZES = { { 200, 130 }, { 100, 65 }, { 50, 33 }, { 25, 17 } };
+
+    private static BufferedImage createImage(final boolean alpha) {
+        final BufferedImage image = new BufferedImage(WIDTH, HEIGHT, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                final int a = alpha ? (x * 7 + y * 3) % 256 : 0xff;
+                image.setRGB(x, y, a << 24 | (x * 5 & 0xff) << 16 | (y * 9 & 0xff) << 8 | (x * y & 0xff));
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Gets the pixels of an overview, each the alpha-weighted average of the pixels of the image it covers.
+     */
+    private static int[] expectedOverview(final BufferedImage image, final int level) {
+        final int scale = 1 << level;
+        final int width = LEVEL_SIZES[level][0];
+        final int height = LEVEL_SIZES[level][1];
+        final int[] argb = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                long a = 0;
+                long r = 0;
+                long g = 0;
+                long b = 0;
+                long n = 0;
+                for (int sy = y * scale; sy < Math.min((y + 1) * scale, HEIGHT); sy++) {
+                    for (int sx = x * scale; sx < Math.min((x + 1) * scale, WIDTH); sx++) {
+                        final int pixel = image.getRGB(sx, sy);
+                        final int pixelAlpha = pixel >>> 24;
+                        a += pixelAlpha;
+                        r += (pixel >> 16 & 0xff) * pixelAlpha;
+                        g += (pixel >> 8 & 0xff) * pixelAlpha;
+                        b += (pixel & 0xff) * pixelAlpha;
+                        n++;
+                    }
+                }
+                if (a != 0) {
+                    final long half = a / 2;
+                    argb[y * width + x] = (int) ((a + n / 2) / n) << 24 | (int) ((r + half) / a) << 16 | (int) ((g + half) / a) << 8 | (int) ((b + half) / a);
+                }
+            }
+        }
+        return argb;
+    }
+
+    private static int[] getRgb(final BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    private static List<TiffDirectory> readDirectories(final byte[] tiff) throws ImagingException, IOException {
+        return new TiffReader(true).readDirectories(ByteSource.array(tiff), false, FormatCompliance.getDefault()).directories;
+    }
+
+    private static byte[] write(final BufferedImage image, final TiffImagingParameters params) throws ImagingException, IOException {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        new TiffImageParser().writeImage(image, bos, params);
+        return bos.toByteArray();
+    }
+
+    private static byte[] write(final BufferedImage image, final TiffImagingParameters params, final boolean bigEndian) throws ImagingException, IOException {
+        if (!bigEndian) {
+            return write(image, params);
+        }
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        new TiffImageWriterLossy(ByteOrder.BIG_ENDIAN).writeImage(image, bos, params);
+        return bos.toByteArray();
+    }
+
+    private static TiffImagingParameters writeParams(final int compression) {
+        final TiffImagingParameters params = new TiffImagingParameters();
+        params.setCompression(compression);
+        params.setTileSize(32, 32);
+        params.setOverviewLevels(8);
+        return params;
+    }
+
+    @Test
+    void testInvalidParameters() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> new TiffImagingParameters().setOverviewLevels(-1));
+        // overviews need tiles
+        final TiffImagingParameters params = new TiffImagingParameters();
+        params.setOverviewLevels(2);
+        assertThrows(ImagingException.class, () -> write(createImage(false), params));
+
+        final byte[] tiff = write(createImage(false), writeParams(TiffConstants.COMPRESSION_LZW));
+        assertThrows(IllegalArgumentException.class, () -> new TiffImageParser().getBufferedImage(ByteSource.array(tiff), new Dimension(0, 10), null));
+        final TiffImagingParameters readParams = new TiffImagingParameters();
+        readParams.setSubImage(150, 100, 60, 10);
+        assertThrows(ImagingException.class, () -> new TiffImageParser().getBufferedImage(ByteSource.array(tiff), new Dimension(10, 10), readParams));
+    }
+
+    @Test
+    void testLevelCount() throws Exception {
+        final TiffImagingParameters params = writeParams(TiffConstants.COMPRESSION_LZW);
+        params.setOverviewLevels(1);
+        assertEquals(2, readDirectories(write(createImage(false), params)).size());
+
+        // an image that fits in a tile has no overviews
+        params.setOverviewLevels(8);
+        assertEquals(1, readDirectories(write(new BufferedImage(32, 20, BufferedImage.TYPE_INT_RGB), params)).size());
+    }
+
+    @ParameterizedTest
+    @CsvSource({ "5, false, false, false", "5, true, true, false", "1, false, true, false", "8, true, false, false", "5, true, true, true",
+            "1, true, false, true", "8, false, true, true" })
+    void testRead(final int compression, final boolean bigTiff, final boolean alpha, final boolean bigEndian) throws Exception {
+        final BufferedImage image = createImage(alpha);
+        final TiffImagingParameters params = writeParams(compression);
+        params.setBigTiff(bigTiff);
+        final byte[] tiff = write(image, params, bigEndian);
+        assertEquals(LEVEL_SIZES.length, readDirectories(tiff).size());
+        final TiffImageParser parser = new TiffImageParser();
+
+        // the smallest overview at least as large as the target
+        final BufferedImage overview = parser.getBufferedImage(ByteSource.array(tiff), new Dimension(60, 40), null);
+        assertEquals(LEVEL_SIZES[1][0], overview.getWidth());
+        assertEquals(LEVEL_SIZES[1][1], overview.getHeight());
+        assertArrayEquals(expectedOverview(image, 1), getRgb(parser.getBufferedImage(ByteSource.array(tiff), new Dimension(60, 40), null)));
+        assertArrayEquals(expectedOverview(image, 3), getRgb(parser.getBufferedImage(ByteSource.array(tiff), new Dimension(20, 10), null)));
+        assertArrayEquals(expectedOverview(image, 2), getRgb(parser.getBufferedImage(ByteSource.array(tiff), new Dimension(50, 33), null)));
+        assertArrayEquals(getRgb(image), getRgb(parser.getBufferedImage(ByteSource.array(tiff), new Dimension(300, 100), null)));
+
+        // a sub-image of 100x60 at 50x33 is 25x15.2, whose area is 25x16 pixels from (10, 5)
+        final TiffImagingParameters readParams = new TiffImagingParameters();
+        readParams.setSubImage(40, 20, 100, 60);
+        final BufferedImage part = parser.getBufferedImage(ByteSource.array(tiff), new Dimension(25, 15), readParams);
+        assertEquals(25, part.getWidth());
+        assertEquals(16, part.getHeight());
+        final int[] level = expectedOverview(image, 2);
+        for (int y = 0; y < part.getHeight(); y++) {
+            final int[] expectedRow = Arrays.copyOfRange(level, (y + 5) * 50 + 10, (y + 5) * 50 + 35);
+            assertArrayEquals(expectedRow, part.getRGB(0, y, 25, 1, null, 0, 25), "row " + y);
+        }
+    }
+
+    @Test
+    void testReadOnlyNeededTiles() throws Exception {
+        final BufferedImage image = createImage(true);
+        final byte[] tiff = write(image, writeParams(TiffConstants.COMPRESSION_UNCOMPRESSED));
+        final List<TiffDirectory> directories = readDirectories(tiff);
+
+        // overwrite the tiles of the full-resolution image, and those of the 100x65 overview but the first
+        final TiffDirectory fullResolution = directories.get(0);
+        final long[] offsets = fullResolution.findField(TiffTagConstants.TIFF_TAG_TILE_OFFSETS).getLongArrayValue();
+        final int[] byteCounts = fullResolution.findField(TiffTagConstants.TIFF_TAG_TILE_BYTE_COUNTS).getIntArrayValue();
+        for (int i = 0; i < offsets.length; i++) {
+            Arrays.fill(tiff, (int) offsets[i], (int) offsets[i] + byteCounts[i], (byte) 0x55);
+        }
+        final TiffDirectory overview = directories.get(1);
+        final long[] overviewOffsets = overview.findField(TiffTagConstants.TIFF_TAG_TILE_OFFSETS).getLongArrayValue();
+        final int[] overviewByteCounts = overview.findField(TiffTagConstants.TIFF_TAG_TILE_BYTE_COUNTS).getIntArrayValue();
+        for (int i = 1; i < overviewOffsets.length; i++) {
+            Arrays.fill(tiff, (int) overviewOffsets[i], (int) overviewOffsets[i] + overviewByteCounts[i], (byte) 0x55);
+        }
+
+        final TiffImageParser parser = new TiffImageParser();
+        assertArrayEquals(expectedOverview(image, 2), getRgb(parser.getBufferedImage(ByteSource.array(tiff), new Dimension(40, 30), null)));
+        // the top left 60x60 pixels are the top left 30x30 pixels of the 100x65 overview, in its first tile
+        final TiffImagingParameters readParams = new TiffImagingParameters();
+        readParams.setSubImage(0, 0, 60, 60);
+        final BufferedImage part = parser.getBufferedImage(ByteSource.array(tiff), new Dimension(30, 30), readParams);
+        assertEquals(30, part.getWidth());
+        final int[] level = expectedOverview(image, 1);
+        for (int y = 0; y < 30; y++) {
+            assertArrayEquals(Arrays.copyOfRange(level, y * 100, y * 100 + 30), part.getRGB(0, y, 30, 1, null, 0, 30), "row " + y);
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({ "false, false, false", "true, true, false", "true, false, true", "false, true, true" })
+    void testWrite(final boolean bigTiff, final boolean alpha, final boolean bigEndian) throws Exception {
+        final BufferedImage image = createImage(alpha);
+        final TiffImagingParameters params = writeParams(TiffConstants.COMPRESSION_LZW);
+        params.setBigTiff(bigTiff);
+        params.setXmpXml("<x:xmpmeta xmlns:x=\"adobe:ns:meta/\"></x:xmpmeta>");
+        final byte[] tiff = write(image, params, bigEndian);
+        // the tiles of the overviews are copied as they are made, so compressing them concurrently writes the same file
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            params.setExecutor(executor);
+            assertArrayEquals(tiff, write(image, params, bigEndian));
+        } finally {
+            executor.shutdown();
+        }
+
+        final List<TiffDirectory> directories = readDirectories(tiff);
+        assertEquals(LEVEL_SIZES.length, directories.size());
+        for (int level = 0; level < LEVEL_SIZES.length; level++) {
+            final TiffDirectory directory = directories.get(level);
+            assertEquals(LEVEL_SIZES[level][0], directory.getSingleFieldValue(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH));
+            assertEquals(LEVEL_SIZES[level][1], directory.getSingleFieldValue(TiffTagConstants.TIFF_TAG_IMAGE_LENGTH));
+            assertEquals(32, directory.getSingleFieldValue(TiffTagConstants.TIFF_TAG_TILE_WIDTH));
+            if (level == 0) {
+                assertNull(directory.findField(TiffTagConstants.TIFF_TAG_NEW_SUBFILE_TYPE));
+                assertEquals(72.0, directory.findField(TiffTagConstants.TIFF_TAG_XRESOLUTION).getDoubleValue());
+                assertNotNull(directory.findField(TiffTagConstants.TIFF_TAG_XMP));
+            } else {
+                assertEquals(TiffTagConstants.SUBFILE_TYPE_VALUE_REDUCED_RESOLUTION_IMAGE,
+                        directory.findField(TiffTagConstants.TIFF_TAG_NEW_SUBFILE_TYPE).getIntValue());
+                assertEquals(72.0 * LEVEL_SIZES[level][0] / WIDTH, directory.findField(TiffTagConstants.TIFF_TAG_XRESOLUTION).getDoubleValue(), 1e-6);
+                assertNull(directory.findField(TiffTagConstants.TIFF_TAG_XMP));
+            }
+        }
+        // all directories come before the data, so a reader finds every level in the first bytes of the file
+        final long lastDirectory = directories.get(LEVEL_SIZES.length - 1).offset;
+        for (final TiffDirectory directory : directories) {
+            assertTrue(directory.offset <= lastDirectory);
+            for (final long offset : directory.findField(TiffTagConstants.TIFF_TAG_TILE_OFFSETS).getLongArrayValue()) {
+                assertTrue(offset > lastDirectory);
+            }
+        }
+
+        final List<BufferedImage> images = new TiffImageParser().getAllBufferedImages(ByteSource.array(tiff));
+        assertArrayEquals(getRgb(image), getRgb(images.get(0)));
+        for (int level = 1; level < LEVEL_SIZES.length; level++) {
+            assertArrayEquals(expectedOverview(image, level), getRgb(images.get(level)), "level " + level);
+        }
+    }
+}
@@ -17,12 +17,15 @@
 
 package org.apache.commons.imaging.formats.tiff;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.commons.imaging.FormatCompliance;
 import org.apache.commons.imaging.ImageInfo;
@@ -86,4 +89,25 @@ class TiffReadTest extends AbstractTiffTest {
             assertNotNull(contents);
         }
     }
+
+    @Test
+    void testReadWithExecutor() throws Exception {
+        final TiffImageParser parser = new TiffImageParser();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (final File imageFile : getTiffImages()) {
+                if (imageFile.getName().toLowerCase().contains("bad")) {
+                    continue;
+                }
+                final BufferedImage expected = parser.getBufferedImage(ByteSource.file(imageFile), new TiffImagingParameters());
+                final BufferedImage actual = parser.getBufferedImage(ByteSource.file(imageFile), new TiffImagingParameters().setExecutor(executor));
+                final int width = expected.getWidth();
+                final int height = expected.getHeight();
+                assertArrayEquals(expected.getRGB(0, 0, width, height, null, 0, width), actual.getRGB(0, 0, width, height, null, 0, width),
+                        imageFile.getName());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
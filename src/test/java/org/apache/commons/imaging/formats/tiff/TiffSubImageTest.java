@@ -17,21 +17,35 @@
 package org.apache.commons.imaging.formats.tiff;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
+import org.apache.commons.imaging.FormatCompliance;
 import org.apache.commons.imaging.Imaging;
 import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.common.ByteConversions;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.write.TiffImageWriterLossy;
+import org.apache.commons.imaging.formats.tiff.write.TiffOutputSet;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class TiffSubImageTest extends AbstractTiffTest {
     final List<File> imageFileList;
 
+    @TempDir
+    Path tempDir;
+
     TiffSubImageTest() throws IOException, ImagingException {
         imageFileList = getTiffImages();
     }
@@ -88,6 +102,47 @@ class TiffSubImageTest extends AbstractTiffTest {
         assertEquals(image.getHeight(), 3);
     }
 
+    @Test
+    void testSubImageReadsOnlyIntersectingStrips() throws ImagingException, IOException {
+        final TiffImageParser tiffImageParser = new TiffImageParser();
+        final BufferedImage src = new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 200; y++) {
+            for (int x = 0; x < 200; x++) {
+                src.setRGB(x, y, x << 16 | y << 8 | x + y & 0xff);
+            }
+        }
+        final byte[] imageBytes;
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            tiffImageParser.writeImage(src, baos, new TiffImagingParameters());
+            imageBytes = baos.toByteArray();
+        }
+
+        // point the last strip past the end of the file, only reads that need it can fail
+        final TiffDirectory directory = new TiffReader(true).readDirectories(ByteSource.array(imageBytes), false, FormatCompliance.getDefault()).directories
+                .get(0);
+        final TiffField stripOffsets = directory.findField(TiffTagConstants.TIFF_TAG_STRIP_OFFSETS);
+        final int stripCount = stripOffsets.getIntArrayValue().length;
+        assertTrue(stripCount > 2);
+        final byte[] badOffset = ByteConversions.toBytes(Integer.MAX_VALUE, directory.getByteOrder());
+        System.arraycopy(badOffset, 0, imageBytes, (int) stripOffsets.getOffset() + 4 * (stripCount - 1), 4);
+        final File target = Files.write(tempDir.resolve("truncated.tiff"), imageBytes).toFile();
+
+        final TiffImagingParameters params = new TiffImagingParameters();
+        params.setSubImage(10, 0, 50, 20);
+        final BufferedImage image = tiffImageParser.getBufferedImage(target, params);
+        for (int y = 0; y < 20; y++) {
+            for (int x = 0; x < 50; x++) {
+                assertEquals(src.getRGB(x + 10, y), image.getRGB(x, y));
+            }
+        }
+        assertThrows(IOException.class, () -> tiffImageParser.getBufferedImage(target, new TiffImagingParameters()));
+
+        // rewriting the file reads every strip, and reports the one it cannot read as an I/O error
+        final TiffContents contents = new TiffReader(true).readDirectories(ByteSource.file(target), true, FormatCompliance.getDefault());
+        final TiffOutputSet outputSet = new TiffImageMetadata(contents).getOutputSet();
+        assertThrows(IOException.class, () -> new TiffImageWriterLossy(directory.getByteOrder()).write(new ByteArrayOutputStream(), outputSet));
+    }
+
     @Test
     void testSubImageCorrectness() throws ImagingException, IOException {
         final TiffImageParser tiffImageParser = new TiffImageParser();
@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.formats.tiff.constants.TiffConstants;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.write.TiffOutputSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Tests writing tiled and BigTIFF images.
+ */
+class TiffTiledWriteTest {
+
+    private static final int WIDTH = 83;
+    private static final int HEIGHT = 57;
+
+    @TempDir
+    Path tempDir;
+
+    private static BufferedImage createImage(final boolean alpha) {
+        final BufferedImage image = new BufferedImage(WIDTH, HEIGHT, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                final int argb = (alpha ? x * 3 : 0xff) << 24 | (x * 3 & 0xff) << 16 | (y * 5 & 0xff) << 8 | (x * y & 0xff);
+                image.setRGB(x, y, argb);
+            }
+        }
+        return image;
+    }
+
+    private static int[] getBilevelArgb(final BufferedImage image) {
+        final int[] argb = image.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH);
+        for (int i = 0; i < argb.length; i++) {
+            final int sum = (0xff & argb[i] >> 16) + (0xff & argb[i] >> 8) + (0xff & argb[i]);
+            argb[i] = sum / 3 > 127 ? 0xffffffff : 0xff000000;
+        }
+        return argb;
+    }
+
+    private static TiffImageMetadata.Directory getRootDirectory(final byte[] tiff) throws ImagingException, IOException {
+        final TiffImageMetadata metadata = (TiffImageMetadata) new TiffImageParser().getMetadata(ByteSource.array(tiff));
+        return (TiffImageMetadata.Directory) metadata.getDirectories().get(0);
+    }
+
+    private static byte[] write(final BufferedImage image, final TiffImagingParameters params) throws ImagingException, IOException {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        new TiffImageParser().writeImage(image, bos, params);
+        return bos.toByteArray();
+    }
+
+    private byte[] writeToChannel(final BufferedImage image, final TiffImagingParameters params, final String name) throws ImagingException, IOException {
+        final Path file = tempDir.resolve(name);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            new TiffImageParser().writeImage(image, channel, params);
+            assertEquals(channel.size(), channel.position());
+        }
+        return Files.readAllBytes(file);
+    }
+
+    private static void assertImage(final int[] expected, final byte[] tiff) throws ImagingException, IOException {
+        final BufferedImage read = new TiffImageParser().getBufferedImage(ByteSource.array(tiff), null);
+        assertEquals(WIDTH, read.getWidth());
+        assertEquals(HEIGHT, read.getHeight());
+        assertArrayEquals(expected, read.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH));
+    }
+
+    @Test
+    void testBilevelTiles() throws Exception {
+        final BufferedImage image = createImage(false);
+        final int[] expected = getBilevelArgb(image);
+        final int[][] compressions = { { TiffConstants.COMPRESSION_CCITT_1D, 0 }, { TiffConstants.COMPRESSION_CCITT_GROUP_3, 0 },
+                { TiffConstants.COMPRESSION_CCITT_GROUP_3, TiffConstants.FLAG_T4_OPTIONS_2D | TiffConstants.FLAG_T4_OPTIONS_FILL },
+                { TiffConstants.COMPRESSION_CCITT_GROUP_4, 0 } };
+        for (final int[] compression : compressions) {
+            final TiffImagingParameters params = new TiffImagingParameters();
+            params.setCompression(compression[0]);
+            params.setT4Options(compression[1]);
+            params.setTileSize(32, 16);
+            assertImage(expected, write(image, params));
+        }
+    }
+
+    @Test
+    void testChannel() throws Exception {
+        final BufferedImage image = createImage(true);
+        final int[] expected = image.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH);
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (final boolean tiles : new boolean[] { false, true }) {
+                final TiffImagingParameters params = new TiffImagingParameters();
+                params.setCompression(TiffConstants.COMPRESSION_DEFLATE_ADOBE);
+                params.setLzwCompressionBlockSize(8000);
+                if (tiles) {
+                    params.setTileSize(16, 32);
+                }
+                final byte[] tiff = writeToChannel(image, params, "serial" + tiles + ".tif");
+                assertImage(expected, tiff);
+
+                // the layout does not depend on how many threads compress blocks
+                params.setExecutor(executor);
+                assertArrayEquals(tiff, writeToChannel(image, params, "concurrent" + tiles + ".tif"));
+                if (tiles) {
+                    // nor on whether blocks are written as they are done or once all are done
+                    assertArrayEquals(tiff, write(image, params));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testInvalidParameters() {
+        final TiffImagingParameters params = new TiffImagingParameters();
+        assertThrows(IllegalArgumentException.class, () -> params.setTileSize(0, 16));
+        assertThrows(IllegalArgumentException.class, () -> params.setTileSize(24, 16));
+        assertThrows(IllegalArgumentException.class, () -> params.setTileSize(16, -16));
+        params.setTileSize(256, 512);
+        assertEquals(256, params.getTileWidth());
+        assertEquals(512, params.getTileLength());
+        params.clearTileSize();
+        assertEquals(0, params.getTileWidth());
+    }
+
+    @ParameterizedTest
+    @CsvSource({ "false, false", "false, true", "true, false", "true, true" })
+    void testReadMapped(final boolean tiles, final boolean alpha) throws Exception {
+        final BufferedImage image = createImage(alpha);
+        final TiffImagingParameters params = new TiffImagingParameters();
+        params.setCompression(TiffConstants.COMPRESSION_UNCOMPRESSED);
+        if (tiles) {
+            params.setTileSize(32, 16);
+        }
+        final Path file = tempDir.resolve("mapped.tif");
+        Files.write(file, write(image, params));
+
+        // uncompressed strips and tiles are interpreted from views of the mapped file
+        final ByteSource byteSource = ByteSource.mapped(file);
+        final BufferedImage read = new TiffImageParser().getBufferedImage(byteSource, null);
+        assertArrayEquals(image.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH), read.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH));
+        final TiffImagingParameters readParams = new TiffImagingParameters();
+        readParams.setSubImage(37, 21, 40, 30);
+        final BufferedImage subImage = new TiffImageParser().getBufferedImage(byteSource, readParams);
+        assertArrayEquals(image.getRGB(37, 21, 40, 30, null, 0, 40), subImage.getRGB(0, 0, 40, 30, null, 0, 40));
+    }
+
+    @Test
+    void testStripsAreClassicByDefault() throws Exception {
+        final BufferedImage image = createImage(false);
+        final byte[] tiff = write(image, new TiffImagingParameters());
+        assertEquals(TiffConstants.VERSION_STANDARD, tiff[2]);
+        assertNull(getRootDirectory(tiff).findField(TiffTagConstants.TIFF_TAG_TILE_WIDTH));
+    }
+
+    @ParameterizedTest
+    @CsvSource({ "1, false, false", "1, true, true", "5, false, true", "5, true, false", "32773, false, false", "32773, true, true", "8, false, true",
+            "8, true, false" })
+    void testTiles(final int compression, final boolean bigTiff, final boolean alpha) throws Exception {
+        final BufferedImage image = createImage(alpha);
+        final TiffImagingParameters params = new TiffImagingParameters();
+        params.setCompression(compression);
+        params.setTileSize(32, 16);
+        params.setBigTiff(bigTiff);
+        final byte[] tiff = write(image, params);
+
+        assertEquals(bigTiff ? TiffConstants.VERSION_BIG : TiffConstants.VERSION_STANDARD, tiff[2]);
+        final TiffImageMetadata.Directory directory = getRootDirectory(tiff);
+        assertEquals(32, directory.findField(TiffTagConstants.TIFF_TAG_TILE_WIDTH).getIntValue());
+        assertEquals(16, directory.findField(TiffTagConstants.TIFF_TAG_TILE_LENGTH).getIntValue());
+        // 3 tiles across and 4 down
+        assertEquals(12, directory.findField(TiffTagConstants.TIFF_TAG_TILE_OFFSETS).getLongArrayValue().length);
+        assertNull(directory.findField(TiffTagConstants.TIFF_TAG_STRIP_OFFSETS));
+        assertImage(image.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH), tiff);
+    }
+
+    @Test
+    void testBigTiffStrips() throws Exception {
+        final BufferedImage image = createImage(false);
+        final TiffImagingParameters params = new TiffImagingParameters();
+        params.setBigTiff(true);
+        final byte[] tiff = write(image, params);
+        assertEquals(TiffConstants.VERSION_BIG, tiff[2]);
+        assertNotNull(getRootDirectory(tiff).findField(TiffTagConstants.TIFF_TAG_ROWS_PER_STRIP));
+        assertImage(image.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH), tiff);
+    }
+
+    @Test
+    void testUserFields() throws Exception {
+        final BufferedImage image = createImage(false);
+        final TiffOutputSet outputSet = new TiffOutputSet(ByteOrder.LITTLE_ENDIAN);
+        outputSet.addRootDirectory().add(TiffTagConstants.TIFF_TAG_IMAGE_DESCRIPTION, "a tiled image with a description longer than eight bytes");
+        final TiffImagingParameters params = new TiffImagingParameters();
+        params.setTileSize(16, 16);
+        params.setBigTiff(true);
+        params.setOutputSet(outputSet);
+        final byte[] tiff = write(image, params);
+        assertEquals("a tiled image with a description longer than eight bytes",
+                getRootDirectory(tiff).findField(TiffTagConstants.TIFF_TAG_IMAGE_DESCRIPTION).getStringValue());
+        assertImage(image.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH), tiff);
+
+        // EXIF and GPS directories are not written with tiles
+        outputSet.addExifDirectory();
+        assertThrows(ImagingException.class, () -> write(image, params));
+    }
+}
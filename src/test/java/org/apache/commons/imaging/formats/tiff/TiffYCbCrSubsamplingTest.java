@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.bytesource.ByteSource;
+import org.apache.commons.imaging.common.ImageBuilder;
+import org.apache.commons.imaging.formats.tiff.constants.TiffTagConstants;
+import org.apache.commons.imaging.formats.tiff.photometricinterpreters.PhotometricInterpreterYCbCr;
+import org.apache.commons.imaging.formats.tiff.write.TiffImageWriterLossy;
+import org.apache.commons.imaging.formats.tiff.write.TiffOutputDirectory;
+import org.apache.commons.imaging.formats.tiff.write.TiffOutputSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Tests reading YCbCr TIFF images whose pixels share chroma samples in blocks.
+ */
+class TiffYCbCrSubsamplingTest {
+
+    private static final int WIDTH = 37;
+    private static final int HEIGHT = 23;
+
+    private static int luma(final int x, final int y) {
+        return (x * 7 + y * 11) % 256;
+    }
+
+    private static int cb(final int blockX, final int blockY) {
+        return (blockX * 40 + blockY * 13) % 256;
+    }
+
+    private static int cr(final int blockX, final int blockY) {
+        return 255 - (blockX * 17 + blockY * 29) % 256;
+    }
+
+    /**
+     * Gets the pixels the image should have, computed per pixel from the samples of its block.
+     */
+    private static int[] expectedArgb(final int blockWidth, final int blockHeight) throws ImagingException, IOException {
+        final PhotometricInterpreterYCbCr interpreter = new PhotometricInterpreterYCbCr(3, new int[] { 8, 8, 8 }, 1, WIDTH, HEIGHT);
+        final ImageBuilder imageBuilder = new ImageBuilder(WIDTH, HEIGHT, false);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                final int[] samples = { luma(x, y), cb(x / blockWidth, y / blockHeight), cr(x / blockWidth, y / blockHeight) };
+                interpreter.interpretPixel(imageBuilder, samples, x, y);
+            }
+        }
+        final BufferedImage image = imageBuilder.getBufferedImage();
+        return image.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH);
+    }
+
+    /**
+     * Gets the samples of an area of the image, as blocks of luma samples followed by a Cb and a Cr sample.
+     */
+    private static byte[] blocks(final int blockWidth, final int blockHeight, final int startX, final int startY, final int areaWidth, final int areaHeight) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (int blockY = startY / blockHeight; blockY * blockHeight < startY + areaHeight; blockY++) {
+            for (int blockX = startX / blockWidth; blockX * blockWidth < startX + areaWidth; blockX++) {
+                for (int y = blockY * blockHeight; y < (blockY + 1) * blockHeight; y++) {
+                    for (int x = blockX * blockWidth; x < (blockX + 1) * blockWidth; x++) {
+                        // samples past the edges of the image are padding
+                        bytes.write(x < WIDTH && y < HEIGHT ? luma(x, y) : 0);
+                    }
+                }
+                bytes.write(cb(blockX, blockY));
+                bytes.write(cr(blockX, blockY));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] write(final int blockWidth, final int blockHeight, final boolean writeSubsampling, final boolean useTiles) throws IOException,
+            ImagingException {
+        final TiffOutputSet outputSet = new TiffOutputSet(ByteOrder.LITTLE_ENDIAN);
+        final TiffOutputDirectory outDir = outputSet.addRootDirectory();
+        outDir.add(TiffTagConstants.TIFF_TAG_IMAGE_WIDTH, WIDTH);
+        outDir.add(TiffTagConstants.TIFF_TAG_IMAGE_LENGTH, HEIGHT);
+        outDir.add(TiffTagConstants.TIFF_TAG_SAMPLES_PER_PIXEL, (short) 3);
+        outDir.add(TiffTagConstants.TIFF_TAG_BITS_PER_SAMPLE, (short) 8, (short) 8, (short) 8);
+        outDir.add(TiffTagConstants.TIFF_TAG_PHOTOMETRIC_INTERPRETATION, (short) TiffTagConstants.PHOTOMETRIC_INTERPRETATION_VALUE_YCB_CR);
+        outDir.add(TiffTagConstants.TIFF_TAG_COMPRESSION, (short) TiffTagConstants.COMPRESSION_VALUE_UNCOMPRESSED);
+        outDir.add(TiffTagConstants.TIFF_TAG_PLANAR_CONFIGURATION, (short) TiffTagConstants.PLANAR_CONFIGURATION_VALUE_CHUNKY);
+        if (writeSubsampling) {
+            outDir.add(TiffTagConstants.TIFF_TAG_YCBCR_SUB_SAMPLING, (short) blockWidth, (short) blockHeight);
+        }
+
+        final List<byte[]> blocks = new ArrayList<>();
+        final AbstractTiffImageData imageData;
+        if (useTiles) {
+            final int tileWidth = 16;
+            final int tileLength = 8;
+            for (int y = 0; y < HEIGHT; y += tileLength) {
+                for (int x = 0; x < WIDTH; x += tileWidth) {
+                    blocks.add(blocks(blockWidth, blockHeight, x, y, tileWidth, tileLength));
+                }
+            }
+            outDir.add(TiffTagConstants.TIFF_TAG_TILE_WIDTH, tileWidth);
+            outDir.add(TiffTagConstants.TIFF_TAG_TILE_LENGTH, tileLength);
+            outDir.add(TiffTagConstants.TIFF_TAG_TILE_BYTE_COUNTS, blocks.stream().mapToInt(b -> b.length).toArray());
+            imageData = new AbstractTiffImageData.Tiles(toData(blocks), tileWidth, tileLength);
+        } else {
+            final int rowsPerStrip = 4;
+            for (int y = 0; y < HEIGHT; y += rowsPerStrip) {
+                blocks.add(blocks(blockWidth, blockHeight, 0, y, WIDTH, Math.min(rowsPerStrip, HEIGHT - y)));
+            }
+            outDir.add(TiffTagConstants.TIFF_TAG_ROWS_PER_STRIP, rowsPerStrip);
+            outDir.add(TiffTagConstants.TIFF_TAG_STRIP_BYTE_COUNTS, blocks.stream().mapToInt(b -> b.length).toArray());
+            imageData = new AbstractTiffImageData.Strips(toData(blocks), rowsPerStrip);
+        }
+        outDir.setTiffImageData(imageData);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new TiffImageWriterLossy(ByteOrder.LITTLE_ENDIAN).write(out, outputSet);
+        return out.toByteArray();
+    }
+
+    private static AbstractTiffElement.DataElement[] toData(final List<byte[]> blocks) {
+        final AbstractTiffElement.DataElement[] data = new AbstractTiffElement.DataElement[blocks.size()];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = new AbstractTiffImageData.Data(0, blocks.get(i).length, blocks.get(i));
+        }
+        return data;
+    }
+
+    @Test
+    void testDefaultSubsampling() throws Exception {
+        // without the tag, TIFF 6.0 says blocks are 2 by 2
+        final byte[] tiff = write(2, 2, false, false);
+        final BufferedImage image = new TiffImageParser().getBufferedImage(ByteSource.array(tiff), null);
+        assertArrayEquals(expectedArgb(2, 2), image.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH));
+    }
+
+    @Test
+    void testInvalidSubsampling() throws Exception {
+        final byte[] tiff = write(3, 1, true, false);
+        assertThrows(ImagingException.class, () -> new TiffImageParser().getBufferedImage(ByteSource.array(tiff), null));
+    }
+
+    @ParameterizedTest
+    @CsvSource({ "1, 1, false", "2, 1, false", "2, 2, false", "4, 2, false", "4, 4, false", "1, 1, true", "2, 1, true", "2, 2, true", "4, 2, true",
+            "4, 4, true" })
+    void testRead(final int blockWidth, final int blockHeight, final boolean useTiles) throws Exception {
+        final byte[] tiff = write(blockWidth, blockHeight, true, useTiles);
+        final int[] expected = expectedArgb(blockWidth, blockHeight);
+        final BufferedImage image = new TiffImageParser().getBufferedImage(ByteSource.array(tiff), null);
+        assertArrayEquals(expected, image.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH));
+
+        // a sub-image not aligned with the strips, tiles or blocks
+        final Rectangle subImage = new Rectangle(17, 5, 13, 11);
+        final TiffImagingParameters params = new TiffImagingParameters();
+        params.setSubImage(subImage.x, subImage.y, subImage.width, subImage.height);
+        final BufferedImage part = new TiffImageParser().getBufferedImage(ByteSource.array(tiff), params);
+        for (int y = 0; y < subImage.height; y++) {
+            final int[] expectedRow = new int[subImage.width];
+            System.arraycopy(expected, (subImage.y + y) * WIDTH + subImage.x, expectedRow, 0, subImage.width);
+            assertArrayEquals(expectedRow, part.getRGB(0, y, subImage.width, 1, null, 0, subImage.width), "row " + y);
+        }
+    }
+}
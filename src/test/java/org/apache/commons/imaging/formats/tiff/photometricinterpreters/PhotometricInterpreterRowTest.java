@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.formats.tiff.photometricinterpreters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.apache.commons.imaging.ImagingException;
+import org.apache.commons.imaging.common.ImageBuilder;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that {@link AbstractPhotometricInterpreter#interpretRow(int[], int, int, int[], int)} gives the same colors as
+ * {@link AbstractPhotometricInterpreter#interpretPixel(ImageBuilder, int[], int, int)}.
+ */
+class PhotometricInterpreterRowTest {
+
+    private static final int WIDTH = 1 << 16;
+
+    private static void assertRowMatchesPixels(final AbstractPhotometricInterpreter interpreter, final int[] samples) throws ImagingException, IOException {
+        final int samplesPerPixel = interpreter.samplesPerPixel;
+        final int count = samples.length / samplesPerPixel;
+        // the row starts one pixel into both arrays
+        final int[] paddedSamples = new int[samples.length + samplesPerPixel];
+        System.arraycopy(samples, 0, paddedSamples, samplesPerPixel, samples.length);
+        final int[] argb = new int[count + 1];
+        interpreter.interpretRow(paddedSamples, samplesPerPixel, count, argb, 1);
+
+        final ImageBuilder imageBuilder = new ImageBuilder(count, 1, false);
+        final int[] pixel = new int[samplesPerPixel];
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(samples, i * samplesPerPixel, pixel, 0, samplesPerPixel);
+            interpreter.interpretPixel(imageBuilder, pixel, i, 0);
+            if (imageBuilder.getRgb(i, 0) != argb[i + 1]) {
+                assertEquals(Integer.toHexString(imageBuilder.getRgb(i, 0)), Integer.toHexString(argb[i + 1]), "pixel " + i);
+            }
+        }
+        assertEquals(0, argb[0]);
+    }
+
+    private static int[] randomSamples(final int samplesPerPixel, final int max) {
+        final Random random = new Random(samplesPerPixel);
+        final int[] samples = new int[1000 * samplesPerPixel];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = random.nextInt(max + 1);
+        }
+        return samples;
+    }
+
+    @Test
+    void testBiLevel() throws ImagingException, IOException {
+        for (final boolean invert : new boolean[] { false, true }) {
+            final AbstractPhotometricInterpreter interpreter = new PhotometricInterpreterBiLevel(1, new int[] { 8 }, 1, WIDTH, 1, invert);
+            assertTrue(interpreter.supportsRowInterpretation());
+            assertRowMatchesPixels(interpreter, randomSamples(1, 255));
+        }
+    }
+
+    @Test
+    void testCieLab() throws ImagingException, IOException {
+        final AbstractPhotometricInterpreter interpreter = new PhotometricInterpreterCieLab(3, new int[] { 8, 8, 8 }, 1, WIDTH, 1);
+        final int[] samples = randomSamples(3, 255);
+        // repeated colors come from the cache
+        System.arraycopy(samples, 0, samples, samples.length / 2, samples.length / 2);
+        assertRowMatchesPixels(interpreter, samples);
+    }
+
+    @Test
+    void testCmyk() throws ImagingException, IOException {
+        final AbstractPhotometricInterpreter interpreter = new PhotometricInterpreterCmyk(4, new int[] { 8, 8, 8, 8 }, 1, WIDTH, 1);
+        assertRowMatchesPixels(interpreter, randomSamples(4, 255));
+        // every combination of a color and black sample
+        final int[] samples = new int[4 * WIDTH];
+        for (int i = 0; i < WIDTH; i++) {
+            samples[4 * i] = i >> 8;
+            samples[4 * i + 1] = i & 0xff;
+            samples[4 * i + 2] = 255 - (i >> 8);
+            samples[4 * i + 3] = i & 0xff;
+        }
+        assertRowMatchesPixels(interpreter, samples);
+        assertRowMatchesPixels(interpreter, new int[] { 256, 0, 0, 0, 0, 300, 0, 1 });
+    }
+
+    @Test
+    void testCustomInterpreter() throws ImagingException, IOException {
+        final AbstractPhotometricInterpreter interpreter = new AbstractPhotometricInterpreter(2, new int[] { 8, 8 }, 1, WIDTH, 1) {
+            @Override
+            public void interpretPixel(final ImageBuilder imageBuilder, final int[] samples, final int x, final int y) {
+                imageBuilder.setRgb(x, y, samples[0] << 8 | samples[1]);
+            }
+        };
+        assertFalse(interpreter.supportsRowInterpretation());
+        assertRowMatchesPixels(interpreter, randomSamples(2, 255));
+    }
+
+    @Test
+    void testPalette() throws ImagingException, IOException {
+        final int[] colorMap = new int[3 * 16];
+        for (int i = 0; i < colorMap.length; i++) {
+            colorMap[i] = i * 1000;
+        }
+        final AbstractPhotometricInterpreter interpreter = new PhotometricInterpreterPalette(1, new int[] { 4 }, 1, WIDTH, 1, colorMap);
+        // samples above the palette are masked
+        assertRowMatchesPixels(interpreter, randomSamples(1, 255));
+    }
+
+    @Test
+    void testRgb() throws ImagingException, IOException {
+        assertRowMatchesPixels(new PhotometricInterpreterRgb(3, new int[] { 8, 8, 8 }, 1, WIDTH, 1), randomSamples(3, 255));
+        // an extra sample is skipped
+        assertRowMatchesPixels(new PhotometricInterpreterRgb(4, new int[] { 8, 8, 8, 8 }, 1, WIDTH, 1), randomSamples(4, 255));
+    }
+
+    @Test
+    void testYCbCr() throws ImagingException, IOException {
+        final AbstractPhotometricInterpreter interpreter = new PhotometricInterpreterYCbCr(3, new int[] { 8, 8, 8 }, 1, WIDTH, 1);
+        // every combination of samples
+        final int[] samples = new int[3 * WIDTH];
+        for (int y = 0; y < 256; y++) {
+            for (int i = 0; i < WIDTH; i++) {
+                samples[3 * i] = y;
+                samples[3 * i + 1] = i >> 8;
+                samples[3 * i + 2] = i & 0xff;
+            }
+            assertRowMatchesPixels(interpreter, samples);
+        }
+        assertRowMatchesPixels(interpreter, new int[] { 256, 0, 0, 0, 300, 128 });
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.mylzw;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import org.apache.commons.imaging.ImagingException;
+import org.junit.jupiter.api.Test;
+
+class MyLzwCompressorTest {
+
+    @Test
+    void testByteOutsideCodeSize() {
+        // 2 bit codes cannot start a string with byte 4
+        final byte[] src = { 1, 2, 4, 3 };
+        assertThrows(ImagingException.class, () -> new MyLzwCompressor(2, ByteOrder.LITTLE_ENDIAN, false).compress(src));
+    }
+
+    @Test
+    void testEmpty() {
+        assertThrows(ImagingException.class, () -> new MyLzwCompressor(8, ByteOrder.BIG_ENDIAN, true).compress(new byte[0]));
+    }
+
+    @Test
+    void testFlatColor() throws IOException {
+        final byte[] src = new byte[100_000];
+        for (int i = 0; i < src.length; i++) {
+            src[i] = (byte) (i / 1000 % 5);
+        }
+        final byte[] compressed = new MyLzwCompressor(8, ByteOrder.BIG_ENDIAN, true).compress(src);
+
+        assertArrayEquals(src, new MyLzwDecompressor(8, ByteOrder.BIG_ENDIAN, true).decompress(compressed, src.length));
+    }
+
+    @Test
+    void testReuse() throws IOException {
+        final Random random = new Random(0);
+        final MyLzwCompressor compressor = new MyLzwCompressor(8, ByteOrder.BIG_ENDIAN, true);
+        for (int i = 0; i < 10; i++) {
+            final byte[] src = new byte[random.nextInt(20_000) + 1];
+            random.nextBytes(src);
+
+            final byte[] compressed = compressor.compress(src);
+            assertArrayEquals(new MyLzwCompressor(8, ByteOrder.BIG_ENDIAN, true).compress(src), compressed);
+            assertArrayEquals(src, new MyLzwDecompressor(8, ByteOrder.BIG_ENDIAN, true).decompress(compressed, src.length));
+        }
+    }
+}
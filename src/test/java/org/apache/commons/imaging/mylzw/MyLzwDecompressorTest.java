@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.mylzw;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.imaging.ImagingException;
+import org.junit.jupiter.api.Test;
+
+class MyLzwDecompressorTest {
+
+    private static byte[] randomBytes(final int length, final int codeSize, final long seed) {
+        final Random random = new Random(seed);
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            // mix runs with noise so that both short and long strings are coded
+            bytes[i] = i > 0 && random.nextInt(4) != 0 ? bytes[i - 1] : (byte) random.nextInt(1 << codeSize);
+        }
+        return bytes;
+    }
+
+    private void roundtrip(final int codeSize, final ByteOrder byteOrder, final boolean tiffLZWMode) throws IOException {
+        // long enough to fill the 4096 entry table several times
+        final byte[] src = randomBytes(200_000, codeSize, codeSize);
+        final byte[] compressed = new MyLzwCompressor(codeSize, byteOrder, tiffLZWMode).compress(src);
+
+        assertArrayEquals(src, new MyLzwDecompressor(codeSize, byteOrder, tiffLZWMode).decompress(compressed, src.length));
+        assertArrayEquals(src, new MyLzwDecompressor(codeSize, byteOrder, tiffLZWMode).decompress(new ByteArrayInputStream(compressed), src.length));
+    }
+
+    @Test
+    void testBadCode() throws IOException {
+        // a 9 bit clear code followed by code 300, which is not yet in the table
+        final byte[] compressed = { (byte) 0x80, 0x4b, 0x00 };
+        assertThrows(ImagingException.class, () -> new MyLzwDecompressor(8, ByteOrder.BIG_ENDIAN, true).decompress(compressed, 10));
+    }
+
+    @Test
+    void testGifRoundtrip() throws IOException {
+        for (int codeSize = 2; codeSize <= 8; codeSize++) {
+            roundtrip(codeSize, ByteOrder.LITTLE_ENDIAN, false);
+        }
+    }
+
+    @Test
+    void testInvalidCodeSize() {
+        assertThrows(ImagingException.class, () -> new MyLzwDecompressor(11, ByteOrder.LITTLE_ENDIAN, false));
+    }
+
+    @Test
+    void testStopsAtExpectedLength() throws IOException {
+        final byte[] src = randomBytes(10_000, 8, 0);
+        final byte[] compressed = new MyLzwCompressor(8, ByteOrder.BIG_ENDIAN, true).compress(src);
+
+        final byte[] decompressed = new MyLzwDecompressor(8, ByteOrder.BIG_ENDIAN, true).decompress(compressed, 5_000);
+        // the string that crosses the expected length is written in full
+        assertArrayEquals(Arrays.copyOf(src, decompressed.length), decompressed);
+        assertArrayEquals(Arrays.copyOf(src, 5_000), Arrays.copyOf(decompressed, 5_000));
+    }
+
+    @Test
+    void testTiffRoundtrip() throws IOException {
+        roundtrip(8, ByteOrder.BIG_ENDIAN, true);
+    }
+
+    @Test
+    void testTruncatedData() throws IOException {
+        final byte[] src = randomBytes(10_000, 8, 0);
+        final byte[] compressed = new MyLzwCompressor(8, ByteOrder.BIG_ENDIAN, true).compress(src);
+
+        // TIFF mode treats the end of the data as an end of information code
+        final byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+        final byte[] decompressed = new MyLzwDecompressor(8, ByteOrder.BIG_ENDIAN, true).decompress(truncated, src.length);
+        assertArrayEquals(Arrays.copyOf(src, decompressed.length), decompressed);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.imaging.palette;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for class {@link ColorHistogram}.
+ */
+class ColorHistogramTest {
+
+    private static BufferedImage createImage(final int width, final int height, final int colors) {
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        final Random random = new Random(colors);
+        final int[] palette = new int[colors];
+        for (int i = 0; i < colors; i++) {
+            palette[i] = random.nextInt();
+        }
+        palette[0] = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                // runs of a color, as in screenshots
+                image.setRGB(x, y, palette[x / 3 % 2 == 0 ? 0 : random.nextInt(colors)]);
+            }
+        }
+        return image;
+    }
+
+    private static void assertHistogram(final BufferedImage image, final int mask, final ColorHistogram histogram) {
+        final Map<Integer, Integer> expected = new TreeMap<>();
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                expected.merge(image.getRGB(x, y) & mask, 1, Integer::sum);
+            }
+        }
+        final int[] colors = expected.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        assertArrayEquals(colors, histogram.getColors());
+        assertEquals(expected.size(), histogram.size());
+        for (final Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue().intValue(), histogram.getCount(entry.getKey()));
+        }
+        assertEquals(0, histogram.getCount(0x12345678 & ~mask | 1));
+    }
+
+    @Test
+    void testAddAll() {
+        final ColorHistogram histogram = new ColorHistogram();
+        final ColorHistogram other = new ColorHistogram();
+        for (int i = 0; i < 1000; i++) {
+            histogram.add(i, 1);
+            other.add(-i, 2);
+        }
+        histogram.addAll(other);
+        assertEquals(1999, histogram.size());
+        assertEquals(3, histogram.getCount(0));
+        assertEquals(1, histogram.getCount(999));
+        assertEquals(2, histogram.getCount(-999));
+    }
+
+    @Test
+    void testCount() {
+        for (final int colors : new int[] { 1, 2, 300, 5000 }) {
+            final BufferedImage image = createImage(97, 61, colors);
+            assertHistogram(image, 0xffffffff, ColorHistogram.of(image, 0xffffffff, false, Integer.MAX_VALUE, null));
+            assertHistogram(image, 0xffffff, ColorHistogram.of(image, 0xffffff, false, Integer.MAX_VALUE, null));
+        }
+    }
+
+    @Test
+    void testCountWithExecutor() {
+        final BufferedImage image = createImage(700, 400, 3000);
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            assertHistogram(image, 0xffffffff, ColorHistogram.of(image, 0xffffffff, false, Integer.MAX_VALUE, executor));
+            final ColorHistogram histogram = ColorHistogram.of(image, 0xffffffff, false, Integer.MAX_VALUE, null);
+            assertNull(ColorHistogram.of(image, 0xffffffff, false, histogram.size() - 1, executor));
+            assertNotNull(ColorHistogram.of(image, 0xffffffff, false, histogram.size(), executor));
+
+            final int[] rgbs = ColorHistogram.of(image, 0xffffff, false, Integer.MAX_VALUE, null).getColors();
+            final SimplePalette palette = new PaletteFactory(executor).makeExactRgbPaletteSimple(image, rgbs.length);
+            assertEquals(rgbs.length, palette.length());
+            for (int i = 0; i < rgbs.length; i++) {
+                assertEquals(rgbs[i], palette.getEntry(i));
+            }
+            assertNull(new PaletteFactory(executor).makeExactRgbPaletteSimple(image, rgbs.length - 1));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testExactOpaquePalette() {
+        final List<BufferedImage> images = Arrays.asList(createImage(97, 61, 300), createImage(50, 40, 5));
+        final Set<Integer> expected = new TreeSet<>();
+        for (final BufferedImage image : images) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    // half the pixels are made opaque, so colors appear both opaque and translucent
+                    if ((x + y) % 2 == 0) {
+                        image.setRGB(x, y, image.getRGB(x, y) | 0xff000000);
+                    }
+                    final int argb = image.getRGB(x, y);
+                    if (argb >>> 24 == 0xff) {
+                        expected.add(argb & 0xffffff);
+                    }
+                }
+            }
+        }
+        final SimplePalette palette = new PaletteFactory().makeExactOpaqueRgbPalette(images, expected.size());
+        assertEquals(expected.size(), palette.length());
+        int i = 0;
+        for (final int rgb : expected) {
+            assertEquals(rgb, palette.getEntry(i++));
+        }
+        assertNull(new PaletteFactory().makeExactOpaqueRgbPalette(images, expected.size() - 1));
+    }
+
+    @Test
+    void testMax() {
+        final BufferedImage image = createImage(50, 40, 300);
+        final int size = ColorHistogram.of(image, 0xffffffff, false, Integer.MAX_VALUE, null).size();
+        assertNull(ColorHistogram.of(image, 0xffffffff, false, size - 1, null));
+        assertEquals(size, ColorHistogram.of(image, 0xffffffff, false, size, null).size());
+    }
+}
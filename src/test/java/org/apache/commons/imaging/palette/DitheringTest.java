@@ -17,6 +17,7 @@
 package org.apache.commons.imaging.palette;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.awt.image.BufferedImage;
 import java.util.LinkedList;
@@ -63,4 +64,27 @@ class DitheringTest {
         assertEquals(-1, bufferedImage.getRGB(2, 2));
     }
 
+    @Test
+    void testApplyFloydSteinbergDitheringWithSimplePalette() throws ImagingException {
+        final BufferedImage bufferedImage = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < 16; y++) {
+            for (int x = 0; x < 16; x++) {
+                bufferedImage.setRGB(x, y, 0xff000000 | 0x111111 * x);
+            }
+        }
+        final SimplePalette palette = new SimplePalette(new int[] { 0xff000000, 0xffffffff });
+        Dithering.applyFloydSteinbergDithering(bufferedImage, palette);
+
+        int white = 0;
+        for (int y = 0; y < 16; y++) {
+            for (int x = 0; x < 16; x++) {
+                final int argb = bufferedImage.getRGB(x, y);
+                assertTrue(argb == 0xff000000 || argb == 0xffffffff);
+                white += argb & 1;
+            }
+        }
+        // the mean gray level is kept
+        assertEquals(128, white, 8);
+    }
+
 }
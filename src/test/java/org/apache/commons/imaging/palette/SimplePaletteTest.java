@@ -18,10 +18,74 @@ package org.apache.commons.imaging.palette;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.util.Random;
+
 import org.junit.jupiter.api.Test;
 
 class SimplePaletteTest {
 
+    private static int getLinearIndex(final int[] palette, final int argb) {
+        for (int i = 0; i < palette.length; i++) {
+            if (palette[i] == argb) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int getNearestLinearIndex(final int[] palette, final int argb) {
+        int best = -1;
+        long bestDistance = Long.MAX_VALUE;
+        for (int i = 0; i < palette.length; i++) {
+            long distance = 0;
+            for (int shift = 0; shift < 32; shift += 8) {
+                final int difference = (0xff & argb >>> shift) - (0xff & palette[i] >>> shift);
+                distance += difference * difference;
+            }
+            if (distance < bestDistance) {
+                best = i;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    @Test
+    void testGetNearestPaletteIndex() {
+        final Random random = new Random(19);
+        for (final int length : new int[] { 1, 2, 7, 256, 1000 }) {
+            final int[] palette = new int[length];
+            for (int i = 0; i < length; i++) {
+                // few distinct components, so that there are ties and duplicates
+                palette[i] = random.nextInt(4) * 0x40000000 | random.nextInt(8) * 0x200000 | random.nextInt(256) << 8 | random.nextInt(8) * 0x20;
+            }
+            final SimplePalette simplePalette = new SimplePalette(palette);
+            for (int i = 0; i < 5000; i++) {
+                final int argb = random.nextInt();
+                assertEquals(getNearestLinearIndex(palette, argb), simplePalette.getNearestPaletteIndex(argb));
+            }
+            for (final int argb : palette) {
+                assertEquals(getLinearIndex(palette, argb), simplePalette.getNearestPaletteIndex(argb));
+            }
+        }
+        assertEquals(-1, new SimplePalette(new int[0]).getNearestPaletteIndex(0));
+    }
+
+    @Test
+    void testGetPaletteIndex() {
+        final Random random = new Random(17);
+        for (final int length : new int[] { 0, 1, 2, 3, 255, 256, 4096, 70000 }) {
+            final int[] palette = new int[length];
+            for (int i = 0; i < length; i++) {
+                palette[i] = random.nextInt(length * 2 + 1) - length;
+            }
+            final SimplePalette simplePalette = new SimplePalette(palette);
+            for (int argb = -length - 2; argb <= length + 2; argb++) {
+                assertEquals(getLinearIndex(palette, argb), simplePalette.getPaletteIndex(argb));
+            }
+        }
+    }
+
     @Test
     void testGetPaletteIndexReturningNegative() {
 